@@ -0,0 +1,55 @@
+package ognl.benchmarks;
+
+import ognl.FastOgnlParser;
+import ognl.Node;
+import ognl.OgnlParser;
+import ognl.ParseException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares parsing with the JavaCC generated {@link OgnlParser} and the hand-written {@link FastOgnlParser}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.AverageTime, Mode.Throughput})
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(value = 1, warmups = 1, jvmArgs = {
+        "--add-opens=java.base/java.lang=ALL-UNNAMED",
+        "--add-opens=java.base/java.lang.reflect=ALL-UNNAMED",
+        "--add-opens=java.base/java.util=ALL-UNNAMED"
+})
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class OgnlParserBenchmarks {
+
+    @Param({
+            "bean2",
+            "bean2.bean3.value <= 24",
+            "bean2.bean3.map['foo']",
+            "list.{? #this.enabled && #this.name != null}.{name}[0]",
+            "@java.lang.Math@max(#a * 2 + 1, new java.util.ArrayList(10).size()) == #{'k' : \"v\"}['k'].length()"
+    })
+    private String expression;
+
+    @Benchmark
+    public Node<?> parseJavaCC() throws ParseException {
+        return new OgnlParser(new StringReader(expression)).topLevelExpression();
+    }
+
+    @Benchmark
+    public Node<?> parseHandWritten() throws ParseException {
+        return FastOgnlParser.parse(expression);
+    }
+
+}
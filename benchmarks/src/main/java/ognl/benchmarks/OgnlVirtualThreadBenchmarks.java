@@ -0,0 +1,142 @@
+package ognl.benchmarks;
+
+import ognl.DefaultMemberAccess;
+import ognl.Ognl;
+import ognl.OgnlContext;
+import ognl.OgnlException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs 100k concurrent evaluations per operation, each on its own thread, to spot carrier thread pinning on the
+ * evaluation paths. With {@code threads=virtual} each evaluation runs on a virtual thread when the JVM supports them
+ * (Java 21+), on older JVMs the benchmark falls back to a pool of platform threads as {@code threads=platform} does.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 1, warmups = 1, jvmArgs = {
+        "--add-opens=java.base/java.lang=ALL-UNNAMED",
+        "--add-opens=java.base/java.lang.reflect=ALL-UNNAMED",
+        "--add-opens=java.base/java.util=ALL-UNNAMED"
+})
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class OgnlVirtualThreadBenchmarks {
+
+    private static final int EVALUATIONS = 100_000;
+
+    private static final String[] EXPRESSIONS = {
+            "bean.value",
+            "bean.map['foo']",
+            "bean.value <= 24",
+            "bean.describe(#index)",
+            "bean.secret()"
+    };
+
+    @Param({"virtual", "platform"})
+    public String threads;
+
+    private ExecutorService executor;
+    private Object[] expressions;
+    private StressRootBean root;
+
+    @Setup(Level.Trial)
+    public void setup() throws OgnlException {
+        executor = "virtual".equals(threads) ? newVirtualThreadExecutor() : null;
+        if (executor == null) {
+            executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors() * 4);
+        }
+        expressions = new Object[EXPRESSIONS.length];
+        for (int i = 0; i < EXPRESSIONS.length; i++) {
+            expressions[i] = Ognl.parseExpression(EXPRESSIONS[i]);
+        }
+        root = new StressRootBean();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        executor.shutdown();
+    }
+
+    @Benchmark
+    public void concurrentEvaluations(Blackhole blackhole) throws Exception {
+        List<Future<Object>> results = new ArrayList<>(EVALUATIONS);
+        for (int i = 0; i < EVALUATIONS; i++) {
+            Object expression = expressions[i % expressions.length];
+            int index = i;
+            results.add(executor.submit(() -> {
+                OgnlContext context = Ognl.createDefaultContext(root, new DefaultMemberAccess(true));
+                context.put("index", index);
+                return Ognl.getValue(expression, context, root);
+            }));
+        }
+        for (Future<Object> result : results) {
+            blackhole.consume(result.get());
+        }
+    }
+
+    /**
+     * Looks the factory up reflectively, so the module keeps compiling for Java 17.
+     */
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    public static class StressRootBean {
+        private final StressLeafBean bean = new StressLeafBean();
+
+        public StressLeafBean getBean() {
+            return bean;
+        }
+    }
+
+    public static class StressLeafBean {
+        private final Map<String, String> map = Map.of("foo", "bar");
+
+        public int getValue() {
+            return 20;
+        }
+
+        public Map<String, String> getMap() {
+            return map;
+        }
+
+        public String describe(int index) {
+            return "int " + index;
+        }
+
+        public String describe(String index) {
+            return "String " + index;
+        }
+
+        // invoked through the accessible copy kept by OgnlRuntime
+        private String secret() {
+            return "secret";
+        }
+    }
+}
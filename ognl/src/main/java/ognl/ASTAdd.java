@@ -103,6 +103,12 @@ public class ASTAdd<C extends OgnlContext<C>> extends NumericExpression<C> {
 
     public String toGetSourceString(C context, Object target) {
         try {
+            String bigNumberSource = BigNumberCompiler.toArithmeticSource(this, context, target);
+            if (bigNumberSource != null) {
+                getterClass = context.getCurrentType();
+                return bigNumberSource;
+            }
+
             StringBuilder result = new StringBuilder();
             NodeType lastType = null;
 
@@ -250,6 +250,11 @@ public class ASTChain<C extends OgnlContext<C>> extends SimpleNode<C> implements
         return setterClass;
     }
 
+    @Override
+    Object internState(NodeInterner interner) {
+        return nullSafe;
+    }
+
     @Override
     public String toString() {
         StringBuilder result = new StringBuilder();
@@ -300,12 +305,16 @@ public class ASTChain<C extends OgnlContext<C>> extends SimpleNode<C> implements
                     }
 
                     if (!(child instanceof ASTVarRef) && !constructor
+                            && !ExpressionCompiler.isElementLoop(child)
                             && !(child instanceof OrderedReturn orderedReturn && orderedReturn.getLastExpression() != null)
                             && (!(parent instanceof ASTSequence))) {
                         value = OgnlRuntime.getCompiler().castExpression(context, child, value);
                     }
 
-                    if (child instanceof OrderedReturn or && or.getLastExpression() != null) {
+                    if (ExpressionCompiler.isElementLoop(child)) {
+                        // the loop gets the chain evaluated so far as its source
+                        result = value;
+                    } else if (child instanceof OrderedReturn or && or.getLastExpression() != null) {
                         ordered = true;
 
                         if (or.getCoreExpression() == null || or.getCoreExpression().trim().isEmpty())
@@ -73,6 +73,19 @@ public class ASTConst<C extends OgnlContext<C>> extends SimpleNode<C> implements
         return null;
     }
 
+    @Override
+    Object internState(NodeInterner interner) {
+        if (value instanceof Node) {
+            // a lambda expression, keep referring to the (interned) child holding it
+            value = children[0];
+            return Node.class;
+        }
+        if (value instanceof String) {
+            value = interner.intern((String) value);
+        }
+        return value;
+    }
+
     public String toString() {
         String result;
 
@@ -124,6 +137,11 @@ public class ASTConst<C extends OgnlContext<C>> extends SimpleNode<C> implements
             context.setCurrentObject(value);
 
             return value.toString();
+        } else if (value instanceof BigInteger || value instanceof BigDecimal) {
+            context.setCurrentType(value.getClass());
+            context.setCurrentObject(value);
+
+            return BigNumberCompiler.getConstantSource((Number) value);
         } else if (Number.class.isAssignableFrom(value.getClass())) {
             context.setCurrentType(OgnlRuntime.getPrimitiveWrapperClass(value.getClass()));
             context.setCurrentObject(value);
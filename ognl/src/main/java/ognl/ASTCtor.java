@@ -23,6 +23,7 @@ import ognl.enhance.ExpressionCompiler;
 import java.io.Serial;
 import java.lang.reflect.Array;
 import java.lang.reflect.Constructor;
+import java.util.Arrays;
 import java.util.List;
 
 public class ASTCtor<C extends OgnlContext<C>> extends SimpleNode<C> {
@@ -32,6 +33,8 @@ public class ASTCtor<C extends OgnlContext<C>> extends SimpleNode<C> {
 
     private String className;
     private boolean isArray;
+    private volatile transient ResolvedConstructor resolvedConstructor;
+    private volatile transient ComponentType componentType;
 
     public ASTCtor(int id) {
         super(id);
@@ -48,6 +51,10 @@ public class ASTCtor<C extends OgnlContext<C>> extends SimpleNode<C> {
         this.className = className;
     }
 
+    String getClassName() {
+        return className;
+    }
+
     Class<?> getCreatedClass(C context) throws ClassNotFoundException {
         return OgnlRuntime.classForName(context, className);
     }
@@ -72,7 +79,8 @@ public class ASTCtor<C extends OgnlContext<C>> extends SimpleNode<C> {
         if (isArray) {
             if (args.length == 1) {
                 try {
-                    Class<?> componentClass = OgnlRuntime.classForName(context, className);
+                    ComponentType component = getComponentType(context);
+                    Class<?> componentClass = component.type;
                     List<?> sourceList = null;
                     int size;
 
@@ -89,12 +97,10 @@ public class ASTCtor<C extends OgnlContext<C>> extends SimpleNode<C> {
                         for (int i = 0, icount = sourceList.size(); i < icount; i++) {
                             Object o = sourceList.get(i);
 
-                            if ((o == null) || componentClass.isInstance(o)) {
-                                Array.set(result, i, o);
-                            } else {
-                                Array.set(result, i, converter.convertValue(context, null, null, null, o,
-                                        componentClass));
+                            if ((o != null) && !component.accepts(o)) {
+                                o = converter.convertValue(context, null, null, null, o, componentClass);
                             }
+                            component.access.set(result, i, o);
                         }
                     }
                 } catch (ClassNotFoundException ex) {
@@ -104,12 +110,45 @@ public class ASTCtor<C extends OgnlContext<C>> extends SimpleNode<C> {
                 throw new OgnlException("only expect array size or fixed initializer list");
             }
         } else {
-            result = OgnlRuntime.callConstructor(context, className, args);
+            ResolvedConstructor constructor = resolvedConstructor;
+
+            if (constructor == null || !constructor.matches(context, args)) {
+                constructor = ResolvedConstructor.resolve(context, className, args);
+                if (constructor == null) {
+                    // arguments needing conversion, or failures reported by the runtime
+                    return OgnlRuntime.callConstructor(context, className, args);
+                }
+                resolvedConstructor = constructor;
+            }
+            result = constructor.newInstance(context, className, args);
         }
 
         return result;
     }
 
+    /**
+     * Returns the component type of the created array, resolved again when the context uses another class resolver.
+     */
+    private ComponentType getComponentType(C context) throws ClassNotFoundException {
+        ComponentType component = componentType;
+
+        if (component == null || component.classResolver != context.getClassResolver()) {
+            component = new ComponentType(context.getClassResolver(), OgnlRuntime.classForName(context, className));
+            componentType = component;
+        }
+        return component;
+    }
+
+    ResolvedConstructor getResolvedConstructor() {
+        return resolvedConstructor;
+    }
+
+    @Override
+    Object internState(NodeInterner interner) {
+        className = interner.intern(className);
+        return Arrays.asList(className, isArray);
+    }
+
     public String toString() {
         StringBuilder result = new StringBuilder("new " + className);
 
@@ -292,4 +331,26 @@ public class ASTCtor<C extends OgnlContext<C>> extends SimpleNode<C> {
     public String toSetSourceString(C context, Object target) {
         return "";
     }
+
+    private static final class ComponentType {
+
+        final ClassResolver<?> classResolver;
+        final Class<?> type;
+        final Class<?> elementType;
+        final ArrayAccess access;
+
+        ComponentType(ClassResolver<?> classResolver, Class<?> type) {
+            this.classResolver = classResolver;
+            this.type = type;
+            this.elementType = type.isPrimitive() ? OgnlRuntime.getPrimitiveWrapperClass(type) : type;
+            this.access = ArrayAccess.forComponentType(type);
+        }
+
+        /**
+         * Tells whether an element can be stored without conversion, boxed values of primitive component types too.
+         */
+        boolean accepts(Object element) {
+            return elementType.isInstance(element);
+        }
+    }
 }
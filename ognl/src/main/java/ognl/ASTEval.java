@@ -41,7 +41,7 @@ public class ASTEval<C extends OgnlContext<C>> extends SimpleNode<C> {
 
         source = children[1].getValue(context, source);
         @SuppressWarnings("unchecked")
-        Node<C> node = (expr instanceof Node) ? (Node<C>) expr : (Node<C>) Ognl.parseExpression(expr.toString());
+        Node<C> node = (expr instanceof Node) ? (Node<C>) expr : (Node<C>) Ognl.parseCachedExpression(expr.toString());
         try {
             context.setRoot(source);
             result = node.getValue(context, source);
@@ -57,7 +57,7 @@ public class ASTEval<C extends OgnlContext<C>> extends SimpleNode<C> {
 
         target = children[1].getValue(context, target);
         @SuppressWarnings("unchecked")
-        Node<C> node = (expr instanceof Node) ? (Node<C>) expr : (Node<C>) Ognl.parseExpression(expr.toString());
+        Node<C> node = (expr instanceof Node) ? (Node<C>) expr : (Node<C>) Ognl.parseCachedExpression(expr.toString());
         try {
             context.setRoot(target);
             node.setValue(context, target, value);
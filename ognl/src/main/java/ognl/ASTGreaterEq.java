@@ -36,6 +36,10 @@ public class ASTGreaterEq<C extends OgnlContext<C>> extends ComparisonExpression
     protected Object getValueBody(C context, Object source) throws OgnlException {
         Object v1 = children[0].getValue(context, source);
         Object v2 = children[1].getValue(context, source);
+        int comparison = specializedCompare(context, v1, v2);
+        if (comparison != GENERIC_COMPARISON) {
+            return comparison < 0 ? Boolean.FALSE : Boolean.TRUE;
+        }
         return OgnlOps.less(v1, v2) ? Boolean.FALSE : Boolean.TRUE;
     }
 
@@ -39,11 +39,21 @@ public class ASTInstanceof<C extends OgnlContext<C>> extends SimpleNode<C> imple
         this.targetType = targetType;
     }
 
+    String getTargetType() {
+        return targetType;
+    }
+
     protected Object getValueBody(C context, Object source) throws OgnlException {
         Object value = children[0].getValue(context, source);
         return OgnlRuntime.isInstance(context, value, targetType) ? Boolean.TRUE : Boolean.FALSE;
     }
 
+    @Override
+    Object internState(NodeInterner interner) {
+        targetType = interner.intern(targetType);
+        return targetType;
+    }
+
     public String toString() {
         return children[0] + " instanceof " + targetType;
     }
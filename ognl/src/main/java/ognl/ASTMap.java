@@ -43,6 +43,10 @@ public class ASTMap<C extends OgnlContext<C>> extends SimpleNode<C> {
         className = value;
     }
 
+    String getClassName() {
+        return className;
+    }
+
     protected Object getValueBody(C context, Object source) throws OgnlException {
         Map<Object, Object> answer;
 
@@ -66,6 +70,12 @@ public class ASTMap<C extends OgnlContext<C>> extends SimpleNode<C> {
         return answer;
     }
 
+    @Override
+    Object internState(NodeInterner interner) {
+        className = interner.intern(className);
+        return className;
+    }
+
     public String toString() {
         StringBuilder result = new StringBuilder("#");
 
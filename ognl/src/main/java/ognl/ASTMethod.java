@@ -71,6 +71,9 @@ public class ASTMethod<C extends OgnlContext<C>> extends SimpleNode<C> implement
             args[i] = children[i].getValue(context, root);
         }
 
+        if (context.isMemoizing()) {
+            MemoizedResults.checkMethodTarget(context, source);
+        }
         result = OgnlRuntime.callMethod(context, source, methodName, args);
 
         if (result == null) {
@@ -98,6 +101,12 @@ public class ASTMethod<C extends OgnlContext<C>> extends SimpleNode<C> implement
         return getterClass;
     }
 
+    @Override
+    Object internState(NodeInterner interner) {
+        methodName = interner.intern(methodName);
+        return methodName;
+    }
+
     public String toString() {
         StringBuilder result = new StringBuilder(methodName);
 
@@ -42,6 +42,16 @@ public class ASTNegate<C extends OgnlContext<C>> extends NumericExpression<C> {
     }
 
     public String toGetSourceString(C context, Object target) {
+        try {
+            String bigNumberSource = BigNumberCompiler.toArithmeticSource(this, context, target);
+            if (bigNumberSource != null) {
+                getterClass = context.getCurrentType();
+                return bigNumberSource;
+            }
+        } catch (OgnlException e) {
+            throw OgnlOps.castToRuntime(e);
+        }
+
         String source = children[0].toGetSourceString(context, target);
 
         if (!(children[0] instanceof ASTNegate)) {
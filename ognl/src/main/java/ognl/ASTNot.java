@@ -41,6 +41,10 @@ public class ASTNot<C extends OgnlContext<C>> extends BooleanExpression<C> {
         return "!";
     }
 
+    public String toString() {
+        return "!" + children[0];
+    }
+
     public String toGetSourceString(C context, Object target) {
         try {
 
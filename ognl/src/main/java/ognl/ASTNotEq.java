@@ -37,6 +37,10 @@ public class ASTNotEq<C extends OgnlContext<C>> extends ComparisonExpression<C>
         Object v1 = children[0].getValue(context, source);
         Object v2 = children[1].getValue(context, source);
 
+        int comparison = specializedCompare(context, v1, v2);
+        if (comparison != GENERIC_COMPARISON) {
+            return comparison == 0 ? Boolean.FALSE : Boolean.TRUE;
+        }
         return OgnlOps.equal(v1, v2) ? Boolean.FALSE : Boolean.TRUE;
     }
 
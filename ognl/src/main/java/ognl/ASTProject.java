@@ -45,6 +45,13 @@ public class ASTProject<C extends OgnlContext<C>> extends SimpleNode<C> {
 
         ElementsAccessor elementsAccessor = OgnlRuntime.getElementsAccessor(OgnlRuntime.getTargetClass(source));
 
+        if (elementsAccessor.getClass() == ArrayElementsAccessor.class) {
+            ArrayElementsAccessor array = (ArrayElementsAccessor) elementsAccessor;
+            for (int i = 0, count = array.getLength(source); i < count; i++) {
+                answer.add(expr.getValue(context, array.get(source, i)));
+            }
+            return answer;
+        }
         for (Enumeration<?> e = elementsAccessor.getElements(source); e.hasMoreElements(); ) {
             answer.add(expr.getValue(context, e.nextElement()));
         }
@@ -57,7 +64,7 @@ public class ASTProject<C extends OgnlContext<C>> extends SimpleNode<C> {
     }
 
     public String toGetSourceString(C context, Object target) {
-        throw new UnsupportedCompilationException("Projection expressions not supported as native java yet.");
+        return ElementLoopCompiler.toGetSourceString(this, ElementLoopCompiler.Kind.PROJECT, context, target);
     }
 
     public String toSetSourceString(C context, Object target) {
@@ -25,6 +25,7 @@ import java.beans.IndexedPropertyDescriptor;
 import java.beans.PropertyDescriptor;
 import java.io.Serial;
 import java.lang.reflect.Method;
+import java.util.Arrays;
 import java.util.Iterator;
 
 public class ASTProperty<C extends OgnlContext<C>> extends SimpleNode<C> implements NodeType {
@@ -35,6 +36,15 @@ public class ASTProperty<C extends OgnlContext<C>> extends SimpleNode<C> impleme
     private boolean indexedAccess = false;
     private Class<?> getterClass;
     private Class<?> setterClass;
+    /**
+     * Maximum number of classes of sources a property node specializes on before using the generic evaluation.
+     */
+    static final int MAX_SPECIALIZATIONS = 4;
+
+    private static final PropertySpecialization[] GENERIC = {PropertySpecialization.GENERIC};
+
+    // copied on write, null until the first evaluation
+    private volatile transient PropertySpecialization[] specializations;
 
     public ASTProperty(int id) {
         super(id);
@@ -92,9 +102,105 @@ public class ASTProperty<C extends OgnlContext<C>> extends SimpleNode<C> impleme
 
     protected Object getValueBody(C context, Object source)
             throws OgnlException {
+        if ((context.isSpecializeNodes() || isBound()) && !context.isTraceEvaluations()) {
+            return getSpecializedValue(context, source);
+        }
+        return getGenericValue(context, source);
+    }
+
+    private boolean isBound() {
+        PropertySpecialization[] current = specializations;
+        return current != null && current[0].isBound();
+    }
+
+    /**
+     * Reads the property with the specialization made for the class of the source. A source of another class
+     * adds a specialization, until {@link #MAX_SPECIALIZATIONS} classes were seen or a property accessor was
+     * registered, after which the generic evaluation is used for good, unless a specialization was bound by
+     * {@link #bind(PropertySpecialization)}.
+     */
+    private Object getSpecializedValue(C context, Object source) throws OgnlException {
+        PropertySpecialization[] current = specializations;
+        if (current == GENERIC) {
+            return getGenericValue(context, source);
+        }
+        if (current != null) {
+            // same side effects as evaluating the constant name
+            if (context.isEvaluationStateTracked()) {
+                context.setCurrentObject(context.getRoot());
+                context.setCurrentNode(children[0]);
+            }
+            for (PropertySpecialization specialization : current) {
+                Object result = specialization.getValue(context, source);
+                if (result == PropertySpecialization.DECLINED) {
+                    return getGenericValue(context, source);
+                }
+                if (result != PropertySpecialization.MISS) {
+                    if (result == null) {
+                        Object property = ((ASTConst<C>) children[0]).getValue();
+                        NullHandler<C> nullHandler = OgnlRuntime.getNullHandler(OgnlRuntime.getTargetClass(source));
+                        result = nullHandler.nullPropertyValue(context, source, property);
+                    }
+                    return result;
+                }
+            }
+        }
+        Object result = getGenericValue(context, source);
+        if (source != null) {
+            specialize(current, source);
+        }
+        return result;
+    }
+
+    private void specialize(PropertySpecialization[] current, Object source) throws OgnlException {
+        boolean bound = current != null && current[0].isBound();
+        if (current != null && !bound && (current.length == MAX_SPECIALIZATIONS || !current[0].isCurrent())) {
+            specializations = GENERIC;
+            return;
+        }
+        if (current != null && current.length == MAX_SPECIALIZATIONS) {
+            return;
+        }
+        PropertySpecialization created = PropertySpecialization.create(this, source);
+        if (created == PropertySpecialization.GENERIC) {
+            specializations = GENERIC;
+        } else if (current == null) {
+            specializations = new PropertySpecialization[]{created};
+        } else {
+            PropertySpecialization[] extended = Arrays.copyOf(current, current.length + 1);
+            extended[current.length] = created;
+            specializations = extended;
+        }
+    }
+
+    /**
+     * Returns the specialization made for the first class of sources observed, or bound to this node.
+     */
+    PropertySpecialization getSpecialization() {
+        PropertySpecialization[] current = specializations;
+        return current != null ? current[0] : null;
+    }
+
+    /**
+     * Returns the number of classes of sources this node is specialized on.
+     */
+    int getSpecializationCount() {
+        PropertySpecialization[] current = specializations;
+        return current == null || current == GENERIC ? 0 : current.length;
+    }
+
+    /**
+     * Reads this property with the given specialization whether or not nodes are specialized by the context,
+     * see {@link BoundExpression}.
+     */
+    void bind(PropertySpecialization specialization) {
+        this.specializations = new PropertySpecialization[]{specialization};
+    }
+
+    private Object getGenericValue(C context, Object source) throws OgnlException {
         Object property = getProperty(context, source);
 
-        Object result = OgnlRuntime.getProperty(context, source, property);
+        Object result = OgnlRuntime.getProperty(context, source, property, isIndexedAccess());
 
         if (result == null) {
             NullHandler<C> nullHandler = OgnlRuntime.getNullHandler(OgnlRuntime.getTargetClass(source));
@@ -122,6 +228,11 @@ public class ASTProperty<C extends OgnlContext<C>> extends SimpleNode<C> impleme
         return setterClass;
     }
 
+    @Override
+    Object internState(NodeInterner interner) {
+        return indexedAccess;
+    }
+
     public String toString() {
         String result;
 
@@ -222,7 +333,7 @@ public class ASTProperty<C extends OgnlContext<C>> extends SimpleNode<C> impleme
             PropertyDescriptor pd = OgnlRuntime.getPropertyDescriptor(context.getCurrentObject().getClass(), name);
 
             if (pd != null && pd.getReadMethod() != null
-                    && !context.getMemberAccess().isAccessible(context, context.getCurrentObject(), pd.getReadMethod(), name)) {
+                    && !OgnlRuntime.isAccessible(context, context.getCurrentObject(), pd.getReadMethod(), name)) {
                 throw new UnsupportedCompilationException("Member access forbidden for property " + name + " on class " + context.getCurrentObject().getClass());
             }
 
@@ -430,7 +541,7 @@ public class ASTProperty<C extends OgnlContext<C>> extends SimpleNode<C> impleme
             if (pd != null) {
                 Method pdMethod = lastChild(context) ? pd.getWriteMethod() : pd.getReadMethod();
 
-                if (pdMethod != null && !context.getMemberAccess().isAccessible(context, context.getCurrentObject(), pdMethod, name)) {
+                if (pdMethod != null && !OgnlRuntime.isAccessible(context, context.getCurrentObject(), pdMethod, name)) {
                     throw new UnsupportedCompilationException("Member access forbidden for property " + name + " on class " + context.getCurrentObject().getClass());
                 }
             }
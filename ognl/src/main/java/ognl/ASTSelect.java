@@ -44,6 +44,16 @@ public class ASTSelect<C extends OgnlContext<C>> extends SimpleNode<C> {
 
         ElementsAccessor elementsAccessor = OgnlRuntime.getElementsAccessor(OgnlRuntime.getTargetClass(source));
 
+        if (elementsAccessor.getClass() == ArrayElementsAccessor.class) {
+            ArrayElementsAccessor array = (ArrayElementsAccessor) elementsAccessor;
+            for (int i = 0, count = array.getLength(source); i < count; i++) {
+                Object next = array.get(source, i);
+                if (OgnlOps.booleanValue(expr.getValue(context, next))) {
+                    answer.add(next);
+                }
+            }
+            return answer;
+        }
         for (Enumeration<?> e = elementsAccessor.getElements(source); e.hasMoreElements(); ) {
             Object next = e.nextElement();
             if (OgnlOps.booleanValue(expr.getValue(context, next))) {
@@ -59,7 +69,7 @@ public class ASTSelect<C extends OgnlContext<C>> extends SimpleNode<C> {
     }
 
     public String toGetSourceString(C context, Object target) {
-        throw new UnsupportedCompilationException("Eval expressions not supported as native java yet.");
+        return ElementLoopCompiler.toGetSourceString(this, ElementLoopCompiler.Kind.SELECT, context, target);
     }
 
     public String toSetSourceString(C context, Object target) {
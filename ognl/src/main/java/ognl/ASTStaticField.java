@@ -21,6 +21,7 @@ package ognl;
 import java.io.Serial;
 import java.lang.reflect.Field;
 import java.lang.reflect.Modifier;
+import java.util.Arrays;
 
 public class ASTStaticField<C extends OgnlContext<C>> extends SimpleNode<C> implements NodeType {
 
@@ -30,6 +31,7 @@ public class ASTStaticField<C extends OgnlContext<C>> extends SimpleNode<C> impl
     private String className;
     private String fieldName;
     private Class<?> getterClass;
+    private volatile transient ResolvedStaticField resolvedField;
 
     public ASTStaticField(int id) {
         super(id);
@@ -47,8 +49,30 @@ public class ASTStaticField<C extends OgnlContext<C>> extends SimpleNode<C> impl
         this.fieldName = fieldName;
     }
 
+    String getClassName() {
+        return className;
+    }
+
+    String getFieldName() {
+        return fieldName;
+    }
+
     protected Object getValueBody(C context, Object source) throws OgnlException {
-        return OgnlRuntime.getStaticField(context, className, fieldName);
+        ResolvedStaticField field = resolvedField;
+
+        if (field == null || !field.matches(context)) {
+            field = ResolvedStaticField.resolve(context, className, fieldName);
+            if (field == null) {
+                // failures reported by the runtime
+                return OgnlRuntime.getStaticField(context, className, fieldName);
+            }
+            resolvedField = field;
+        }
+        return field.getValue(context);
+    }
+
+    ResolvedStaticField getResolvedField() {
+        return resolvedField;
     }
 
     public boolean isNodeConstant(C context) throws OgnlException {
@@ -121,6 +145,13 @@ public class ASTStaticField<C extends OgnlContext<C>> extends SimpleNode<C> impl
         return getterClass;
     }
 
+    @Override
+    Object internState(NodeInterner interner) {
+        className = interner.intern(className);
+        fieldName = interner.intern(fieldName);
+        return Arrays.asList(className, fieldName);
+    }
+
     public String toString() {
         return "@" + className + "@" + fieldName;
     }
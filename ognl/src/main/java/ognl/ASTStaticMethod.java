@@ -23,6 +23,7 @@ import ognl.enhance.UnsupportedCompilationException;
 
 import java.io.Serial;
 import java.lang.reflect.Method;
+import java.util.Arrays;
 import java.util.Objects;
 
 public class ASTStaticMethod<C extends OgnlContext<C>> extends SimpleNode<C> implements NodeType {
@@ -33,6 +34,7 @@ public class ASTStaticMethod<C extends OgnlContext<C>> extends SimpleNode<C> imp
     private String className;
     private String methodName;
     private Class<?> getterClass;
+    private volatile transient ResolvedStaticMethod resolvedMethod;
 
     public ASTStaticMethod(int id) {
         super(id);
@@ -50,6 +52,14 @@ public class ASTStaticMethod<C extends OgnlContext<C>> extends SimpleNode<C> imp
         this.methodName = methodName;
     }
 
+    String getClassName() {
+        return className;
+    }
+
+    String getMethodName() {
+        return methodName;
+    }
+
     protected Object getValueBody(C context, Object source) throws OgnlException {
         Object[] args = new Object[jjtGetNumChildren()];
         Object root = context.getRoot();
@@ -58,7 +68,21 @@ public class ASTStaticMethod<C extends OgnlContext<C>> extends SimpleNode<C> imp
             args[i] = children[i].getValue(context, root);
         }
 
-        return OgnlRuntime.callStaticMethod(context, className, methodName, args);
+        ResolvedStaticMethod method = resolvedMethod;
+
+        if (method == null || !method.matches(context, args)) {
+            method = ResolvedStaticMethod.resolve(context, className, methodName, args);
+            if (method == null) {
+                // arguments needing conversion, custom method accessors or failures reported by the runtime
+                return OgnlRuntime.callStaticMethod(context, className, methodName, args);
+            }
+            resolvedMethod = method;
+        }
+        return method.invoke(context, methodName, args);
+    }
+
+    ResolvedStaticMethod getResolvedMethod() {
+        return resolvedMethod;
     }
 
     public Class<?> getGetterClass() {
@@ -69,6 +93,13 @@ public class ASTStaticMethod<C extends OgnlContext<C>> extends SimpleNode<C> imp
         return getterClass;
     }
 
+    @Override
+    Object internState(NodeInterner interner) {
+        className = interner.intern(className);
+        methodName = interner.intern(methodName);
+        return Arrays.asList(className, methodName);
+    }
+
     public String toString() {
         StringBuilder result = new StringBuilder("@" + className + "@" + methodName);
 
@@ -96,7 +127,7 @@ public class ASTStaticMethod<C extends OgnlContext<C>> extends SimpleNode<C> imp
                 throw new UnsupportedCompilationException("Unable to find class/method combo " + className + " / " + methodName);
             }
 
-            if (!context.getMemberAccess().isAccessible(context, clazz, m, methodName)) {
+            if (!OgnlRuntime.isAccessible(context, clazz, m, methodName)) {
                 throw new UnsupportedCompilationException("Method is not accessible, check your jvm runtime security settings. " +
                         "For static class method " + className + " / " + methodName);
             }
@@ -36,7 +36,7 @@ public class ASTThisVarRef<C extends OgnlContext<C>> extends ASTVarRef<C> {
     }
 
     protected Object getValueBody(C context, Object source) throws OgnlException {
-        return context.getCurrentObject();
+        return source;
     }
 
     protected void setValueBody(C context, Object target, Object value) throws OgnlException {
@@ -48,7 +48,19 @@ public class ASTThisVarRef<C extends OgnlContext<C>> extends ASTVarRef<C> {
     }
 
     public String toGetSourceString(C context, Object target) {
-        throw new UnsupportedCompilationException("Unable to compile this references.");
+        String element = (String) context.get(ElementLoopCompiler.THIS_ELEMENT);
+        if (element == null) {
+            throw new UnsupportedCompilationException("Unable to compile this references.");
+        }
+
+        // within a compiled projection or selection the root is the element
+        Object value = context.getRoot();
+        getterClass = value.getClass();
+        context.setCurrentType(getterClass);
+        context.setCurrentAccessor(getterClass);
+        context.setCurrentObject(value);
+
+        return element;
     }
 
     public String toSetSourceString(C context, Object target) {
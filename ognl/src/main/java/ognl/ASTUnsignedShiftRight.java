@@ -47,6 +47,12 @@ public class ASTUnsignedShiftRight<C extends OgnlContext<C>> extends NumericExpr
         String result;
 
         try {
+            String bigNumberSource = BigNumberCompiler.toArithmeticSource(this, context, target);
+            if (bigNumberSource != null) {
+                getterClass = context.getCurrentType();
+                return bigNumberSource;
+            }
+
             String child1 = OgnlRuntime.getChildSource(context, target, children[0]);
             child1 = coerceToNumeric(child1, context, children[0]);
 
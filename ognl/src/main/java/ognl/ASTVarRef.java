@@ -29,6 +29,7 @@ public class ASTVarRef<C extends OgnlContext<C>> extends SimpleNode<C> implement
     private static final long serialVersionUID = -3144828856498560444L;
 
     private String name;
+    private volatile transient ContextVariables.Slot slot; // null until bound
 
     protected Class<?> getterClass;
     protected String core;
@@ -47,11 +48,23 @@ public class ASTVarRef<C extends OgnlContext<C>> extends SimpleNode<C> implement
     }
 
     protected Object getValueBody(C context, Object source) throws OgnlException {
-        return context.get(name);
+        return context.getVariable(getSlot(), name);
     }
 
     protected void setValueBody(C context, Object target, Object value) throws OgnlException {
-        context.put(name, value);
+        context.putVariable(getSlot(), name, value);
+    }
+
+    /**
+     * Returns the slot of the variable in the context values, bound on first use.
+     */
+    ContextVariables.Slot getSlot() {
+        ContextVariables.Slot current = slot;
+        if (current == null) {
+            current = OgnlContext.isReservedKey(name) ? ContextVariables.NO_SLOT : ContextVariables.slotOf(name);
+            slot = current;
+        }
+        return current;
     }
 
     public Class<?> getGetterClass() {
@@ -70,6 +83,12 @@ public class ASTVarRef<C extends OgnlContext<C>> extends SimpleNode<C> implement
         return last;
     }
 
+    @Override
+    Object internState(NodeInterner interner) {
+        name = interner.intern(name);
+        return name;
+    }
+
     public String toString() {
         return "#" + name;
     }
@@ -0,0 +1,340 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ognl;
+
+import java.lang.reflect.Array;
+
+/**
+ * Reads and writes the elements of the arrays of one component type with plain array accesses instead of the
+ * reflective dispatch of {@link Array}, used by {@link ArrayPropertyAccessor} and {@link ArrayElementsAccessor}.
+ * <p>
+ * {@link #OBJECT} accesses arrays of any reference type directly and arrays of other types through
+ * {@link Array}. Membership tests on arrays of numbers compare the elements to the value without boxing them when
+ * the value is a primitive wrapper, with the same result as {@link OgnlOps#equal(Object, Object)}.
+ */
+abstract class ArrayAccess {
+
+    static final ArrayAccess OBJECT = new ArrayAccess() {
+        int getLength(Object array) {
+            return array instanceof Object[] ? ((Object[]) array).length : Array.getLength(array);
+        }
+
+        Object get(Object array, int index) {
+            return array instanceof Object[] ? ((Object[]) array)[index] : Array.get(array, index);
+        }
+
+        void set(Object array, int index, Object value) {
+            if (array instanceof Object[] && (value == null || array.getClass().getComponentType().isInstance(value))) {
+                ((Object[]) array)[index] = value;
+            } else {
+                Array.set(array, index, value);
+            }
+        }
+    };
+
+    static final ArrayAccess BOOLEAN = new ArrayAccess() {
+        int getLength(Object array) {
+            return ((boolean[]) array).length;
+        }
+
+        Object get(Object array, int index) {
+            return ((boolean[]) array)[index];
+        }
+
+        void set(Object array, int index, Object value) {
+            if (value instanceof Boolean) {
+                ((boolean[]) array)[index] = (Boolean) value;
+            } else {
+                Array.set(array, index, value);
+            }
+        }
+    };
+
+    static final ArrayAccess BYTE = new IntegralArrayAccess() {
+        int getLength(Object array) {
+            return ((byte[]) array).length;
+        }
+
+        Object get(Object array, int index) {
+            return ((byte[]) array)[index];
+        }
+
+        void set(Object array, int index, Object value) {
+            if (value instanceof Byte) {
+                ((byte[]) array)[index] = (Byte) value;
+            } else {
+                Array.set(array, index, value);
+            }
+        }
+
+        long getLong(Object array, int index) {
+            return ((byte[]) array)[index];
+        }
+    };
+
+    static final ArrayAccess SHORT = new IntegralArrayAccess() {
+        int getLength(Object array) {
+            return ((short[]) array).length;
+        }
+
+        Object get(Object array, int index) {
+            return ((short[]) array)[index];
+        }
+
+        void set(Object array, int index, Object value) {
+            if (value instanceof Short) {
+                ((short[]) array)[index] = (Short) value;
+            } else {
+                Array.set(array, index, value);
+            }
+        }
+
+        long getLong(Object array, int index) {
+            return ((short[]) array)[index];
+        }
+    };
+
+    static final ArrayAccess CHAR = new IntegralArrayAccess() {
+        int getLength(Object array) {
+            return ((char[]) array).length;
+        }
+
+        Object get(Object array, int index) {
+            return ((char[]) array)[index];
+        }
+
+        void set(Object array, int index, Object value) {
+            if (value instanceof Character) {
+                ((char[]) array)[index] = (Character) value;
+            } else {
+                Array.set(array, index, value);
+            }
+        }
+
+        long getLong(Object array, int index) {
+            return ((char[]) array)[index];
+        }
+    };
+
+    static final ArrayAccess INT = new IntegralArrayAccess() {
+        int getLength(Object array) {
+            return ((int[]) array).length;
+        }
+
+        Object get(Object array, int index) {
+            return ((int[]) array)[index];
+        }
+
+        void set(Object array, int index, Object value) {
+            if (value instanceof Integer) {
+                ((int[]) array)[index] = (Integer) value;
+            } else {
+                Array.set(array, index, value);
+            }
+        }
+
+        long getLong(Object array, int index) {
+            return ((int[]) array)[index];
+        }
+    };
+
+    static final ArrayAccess LONG = new IntegralArrayAccess() {
+        int getLength(Object array) {
+            return ((long[]) array).length;
+        }
+
+        Object get(Object array, int index) {
+            return ((long[]) array)[index];
+        }
+
+        void set(Object array, int index, Object value) {
+            if (value instanceof Long) {
+                ((long[]) array)[index] = (Long) value;
+            } else {
+                Array.set(array, index, value);
+            }
+        }
+
+        long getLong(Object array, int index) {
+            return ((long[]) array)[index];
+        }
+    };
+
+    static final ArrayAccess FLOAT = new FloatingArrayAccess() {
+        int getLength(Object array) {
+            return ((float[]) array).length;
+        }
+
+        Object get(Object array, int index) {
+            return ((float[]) array)[index];
+        }
+
+        void set(Object array, int index, Object value) {
+            if (value instanceof Float) {
+                ((float[]) array)[index] = (Float) value;
+            } else {
+                Array.set(array, index, value);
+            }
+        }
+
+        double getDouble(Object array, int index) {
+            return ((float[]) array)[index];
+        }
+    };
+
+    static final ArrayAccess DOUBLE = new FloatingArrayAccess() {
+        int getLength(Object array) {
+            return ((double[]) array).length;
+        }
+
+        Object get(Object array, int index) {
+            return ((double[]) array)[index];
+        }
+
+        void set(Object array, int index, Object value) {
+            if (value instanceof Double) {
+                ((double[]) array)[index] = (Double) value;
+            } else {
+                Array.set(array, index, value);
+            }
+        }
+
+        double getDouble(Object array, int index) {
+            return ((double[]) array)[index];
+        }
+    };
+
+    /**
+     * Returns the access to the elements of the arrays of the given component type.
+     */
+    static ArrayAccess forComponentType(Class<?> componentType) {
+        if (!componentType.isPrimitive()) {
+            return OBJECT;
+        }
+        if (componentType == Integer.TYPE) {
+            return INT;
+        }
+        if (componentType == Long.TYPE) {
+            return LONG;
+        }
+        if (componentType == Double.TYPE) {
+            return DOUBLE;
+        }
+        if (componentType == Boolean.TYPE) {
+            return BOOLEAN;
+        }
+        if (componentType == Byte.TYPE) {
+            return BYTE;
+        }
+        if (componentType == Short.TYPE) {
+            return SHORT;
+        }
+        if (componentType == Character.TYPE) {
+            return CHAR;
+        }
+        if (componentType == Float.TYPE) {
+            return FLOAT;
+        }
+        return OBJECT;
+    }
+
+    abstract int getLength(Object array);
+
+    abstract Object get(Object array, int index);
+
+    /**
+     * Sets an element, values of another type than the component type are widened or rejected by {@link Array}.
+     */
+    abstract void set(Object array, int index, Object value);
+
+    /**
+     * Tells whether an element of the array is equal to the value, as by the <code>in</code> operator.
+     */
+    boolean contains(Object array, Object value) {
+        for (int i = 0, count = getLength(array); i < count; i++) {
+            if (OgnlOps.equal(value, get(array, i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Integral wrappers compared to integral elements as longs, floating point ones as doubles.
+     */
+    private static boolean isIntegral(Object value) {
+        return value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte
+                || value instanceof Character;
+    }
+
+    private static boolean isFloating(Object value) {
+        return value instanceof Double || value instanceof Float;
+    }
+
+    private static double doubleValue(Object value) {
+        return value instanceof Character ? (Character) value : ((Number) value).doubleValue();
+    }
+
+    private abstract static class IntegralArrayAccess extends ArrayAccess {
+
+        abstract long getLong(Object array, int index);
+
+        @Override
+        boolean contains(Object array, Object value) {
+            if (isIntegral(value)) {
+                long v = value instanceof Character ? (Character) value : ((Number) value).longValue();
+                for (int i = 0, count = getLength(array); i < count; i++) {
+                    if (getLong(array, i) == v) {
+                        return true;
+                    }
+                }
+                return false;
+            }
+            if (isFloating(value)) {
+                double v = ((Number) value).doubleValue();
+                for (int i = 0, count = getLength(array); i < count; i++) {
+                    if (getLong(array, i) == v) {
+                        return true;
+                    }
+                }
+                return false;
+            }
+            return super.contains(array, value);
+        }
+    }
+
+    private abstract static class FloatingArrayAccess extends ArrayAccess {
+
+        abstract double getDouble(Object array, int index);
+
+        @Override
+        boolean contains(Object array, Object value) {
+            if (isIntegral(value) || isFloating(value)) {
+                double v = doubleValue(value);
+                for (int i = 0, count = getLength(array); i < count; i++) {
+                    if (getDouble(array, i) == v) {
+                        return true;
+                    }
+                }
+                return false;
+            }
+            return super.contains(array, value);
+        }
+    }
+}
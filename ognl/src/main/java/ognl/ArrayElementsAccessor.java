@@ -18,16 +18,29 @@
  */
 package ognl;
 
-import java.lang.reflect.Array;
 import java.util.Enumeration;
 
 /**
  * Implementation of ElementsAccessor that returns an iterator over a Java array.
  */
 public class ArrayElementsAccessor implements ElementsAccessor {
+
+    private final ArrayAccess access;
+
+    public ArrayElementsAccessor() {
+        this(ArrayAccess.OBJECT);
+    }
+
+    /**
+     * @param access the access to the elements of the arrays of the component type this accessor is registered for.
+     */
+    ArrayElementsAccessor(ArrayAccess access) {
+        this.access = access;
+    }
+
     public Enumeration<?> getElements(final Object target) {
         return new Enumeration<Object>() {
-            private final int count = Array.getLength(target);
+            private final int count = access.getLength(target);
             private int index = 0;
 
             public boolean hasMoreElements() {
@@ -35,8 +48,42 @@ public class ArrayElementsAccessor implements ElementsAccessor {
             }
 
             public Object nextElement() {
-                return Array.get(target, index++);
+                return access.get(target, index++);
             }
         };
     }
+
+    /**
+     * Returns the number of elements of the given array, for projections and selections iterating over them by
+     * index rather than through {@link #getElements(Object)}.
+     *
+     * @param target the array.
+     * @return the length of the array.
+     */
+    int getLength(Object target) {
+        return access.getLength(target);
+    }
+
+    /**
+     * Returns an element of the given array.
+     *
+     * @param target the array.
+     * @param index  the index of the element.
+     * @return the element, boxed if primitive.
+     */
+    Object get(Object target, int index) {
+        return access.get(target, index);
+    }
+
+    /**
+     * Tells whether the given array contains the value, as by {@link OgnlOps#in(Object, Object)}, without boxing
+     * its elements when both are numbers.
+     *
+     * @param target the array.
+     * @param value  the value to look for.
+     * @return true if an element is equal to the value.
+     */
+    boolean contains(Object target, Object value) {
+        return access.contains(target, value);
+    }
 }
@@ -26,20 +26,34 @@ import java.lang.reflect.Array;
  */
 public class ArrayPropertyAccessor<C extends OgnlContext<C>> extends ObjectPropertyAccessor<C> implements PropertyAccessor<C> {
 
-    public Object getProperty(C context, Object target, Object name) throws OgnlException {
+    private final ArrayAccess access;
+
+    public ArrayPropertyAccessor() {
+        this(ArrayAccess.OBJECT);
+    }
+
+    /**
+     * @param access the access to the elements of the arrays of the component type this accessor is registered for.
+     */
+    ArrayPropertyAccessor(ArrayAccess access) {
+        this.access = access;
+    }
+
+    @Override
+    public Object findProperty(C context, Object target, Object name, boolean indexedAccess) throws OgnlException {
         Object result = null;
 
         if (name instanceof String) {
             if (name.equals("length")) {
-                result = Array.getLength(target);
+                result = access.getLength(target);
             } else {
-                result = super.getProperty(context, target, name);
+                result = super.findProperty(context, target, name, indexedAccess);
             }
         } else {
             Object index = name;
 
             if (index instanceof DynamicSubscript) {
-                int len = Array.getLength(target);
+                int len = access.getLength(target);
 
                 switch (((DynamicSubscript) index).getFlag()) {
                     case DynamicSubscript.ALL:
@@ -61,9 +75,9 @@ public class ArrayPropertyAccessor<C extends OgnlContext<C>> extends ObjectPrope
                 if (index instanceof Number) {
                     int i = ((Number) index).intValue();
 
-                    result = (i >= 0) ? Array.get(target, i) : null;
+                    result = (i >= 0) ? access.get(target, i) : null;
                 } else {
-                    throw new NoSuchPropertyException(target, index);
+                    result = OgnlRuntime.NotFound;
                 }
             }
         }
@@ -81,10 +95,10 @@ public class ArrayPropertyAccessor<C extends OgnlContext<C>> extends ObjectPrope
                 int i = ((Number) index).intValue();
 
                 if (i >= 0) {
-                    Array.set(target, i, convertedValue);
+                    access.set(target, i, convertedValue);
                 }
             } else {
-                int len = Array.getLength(target);
+                int len = access.getLength(target);
 
                 switch (((DynamicSubscript) index).getFlag()) {
                     case DynamicSubscript.ALL:
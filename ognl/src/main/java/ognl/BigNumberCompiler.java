@@ -0,0 +1,200 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ognl;
+
+import ognl.enhance.UnsupportedCompilationException;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+/**
+ * Generates java source for arithmetic and ordering comparisons done in {@link BigInteger} or {@link BigDecimal},
+ * which java operators cannot express. Operands are widened like {@link OgnlOps} does, through
+ * {@link OgnlOps#bigIntValue(Object)} and {@link OgnlOps#bigDecValue(Object)} unless they already have the type of
+ * the operation and aren't compared, which is then applied by calling its method directly.
+ */
+final class BigNumberCompiler {
+
+    private BigNumberCompiler() {
+    }
+
+    /**
+     * Gets the source of an arithmetic node whose value is a big number.
+     *
+     * @return the java source, or null if the node doesn't compute a big number.
+     * @throws UnsupportedCompilationException if only part of the operation is done in big numbers, or the
+     *                                         operator has no direct equivalent.
+     */
+    static <C extends OgnlContext<C>> String toArithmeticSource(ExpressionNode<C> node, C context, Object target) throws OgnlException {
+        Object value = node.getValueBody(context, target);
+        if (!(value instanceof BigInteger) && !(value instanceof BigDecimal)) {
+            return null;
+        }
+
+        String method = getMethod(node);
+        if (method == null) {
+            throw new UnsupportedCompilationException("Can't compile " + node + " on big numbers.");
+        }
+
+        int count = node.jjtGetNumChildren();
+        Object[] values = new Object[count];
+        for (int i = 0; i < count; i++) {
+            values[i] = node.jjtGetChild(i).getValue(context, target);
+        }
+
+        StringBuilder result;
+        int type;
+        if (count == 1) {
+            type = node instanceof ASTBitNegate ? NumericTypes.BIGINT : OgnlOps.getNumericType(values[0]);
+            result = new StringBuilder(getOperandSource(context, target, node.jjtGetChild(0), type, false)).append(".").append(method).append("()");
+        } else if (isShift(node)) {
+            // the shift distance is converted to an int whatever the type of the shifted value
+            result = new StringBuilder(getOperandSource(context, target, node.jjtGetChild(0), NumericTypes.BIGINT, false))
+                    .append(".").append(method).append("((int) ognl.OgnlOps.longValue(($w) (")
+                    .append(OgnlRuntime.getChildSource(context, target, node.jjtGetChild(1))).append(")))");
+        } else {
+            type = OgnlOps.getNumericType(values[0]);
+            result = null;
+            for (int i = 1; i < count; i++) {
+                int operationType = OgnlOps.getNumericType(type, OgnlOps.getNumericType(values[i]), node instanceof ASTAdd);
+                if (operationType != NumericTypes.BIGINT && operationType != NumericTypes.BIGDEC) {
+                    throw new UnsupportedCompilationException("Can't compile " + node + " mixing big numbers with other operations.");
+                }
+                if (node instanceof ASTRemainder) {
+                    operationType = NumericTypes.BIGINT;
+                }
+
+                String left = result == null
+                        ? getOperandSource(context, target, node.jjtGetChild(0), operationType, false)
+                        : widen("(" + result + ")", type, operationType);
+                String right = getOperandSource(context, target, node.jjtGetChild(i), operationType, false);
+
+                result = new StringBuilder(left).append(".").append(method).append("(").append(right);
+                if (node instanceof ASTDivide && operationType == NumericTypes.BIGDEC) {
+                    result.append(", java.math.RoundingMode.HALF_EVEN");
+                }
+                result.append(")");
+                type = operationType;
+            }
+        }
+
+        context.setCurrentType(value.getClass());
+        context.setCurrentObject(value);
+
+        return result.toString();
+    }
+
+    /**
+     * Gets the source of an ordering comparison between big numbers. Equality is left to
+     * {@link OgnlOps#equal(Object, Object)}, which doesn't convert null operands.
+     *
+     * @return the java source, or null if the operands aren't compared as big numbers.
+     */
+    static <C extends OgnlContext<C>> String toComparisonSource(ComparisonExpression<C> node, C context, Object target) throws OgnlException {
+        if (node instanceof ASTEq || node instanceof ASTNotEq) {
+            return null;
+        }
+        int type = OgnlOps.getNumericType(node.jjtGetChild(0).getValue(context, target), node.jjtGetChild(1).getValue(context, target), true);
+        if (type != NumericTypes.BIGINT && type != NumericTypes.BIGDEC) {
+            return null;
+        }
+
+        String result = "(" + getOperandSource(context, target, node.jjtGetChild(0), type, true)
+                + ".compareTo(" + getOperandSource(context, target, node.jjtGetChild(1), type, true) + ") "
+                + node.getExpressionOperator(0) + " 0)";
+
+        context.setCurrentType(Boolean.TYPE);
+
+        return result;
+    }
+
+    private static String getMethod(Node<?> node) {
+        if (node instanceof ASTAdd) {
+            return "add";
+        } else if (node instanceof ASTSubtract) {
+            return "subtract";
+        } else if (node instanceof ASTMultiply) {
+            return "multiply";
+        } else if (node instanceof ASTDivide) {
+            return "divide";
+        } else if (node instanceof ASTRemainder) {
+            return "remainder";
+        } else if (node instanceof ASTNegate) {
+            return "negate";
+        } else if (node instanceof ASTBitNegate) {
+            return "not";
+        } else if (node instanceof ASTShiftLeft) {
+            return "shiftLeft";
+        } else if (isShift(node)) {
+            return "shiftRight";
+        }
+        return null;
+    }
+
+    private static boolean isShift(Node<?> node) {
+        return node instanceof ASTShiftLeft || node instanceof ASTShiftRight || node instanceof ASTUnsignedShiftRight;
+    }
+
+    /**
+     * Gets the source creating the given big number, without parsing it when its unscaled value fits in a long.
+     */
+    static String getConstantSource(Number value) {
+        if (value instanceof BigInteger bigInteger) {
+            return bigInteger.bitLength() < Long.SIZE
+                    ? "java.math.BigInteger.valueOf(" + bigInteger + "L)"
+                    : "new java.math.BigInteger(\"" + bigInteger + "\")";
+        }
+        BigDecimal bigDecimal = (BigDecimal) value;
+        return bigDecimal.unscaledValue().bitLength() < Long.SIZE
+                ? "java.math.BigDecimal.valueOf(" + bigDecimal.unscaledValue() + "L, " + bigDecimal.scale() + ")"
+                : "new java.math.BigDecimal(\"" + bigDecimal + "\")";
+    }
+
+    /**
+     * Gets the source of an operand converted to the type of the operation. An operand already typed as a big number
+     * is used as is, so null fails like in the interpreter, unless null has to count as zero as it does when
+     * compared by {@link OgnlOps#compareWithConversion(Object, Object)}.
+     */
+    private static <C extends OgnlContext<C>> String getOperandSource(C context, Object target, Node<C> child, int type, boolean nullAsZero) {
+        if (child instanceof ASTConst && ((ASTConst<C>) child).getValue() != null) {
+            // constants are converted once here rather than on every evaluation
+            Object value = ((ASTConst<C>) child).getValue();
+            context.setCurrentObject(value);
+            return getConstantSource(type == NumericTypes.BIGINT ? OgnlOps.bigIntValue(value) : OgnlOps.bigDecValue(value));
+        }
+        String source = OgnlRuntime.getChildSource(context, target, child);
+        Class<?> currentType = context.getCurrentType();
+        if (currentType == BigInteger.class || currentType == BigDecimal.class) {
+            int sourceType = currentType == BigInteger.class ? NumericTypes.BIGINT : NumericTypes.BIGDEC;
+            String typed = "((" + currentType.getName() + ") " + source + ")";
+            if (nullAsZero && sourceType == type) {
+                return (type == NumericTypes.BIGINT ? "ognl.OgnlOps.bigIntValue(" : "ognl.OgnlOps.bigDecValue(") + typed + ")";
+            }
+            return widen(typed, sourceType, type);
+        }
+        return (type == NumericTypes.BIGINT ? "ognl.OgnlOps.bigIntValue" : "ognl.OgnlOps.bigDecValue") + "(($w) (" + source + "))";
+    }
+
+    private static String widen(String source, int sourceType, int type) {
+        if (sourceType == type) {
+            return source;
+        }
+        return (type == NumericTypes.BIGINT ? "ognl.OgnlOps.bigIntValue(" : "ognl.OgnlOps.bigDecValue(") + source + ")";
+    }
+}
@@ -0,0 +1,178 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ognl;
+
+import java.lang.reflect.Member;
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * An expression bound to the class of the roots it is evaluated against, as returned by
+ * {@link Ognl#bind(String, Class)}.
+ * <p>
+ * Binding infers the static type of every node and resolves the members they refer to, so an expression
+ * referring to a property, method, field or class which does not exist fails when bound instead of when
+ * evaluated. Members missing from a type which is not final are left to evaluation, as the subclasses
+ * evaluated against may declare them. At evaluation time the root is checked against the bound class once,
+ * properties resolved to getters are read through them without looking up their accessors again, and nodes
+ * whose type is only known dynamically (typed <code>Object</code>) keep the usual checks of the interpreter. Expressions
+ * fully typed by the binding can be compiled with {@link #compile(OgnlContext, Object)}, evaluations then use
+ * the accessor compiled for the class of the root.
+ * <p>
+ * Instances are immutable and can be shared by threads.
+ */
+public final class BoundExpression<C extends OgnlContext<C>> {
+
+    private final Node<C> tree;
+    private final Class<?> rootType;
+    private final Map<Node<C>, Class<?>> types;
+    private final Map<Node<C>, Member> members;
+    private final boolean fullyTyped;
+
+    BoundExpression(Node<C> tree, Class<?> rootType, Map<Node<C>, Class<?>> types, Map<Node<C>, Member> members) {
+        this.tree = tree;
+        this.rootType = rootType;
+        this.types = Collections.unmodifiableMap(types);
+        this.members = Collections.unmodifiableMap(members);
+        this.fullyTyped = !types.containsValue(Object.class);
+        members.forEach((node, member) -> {
+            if (node instanceof ASTProperty && member instanceof Method) {
+                ASTProperty<C> property = (ASTProperty<C>) node;
+                String name = (String) ((ASTConst<C>) property.jjtGetChild(0)).getValue();
+                property.bind(PropertySpecialization.bind(name, (Method) member));
+            }
+        });
+    }
+
+    /**
+     * Returns the parsed expression.
+     *
+     * @return the root node of the expression.
+     */
+    public Node<C> getTree() {
+        return tree;
+    }
+
+    /**
+     * Returns the class the roots of this expression must be instances of.
+     *
+     * @return the class of the roots.
+     */
+    public Class<?> getRootType() {
+        return rootType;
+    }
+
+    /**
+     * Returns the static type of the value of this expression.
+     *
+     * @return the static type of this expression, <code>Object</code> if only known at evaluation time.
+     */
+    public Class<?> getType() {
+        return types.get(tree);
+    }
+
+    /**
+     * Returns the static type of the value of a node of this expression.
+     *
+     * @param node a node of this expression.
+     * @return the static type of the node, <code>Object</code> if only known at evaluation time, or null if the
+     * node does not belong to this expression.
+     */
+    public Class<?> getType(Node<C> node) {
+        return types.get(node);
+    }
+
+    /**
+     * Returns the member a property, method or static field node of this expression resolves to.
+     *
+     * @param node a node of this expression.
+     * @return the resolved getter, method or field, or null if only known at evaluation time.
+     */
+    public Member getMember(Node<C> node) {
+        return members.get(node);
+    }
+
+    /**
+     * Tells whether the type of every node of this expression is known statically.
+     *
+     * @return true if no node is left to dynamic typing.
+     */
+    public boolean isFullyTyped() {
+        return fullyTyped;
+    }
+
+    /**
+     * Compiles this expression for the class of the given root, see {@link OgnlRuntime#compileExpression}.
+     *
+     * @param context the context to compile with.
+     * @param root    a root to compile the expression against, an instance of the bound class.
+     * @return this expression.
+     * @throws OgnlException if the root is not an instance of the bound class, or the expression is not
+     *                       fully typed.
+     * @throws Exception     if the compilation fails.
+     */
+    public BoundExpression<C> compile(C context, Object root) throws Exception {
+        checkRoot(root);
+        if (!fullyTyped) {
+            throw new OgnlException("Expression " + tree + " is not fully typed for " + rootType.getName());
+        }
+        OgnlRuntime.compileExpression(context, tree, root);
+        return this;
+    }
+
+    /**
+     * Evaluates this expression against the given root.
+     *
+     * @param context the naming context for the evaluation.
+     * @param root    the root object, an instance of the bound class.
+     * @return the result of evaluating the expression.
+     * @throws OgnlException if the root is not an instance of the bound class, or the evaluation fails.
+     */
+    public Object getValue(C context, Object root) throws OgnlException {
+        checkRoot(root);
+        return Ognl.getValue(tree, context, root);
+    }
+
+    /**
+     * Sets the value of this expression on the given root.
+     *
+     * @param context the naming context for the evaluation.
+     * @param root    the root object, an instance of the bound class.
+     * @param value   the value to be set.
+     * @throws OgnlException if the root is not an instance of the bound class, or the evaluation fails.
+     */
+    public void setValue(C context, Object root, Object value) throws OgnlException {
+        checkRoot(root);
+        Ognl.setValue(tree, context, root, value);
+    }
+
+    private void checkRoot(Object root) throws OgnlException {
+        Class<?> type = rootType.isPrimitive() ? OgnlRuntime.getPrimitiveWrapperClass(rootType) : rootType;
+        if (root != null && !type.isInstance(root)) {
+            throw new OgnlException("Expression " + tree + " is bound to " + rootType.getName()
+                    + " but evaluated against " + root.getClass().getName());
+        }
+    }
+
+    @Override
+    public String toString() {
+        return tree + " : " + rootType.getName() + " -> " + getType().getName();
+    }
+}
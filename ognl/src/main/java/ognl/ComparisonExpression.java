@@ -30,6 +30,26 @@ public abstract class ComparisonExpression<C extends OgnlContext<C>> extends Boo
     @Serial
     private static final long serialVersionUID = -4420582351064321780L;
 
+    /**
+     * Returned by {@link #specializedCompare} when the values must be compared by {@link OgnlOps}.
+     */
+    static final int GENERIC_COMPARISON = Integer.MIN_VALUE;
+
+    /**
+     * Number of comparisons of values other than two integers or two strings a specialized node makes before
+     * comparing all its values by {@link OgnlOps}.
+     */
+    static final int MAX_GENERIC_COMPARISONS = 2;
+
+    private static final byte UNSPECIALIZED = 0;
+    private static final byte INTEGERS = 1;
+    private static final byte STRINGS = 2;
+    private static final byte GENERIC = 4;
+
+    // the kinds of values compared directly, INTEGERS and STRINGS may both be set
+    private volatile transient byte specialization = UNSPECIALIZED;
+    private volatile transient byte genericComparisons;
+
     public ComparisonExpression(int id) {
         super(id);
     }
@@ -40,11 +60,66 @@ public abstract class ComparisonExpression<C extends OgnlContext<C>> extends Boo
 
     public abstract String getComparisonFunction();
 
+    /**
+     * Compares two integers or two strings directly when nodes specialize themselves, see
+     * {@link OgnlContext#isSpecializeNodes()}. The kinds of values compared are kept from the first evaluation
+     * comparing them, so a node shared by expressions comparing integers and strings compares both directly. The
+     * comparison falls back to {@link OgnlOps} for good once more than {@link #MAX_GENERIC_COMPARISONS} values of
+     * other types are compared.
+     *
+     * @param context the context of the evaluation.
+     * @param v1      the value of the left operand.
+     * @param v2      the value of the right operand.
+     * @return -1, 0 or 1 as <code>v1</code> is less than, equal to or greater than <code>v2</code>, or
+     * {@link #GENERIC_COMPARISON} if the values must be compared by {@link OgnlOps}.
+     */
+    final int specializedCompare(C context, Object v1, Object v2) {
+        if (!context.isSpecializeNodes()) {
+            return GENERIC_COMPARISON;
+        }
+        byte current = specialization;
+        if (current == GENERIC) {
+            return GENERIC_COMPARISON;
+        }
+        byte kind;
+        if (v1 instanceof Integer && v2 instanceof Integer) {
+            if ((current & INTEGERS) != 0) {
+                return Integer.compare((Integer) v1, (Integer) v2);
+            }
+            kind = INTEGERS;
+        } else if (v1 instanceof String && v2 instanceof String) {
+            if ((current & STRINGS) != 0) {
+                return Integer.signum(((String) v1).compareTo((String) v2));
+            }
+            kind = STRINGS;
+        } else {
+            int count = genericComparisons + 1;
+            if (count > MAX_GENERIC_COMPARISONS) {
+                specialization = GENERIC;
+            } else {
+                genericComparisons = (byte) count;
+            }
+            return GENERIC_COMPARISON;
+        }
+        specialization = (byte) (current | kind);
+        return GENERIC_COMPARISON;
+    }
+
+    boolean isSpecialized() {
+        byte current = specialization;
+        return current != UNSPECIALIZED && current != GENERIC;
+    }
+
     public String toGetSourceString(C context, Object target) {
         if (target == null)
             throw new UnsupportedCompilationException("Current target is null, can't compile.");
 
         try {
+            String bigNumberSource = BigNumberCompiler.toComparisonSource(this, context, target);
+            if (bigNumberSource != null) {
+                getterClass = Boolean.TYPE;
+                return bigNumberSource;
+            }
 
             Object value = getValueBody(context, target);
 
@@ -0,0 +1,345 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ognl;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Values of an {@link OgnlContext}, keeping the variables referenced by <code>#name</code> expressions in an array
+ * indexed by the slot bound to each name, and any other value in a hash map.
+ * <p>
+ * Slots are bound by {@link ASTVarRef} nodes on their first evaluation and are shared by all the contexts, so reading
+ * or writing a variable through its slot is a direct array access rather than hashing its name. A slot is only
+ * referenced weakly by the table of names: once no parsed tree nor context holds it anymore, its index is reused by
+ * the next name bound, which keeps the indexes, and the arrays of the contexts, as small as the number of names in
+ * use. The map view stays complete: a value set before a slot was bound to its name is kept in the hash map and moved
+ * to its slot when first accessed through it. Once {@link #MAX_SLOTS} slots are in use, further names are only
+ * stored in the hash map.
+ * <p>
+ * Like {@link OgnlContext}, instances are not thread safe.
+ */
+final class ContextVariables extends AbstractMap<String, Object> {
+
+    /**
+     * Bound to the variables read and written by name only.
+     */
+    static final Slot NO_SLOT = new Slot(null, -1);
+
+    /**
+     * Maximum number of slots in use at once.
+     */
+    static final int MAX_SLOTS = 1024;
+
+    private static final Map<String, SlotReference> SLOTS = new ConcurrentHashMap<>();
+    private static final ReferenceQueue<Slot> RECLAIMED = new ReferenceQueue<>();
+    private static final BitSet USED_INDEXES = new BitSet();
+    private static final ReentrantLock SLOTS_LOCK = new ReentrantLock();
+
+    private static final Slot[] NO_SLOTS = {};
+    private static final Object[] NO_VALUES = {};
+
+    private final Map<String, Object> others;
+    // the variables stored by slot, at the index of their slot
+    private Slot[] slots = NO_SLOTS;
+    private Object[] values = NO_VALUES;
+    private int slotCount;
+
+    ContextVariables(Map<String, Object> initialValues) {
+        if (initialValues == null) {
+            others = new HashMap<>(23);
+        } else {
+            others = new HashMap<>(initialValues.size());
+            putAll(initialValues);
+        }
+    }
+
+    /**
+     * Returns the slot of the variable, binding one if needed.
+     *
+     * @param name the name of the variable
+     * @return the slot, or {@link #NO_SLOT} while all the slots are in use
+     */
+    static Slot slotOf(String name) {
+        Slot slot = existingSlotOf(name);
+        if (slot != null) {
+            return slot;
+        }
+        SLOTS_LOCK.lock();
+        try {
+            reclaimSlots();
+            slot = existingSlotOf(name);
+            if (slot != null) {
+                return slot;
+            }
+            int index = USED_INDEXES.nextClearBit(0);
+            if (index >= MAX_SLOTS) {
+                return NO_SLOT;
+            }
+            USED_INDEXES.set(index);
+            slot = new Slot(name, index);
+            SLOTS.put(name, new SlotReference(slot, RECLAIMED));
+            return slot;
+        } finally {
+            SLOTS_LOCK.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of slots in use, after reclaiming those no longer referenced.
+     */
+    static int getSlotsInUse() {
+        SLOTS_LOCK.lock();
+        try {
+            reclaimSlots();
+            return USED_INDEXES.cardinality();
+        } finally {
+            SLOTS_LOCK.unlock();
+        }
+    }
+
+    private static void reclaimSlots() {
+        Reference<? extends Slot> reference;
+        while ((reference = RECLAIMED.poll()) != null) {
+            SlotReference reclaimed = (SlotReference) reference;
+            SLOTS.remove(reclaimed.name, reclaimed);
+            USED_INDEXES.clear(reclaimed.index);
+        }
+    }
+
+    private static Slot existingSlotOf(Object key) {
+        SlotReference reference = key instanceof String ? SLOTS.get(key) : null;
+        return reference != null ? reference.get() : null;
+    }
+
+    private boolean holds(Slot slot) {
+        return slot != null && slot.index < slots.length && slots[slot.index] == slot;
+    }
+
+    /**
+     * Reads a variable through its slot.
+     */
+    Object get(Slot slot) {
+        int index = slot.index;
+        if (index < slots.length && slots[index] == slot) {
+            return values[index];
+        }
+        if (others.isEmpty() || !others.containsKey(slot.name)) {
+            return null;
+        }
+        Object value = others.remove(slot.name);
+        add(slot, value);
+        return value;
+    }
+
+    /**
+     * Writes a variable through its slot.
+     */
+    Object put(Slot slot, Object value) {
+        int index = slot.index;
+        if (index < slots.length && slots[index] == slot) {
+            Object previous = values[index];
+            values[index] = value;
+            return previous;
+        }
+        Object previous = others.isEmpty() ? null : others.remove(slot.name);
+        add(slot, value);
+        return previous;
+    }
+
+    private void add(Slot slot, Object value) {
+        int index = slot.index;
+        if (index >= slots.length) {
+            int length = Math.max(index + 1, Math.min(slots.length * 2, MAX_SLOTS));
+            slots = Arrays.copyOf(slots, length);
+            values = Arrays.copyOf(values, length);
+        }
+        slots[index] = slot;
+        values[index] = value;
+        slotCount++;
+    }
+
+    private Object removeAt(int index) {
+        Object value = values[index];
+        slots[index] = null;
+        values[index] = null;
+        slotCount--;
+        return value;
+    }
+
+    @Override
+    public int size() {
+        return slotCount + others.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return slotCount == 0 && others.isEmpty();
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return holds(existingSlotOf(key)) || others.containsKey(key);
+    }
+
+    @Override
+    public Object get(Object key) {
+        Slot slot = existingSlotOf(key);
+        return holds(slot) ? values[slot.index] : others.get(key);
+    }
+
+    @Override
+    public Object put(String key, Object value) {
+        Slot slot = existingSlotOf(key);
+        return slot == null ? others.put(key, value) : put(slot, value);
+    }
+
+    @Override
+    public Object remove(Object key) {
+        Slot slot = existingSlotOf(key);
+        return holds(slot) ? removeAt(slot.index) : others.remove(key);
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(slots, null);
+        Arrays.fill(values, null);
+        slotCount = 0;
+        others.clear();
+    }
+
+    @Override
+    public Set<Entry<String, Object>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Entry<String, Object>> iterator() {
+                return new EntryIterator();
+            }
+
+            @Override
+            public int size() {
+                return ContextVariables.this.size();
+            }
+
+            @Override
+            public void clear() {
+                ContextVariables.this.clear();
+            }
+        };
+    }
+
+    /**
+     * The slot bound to a variable name, held by the {@link ASTVarRef} nodes referring to it and by the contexts
+     * storing a value in it.
+     */
+    static final class Slot {
+
+        private final String name;
+        private final int index;
+
+        private Slot(String name, int index) {
+            this.name = name;
+            this.index = index;
+        }
+
+        int getIndex() {
+            return index;
+        }
+    }
+
+    /**
+     * Entry of the table of names, enqueued once its slot is no longer referenced so its index can be reused.
+     */
+    private static final class SlotReference extends WeakReference<Slot> {
+
+        private final String name;
+        private final int index;
+
+        SlotReference(Slot slot, ReferenceQueue<Slot> queue) {
+            super(slot, queue);
+            this.name = slot.name;
+            this.index = slot.index;
+        }
+    }
+
+    /**
+     * Iterates over the variables stored by slot, then over the other values.
+     */
+    private final class EntryIterator implements Iterator<Entry<String, Object>> {
+
+        private final Iterator<Entry<String, Object>> othersIterator = others.entrySet().iterator();
+        private int nextIndex = advance(0);
+        private int lastIndex = -1;
+
+        private int advance(int index) {
+            while (index < slots.length && slots[index] == null) {
+                index++;
+            }
+            return index;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return nextIndex < slots.length || othersIterator.hasNext();
+        }
+
+        @Override
+        public Entry<String, Object> next() {
+            if (nextIndex < slots.length) {
+                Slot slot = slots[nextIndex];
+                lastIndex = nextIndex;
+                nextIndex = advance(nextIndex + 1);
+                return new SimpleEntry<>(slot.name, values[lastIndex]) {
+                    @Override
+                    public Object setValue(Object value) {
+                        put(slot, value);
+                        return super.setValue(value);
+                    }
+                };
+            }
+            if (!othersIterator.hasNext()) {
+                throw new NoSuchElementException();
+            }
+            lastIndex = -1;
+            return othersIterator.next();
+        }
+
+        @Override
+        public void remove() {
+            if (lastIndex == -1) {
+                othersIterator.remove();
+            } else {
+                removeAt(lastIndex);
+                lastIndex = -1;
+            }
+        }
+    }
+}
@@ -18,6 +18,7 @@
  */
 package ognl;
 
+import java.lang.ref.WeakReference;
 import java.util.concurrent.ConcurrentHashMap;
 
 /**
@@ -27,14 +28,19 @@ import java.util.concurrent.ConcurrentHashMap;
  */
 public class DefaultClassResolver<C extends OgnlContext<C>> implements ClassResolver<C> {
 
-    private final ConcurrentHashMap<String, Class<?>> classes = new ConcurrentHashMap<>(101);
+    /**
+     * Resolved classes are referenced weakly, as {@link #toClassForName(String)} may load them through
+     * a class loader which must be allowed to unload.
+     */
+    private final ConcurrentHashMap<String, WeakReference<Class<?>>> classes = new ConcurrentHashMap<>(101);
 
     public DefaultClassResolver() {
         super();
     }
 
     public <T> Class<T> classForName(String className, C context) throws ClassNotFoundException {
-        Class<?> result = classes.get(className);
+        WeakReference<Class<?>> reference = classes.get(className);
+        Class<?> result = reference != null ? reference.get() : null;
         if (result != null) {
             return (Class<T>) result;
         }
@@ -53,7 +59,10 @@ public class DefaultClassResolver<C extends OgnlContext<C>> implements ClassReso
                 throw e;
             }
         }
-        classes.putIfAbsent(className, result);
+        if (reference != null) {
+            classes.remove(className, reference);
+        }
+        classes.putIfAbsent(className, new WeakReference<>(result));
         return (Class<T>) result;
     }
 
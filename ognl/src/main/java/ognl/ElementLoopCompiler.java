@@ -0,0 +1,240 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ognl;
+
+import ognl.enhance.ExpressionCompiler;
+import ognl.enhance.OgnlExpressionCompiler;
+import ognl.enhance.OrderedReturn;
+import ognl.enhance.UnsupportedCompilationException;
+
+import java.lang.reflect.Modifier;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Compiles projections and selections into loops over the elements of their source, with the inner expression
+ * inlined for elements of the same class as the first element seen while compiling. Other elements, and sources
+ * which are neither collections nor object arrays, are evaluated by the interpreter.
+ */
+final class ElementLoopCompiler {
+
+    /**
+     * Key of the java source of the current element in the {@link OgnlContext} while the inner expression is
+     * compiled, used by {@link ASTThisVarRef}.
+     */
+    static final String THIS_ELEMENT = "_thisElement";
+
+    enum Kind {
+        PROJECT, SELECT, SELECT_FIRST, SELECT_LAST
+    }
+
+    private ElementLoopCompiler() {
+    }
+
+    static <C extends OgnlContext<C>> String toGetSourceString(SimpleNode<C> node, Kind kind, C context, Object target) {
+        OgnlExpressionCompiler<C> compiler = OgnlRuntime.getCompiler();
+        Node<C> inner = node.jjtGetChild(0);
+        Object sample = getSampleElement(target);
+
+        checkInnerExpression(inner, true);
+
+        String source = getSourceExpression(node, context);
+        String elementCode = compileElement(inner, sample, context);
+        String nodeReference = compiler.getNodeReference(context, node);
+
+        String elementMethod = compiler.createLocalMethod(context, "{ if ($2 instanceof " + ExpressionCompiler.getCastString(sample.getClass()) + ") {"
+                + " return ($w) (" + elementCode + "); }"
+                + " return " + nodeReference + ".jjtGetChild(0).getValue($1, $2); }", Object.class);
+
+        String loopMethod = compiler.createLocalMethod(context, "{ java.util.Collection elements = ognl.OgnlRuntime.getCompilableElements($2);"
+                + " if (elements == null) { return (java.util.List) " + nodeReference + ".getValue($1, $2); }"
+                + " java.util.List answer = " + (kind == Kind.PROJECT ? "new java.util.ArrayList(elements.size());" : "new java.util.ArrayList();")
+                + " if (elements instanceof java.util.RandomAccess) {"
+                + " java.util.List list = (java.util.List) elements; int count = list.size();"
+                + " for (int i = 0; i < count; i++) { Object next = list.get(i); " + getLoopStatement(kind, elementMethod) + " }"
+                + " } else {"
+                + " java.util.Iterator it = elements.iterator();"
+                + " while (it.hasNext()) { Object next = it.next(); " + getLoopStatement(kind, elementMethod) + " }"
+                + " }"
+                + " return answer; }", List.class);
+
+        Object value;
+        try {
+            value = node.getValue(context, target);
+        } catch (OgnlException e) {
+            throw OgnlOps.castToRuntime(e);
+        }
+        context.setCurrentObject(value);
+        context.setCurrentType(List.class);
+        context.setCurrentAccessor(List.class);
+
+        return loopMethod + "($1, " + source + ")";
+    }
+
+    private static String getLoopStatement(Kind kind, String elementMethod) {
+        switch (kind) {
+            case PROJECT:
+                return "answer.add(" + elementMethod + "($1, next));";
+            case SELECT:
+                return "if (ognl.OgnlOps.booleanValue(" + elementMethod + "($1, next))) { answer.add(next); }";
+            case SELECT_FIRST:
+                return "if (ognl.OgnlOps.booleanValue(" + elementMethod + "($1, next))) { answer.add(next); break; }";
+            default:
+                return "if (ognl.OgnlOps.booleanValue(" + elementMethod + "($1, next))) { answer.clear(); answer.add(next); }";
+        }
+    }
+
+    /**
+     * Gets the first element of a compilable source, which determines the class the inner expression is compiled for.
+     */
+    private static Object getSampleElement(Object target) {
+        Collection<?> elements;
+        try {
+            elements = OgnlRuntime.getCompilableElements(target);
+        } catch (OgnlException e) {
+            throw OgnlOps.castToRuntime(e);
+        }
+        if (elements == null) {
+            throw new UnsupportedCompilationException("Only collections and object arrays can be projected or selected as native java.");
+        }
+        for (Object element : elements) {
+            if (element != null) {
+                if (!Modifier.isPublic(element.getClass().getModifiers())) {
+                    throw new UnsupportedCompilationException("Can't compile projection or selection of non public " + element.getClass() + " elements.");
+                }
+                return element;
+            }
+        }
+        throw new UnsupportedCompilationException("Can't compile projection or selection without non null elements.");
+    }
+
+    /**
+     * The interpreter evaluates method and constructor arguments, as well as property names and indexes, against
+     * the root rather than the element, so within the inner expression these have to give the same value for
+     * both. <code>#this</code> is only compiled where it stands for the element.
+     */
+    private static <C extends OgnlContext<C>> void checkInnerExpression(Node<C> node, boolean elementSource) {
+        if (ExpressionCompiler.isElementLoop(node)) {
+            return;
+        }
+        if (node instanceof ASTRootVarRef || (node instanceof ASTThisVarRef && !elementSource)) {
+            throw new UnsupportedCompilationException("Can't compile " + node + " in projections or selections.");
+        }
+        if (node instanceof ASTMethod || node instanceof ASTStaticMethod || node instanceof ASTCtor || node instanceof ASTProperty) {
+            for (int i = 0; i < node.jjtGetNumChildren(); i++) {
+                if (!isRootIndependent(node.jjtGetChild(i))) {
+                    throw new UnsupportedCompilationException("Can't compile " + node + " in projections or selections.");
+                }
+            }
+            return;
+        }
+        for (int i = 0; i < node.jjtGetNumChildren(); i++) {
+            boolean childSource = elementSource && (node instanceof ExpressionNode || (node instanceof ASTChain && i == 0));
+            checkInnerExpression(node.jjtGetChild(i), childSource);
+        }
+    }
+
+    private static <C extends OgnlContext<C>> boolean isRootIndependent(Node<C> node) {
+        if (node instanceof ASTConst || node instanceof ASTStaticField) {
+            return true;
+        }
+        if (node instanceof ASTVarRef) {
+            return !(node instanceof ASTThisVarRef) && !(node instanceof ASTRootVarRef);
+        }
+        if (node instanceof ExpressionNode) {
+            for (int i = 0; i < node.jjtGetNumChildren(); i++) {
+                if (!isRootIndependent(node.jjtGetChild(i))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Gets the java source of the collection the loop runs over: the chain evaluated so far when the node follows
+     * other nodes of a chain, the source of the enclosing code otherwise. A chain following another loop already
+     * starts with the call of that loop, which takes the root itself.
+     */
+    private static <C extends OgnlContext<C>> String getSourceExpression(SimpleNode<C> node, C context) {
+        Node<C> parent = node.jjtGetParent();
+        if (!(parent instanceof ASTChain) || parent.jjtGetChild(0) == node) {
+            return "$2";
+        }
+        String cast = (String) context.remove(ExpressionCompiler.PRE_CAST);
+        String chain = (String) context.get(OgnlContext.CURRENT_CHAIN);
+        String rootExpr = context.get("_noRoot") != null || followsElementLoop(node, parent)
+                ? "" : ExpressionCompiler.getChainRootExpression(parent, context.getRoot(), context);
+
+        return (cast != null ? cast : "") + rootExpr + (chain != null ? chain : "");
+    }
+
+    private static <C extends OgnlContext<C>> boolean followsElementLoop(Node<C> node, Node<C> parent) {
+        for (int i = 0; i < parent.jjtGetNumChildren() && parent.jjtGetChild(i) != node; i++) {
+            if (ExpressionCompiler.isElementLoop(parent.jjtGetChild(i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Compiles the inner expression against the sample element as root, with the state of the enclosing compilation
+     * taken aside.
+     */
+    private static <C extends OgnlContext<C>> String compileElement(Node<C> inner, Object sample, C context) {
+        OgnlContext.CompilationState state = context.saveCompilationState();
+        Object preCast = context.remove(ExpressionCompiler.PRE_CAST);
+        Object chain = context.remove(OgnlContext.CURRENT_CHAIN);
+        Object lastChild = context.remove(OgnlContext.LAST_CHILD);
+        Object noRoot = context.remove("_noRoot");
+        Object thisElement = context.put(THIS_ELEMENT, "((" + ExpressionCompiler.getCastString(sample.getClass()) + ")$2)");
+        try {
+            context.withRoot(sample);
+
+            String code = inner.toGetSourceString(context, sample);
+            if (inner instanceof OrderedReturn && ((OrderedReturn) inner).getLastExpression() != null) {
+                throw new UnsupportedCompilationException("Can't compile ordered expressions in projections or selections.");
+            }
+            if (code == null || code.trim().isEmpty()) {
+                return "null";
+            }
+            String cast = (String) context.remove(ExpressionCompiler.PRE_CAST);
+            String rootExpr = context.remove("_noRoot") != null ? "" : ExpressionCompiler.getRootExpression(inner, sample, context);
+
+            return (cast != null ? cast : "") + rootExpr + code;
+        } finally {
+            context.restoreCompilationState(state);
+            restore(context, ExpressionCompiler.PRE_CAST, preCast);
+            restore(context, OgnlContext.CURRENT_CHAIN, chain);
+            restore(context, OgnlContext.LAST_CHILD, lastChild);
+            restore(context, "_noRoot", noRoot);
+            restore(context, THIS_ELEMENT, thisElement);
+        }
+    }
+
+    private static void restore(OgnlContext<?> context, String key, Object value) {
+        if (value != null) {
+            context.put(key, value);
+        } else {
+            context.remove(key);
+        }
+    }
+}
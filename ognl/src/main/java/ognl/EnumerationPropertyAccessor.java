@@ -27,7 +27,8 @@ import java.util.Enumeration;
  */
 public class EnumerationPropertyAccessor<C extends OgnlContext<C>> extends ObjectPropertyAccessor<C> implements PropertyAccessor<C> {
 
-    public Object getProperty(C context, Object target, Object name) throws OgnlException {
+    @Override
+    public Object findProperty(C context, Object target, Object name, boolean indexedAccess) throws OgnlException {
         Object result;
         Enumeration<?> e = (Enumeration<?>) target;
 
@@ -38,11 +39,11 @@ public class EnumerationPropertyAccessor<C extends OgnlContext<C>> extends Objec
                 if (name.equals("hasNext") || name.equals("hasMoreElements")) {
                     result = e.hasMoreElements() ? Boolean.TRUE : Boolean.FALSE;
                 } else {
-                    result = super.getProperty(context, target, name);
+                    result = super.findProperty(context, target, name, indexedAccess);
                 }
             }
         } else {
-            result = super.getProperty(context, target, name);
+            result = super.findProperty(context, target, name, indexedAccess);
         }
         return result;
     }
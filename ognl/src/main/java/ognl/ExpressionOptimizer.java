@@ -0,0 +1,313 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ognl;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Rewrites a parsed tree into an equivalent, cheaper one, see {@link Ognl#optimize(OgnlContext, Object)}:
+ * <ul>
+ * <li>operators whose operands are all constants are folded into a constant, as are <code>static final</code>
+ * fields when a context is given to check their access;</li>
+ * <li>conditionals with a constant test are replaced by the branch taken, constant operands of
+ * <code>&amp;&amp;</code>, <code>||</code> and sequences which do not decide the result are dropped, and the
+ * operands following one which does are pruned;</li>
+ * <li>nested <code>&amp;&amp;</code>, <code>||</code>, sequences and bitwise <code>&amp;</code>, <code>|</code>,
+ * <code>^</code> are flattened, additions and multiplications are not, being not associative for strings and
+ * floating point numbers, only their leading constant operands are folded;</li>
+ * <li>double negations of boolean expressions are removed and negated (in)equalities and memberships are
+ * replaced by their opposite.</li>
+ * </ul>
+ * Constants are only folded when the result prints as a literal parsed back to the same value, so the optimized
+ * tree still round-trips through <code>toString()</code>. Operations failing at optimization time, like a
+ * division by zero, are left as they are to fail at evaluation time.
+ */
+final class ExpressionOptimizer<C extends OgnlContext<C>> {
+
+    private final C context;
+    private final C foldingContext;
+
+    /**
+     * @param context the context used to read static fields, if null they are not folded.
+     */
+    ExpressionOptimizer(C context) {
+        this.context = context;
+        this.foldingContext = context != null ? context : Ognl.createDefaultContext(null);
+    }
+
+    /**
+     * Optimizes the given tree in place.
+     *
+     * @param node the tree to be optimized, not in use by other threads.
+     * @return the optimized tree, either the given node or the one replacing it.
+     */
+    Node<C> optimize(Node<C> node) {
+        if (!(node instanceof SimpleNode) || node instanceof ASTConst) {
+            // the bodies of lambda expressions held by constants are left as written
+            return node;
+        }
+        for (int i = 0; i < node.jjtGetNumChildren(); i++) {
+            Node<C> child = node.jjtGetChild(i);
+            Node<C> optimized = optimize(child);
+            if (optimized != child) {
+                node.jjtAddChild(optimized, i);
+                optimized.jjtSetParent(node);
+            }
+        }
+
+        if (isAssociative(node)) {
+            flatten((SimpleNode<C>) node);
+        }
+        Node<C> result = simplify(node);
+        if (result == node && isFoldable(node)) {
+            result = fold(node);
+        } else if (result == node && isLeftFold(node)) {
+            foldLeadingConstants((SimpleNode<C>) node);
+        }
+        return result;
+    }
+
+    private Node<C> simplify(Node<C> node) {
+        if (node instanceof ASTTest && isConstant(node.jjtGetChild(0))) {
+            Object test = ((ASTConst<C>) node.jjtGetChild(0)).getValue();
+            return node.jjtGetChild(OgnlOps.booleanValue(test) ? 1 : 2);
+        }
+        if (node instanceof ASTAnd || node instanceof ASTOr) {
+            return simplifyShortCircuit((SimpleNode<C>) node, node instanceof ASTAnd);
+        }
+        if (node instanceof ASTSequence) {
+            return simplifySequence((SimpleNode<C>) node);
+        }
+        if (node instanceof ASTNot) {
+            return simplifyNot(node.jjtGetChild(0), node);
+        }
+        return node;
+    }
+
+    /**
+     * <code>&amp;&amp;</code> (<code>||</code>) yields the first false (true) operand or the last one: a constant
+     * true (false) operand other than the last one is skipped, the operands following a constant false (true)
+     * one are never evaluated.
+     */
+    private Node<C> simplifyShortCircuit(SimpleNode<C> node, boolean and) {
+        List<Node<C>> operands = new ArrayList<>();
+        int last = node.jjtGetNumChildren() - 1;
+        for (int i = 0; i <= last; i++) {
+            Node<C> child = node.jjtGetChild(i);
+            if (isConstant(child)) {
+                boolean value = OgnlOps.booleanValue(((ASTConst<C>) child).getValue());
+                if (value != and) {
+                    operands.add(child);
+                    break;
+                }
+                if (i != last) {
+                    continue;
+                }
+            }
+            operands.add(child);
+        }
+        return replaceOperands(node, operands);
+    }
+
+    /**
+     * Constants other than the last element of a sequence have no effect.
+     */
+    private Node<C> simplifySequence(SimpleNode<C> node) {
+        List<Node<C>> operands = new ArrayList<>();
+        int last = node.jjtGetNumChildren() - 1;
+        for (int i = 0; i <= last; i++) {
+            Node<C> child = node.jjtGetChild(i);
+            if (i == last || !isConstant(child)) {
+                operands.add(child);
+            }
+        }
+        return replaceOperands(node, operands);
+    }
+
+    private Node<C> replaceOperands(SimpleNode<C> node, List<Node<C>> operands) {
+        if (operands.size() == 1) {
+            return operands.get(0);
+        }
+        if (operands.size() != node.jjtGetNumChildren()) {
+            setChildren(node, operands);
+        }
+        return node;
+    }
+
+    private Node<C> simplifyNot(Node<C> operand, Node<C> node) {
+        if (operand instanceof ASTNot && isBoolean(operand.jjtGetChild(0))) {
+            return operand.jjtGetChild(0);
+        }
+        SimpleNode<C> opposite = null;
+        if (operand instanceof ASTEq) {
+            opposite = new ASTNotEq<>(OgnlParserTreeConstants.JJTNOTEQ);
+        } else if (operand instanceof ASTNotEq) {
+            opposite = new ASTEq<>(OgnlParserTreeConstants.JJTEQ);
+        } else if (operand instanceof ASTIn) {
+            opposite = new ASTNotIn<>(OgnlParserTreeConstants.JJTNOTIN);
+        } else if (operand instanceof ASTNotIn) {
+            opposite = new ASTIn<>(OgnlParserTreeConstants.JJTIN);
+        }
+        if (opposite == null) {
+            return node;
+        }
+        List<Node<C>> operands = new ArrayList<>();
+        for (int i = 0; i < operand.jjtGetNumChildren(); i++) {
+            operands.add(operand.jjtGetChild(i));
+        }
+        setChildren(opposite, operands);
+        return opposite;
+    }
+
+    /**
+     * Nodes whose value is always a <code>Boolean</code>, so a double negation yields the same value.
+     */
+    private static boolean isBoolean(Node<?> node) {
+        return node instanceof ComparisonExpression || node instanceof ASTNot || node instanceof ASTIn
+                || node instanceof ASTNotIn || node instanceof ASTInstanceof
+                || (node instanceof ASTConst && ((ASTConst<?>) node).getValue() instanceof Boolean);
+    }
+
+    private static boolean isAssociative(Node<?> node) {
+        return node instanceof ASTAnd || node instanceof ASTOr || node instanceof ASTSequence
+                || node instanceof ASTBitAnd || node instanceof ASTBitOr || node instanceof ASTXor;
+    }
+
+    private void flatten(SimpleNode<C> node) {
+        boolean nested = false;
+        for (int i = 0; i < node.jjtGetNumChildren(); i++) {
+            nested |= node.jjtGetChild(i).getClass() == node.getClass();
+        }
+        if (!nested) {
+            return;
+        }
+        List<Node<C>> operands = new ArrayList<>();
+        for (int i = 0; i < node.jjtGetNumChildren(); i++) {
+            Node<C> child = node.jjtGetChild(i);
+            if (child.getClass() == node.getClass()) {
+                for (int j = 0; j < child.jjtGetNumChildren(); j++) {
+                    operands.add(child.jjtGetChild(j));
+                }
+            } else {
+                operands.add(child);
+            }
+        }
+        setChildren(node, operands);
+    }
+
+    /**
+     * Operators applied from left to right to any number of operands.
+     */
+    private static boolean isLeftFold(Node<?> node) {
+        return node instanceof ASTAdd || node instanceof ASTMultiply
+                || node instanceof ASTBitAnd || node instanceof ASTBitOr || node instanceof ASTXor;
+    }
+
+    /**
+     * The leading constant operands of an operator applied from left to right, like <code>1 + 2 + a</code>, are
+     * folded into a single one.
+     */
+    private void foldLeadingConstants(SimpleNode<C> node) {
+        int count = 0;
+        while (count < node.jjtGetNumChildren() && isConstant(node.jjtGetChild(count))) {
+            count++;
+        }
+        if (count < 2) {
+            return;
+        }
+        SimpleNode<C> prefix = node.deepCopy();
+        List<Node<C>> operands = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            operands.add(prefix.jjtGetChild(i));
+        }
+        setChildren(prefix, operands);
+        Node<C> folded = fold(prefix);
+        if (folded == prefix) {
+            return;
+        }
+        operands.clear();
+        operands.add(folded);
+        for (int i = count; i < node.jjtGetNumChildren(); i++) {
+            operands.add(node.jjtGetChild(i));
+        }
+        setChildren(node, operands);
+    }
+
+    private boolean isFoldable(Node<C> node) {
+        if (node instanceof ExpressionNode) {
+            for (int i = 0; i < node.jjtGetNumChildren(); i++) {
+                if (!isConstant(node.jjtGetChild(i))) {
+                    return false;
+                }
+            }
+            return node.jjtGetNumChildren() > 0;
+        }
+        if (node instanceof ASTStaticField && context != null) {
+            try {
+                return ((ASTStaticField<C>) node).isNodeConstant(context);
+            } catch (OgnlException e) {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    private Node<C> fold(Node<C> node) {
+        Object value;
+        try {
+            value = node.getValue(foldingContext, null);
+        } catch (OgnlException | RuntimeException e) {
+            return node;
+        }
+        if (!isLiteral(value)) {
+            return node;
+        }
+        ASTConst<C> constant = new ASTConst<>(OgnlParserTreeConstants.JJTCONST);
+        constant.setValue(value);
+        return constant;
+    }
+
+    /**
+     * Values printed by {@link ASTConst#toString()} as a literal parsed back to an equal value.
+     */
+    private static boolean isLiteral(Object value) {
+        if (value instanceof Double) {
+            return Double.isFinite((Double) value);
+        }
+        return value == null || value instanceof String || value instanceof Boolean || value instanceof Character
+                || value instanceof Integer || value instanceof Long || value instanceof BigInteger
+                || value instanceof BigDecimal;
+    }
+
+    private static boolean isConstant(Node<?> node) {
+        return node instanceof ASTConst && !(((ASTConst<?>) node).getValue() instanceof Node);
+    }
+
+    private void setChildren(SimpleNode<C> node, List<Node<C>> operands) {
+        Node<C>[] children = new Node[operands.size()];
+        for (int i = 0; i < children.length; i++) {
+            children[i] = operands.get(i);
+            children[i].jjtSetParent(node);
+        }
+        node.children = children;
+    }
+}
@@ -0,0 +1,1440 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ognl;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+/**
+ * Hand-written recursive descent parser of OGNL expressions, an alternative to the JavaCC generated
+ * {@link OgnlParser} which remains the reference implementation of the grammar in <code>ognl.jj</code>.
+ * <p>
+ * The parser scans the expression in place, without a character stream or token objects, and builds exactly
+ * the same trees as {@link OgnlParser}: the same node classes are created, populated and closed in the same
+ * order, so for example chains and sums are flattened by their <code>jjtClose()</code> methods as before.
+ * Binary operators are parsed by precedence climbing over the levels of the grammar. Syntax errors are
+ * reported as {@link ParseException} and lexical errors as {@link TokenMgrError}, like the JavaCC parser.
+ * <p>
+ * Instances are not thread safe, use {@link #parse(CharSequence)}.
+ */
+public final class FastOgnlParser<C extends OgnlContext<C>> implements OgnlParserTreeConstants {
+
+    // token kinds
+    private static final int EOF = 0;
+    private static final int IDENT = 1;
+    private static final int LITERAL = 2;
+    private static final int DYNAMIC_SUBSCRIPT = 3;
+    private static final int COMMA = 4;
+    private static final int ASSIGN = 5;
+    private static final int QUESTION = 6;
+    private static final int COLON = 7;
+    private static final int OR = 8;
+    private static final int AND = 9;
+    private static final int BIT_OR = 10;
+    private static final int XOR = 11;
+    private static final int BIT_AND = 12;
+    private static final int EQ = 13;
+    private static final int NOT_EQ = 14;
+    private static final int LESS = 15;
+    private static final int GREATER = 16;
+    private static final int LESS_EQ = 17;
+    private static final int GREATER_EQ = 18;
+    private static final int IN = 19;
+    private static final int NOT = 20;
+    private static final int SHIFT_LEFT = 21;
+    private static final int SHIFT_RIGHT = 22;
+    private static final int UNSIGNED_SHIFT_RIGHT = 23;
+    private static final int PLUS = 24;
+    private static final int MINUS = 25;
+    private static final int STAR = 26;
+    private static final int SLASH = 27;
+    private static final int PERCENT = 28;
+    private static final int TILDE = 29;
+    private static final int BANG = 30;
+    private static final int INSTANCEOF = 31;
+    private static final int DOT = 32;
+    private static final int SAFE_DOT = 33;
+    private static final int LPAREN = 34;
+    private static final int RPAREN = 35;
+    private static final int LBRACKET = 36;
+    private static final int RBRACKET = 37;
+    private static final int LBRACE = 38;
+    private static final int RBRACE = 39;
+    private static final int TRUE = 40;
+    private static final int FALSE = 41;
+    private static final int NULL = 42;
+    private static final int HASH_THIS = 43;
+    private static final int HASH_ROOT = 44;
+    private static final int HASH = 45;
+    private static final int AT = 46;
+    private static final int NEW = 47;
+    private static final int DOLLAR = 48;
+
+    // binary operator precedence levels, from the loosest to the tightest binding
+    private static final int LEVEL_OR = 1;
+    private static final int LEVEL_AND = 2;
+    private static final int LEVEL_BIT_OR = 3;
+    private static final int LEVEL_XOR = 4;
+    private static final int LEVEL_BIT_AND = 5;
+    private static final int LEVEL_EQUALITY = 6;
+    private static final int LEVEL_RELATIONAL = 7;
+    private static final int LEVEL_SHIFT = 8;
+    private static final int LEVEL_ADDITIVE = 9;
+    private static final int LEVEL_MULTIPLICATIVE = 10;
+
+    private final CharSequence input;
+    private final int length;
+    private int position;
+
+    // current token
+    private int kind;
+    private int start;
+    private int end;
+    private Object value;
+
+    // one token of lookahead, scanned on demand
+    private boolean peeked;
+    private int nextKind;
+    private int nextStart;
+    private int nextEnd;
+    private Object nextValue;
+
+    // output of the scanner
+    private int scannedStart;
+    private int scannedEnd;
+    private Object scannedValue;
+
+    /**
+     * Last character of a character literal, kept between tokens like the JavaCC token manager does.
+     */
+    private char charValue;
+
+    private FastOgnlParser(CharSequence input) {
+        this.input = input;
+        this.length = input.length();
+        next();
+    }
+
+    /**
+     * Parses the given OGNL expression.
+     *
+     * @param expression the OGNL expression to be parsed
+     * @param <C>        type of the context the tree will be evaluated with
+     * @return the root node of the tree representation of the expression
+     * @throws ParseException if the expression is malformed
+     * @throws TokenMgrError  if the expression contains an invalid token, including an integer literal whose
+     *                        value is outside the representable range
+     */
+    public static <C extends OgnlContext<C>> Node<C> parse(CharSequence expression) throws ParseException {
+        return new FastOgnlParser<C>(translateUnicodeEscapes(expression)).topLevelExpression();
+    }
+
+    // ---------------------------------------------------------------------------------------------------------
+    // Grammar
+    // ---------------------------------------------------------------------------------------------------------
+
+    private Node<C> topLevelExpression() throws ParseException {
+        Node<C> result = expression();
+        expect(EOF);
+        return result;
+    }
+
+    // sequence (level 14)
+    private Node<C> expression() throws ParseException {
+        Node<C> result = assignmentExpression();
+        while (kind == COMMA) {
+            next();
+            result = close(new ASTSequence<>(JJTSEQUENCE), result, assignmentExpression());
+        }
+        return result;
+    }
+
+    // assignment expression (level 13)
+    private Node<C> assignmentExpression() throws ParseException {
+        Node<C> result = conditionalTestExpression();
+        if (kind == ASSIGN) {
+            next();
+            result = close(new ASTAssign<>(JJTASSIGN), result, assignmentExpression());
+        }
+        return result;
+    }
+
+    // conditional test (level 12)
+    private Node<C> conditionalTestExpression() throws ParseException {
+        Node<C> result = binaryExpression(LEVEL_OR);
+        if (kind == QUESTION) {
+            next();
+            Node<C> whenTrue = conditionalTestExpression();
+            expect(COLON);
+            Node<C> whenFalse = conditionalTestExpression();
+            result = close(new ASTTest<>(JJTTEST), result, whenTrue, whenFalse);
+        }
+        return result;
+    }
+
+    // binary operators (levels 11 to 2), all of them left associative
+    private Node<C> binaryExpression(int minLevel) throws ParseException {
+        Node<C> result = unaryExpression();
+        for (int level = binaryLevel(kind); level >= minLevel; level = binaryLevel(kind)) {
+            int operator = kind;
+            next();
+            if (operator == NOT) {
+                expect(IN);
+            }
+            Node<C> right = binaryExpression(level + 1);
+            result = close(newBinaryNode(operator), result, right);
+        }
+        return result;
+    }
+
+    private static int binaryLevel(int kind) {
+        switch (kind) {
+            case OR:
+                return LEVEL_OR;
+            case AND:
+                return LEVEL_AND;
+            case BIT_OR:
+                return LEVEL_BIT_OR;
+            case XOR:
+                return LEVEL_XOR;
+            case BIT_AND:
+                return LEVEL_BIT_AND;
+            case EQ:
+            case NOT_EQ:
+                return LEVEL_EQUALITY;
+            case LESS:
+            case GREATER:
+            case LESS_EQ:
+            case GREATER_EQ:
+            case IN:
+            case NOT:
+                return LEVEL_RELATIONAL;
+            case SHIFT_LEFT:
+            case SHIFT_RIGHT:
+            case UNSIGNED_SHIFT_RIGHT:
+                return LEVEL_SHIFT;
+            case PLUS:
+            case MINUS:
+                return LEVEL_ADDITIVE;
+            case STAR:
+            case SLASH:
+            case PERCENT:
+                return LEVEL_MULTIPLICATIVE;
+            default:
+                return 0;
+        }
+    }
+
+    private SimpleNode<C> newBinaryNode(int operator) {
+        switch (operator) {
+            case OR:
+                return new ASTOr<>(JJTOR);
+            case AND:
+                return new ASTAnd<>(JJTAND);
+            case BIT_OR:
+                return new ASTBitOr<>(JJTBITOR);
+            case XOR:
+                return new ASTXor<>(JJTXOR);
+            case BIT_AND:
+                return new ASTBitAnd<>(JJTBITAND);
+            case EQ:
+                return new ASTEq<>(JJTEQ);
+            case NOT_EQ:
+                return new ASTNotEq<>(JJTNOTEQ);
+            case LESS:
+                return new ASTLess<>(JJTLESS);
+            case GREATER:
+                return new ASTGreater<>(JJTGREATER);
+            case LESS_EQ:
+                return new ASTLessEq<>(JJTLESSEQ);
+            case GREATER_EQ:
+                return new ASTGreaterEq<>(JJTGREATEREQ);
+            case IN:
+                return new ASTIn<>(JJTIN);
+            case NOT:
+                return new ASTNotIn<>(JJTNOTIN);
+            case SHIFT_LEFT:
+                return new ASTShiftLeft<>(JJTSHIFTLEFT);
+            case SHIFT_RIGHT:
+                return new ASTShiftRight<>(JJTSHIFTRIGHT);
+            case UNSIGNED_SHIFT_RIGHT:
+                return new ASTUnsignedShiftRight<>(JJTUNSIGNEDSHIFTRIGHT);
+            case PLUS:
+                return new ASTAdd<>(JJTADD);
+            case MINUS:
+                return new ASTSubtract<>(JJTSUBTRACT);
+            case STAR:
+                return new ASTMultiply<>(JJTMULTIPLY);
+            case SLASH:
+                return new ASTDivide<>(JJTDIVIDE);
+            case PERCENT:
+                return new ASTRemainder<>(JJTREMAINDER);
+            default:
+                throw new IllegalStateException("Not a binary operator: " + operator);
+        }
+    }
+
+    // unary (level 1)
+    private Node<C> unaryExpression() throws ParseException {
+        switch (kind) {
+            case MINUS:
+                next();
+                return close(new ASTNegate<>(JJTNEGATE), unaryExpression());
+            case PLUS:
+                next();
+                return unaryExpression();
+            case TILDE:
+                next();
+                return close(new ASTBitNegate<>(JJTBITNEGATE), unaryExpression());
+            case BANG:
+            case NOT:
+                next();
+                return close(new ASTNot<>(JJTNOT), unaryExpression());
+            default:
+                Node<C> result = navigationChain();
+                if (kind == INSTANCEOF) {
+                    next();
+                    ASTInstanceof<C> node = close(new ASTInstanceof<>(JJTINSTANCEOF), result);
+                    node.setTargetType(qualifiedName());
+                    result = node;
+                }
+                return result;
+        }
+    }
+
+    // navigation chain: property references, method calls, projections, selections, etc.
+    private Node<C> navigationChain() throws ParseException {
+        Node<C> result = primaryExpression();
+        while (true) {
+            switch (kind) {
+                case DOT:
+                case SAFE_DOT: {
+                    boolean nullSafe = kind == SAFE_DOT;
+                    next();
+                    Node<C> element;
+                    if (kind == IDENT) {
+                        element = peek() == LPAREN ? methodCall() : propertyName();
+                    } else if (kind == LBRACE) {
+                        element = startsExpression(peek()) ? projection() : selection();
+                    } else if (kind == LPAREN) {
+                        next();
+                        element = expression();
+                        expect(RPAREN);
+                    } else {
+                        throw unexpected();
+                    }
+                    ASTChain<C> chain = new ASTChain<>(JJTCHAIN);
+                    chain.setNullSafe(nullSafe);
+                    result = close(chain, result, element);
+                    break;
+                }
+                case LBRACKET:
+                case DYNAMIC_SUBSCRIPT:
+                    result = close(new ASTChain<>(JJTCHAIN), result, index());
+                    break;
+                case LPAREN: {
+                    next();
+                    Node<C> argument = expression();
+                    expect(RPAREN);
+                    result = close(new ASTEval<>(JJTEVAL), result, argument);
+                    break;
+                }
+                default:
+                    return result;
+            }
+        }
+    }
+
+    private Node<C> primaryExpression() throws ParseException {
+        switch (kind) {
+            case LITERAL: {
+                ASTConst<C> node = close(new ASTConst<>(JJTCONST));
+                node.setValue(value);
+                next();
+                return node;
+            }
+            case TRUE:
+            case FALSE: {
+                ASTConst<C> node = close(new ASTConst<>(JJTCONST));
+                node.setValue(kind == TRUE ? Boolean.TRUE : Boolean.FALSE);
+                next();
+                return node;
+            }
+            case NULL:
+                next();
+                return close(new ASTConst<>(JJTCONST));
+            case HASH_THIS: {
+                next();
+                ASTThisVarRef<C> node = close(new ASTThisVarRef<>(JJTTHISVARREF));
+                node.setName("this");
+                return node;
+            }
+            case HASH_ROOT: {
+                next();
+                ASTRootVarRef<C> node = close(new ASTRootVarRef<>(JJTROOTVARREF));
+                node.setName("root");
+                return node;
+            }
+            case HASH: {
+                int following = peek();
+                if (following == IDENT) {
+                    next();
+                    ASTVarRef<C> node = close(new ASTVarRef<>(JJTVARREF));
+                    node.setName(image());
+                    next();
+                    return node;
+                }
+                if (following == AT || following == LBRACE) {
+                    return map();
+                }
+                throw unexpected();
+            }
+            case COLON: {
+                if (peek() != LBRACKET) {
+                    throw unexpected();
+                }
+                next();
+                next();
+                Node<C> expression = expression();
+                expect(RBRACKET);
+                ASTConst<C> node = close(new ASTConst<>(JJTCONST), expression);
+                node.setValue(node.jjtGetChild(0));
+                return node;
+            }
+            case AT:
+                return staticReference();
+            case NEW:
+                if (!isClassNamePart(peek())) {
+                    throw unexpected();
+                }
+                return constructorCall();
+            case IDENT:
+                return peek() == LPAREN ? methodCall() : propertyName();
+            case LBRACKET:
+            case DYNAMIC_SUBSCRIPT:
+                return index();
+            case LPAREN: {
+                next();
+                Node<C> result = expression();
+                expect(RPAREN);
+                return result;
+            }
+            case LBRACE: {
+                next();
+                ASTList<C> list = new ASTList<>(JJTLIST);
+                Node<C>[] elements = kind != RBRACE ? assignmentExpressions(RBRACE) : null;
+                expect(RBRACE);
+                return closeAll(list, elements);
+            }
+            default:
+                throw unexpected();
+        }
+    }
+
+    private Node<C> map() throws ParseException {
+        expect(HASH);
+        String className = kind == AT ? classReference() : null;
+        expect(LBRACE);
+        ASTMap<C> map = new ASTMap<>(JJTMAP);
+        Node<C>[] entries = null;
+        if (kind != RBRACE) {
+            entries = newNodes(4);
+            int count = 0;
+            while (true) {
+                Node<C> key = assignmentExpression();
+                Node<C> entry;
+                if (kind == COLON) {
+                    next();
+                    entry = close(new ASTKeyValue<>(JJTKEYVALUE), key, assignmentExpression());
+                } else {
+                    entry = close(new ASTKeyValue<>(JJTKEYVALUE), key);
+                }
+                entries = append(entries, count++, entry);
+                if (kind != COMMA) {
+                    break;
+                }
+                next();
+            }
+            entries = trim(entries, count);
+        }
+        map.setClassName(className);
+        expect(RBRACE);
+        return closeAll(map, entries);
+    }
+
+    private Node<C> staticReference() throws ParseException {
+        String className = classReference();
+        if (kind != IDENT) {
+            throw unexpected();
+        }
+        String name = image();
+        if (peek() == LPAREN) {
+            next();
+            next();
+            ASTStaticMethod<C> method = new ASTStaticMethod<>(JJTSTATICMETHOD);
+            Node<C>[] arguments = kind != RPAREN ? assignmentExpressions(RPAREN) : null;
+            expect(RPAREN);
+            closeAll(method, arguments);
+            method.init(className, name);
+            return method;
+        }
+        next();
+        ASTStaticField<C> field = close(new ASTStaticField<>(JJTSTATICFIELD));
+        field.init(className, name);
+        return field;
+    }
+
+    private String classReference() throws ParseException {
+        expect(AT);
+        String result = "java.lang.Math";
+        if (isClassNamePart(kind)) {
+            result = qualifiedName();
+        }
+        expect(AT);
+        return result;
+    }
+
+    /**
+     * Parses a dotted class name, whose parts may also be keywords appearing in package names.
+     */
+    private String qualifiedName() throws ParseException {
+        if (!isClassNamePart(kind)) {
+            throw unexpected();
+        }
+        int nameStart = start;
+        int nameEnd = end;
+        boolean contiguous = true;
+        StringBuilder result = null;
+        next();
+        while (kind == DOT) {
+            next();
+            if (!isClassNamePart(kind)) {
+                throw unexpected();
+            }
+            if (contiguous && start == nameEnd + 1 && input.charAt(nameEnd) == '.') {
+                nameEnd = end;
+            } else {
+                if (result == null) {
+                    result = new StringBuilder().append(input, nameStart, nameEnd);
+                }
+                contiguous = false;
+                result.append('.').append(input, start, end);
+            }
+            next();
+        }
+        return result != null ? result.toString() : substring(nameStart, nameEnd);
+    }
+
+    private Node<C> constructorCall() throws ParseException {
+        expect(NEW);
+        ASTCtor<C> ctor = new ASTCtor<>(JJTCTOR);
+        String className = qualifiedName();
+        if (kind == LPAREN && (peek() == RPAREN || startsExpression(nextKind))) {
+            next();
+            Node<C>[] arguments = kind != RPAREN ? assignmentExpressions(RPAREN) : null;
+            expect(RPAREN);
+            closeAll(ctor, arguments);
+            ctor.setClassName(className);
+        } else if (kind == LBRACKET && peek() == RBRACKET) {
+            next();
+            next();
+            expect(LBRACE);
+            ASTList<C> list = new ASTList<>(JJTLIST);
+            Node<C>[] elements = kind != RBRACE ? assignmentExpressions(RBRACE) : null;
+            expect(RBRACE);
+            close(ctor, closeAll(list, elements));
+            ctor.setClassName(className);
+            ctor.setArray(true);
+        } else if (kind == LBRACKET && startsExpression(peek())) {
+            next();
+            Node<C> size = assignmentExpression();
+            expect(RBRACKET);
+            close(ctor, size);
+            ctor.setClassName(className);
+            ctor.setArray(true);
+        } else {
+            throw unexpected();
+        }
+        return ctor;
+    }
+
+    private Node<C> propertyName() throws ParseException {
+        ASTConst<C> name = close(new ASTConst<>(JJTCONST));
+        name.setValue(image());
+        expect(IDENT);
+        return close(new ASTProperty<>(JJTPROPERTY), name);
+    }
+
+    private Node<C> methodCall() throws ParseException {
+        String name = image();
+        expect(IDENT);
+        expect(LPAREN);
+        ASTMethod<C> method = new ASTMethod<>(JJTMETHOD);
+        Node<C>[] arguments = kind != RPAREN ? assignmentExpressions(RPAREN) : null;
+        expect(RPAREN);
+        closeAll(method, arguments);
+        method.setMethodName(name);
+        return method;
+    }
+
+    private Node<C> projection() throws ParseException {
+        expect(LBRACE);
+        Node<C> expression = expression();
+        expect(RBRACE);
+        return close(new ASTProject<>(JJTPROJECT), expression);
+    }
+
+    private Node<C> selection() throws ParseException {
+        SimpleNode<C> node;
+        switch (peek()) {
+            case QUESTION:
+                node = new ASTSelect<>(JJTSELECT);
+                break;
+            case XOR:
+                node = new ASTSelectFirst<>(JJTSELECTFIRST);
+                break;
+            case DOLLAR:
+                node = new ASTSelectLast<>(JJTSELECTLAST);
+                break;
+            default:
+                throw unexpected();
+        }
+        next();
+        next();
+        Node<C> expression = expression();
+        expect(RBRACE);
+        return close(node, expression);
+    }
+
+    private Node<C> index() throws ParseException {
+        ASTProperty<C> property = new ASTProperty<>(JJTPROPERTY);
+        if (kind == DYNAMIC_SUBSCRIPT) {
+            ASTConst<C> subscript = close(new ASTConst<>(JJTCONST));
+            subscript.setValue(value);
+            next();
+            close(property, subscript);
+        } else {
+            expect(LBRACKET);
+            Node<C> expression = expression();
+            expect(RBRACKET);
+            close(property, expression);
+        }
+        property.setIndexedAccess(true);
+        return property;
+    }
+
+    /**
+     * Parses a non-empty, comma separated list of assignment expressions.
+     */
+    private Node<C>[] assignmentExpressions(int terminator) throws ParseException {
+        Node<C> first = assignmentExpression();
+        if (kind == terminator) {
+            Node<C>[] result = newNodes(1);
+            result[0] = first;
+            return result;
+        }
+        Node<C>[] result = newNodes(4);
+        result[0] = first;
+        int count = 1;
+        while (kind == COMMA) {
+            next();
+            result = append(result, count++, assignmentExpression());
+        }
+        return trim(result, count);
+    }
+
+    private static boolean isClassNamePart(int kind) {
+        switch (kind) {
+            case IDENT:
+            case OR:
+            case AND:
+            case NOT:
+            case IN:
+            case BIT_OR:
+            case XOR:
+            case BIT_AND:
+            case EQ:
+            case NOT_EQ:
+            case LESS:
+            case LESS_EQ:
+            case GREATER:
+            case GREATER_EQ:
+            case SHIFT_LEFT:
+            case SHIFT_RIGHT:
+            case UNSIGNED_SHIFT_RIGHT:
+            case NEW:
+            case TRUE:
+            case FALSE:
+            case NULL:
+            case INSTANCEOF:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Tells whether the token can start an expression, used where the JavaCC parser needs two tokens of lookahead.
+     */
+    private static boolean startsExpression(int kind) {
+        switch (kind) {
+            case MINUS:
+            case PLUS:
+            case TILDE:
+            case BANG:
+            case NOT:
+            case LITERAL:
+            case TRUE:
+            case FALSE:
+            case NULL:
+            case HASH_THIS:
+            case HASH_ROOT:
+            case HASH:
+            case COLON:
+            case AT:
+            case NEW:
+            case IDENT:
+            case LBRACKET:
+            case DYNAMIC_SUBSCRIPT:
+            case LPAREN:
+            case LBRACE:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    // ---------------------------------------------------------------------------------------------------------
+    // Tree construction, mirroring JJTree's closeNodeScope()
+    // ---------------------------------------------------------------------------------------------------------
+
+    private <N extends Node<C>> N close(N node) {
+        node.jjtClose();
+        return node;
+    }
+
+    private <N extends Node<C>> N close(N node, Node<C> child) {
+        child.jjtSetParent(node);
+        node.jjtAddChild(child, 0);
+        node.jjtClose();
+        return node;
+    }
+
+    private <N extends Node<C>> N close(N node, Node<C> first, Node<C> second) {
+        second.jjtSetParent(node);
+        node.jjtAddChild(second, 1);
+        first.jjtSetParent(node);
+        node.jjtAddChild(first, 0);
+        node.jjtClose();
+        return node;
+    }
+
+    private <N extends Node<C>> N close(N node, Node<C> first, Node<C> second, Node<C> third) {
+        third.jjtSetParent(node);
+        node.jjtAddChild(third, 2);
+        second.jjtSetParent(node);
+        node.jjtAddChild(second, 1);
+        first.jjtSetParent(node);
+        node.jjtAddChild(first, 0);
+        node.jjtClose();
+        return node;
+    }
+
+    private <N extends Node<C>> N closeAll(N node, Node<C>[] children) {
+        if (children != null) {
+            for (int i = children.length - 1; i >= 0; i--) {
+                children[i].jjtSetParent(node);
+                node.jjtAddChild(children[i], i);
+            }
+        }
+        node.jjtClose();
+        return node;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Node<C>[] newNodes(int size) {
+        return new Node[size];
+    }
+
+    private Node<C>[] append(Node<C>[] nodes, int index, Node<C> node) {
+        if (index == nodes.length) {
+            Node<C>[] grown = newNodes(index * 2);
+            System.arraycopy(nodes, 0, grown, 0, index);
+            nodes = grown;
+        }
+        nodes[index] = node;
+        return nodes;
+    }
+
+    private Node<C>[] trim(Node<C>[] nodes, int count) {
+        if (count == nodes.length) {
+            return nodes;
+        }
+        Node<C>[] trimmed = newNodes(count);
+        System.arraycopy(nodes, 0, trimmed, 0, count);
+        return trimmed;
+    }
+
+    // ---------------------------------------------------------------------------------------------------------
+    // Token handling
+    // ---------------------------------------------------------------------------------------------------------
+
+    private void next() {
+        if (peeked) {
+            peeked = false;
+            kind = nextKind;
+            start = nextStart;
+            end = nextEnd;
+            value = nextValue;
+        } else {
+            kind = scan();
+            start = scannedStart;
+            end = scannedEnd;
+            value = scannedValue;
+        }
+    }
+
+    private int peek() {
+        if (!peeked) {
+            nextKind = scan();
+            nextStart = scannedStart;
+            nextEnd = scannedEnd;
+            nextValue = scannedValue;
+            peeked = true;
+        }
+        return nextKind;
+    }
+
+    private void expect(int expected) throws ParseException {
+        if (kind != expected) {
+            throw unexpected();
+        }
+        next();
+    }
+
+    private String image() {
+        return substring(start, end);
+    }
+
+    private String substring(int from, int to) {
+        return input instanceof String ? ((String) input).substring(from, to) : input.subSequence(from, to).toString();
+    }
+
+    private ParseException unexpected() {
+        String encountered = kind == EOF ? "<EOF>" : "\"" + image() + "\"";
+        return new ParseException("Encountered " + encountered + " at column " + (start + 1) + ".");
+    }
+
+    // ---------------------------------------------------------------------------------------------------------
+    // Scanner, following the token definitions of ognl.jj (longest match, keywords before identifiers)
+    // ---------------------------------------------------------------------------------------------------------
+
+    private int scan() {
+        while (position < length && isWhitespace(input.charAt(position))) {
+            position++;
+        }
+        scannedStart = position;
+        scannedValue = null;
+        if (position >= length) {
+            scannedEnd = position;
+            return EOF;
+        }
+        char c = input.charAt(position);
+        switch (c) {
+            case ',':
+                return punctuation(1, COMMA);
+            case '=':
+                return charAt(position + 1) == '=' ? punctuation(2, EQ) : punctuation(1, ASSIGN);
+            case '?':
+                return charAt(position + 1) == '.' ? punctuation(2, SAFE_DOT) : punctuation(1, QUESTION);
+            case ':':
+                return punctuation(1, COLON);
+            case '|':
+                return charAt(position + 1) == '|' ? punctuation(2, OR) : punctuation(1, BIT_OR);
+            case '&':
+                return charAt(position + 1) == '&' ? punctuation(2, AND) : punctuation(1, BIT_AND);
+            case '^':
+                return punctuation(1, XOR);
+            case '!':
+                return charAt(position + 1) == '=' ? punctuation(2, NOT_EQ) : punctuation(1, BANG);
+            case '<':
+                if (charAt(position + 1) == '=') {
+                    return punctuation(2, LESS_EQ);
+                }
+                return charAt(position + 1) == '<' ? punctuation(2, SHIFT_LEFT) : punctuation(1, LESS);
+            case '>':
+                if (charAt(position + 1) == '=') {
+                    return punctuation(2, GREATER_EQ);
+                }
+                if (charAt(position + 1) == '>') {
+                    return charAt(position + 2) == '>' ? punctuation(3, UNSIGNED_SHIFT_RIGHT) : punctuation(2, SHIFT_RIGHT);
+                }
+                return punctuation(1, GREATER);
+            case '+':
+                return punctuation(1, PLUS);
+            case '-':
+                return punctuation(1, MINUS);
+            case '*':
+                return punctuation(1, STAR);
+            case '/':
+                return punctuation(1, SLASH);
+            case '%':
+                return punctuation(1, PERCENT);
+            case '~':
+                return punctuation(1, TILDE);
+            case '.':
+                return isAsciiDigit(charAt(position + 1)) ? scanNumber() : punctuation(1, DOT);
+            case '(':
+                return punctuation(1, LPAREN);
+            case ')':
+                return punctuation(1, RPAREN);
+            case '[':
+                return scanBracket();
+            case ']':
+                return punctuation(1, RBRACKET);
+            case '{':
+                return punctuation(1, LBRACE);
+            case '}':
+                return punctuation(1, RBRACE);
+            case '#':
+                if (regionMatches(position + 1, "this")) {
+                    return punctuation(5, HASH_THIS);
+                }
+                if (regionMatches(position + 1, "root")) {
+                    return punctuation(5, HASH_ROOT);
+                }
+                return punctuation(1, HASH);
+            case '@':
+                return punctuation(1, AT);
+            case '\'':
+                return scanCharLiteral();
+            case '`':
+                return scanBackCharLiteral();
+            case '"':
+                return scanStringLiteral();
+            default:
+                if (isAsciiDigit(c)) {
+                    return scanNumber();
+                }
+                if (isLetter(c)) {
+                    return scanIdentifier();
+                }
+                throw lexicalError(position, "Encountered: \"" + c + "\"");
+        }
+    }
+
+    private int punctuation(int size, int tokenKind) {
+        position += size;
+        scannedEnd = position;
+        return tokenKind;
+    }
+
+    private int scanBracket() {
+        char subscript = charAt(position + 1);
+        if (charAt(position + 2) == ']') {
+            switch (subscript) {
+                case '^':
+                    scannedValue = DynamicSubscript.first;
+                    return punctuation(3, DYNAMIC_SUBSCRIPT);
+                case '|':
+                    scannedValue = DynamicSubscript.mid;
+                    return punctuation(3, DYNAMIC_SUBSCRIPT);
+                case '$':
+                    scannedValue = DynamicSubscript.last;
+                    return punctuation(3, DYNAMIC_SUBSCRIPT);
+                case '*':
+                    scannedValue = DynamicSubscript.all;
+                    return punctuation(3, DYNAMIC_SUBSCRIPT);
+            }
+        }
+        return punctuation(1, LBRACKET);
+    }
+
+    private int scanIdentifier() {
+        int from = position;
+        position++;
+        while (position < length && (isLetter(input.charAt(position)) || isDigit(input.charAt(position)))) {
+            position++;
+        }
+        scannedEnd = position;
+        return keyword(from, position);
+    }
+
+    private int keyword(int from, int to) {
+        switch (to - from) {
+            case 1:
+                return input.charAt(from) == '$' ? DOLLAR : IDENT;
+            case 2:
+                if (regionMatches(from, "or")) return OR;
+                if (regionMatches(from, "in")) return IN;
+                if (regionMatches(from, "eq")) return EQ;
+                if (regionMatches(from, "lt")) return LESS;
+                if (regionMatches(from, "gt")) return GREATER;
+                return IDENT;
+            case 3:
+                if (regionMatches(from, "and")) return AND;
+                if (regionMatches(from, "not")) return NOT;
+                if (regionMatches(from, "bor")) return BIT_OR;
+                if (regionMatches(from, "xor")) return XOR;
+                if (regionMatches(from, "neq")) return NOT_EQ;
+                if (regionMatches(from, "lte")) return LESS_EQ;
+                if (regionMatches(from, "gte")) return GREATER_EQ;
+                if (regionMatches(from, "shl")) return SHIFT_LEFT;
+                if (regionMatches(from, "shr")) return SHIFT_RIGHT;
+                if (regionMatches(from, "new")) return NEW;
+                return IDENT;
+            case 4:
+                if (regionMatches(from, "band")) return BIT_AND;
+                if (regionMatches(from, "ushr")) return UNSIGNED_SHIFT_RIGHT;
+                if (regionMatches(from, "true")) return TRUE;
+                if (regionMatches(from, "null")) return NULL;
+                return IDENT;
+            case 5:
+                return regionMatches(from, "false") ? FALSE : IDENT;
+            case 10:
+                return regionMatches(from, "instanceof") ? INSTANCEOF : IDENT;
+            default:
+                return IDENT;
+        }
+    }
+
+    /**
+     * Scans an integer or floating point literal, picking the longest match of both token definitions.
+     */
+    private int scanNumber() {
+        int from = position;
+        int intEnd = integerLiteralEnd(from);
+        int floatEnd = floatLiteralEnd(from);
+        String image;
+        if (floatEnd > intEnd) {
+            position = floatEnd;
+            image = substring(from, floatEnd);
+            scannedValue = makeFloat(image);
+        } else {
+            position = intEnd;
+            image = substring(from, intEnd);
+            scannedValue = makeInt(image);
+        }
+        scannedEnd = position;
+        return LITERAL;
+    }
+
+    private int integerLiteralEnd(int from) {
+        char c = input.charAt(from);
+        if (!isAsciiDigit(c)) {
+            return from;
+        }
+        int p = from + 1;
+        if (c == '0') {
+            char x = charAt(p);
+            if ((x == 'x' || x == 'X') && isHexDigit(charAt(p + 1))) {
+                p += 2;
+                while (isHexDigit(charAt(p))) {
+                    p++;
+                }
+            } else {
+                while (charAt(p) >= '0' && charAt(p) <= '7') {
+                    p++;
+                }
+            }
+        } else {
+            while (isAsciiDigit(charAt(p))) {
+                p++;
+            }
+        }
+        switch (charAt(p)) {
+            case 'l':
+            case 'L':
+            case 'h':
+            case 'H':
+                p++;
+        }
+        return p;
+    }
+
+    private int floatLiteralEnd(int from) {
+        int digitsEnd = from;
+        while (isAsciiDigit(charAt(digitsEnd))) {
+            digitsEnd++;
+        }
+        int p;
+        if (charAt(digitsEnd) == '.' && (digitsEnd > from || isAsciiDigit(charAt(digitsEnd + 1)))) {
+            p = digitsEnd + 1;
+            while (isAsciiDigit(charAt(p))) {
+                p++;
+            }
+            p = exponentEnd(p);
+        } else if (digitsEnd > from) {
+            p = exponentEnd(digitsEnd);
+            if (p == digitsEnd && !isFloatSuffix(charAt(p))) {
+                return from;
+            }
+        } else {
+            return from;
+        }
+        return isFloatSuffix(charAt(p)) ? p + 1 : p;
+    }
+
+    private int exponentEnd(int from) {
+        char e = charAt(from);
+        if (e != 'e' && e != 'E') {
+            return from;
+        }
+        int p = from + 1;
+        if (charAt(p) == '+' || charAt(p) == '-') {
+            p++;
+        }
+        if (!isAsciiDigit(charAt(p))) {
+            return from;
+        }
+        while (isAsciiDigit(charAt(p))) {
+            p++;
+        }
+        return p;
+    }
+
+    private static Object makeInt(String image) {
+        String s = image;
+        int base = 10;
+
+        if (s.charAt(0) == '0') {
+            base = (s.length() > 1 && (s.charAt(1) == 'x' || s.charAt(1) == 'X')) ? 16 : 8;
+        }
+        if (base == 16) {
+            s = s.substring(2); // Trim the 0x off the front
+        }
+        try {
+            switch (s.charAt(s.length() - 1)) {
+                case 'l':
+                case 'L':
+                    return Long.valueOf(s.substring(0, s.length() - 1), base);
+                case 'h':
+                case 'H':
+                    return new BigInteger(s.substring(0, s.length() - 1), base);
+                default:
+                    return Integer.valueOf(s, base);
+            }
+        } catch (NumberFormatException e) {
+            throw new TokenMgrError("Integer literal out of range: " + image
+                    + " (" + e.getMessage() + ")", TokenMgrError.LEXICAL_ERROR);
+        }
+    }
+
+    private static Object makeFloat(String image) {
+        switch (image.charAt(image.length() - 1)) {
+            case 'f':
+            case 'F':
+                return Float.valueOf(image);
+            case 'b':
+            case 'B':
+                return new BigDecimal(image.substring(0, image.length() - 1));
+            case 'd':
+            case 'D':
+            default:
+                return Double.valueOf(image);
+        }
+    }
+
+    private int scanCharLiteral() {
+        int from = ++position;
+        StringBuilder buffer = null;
+        int count = 0;
+        while (true) {
+            char c = literalCharAt(position);
+            if (c == '\'') {
+                break;
+            }
+            if (c == '\\') {
+                if (buffer == null) {
+                    buffer = new StringBuilder().append(input, from, position);
+                }
+                charValue = scanEscape();
+                buffer.append(charValue);
+            } else {
+                charValue = c;
+                position++;
+                if (buffer != null) {
+                    buffer.append(c);
+                }
+            }
+            count++;
+        }
+        if (count == 1) {
+            scannedValue = charValue;
+        } else {
+            scannedValue = buffer != null ? buffer.toString() : substring(from, position);
+        }
+        return literalEnd();
+    }
+
+    private int scanBackCharLiteral() {
+        position++;
+        while (true) {
+            char c = literalCharAt(position);
+            if (c == '`') {
+                break;
+            }
+            if (c == '\\') {
+                charValue = scanEscape();
+            } else {
+                charValue = c;
+                position++;
+            }
+        }
+        scannedValue = charValue;
+        return literalEnd();
+    }
+
+    private int scanStringLiteral() {
+        int from = ++position;
+        StringBuilder buffer = null;
+        while (true) {
+            char c = literalCharAt(position);
+            if (c == '"') {
+                break;
+            }
+            if (c == '\\') {
+                if (buffer == null) {
+                    buffer = new StringBuilder().append(input, from, position);
+                }
+                buffer.append(scanEscape());
+            } else {
+                position++;
+                if (buffer != null) {
+                    buffer.append(c);
+                }
+            }
+        }
+        scannedValue = buffer != null ? buffer.toString() : substring(from, position);
+        return literalEnd();
+    }
+
+    private int literalEnd() {
+        position++;
+        scannedEnd = position;
+        return LITERAL;
+    }
+
+    private char literalCharAt(int index) {
+        if (index >= length) {
+            throw lexicalError(index, "Encountered: <EOF>");
+        }
+        return input.charAt(index);
+    }
+
+    /**
+     * Scans an escape sequence starting at the current backslash and returns the escaped character.
+     */
+    private char scanEscape() {
+        int backslash = position;
+        char c = charAt(backslash + 1);
+        switch (c) {
+            case 'n':
+            case 'r':
+            case 't':
+            case 'b':
+            case 'f':
+            case '\\':
+            case '\'':
+            case '`':
+            case '"':
+                position = backslash + 2;
+                break;
+            default:
+                if (c < '0' || c > '7') {
+                    throw lexicalError(backslash, "Invalid escape sequence");
+                }
+                int p = backslash + 2;
+                if (isOctalDigit(charAt(p))) {
+                    p++;
+                    if (c <= '3' && isOctalDigit(charAt(p))) {
+                        p++;
+                    }
+                }
+                position = p;
+        }
+        return escapeChar(backslash, position);
+    }
+
+    /**
+     * Converts an escape sequence into a character value, exactly like the JavaCC token manager.
+     */
+    private char escapeChar(int backslash, int to) {
+        switch (input.charAt(to - 1)) {
+            case 'n':
+                return '\n';
+            case 'r':
+                return '\r';
+            case 't':
+                return '\t';
+            case 'b':
+                return '\b';
+            case 'f':
+                return '\f';
+            case '\\':
+                return '\\';
+            case '\'':
+                return '\'';
+            case '\"':
+                return '\"';
+        }
+
+        // Otherwise, it's an octal number.
+        int result = 0;
+        for (int i = backslash + 1; i < to; i++) {
+            result = (result << 3) | (input.charAt(i) - '0');
+        }
+        return (char) result;
+    }
+
+    private TokenMgrError lexicalError(int index, String detail) {
+        return new TokenMgrError("Lexical error at column " + (index + 1) + ". " + detail, TokenMgrError.LEXICAL_ERROR);
+    }
+
+    private char charAt(int index) {
+        return index < length ? input.charAt(index) : '\0';
+    }
+
+    private boolean regionMatches(int from, String text) {
+        if (from + text.length() > length) {
+            return false;
+        }
+        for (int i = 0; i < text.length(); i++) {
+            if (input.charAt(from + i) != text.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\f' || c == '\r' || c == '\n';
+    }
+
+    private static boolean isAsciiDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isOctalDigit(char c) {
+        return c >= '0' && c <= '7';
+    }
+
+    private static boolean isHexDigit(char c) {
+        return isAsciiDigit(c) || (c >= 'a' && c <= 'f') || (c >= 'A' && c <= 'F');
+    }
+
+    private static boolean isFloatSuffix(char c) {
+        switch (c) {
+            case 'd':
+            case 'D':
+            case 'f':
+            case 'F':
+            case 'b':
+            case 'B':
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private static boolean isLetter(char c) {
+        return c == '$'
+                || (c >= 'A' && c <= 'Z')
+                || c == '_'
+                || (c >= 'a' && c <= 'z')
+                || (c >= 'À' && c <= 'Ö')
+                || (c >= 'Ø' && c <= 'ö')
+                || (c >= 'ø' && c <= 'ÿ')
+                || (c >= 'Ā' && c <= '῿')
+                || (c >= '぀' && c <= '㆏')
+                || (c >= '㌀' && c <= '㍿')
+                || (c >= '㐀' && c <= '㴭')
+                || (c >= '一' && c <= '鿿')
+                || (c >= '豈' && c <= '﫿');
+    }
+
+    private static boolean isDigit(char c) {
+        return (c >= '0' && c <= '9')
+                || (c >= '٠' && c <= '٩')
+                || (c >= '۰' && c <= '۹')
+                || (c >= '०' && c <= '९')
+                || (c >= '০' && c <= '৯')
+                || (c >= '੦' && c <= '੯')
+                || (c >= '૦' && c <= '૯')
+                || (c >= '୦' && c <= '୯')
+                || (c >= '௧' && c <= '௯')
+                || (c >= '౦' && c <= '౯')
+                || (c >= '೦' && c <= '೯')
+                || (c >= '൦' && c <= '൯')
+                || (c >= '๐' && c <= '๙')
+                || (c >= '໐' && c <= '໙')
+                || (c >= '၀' && c <= '၉');
+    }
+
+    /**
+     * Applies the Java unicode escapes (backslash, one or more 'u', four hex digits) the JavaCC parser decodes
+     * before tokenizing. The expression is returned as is when it contains none, which is the common case.
+     */
+    private static CharSequence translateUnicodeEscapes(CharSequence expression) {
+        int length = expression.length();
+        int first = -1;
+        for (int i = 0, backslashes = 0; i < length; i++) {
+            char c = expression.charAt(i);
+            if (c == 'u' && (backslashes & 1) == 1) {
+                first = i - 1;
+                break;
+            }
+            backslashes = c == '\\' ? backslashes + 1 : 0;
+        }
+        if (first < 0) {
+            return expression;
+        }
+
+        StringBuilder result = new StringBuilder(length).append(expression, 0, first);
+        int backslashes = 0;
+        for (int i = first; i < length; i++) {
+            char c = expression.charAt(i);
+            if (c == '\\' && (backslashes & 1) == 0 && i + 1 < length && expression.charAt(i + 1) == 'u') {
+                int p = i + 1;
+                while (p < length && expression.charAt(p) == 'u') {
+                    p++;
+                }
+                if (p + 4 > length) {
+                    throw new TokenMgrError("Invalid escape character at column " + (i + 1), TokenMgrError.LEXICAL_ERROR);
+                }
+                int decoded = 0;
+                for (int j = p; j < p + 4; j++) {
+                    int digit = Character.digit(expression.charAt(j), 16);
+                    if (digit < 0) {
+                        throw new TokenMgrError("Invalid escape character at column " + (i + 1), TokenMgrError.LEXICAL_ERROR);
+                    }
+                    decoded = (decoded << 4) | digit;
+                }
+                result.append((char) decoded);
+                i = p + 3;
+                backslashes = 0;
+            } else {
+                result.append(c);
+                backslashes = c == '\\' ? backslashes + 1 : 0;
+            }
+        }
+        return result;
+    }
+
+}
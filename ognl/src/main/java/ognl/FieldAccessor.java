@@ -0,0 +1,147 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ognl;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+
+/**
+ * Reads and writes a field through method handles resolved once, see {@link OgnlRuntime#getFieldAccessor(Field)}.
+ * <p>
+ * Handles are only resolved for fields accessible to any code, public fields of public classes in exported
+ * packages, which need no {@link MemberAccess#setup} to be accessed: {@link #isDirect()} tells whether
+ * {@link #get(Object)} and {@link #set(Object, Object)} use them. Other fields, and values which would have to be
+ * widened to be set in a primitive field, go through reflection. Access rights are not checked by this class, the
+ * caller checks them with {@link MemberAccess#isAccessible} as for any other member.
+ * <p>
+ * Instances are immutable and can be shared by threads.
+ */
+public final class FieldAccessor {
+
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+    private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+    private final Field field;
+    private final Class<?> valueType;
+    private final MethodHandle getter;
+    private final MethodHandle setter;
+
+    FieldAccessor(Field field) {
+        this.field = field;
+        this.valueType = field.getType().isPrimitive()
+                ? OgnlRuntime.getPrimitiveWrapperClass(field.getType())
+                : field.getType();
+        MethodHandle getter = null;
+        MethodHandle setter = null;
+        if (Modifier.isPublic(field.getModifiers()) && Modifier.isPublic(field.getDeclaringClass().getModifiers())) {
+            MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+            boolean isStatic = Modifier.isStatic(field.getModifiers());
+            try {
+                getter = adapt(lookup.unreflectGetter(field), isStatic, GETTER_TYPE);
+                if (!Modifier.isFinal(field.getModifiers())) {
+                    setter = adapt(lookup.unreflectSetter(field), isStatic, SETTER_TYPE);
+                }
+            } catch (IllegalAccessException e) {
+                // not exported to all modules, keep using reflection
+                getter = null;
+                setter = null;
+            }
+        }
+        this.getter = getter;
+        this.setter = setter;
+    }
+
+    /**
+     * Adapts a field handle to take the target as first argument, ignored for static fields, and to box values.
+     */
+    private static MethodHandle adapt(MethodHandle handle, boolean isStatic, MethodType type) {
+        if (isStatic) {
+            handle = MethodHandles.dropArguments(handle, 0, Object.class);
+        }
+        return handle.asType(type);
+    }
+
+    /**
+     * Returns the field this accessor reads and writes.
+     *
+     * @return the field.
+     */
+    public Field getField() {
+        return field;
+    }
+
+    /**
+     * Tells whether the field is read through a method handle, which needs no {@link MemberAccess#setup}.
+     *
+     * @return true if the field is accessed directly.
+     */
+    public boolean isDirect() {
+        return getter != null;
+    }
+
+    /**
+     * Reads the field, like {@link Field#get(Object)}.
+     *
+     * @param target the object to read the field of, ignored for static fields.
+     * @return the value of the field, primitive values are boxed.
+     * @throws IllegalAccessException if the field is not accessed directly and is not accessible.
+     */
+    public Object get(Object target) throws IllegalAccessException {
+        if (getter == null) {
+            return field.get(target);
+        }
+        try {
+            return (Object) getter.invokeExact(target);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new IllegalStateException(t); // will never happen, reading a field throws no checked exception
+        }
+    }
+
+    /**
+     * Writes the field, like {@link Field#set(Object, Object)}.
+     *
+     * @param target the object to write the field of, ignored for static fields.
+     * @param value  the value to be set, unboxed for primitive fields.
+     * @throws IllegalAccessException if the field is not accessed directly and is not accessible or is final.
+     */
+    public void set(Object target, Object value) throws IllegalAccessException {
+        if (setter == null || !valueType.isInstance(value)) {
+            // null for primitives and widened values are left to the checks and conversions of reflection
+            field.set(target, value);
+            return;
+        }
+        try {
+            setter.invokeExact(target, value);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new IllegalStateException(t); // will never happen, writing a field throws no checked exception
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "FieldAccessor[" + field + (isDirect() ? ", direct" : "") + "]";
+    }
+}
@@ -26,7 +26,8 @@ import java.util.Iterator;
  */
 public class IteratorPropertyAccessor<C extends OgnlContext<C>> extends ObjectPropertyAccessor<C> implements PropertyAccessor<C> {
 
-    public Object getProperty(C context, Object target, Object name) throws OgnlException {
+    @Override
+    public Object findProperty(C context, Object target, Object name, boolean indexedAccess) throws OgnlException {
         Object result;
         Iterator<?> iterator = (Iterator<?>) target;
 
@@ -37,11 +38,11 @@ public class IteratorPropertyAccessor<C extends OgnlContext<C>> extends ObjectPr
                 if (name.equals("hasNext")) {
                     result = iterator.hasNext() ? Boolean.TRUE : Boolean.FALSE;
                 } else {
-                    result = super.getProperty(context, target, name);
+                    result = super.findProperty(context, target, name, indexedAccess);
                 }
             }
         } else {
-            result = super.getProperty(context, target, name);
+            result = super.findProperty(context, target, name, indexedAccess);
         }
         return result;
     }
@@ -30,7 +30,8 @@ import java.util.List;
  */
 public class ListPropertyAccessor<C extends OgnlContext<C>> extends ObjectPropertyAccessor<C> implements PropertyAccessor<C> {
 
-    public Object getProperty(C context, Object target, Object name) throws OgnlException {
+    @Override
+    public Object findProperty(C context, Object target, Object name, boolean indexedAccess) throws OgnlException {
         List<?> list = (List<?>) target;
 
         if (name instanceof String) {
@@ -45,7 +46,7 @@ public class ListPropertyAccessor<C extends OgnlContext<C>> extends ObjectProper
                     if (name.equals("isEmpty") || name.equals("empty")) {
                         result = list.isEmpty() ? Boolean.TRUE : Boolean.FALSE;
                     } else {
-                        result = super.getProperty(context, target, name);
+                        result = super.findProperty(context, target, name, indexedAccess);
                     }
                 }
             }
@@ -70,7 +71,7 @@ public class ListPropertyAccessor<C extends OgnlContext<C>> extends ObjectProper
             }
         }
 
-        throw new NoSuchPropertyException(target, name);
+        return OgnlRuntime.NotFound;
     }
 
     public void setProperty(C context, Object target, Object name, Object value)
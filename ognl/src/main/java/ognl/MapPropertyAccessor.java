@@ -28,9 +28,10 @@ import java.util.Set;
  */
 public class MapPropertyAccessor<C extends OgnlContext<C>> implements PropertyAccessor<C> {
 
+    /**
+     * Gets the property, telling an indexed access from a named one by the property node of the current node.
+     */
     public Object getProperty(C context, Object target, Object name) throws OgnlException {
-        Object result;
-        Map<?, ?> map = (Map<?, ?>) target;
         Node currentNode = context.getCurrentNode().jjtGetParent();
         boolean indexedAccess = false;
 
@@ -44,6 +45,19 @@ public class MapPropertyAccessor<C extends OgnlContext<C>> implements PropertyAc
             indexedAccess = ((ASTProperty) currentNode).isIndexedAccess();
         }
 
+        return getProperty(context, target, name, indexedAccess);
+    }
+
+    /**
+     * Gets the property, the names size, keys, keySet, values and isEmpty are properties of the map itself unless
+     * they are indexed. Expressions read maps through this method, unless a subclass reads the evaluation state,
+     * see {@link #requiresEvaluationState()}.
+     */
+    @Override
+    public Object getProperty(C context, Object target, Object name, boolean indexedAccess) throws OgnlException {
+        Object result;
+        Map<?, ?> map = (Map<?, ?>) target;
+
         if ((name instanceof String) && !indexedAccess) {
             if (name.equals("size")) {
                 result = map.size();
@@ -139,4 +153,15 @@ public class MapPropertyAccessor<C extends OgnlContext<C>> implements PropertyAc
 
         return ".put(" + indexStr + ", $3)";
     }
+
+    /**
+     * The current node is only read by {@link #getProperty(OgnlContext, Object, Object)} and while generating
+     * source, expressions pass the indexed access instead. Subclasses may override the three argument method or read
+     * the state themselves, so they keep the state recorded and are called through that method unless they return
+     * false.
+     */
+    @Override
+    public boolean requiresEvaluationState() {
+        return getClass() != MapPropertyAccessor.class;
+    }
 }
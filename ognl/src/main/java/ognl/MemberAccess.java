@@ -59,4 +59,18 @@ public interface MemberAccess<C extends OgnlContext<C>> {
      * @return true if the target/member/propertyName is accessible in the context, false otherwise.
      */
     boolean isAccessible(C context, Object target, Member member, String propertyName);
+
+    /**
+     * Tells whether the decisions of {@link #isAccessible(OgnlContext, Object, Member, String)} are stable, so
+     * OGNL can cache them instead of asking this policy on every access. A cacheable policy guarantees that its
+     * decision only depends on the member and on the class of the target (the target itself when it is a class,
+     * as for static members), never on the context, the target instance or the property name, and that it does
+     * not change during the lifetime of this instance: a policy whose configuration changes must be replaced by
+     * a new instance, which discards the cached decisions.
+     *
+     * @return true if the decisions of this policy can be cached, false by default.
+     */
+    default boolean isCacheable() {
+        return false;
+    }
 }
@@ -0,0 +1,287 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ognl;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Results of a read-only expression memoized per root, see {@link Ognl#getValueCached(Object, OgnlContext, Object)}.
+ * They are held by the root node of the expression, so they go away with the tree, roots are compared by identity
+ * and held weakly. A result is reused as long as its root keeps the version given by its
+ * {@link RootVersionProvider} and the context checks member access with the same policy instance. Only immutable
+ * results are memoized: strings, boxed primitives, big numbers and enums, so callers cannot alter a shared result
+ * and no result keeps its root reachable.
+ * <p>
+ * An expression is read-only when it only reads properties, constants, constant static fields, <code>#this</code>
+ * and <code>#root</code>, applies operators, builds lists and maps, projects and selects, and calls the query
+ * methods listed in {@link #QUERY_METHODS}. Assignments, context variables, constructors, static methods, other
+ * methods and evaluations of expressions computed at run time make it evaluated every time. Whether the query
+ * methods are called on JDK types is only known while evaluating, so expressions calling methods are interpreted
+ * and their result is not memoized if one of these calls has a target outside the <code>java</code> packages.
+ */
+final class MemoizedResults {
+
+    /**
+     * Held by expressions which are not read-only.
+     */
+    static final MemoizedResults NONE = new MemoizedResults(false);
+
+    /**
+     * Methods which only query their target, by name.
+     */
+    static final Set<String> QUERY_METHODS = Set.of(
+            "size", "length", "isEmpty", "isBlank", "contains", "containsKey", "containsValue", "get", "getOrDefault",
+            "keySet", "values", "entrySet", "indexOf", "lastIndexOf", "charAt", "startsWith", "endsWith", "matches",
+            "substring", "trim", "strip", "toUpperCase", "toLowerCase", "equals", "equalsIgnoreCase", "compareTo",
+            "compareToIgnoreCase", "hashCode", "toString", "getClass", "name", "ordinal", "booleanValue", "charValue",
+            "byteValue", "shortValue", "intValue", "longValue", "floatValue", "doubleValue");
+
+    /**
+     * Stands for a result which is the root itself, so the result does not keep its root reachable.
+     */
+    private static final Object ROOT = new Object();
+
+    /**
+     * Classes of the results which can be shared, subclasses of the big numbers may be mutable.
+     */
+    private static final Set<Class<?>> IMMUTABLE_RESULTS = Set.of(String.class, Boolean.class, Character.class,
+            Byte.class, Short.class, Integer.class, Long.class, Float.class, Double.class, BigInteger.class,
+            BigDecimal.class);
+
+    private final ReferenceQueue<Object> queue = new ReferenceQueue<>();
+    private final Map<Object, Result> results = new ConcurrentHashMap<>();
+    private final boolean callsMethods;
+    private volatile Result last;
+
+    private MemoizedResults(boolean callsMethods) {
+        this.callsMethods = callsMethods;
+    }
+
+    static <C extends OgnlContext<C>> Object getValue(SimpleNode<C> tree, C context, Object root) throws OgnlException {
+        MemoizedResults memoized = tree.getMemoizedResults();
+        if (memoized == null) {
+            memoized = isReadOnly(tree, context) ? new MemoizedResults(callsMethods(tree)) : NONE;
+            tree.setMemoizedResults(memoized);
+        }
+        // a nested evaluation reads #root and the arguments from the root of the context
+        Object contextRoot = context.getRoot();
+        if (memoized == NONE || root == null || (contextRoot != null && contextRoot != root && context.size() != 0)) {
+            return Ognl.getValue(tree, context, root);
+        }
+
+        long version = OgnlRuntime.getRootVersionProvider(root.getClass()).getVersion(root);
+        MemberAccess<C> memberAccess = context.getMemberAccess();
+        Result result = memoized.find(root);
+        if (result != null && result.version == version && result.memberAccess == memberAccess) {
+            return result.value == ROOT ? root : result.value;
+        }
+
+        Object value;
+        if (memoized.callsMethods) {
+            value = memoized.evaluate(tree, context, root, version, memberAccess);
+        } else {
+            value = Ognl.getValue(tree, context, root);
+            memoized.store(root, version, memberAccess, value);
+        }
+        return value;
+    }
+
+    /**
+     * Interprets an expression calling methods, which are checked by {@link #checkMethodTarget(OgnlContext, Object)}
+     * along the way, a compiled accessor would skip the checks. The context root is the root or can be replaced by
+     * it, as for {@link Ognl#getValue(Object, OgnlContext, Object)}.
+     */
+    private <C extends OgnlContext<C>> Object evaluate(SimpleNode<C> tree, C context, Object root, long version,
+                                                       MemberAccess<C> memberAccess) throws OgnlException {
+        boolean memoizing = context.isMemoizing();
+        boolean memoizable = context.isMemoizable();
+        context.setMemoizing(true);
+        context.setMemoizable(true);
+        try {
+            Object value = tree.getValue(context.withRoot(root), root);
+            if (context.isMemoizable()) {
+                store(root, version, memberAccess, value);
+            } else {
+                memoizable = false;
+            }
+            return value;
+        } finally {
+            context.setMemoizing(memoizing);
+            context.setMemoizable(memoizable);
+        }
+    }
+
+    /**
+     * Prevents memoizing the result of the current evaluation when a method is called on a target other than an
+     * instance of a <code>java</code> package class, whose methods of the same names may have side effects.
+     */
+    static <C extends OgnlContext<C>> void checkMethodTarget(C context, Object target) {
+        if (target == null || target instanceof Class || !target.getClass().getName().startsWith("java.")) {
+            context.setMemoizable(false);
+        }
+    }
+
+    private static <C extends OgnlContext<C>> boolean callsMethods(Node<C> node) {
+        if (node instanceof ASTMethod) {
+            return true;
+        }
+        for (int i = 0; i < node.jjtGetNumChildren(); i++) {
+            if (callsMethods(node.jjtGetChild(i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isImmutable(Object value) {
+        return value == null || IMMUTABLE_RESULTS.contains(value.getClass()) || value instanceof Enum;
+    }
+
+    static <C extends OgnlContext<C>> boolean isReadOnly(Node<C> node, C context) {
+        if (!isReadOnlyNode(node, context)) {
+            return false;
+        }
+        for (int i = 0; i < node.jjtGetNumChildren(); i++) {
+            if (!isReadOnly(node.jjtGetChild(i), context)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static <C extends OgnlContext<C>> boolean isReadOnlyNode(Node<C> node, C context) {
+        if (node instanceof ASTVarRef) {
+            return node instanceof ASTThisVarRef || node instanceof ASTRootVarRef;
+        }
+        if (node instanceof ASTMethod) {
+            return QUERY_METHODS.contains(((ASTMethod<C>) node).getMethodName());
+        }
+        if (node instanceof ASTMap) {
+            return ((ASTMap<C>) node).getClassName() == null;
+        }
+        if (node instanceof ASTStaticField) {
+            try {
+                return ((ASTStaticField<C>) node).isNodeConstant(context);
+            } catch (OgnlException e) {
+                return false;
+            }
+        }
+        return node instanceof ExpressionNode || node instanceof ASTConst || node instanceof ASTProperty
+                || node instanceof ASTChain || node instanceof ASTSequence || node instanceof ASTList
+                || node instanceof ASTKeyValue || node instanceof ASTProject || node instanceof ASTSelect
+                || node instanceof ASTSelectFirst || node instanceof ASTSelectLast || node instanceof ASTIn
+                || node instanceof ASTNotIn || node instanceof ASTInstanceof;
+    }
+
+    private Result find(Object root) {
+        Result result = last;
+        if (result != null && result.key.get() == root) {
+            return result;
+        }
+        expungeStaleResults();
+        result = results.get(new Lookup(root));
+        if (result != null) {
+            last = result;
+        }
+        return result;
+    }
+
+    private void store(Object root, long version, MemberAccess<?> memberAccess, Object value) {
+        if (!isImmutable(value) && value != root) {
+            return;
+        }
+        Result result = new Result(new Key(root, queue), version, memberAccess, value == root ? ROOT : value);
+        results.put(result.key, result);
+        last = result;
+    }
+
+    private void expungeStaleResults() {
+        for (Reference<?> key; (key = queue.poll()) != null; ) {
+            results.remove(key);
+        }
+    }
+
+    private static final class Result {
+        final Key key;
+        final long version;
+        final MemberAccess<?> memberAccess;
+        final Object value;
+
+        Result(Key key, long version, MemberAccess<?> memberAccess, Object value) {
+            this.key = key;
+            this.version = version;
+            this.memberAccess = memberAccess;
+            this.value = value;
+        }
+    }
+
+    /**
+     * Weak reference to a root, equal to the references to the same root while it is reachable.
+     */
+    private static final class Key extends WeakReference<Object> {
+        private final int hash;
+
+        Key(Object root, ReferenceQueue<Object> queue) {
+            super(root, queue);
+            this.hash = System.identityHashCode(root);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            Object root = get();
+            return root != null && o instanceof Key && ((Key) o).get() == root;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    /**
+     * Looks a root up without creating a reference to it.
+     */
+    private static final class Lookup {
+        private final Object root;
+
+        Lookup(Object root) {
+            this.root = root;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key && ((Key) o).get() == root;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(root);
+        }
+    }
+}
@@ -47,4 +47,38 @@ public interface MethodAccessor<C extends OgnlContext<C>> {
      * @throws MethodFailedException if there is an error calling the method
      */
     Object callMethod(C context, Object target, String methodName, Object[] args) throws MethodFailedException;
+
+    /**
+     * Calls the method like {@link #callMethod(OgnlContext, Object, String, Object[])}, but returns
+     * {@link OgnlRuntime#NotFound} instead of failing when the target has no accessible method of that name
+     * accepting the arguments, so callers probing for methods need not create exceptions. The default catches
+     * the {@link MethodFailedException} caused by a {@link NoSuchMethodException}.
+     *
+     * @param context    expression context in which the method should be called
+     * @param target     the object in which the method exists
+     * @param methodName the name of the method
+     * @param args       the arguments to the method
+     * @return result of calling the method, or {@link OgnlRuntime#NotFound}
+     * @throws MethodFailedException if there is an error calling an existing method
+     */
+    default Object callPossibleMethod(C context, Object target, String methodName, Object[] args) throws MethodFailedException {
+        try {
+            return callMethod(context, target, methodName, args);
+        } catch (MethodFailedException e) {
+            if (e.getReason() instanceof NoSuchMethodException) {
+                return OgnlRuntime.NotFound;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Tells whether this accessor reads the current object, node or types of the context while methods are
+     * called, see {@link PropertyAccessor#requiresEvaluationState()}.
+     *
+     * @return true if the evaluation state of the context is read, the default
+     */
+    default boolean requiresEvaluationState() {
+        return true;
+    }
 }
@@ -0,0 +1,84 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ognl;
+
+import java.lang.reflect.Method;
+
+/**
+ * Overload chosen by {@link OgnlRuntime#callAppropriateMethod} among candidate methods for arguments of given
+ * classes, kept by {@link OgnlCache} so following calls with arguments of the same classes skip the scoring of the
+ * candidates.
+ * <p>
+ * Besides the method, a dispatch records which arguments the chosen method needs converted. The conversions
+ * themselves still run on every call as they depend on the argument values and on the type converter of the context.
+ * <p>
+ * Instances are immutable and can be shared by threads.
+ */
+final class MethodDispatch {
+
+    /**
+     * Dispatch recorded when no candidate accepts the arguments as they are, callers go straight to the
+     * conversion of the arguments by the type converter.
+     */
+    static final MethodDispatch NONE = new MethodDispatch(null, null, null);
+
+    private final Method method;
+    private final Class<?>[] parameterTypes;
+    private final boolean[] conversionNeeded;
+
+    MethodDispatch(Method method, Class<?>[] parameterTypes, boolean[] conversionNeeded) {
+        this.method = method;
+        this.parameterTypes = parameterTypes;
+        this.conversionNeeded = conversionNeeded;
+    }
+
+    Method getMethod() {
+        return method;
+    }
+
+    /**
+     * Copies the arguments to the actual arguments, converting those the method cannot accept as they are.
+     */
+    <C extends OgnlContext<C>> void convertArgs(C context, Object source, String propertyName, Object[] args,
+                                                Object[] actualArgs) {
+        System.arraycopy(args, 0, actualArgs, 0, args.length);
+
+        if (actualArgs.length > 0) {
+            for (int j = 0; j < parameterTypes.length; j++) {
+                Class<?> type = parameterTypes[j];
+
+                if (conversionNeeded[j] || (type.isPrimitive() && (actualArgs[j] == null))) {
+                    actualArgs[j] = OgnlRuntime.getConvertedType(context, source, method, propertyName, args[j], type);
+                }
+            }
+        }
+    }
+
+    /**
+     * Tells whether the method accepts the arguments without any conversion.
+     */
+    boolean acceptsUnconverted(Object[] args) {
+        for (int j = 0; j < parameterTypes.length && j < args.length; j++) {
+            if (conversionNeeded[j] || (parameterTypes[j].isPrimitive() && (args[j] == null))) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -18,18 +18,42 @@
  */
 package ognl;
 
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.Serial;
+
 /**
- * Exception thrown if a method or constructor call fails.
+ * Exception thrown if a method or constructor call fails. Its message is only formatted when asked for.
  */
 public class MethodFailedException extends OgnlException {
 
     private static final long serialVersionUID = 2490616172311289862L;
 
+    private final transient Object source;
+    private final String name;
+    private String message;
+
     public MethodFailedException(Object source, String name) {
-        super("Method \"" + name + "\" failed for object " + source);
+        this(source, name, null);
     }
 
     public MethodFailedException(Object source, String name, Throwable reason) {
-        super("Method \"" + name + "\" failed for object " + source, reason);
+        super(null, reason);
+        this.source = source;
+        this.name = name;
+    }
+
+    @Override
+    public String getMessage() {
+        if (message == null) {
+            message = "Method \"" + name + "\" failed for object " + source;
+        }
+        return message;
+    }
+
+    @Serial
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        getMessage();
+        out.defaultWriteObject();
     }
 }
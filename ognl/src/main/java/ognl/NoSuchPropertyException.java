@@ -20,7 +20,8 @@ package ognl;
 
 /**
  * Exception thrown if a property is attempted to be extracted from an object that does
- * not have such a property.*
+ * not have such a property. Its message is only formatted when asked for, callers probing for properties
+ * should use {@link PropertyAccessor#findProperty(OgnlContext, Object, Object, boolean)} instead.
  */
 public class NoSuchPropertyException extends OgnlException {
 
@@ -30,15 +31,20 @@ public class NoSuchPropertyException extends OgnlException {
     private Object name;
 
     public NoSuchPropertyException(Object target, Object name) {
-        super(getReason(target, name));
+        this(target, name, null);
     }
 
     public NoSuchPropertyException(Object target, Object name, Throwable reason) {
-        super(getReason(target, name), reason);
+        super(null, reason);
         this.target = target;
         this.name = name;
     }
 
+    @Override
+    public String getMessage() {
+        return getReason(target, name);
+    }
+
     static String getReason(Object target, Object name) {
         String ret;
 
@@ -114,4 +114,27 @@ public interface Node<C extends OgnlContext<C>> extends JavaSource<C> {
      * @param accessor The compiled representation of this node.
      */
     void setAccessor(ExpressionAccessor<C> accessor);
+
+    /**
+     * Gets the compiled accessor of this node expression for the given type of root object.
+     *
+     * @param rootType The class of the root object the expression was compiled for.
+     * @return The accessor compiled for this root type, or null if none has been compiled for it.
+     */
+    default ExpressionAccessor<C> getAccessor(Class<?> rootType) {
+        return null;
+    }
+
+    /**
+     * Sets the compiled accessor of this node expression for the given type of root object. The first accessor
+     * set also becomes the one returned by {@link #getAccessor()}.
+     *
+     * @param rootType The class of the root object the expression was compiled for.
+     * @param accessor The compiled representation of this node.
+     */
+    default void setAccessor(Class<?> rootType, ExpressionAccessor<C> accessor) {
+        if (getAccessor() == null) {
+            setAccessor(accessor);
+        }
+    }
 }
@@ -0,0 +1,179 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ognl;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Shares identical subtrees, constants and names between parsed expressions, to reduce the memory retained by
+ * applications holding many similar expressions, like <code>row[0].name</code> and <code>row[1].name</code>.
+ * <p>
+ * Nodes are hash-consed bottom up: a node is replaced by a previously interned one when both have the same class,
+ * the same state (constant value, property or method name, ...) and the very same interned children. As some
+ * nodes behave differently depending on where they appear in the tree (an indexed or a plain property, the
+ * operand of an <code>in</code>, ...), the classes of the parent and grandparent of the nodes must match too, so
+ * a shared subtree evaluates exactly as the one it replaces. Parsed trees are safe to share since they are not
+ * modified by evaluations nor compilations.
+ * <p>
+ * The interner keeps strong references to every interned node and name, it is meant to live as long as the
+ * expressions it has processed, e.g. as a field of an expression registry. It is thread safe.
+ */
+public final class NodeInterner {
+
+    private static final Node<?>[] NO_CHILDREN = new Node[0];
+
+    private final ConcurrentMap<NodeKey, Node<?>> nodes = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, String> names = new ConcurrentHashMap<>();
+
+    /**
+     * Interns the given tree, as returned by {@link Ognl#parseExpression(String)}. Subtrees of the given tree
+     * are replaced by identical ones already interned, so the tree itself should not be in use yet.
+     *
+     * @param tree the tree to be interned.
+     * @param <C>  type of the context the tree is evaluated with.
+     * @return the interned tree, either the given tree or an identical one interned before.
+     */
+    @SuppressWarnings("unchecked")
+    public <C extends OgnlContext<C>> Node<C> intern(Node<C> tree) {
+        if (tree == null) {
+            return null;
+        }
+        return (Node<C>) internNode(tree);
+    }
+
+    /**
+     * Returns the number of distinct nodes held by this interner.
+     *
+     * @return number of interned nodes.
+     */
+    public int size() {
+        return nodes.size();
+    }
+
+    /**
+     * Forgets all the interned nodes and names, trees interned so far are not affected.
+     */
+    public void clear() {
+        nodes.clear();
+        names.clear();
+    }
+
+    String intern(String name) {
+        if (name == null) {
+            return null;
+        }
+        String existing = names.putIfAbsent(name, name);
+        return existing != null ? existing : name;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private Node<?> internNode(Node node) {
+        if (!(node instanceof SimpleNode)) {
+            return node;
+        }
+        int count = node.jjtGetNumChildren();
+        Node<?>[] children = count == 0 ? NO_CHILDREN : new Node[count];
+        for (int i = 0; i < count; i++) {
+            Node child = node.jjtGetChild(i);
+            Node interned = internNode(child);
+            if (interned != child) {
+                node.jjtAddChild(interned, i);
+            }
+            children[i] = interned;
+        }
+        Object state = ((SimpleNode<?>) node).internState(this);
+
+        NodeKey key = new NodeKey(node, state, children);
+        Node<?> existing = nodes.putIfAbsent(key, node);
+        return existing != null ? existing : node;
+    }
+
+    /**
+     * Structural identity of a node: its class, state, interned children and the kind of its ancestors.
+     */
+    private static final class NodeKey {
+
+        private final Class<?> type;
+        private final Object state;
+        private final Node<?>[] children;
+        private final Object parent;
+        private final Object grandparent;
+        private final int hash;
+
+        NodeKey(Node<?> node, Object state, Node<?>[] children) {
+            this.type = node.getClass();
+            this.state = state;
+            this.children = children;
+            Node<?> parentNode = node.jjtGetParent();
+            this.parent = ancestorKind(parentNode);
+            this.grandparent = parentNode != null ? ancestorKind(parentNode.jjtGetParent()) : null;
+
+            int h = type.hashCode();
+            h = 31 * h + (state != null ? state.hashCode() : 0);
+            for (Node<?> child : children) {
+                h = 31 * h + System.identityHashCode(child);
+            }
+            h = 31 * h + (parent != null ? parent.hashCode() : 0);
+            h = 31 * h + (grandparent != null ? grandparent.hashCode() : 0);
+            this.hash = h;
+        }
+
+        /**
+         * Nodes look at their ancestors' class, and at whether they are indexed for properties.
+         */
+        private static Object ancestorKind(Node<?> ancestor) {
+            if (ancestor == null) {
+                return null;
+            }
+            if (ancestor instanceof ASTProperty && ((ASTProperty<?>) ancestor).isIndexedAccess()) {
+                return List.of(ancestor.getClass(), Boolean.TRUE);
+            }
+            return ancestor.getClass();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof NodeKey)) {
+                return false;
+            }
+            NodeKey other = (NodeKey) o;
+            if (hash != other.hash || type != other.type || children.length != other.children.length) {
+                return false;
+            }
+            for (int i = 0; i < children.length; i++) {
+                if (children[i] != other.children[i]) {
+                    return false;
+                }
+            }
+            return (state == null ? other.state == null : state.equals(other.state))
+                    && (parent == null ? other.parent == null : parent.equals(other.parent))
+                    && (grandparent == null ? other.grandparent == null : grandparent.equals(other.grandparent));
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
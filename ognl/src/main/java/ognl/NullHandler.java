@@ -45,5 +45,15 @@ public interface NullHandler<C extends OgnlContext<C>> {
      * @return the result Object containing the state of the property that evaluated to null.
      */
     Object nullPropertyValue(C context, Object target, Object property);
+
+    /**
+     * Tells whether this handler reads the current object, node or types of the context when substituting
+     * null results, see {@link PropertyAccessor#requiresEvaluationState()}.
+     *
+     * @return true if the evaluation state of the context is read, the default
+     */
+    default boolean requiresEvaluationState() {
+        return true;
+    }
 }
 
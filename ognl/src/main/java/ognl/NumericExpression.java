@@ -56,6 +56,12 @@ public abstract class NumericExpression<C extends OgnlContext<C>> extends Expres
         StringBuilder result = new StringBuilder();
 
         try {
+            String bigNumberSource = BigNumberCompiler.toArithmeticSource(this, context, target);
+            if (bigNumberSource != null) {
+                getterClass = context.getCurrentType();
+                return bigNumberSource;
+            }
+
             value = getValueBody(context, target);
 
             if (value != null) {
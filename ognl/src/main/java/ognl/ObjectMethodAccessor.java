@@ -43,4 +43,27 @@ public class ObjectMethodAccessor<C extends OgnlContext<C>> implements MethodAcc
 
         return OgnlRuntime.callAppropriateMethod(context, target, target, methodName, null, methods, args);
     }
+
+    @Override
+    public Object callPossibleMethod(C context, Object target, String methodName, Object[] args) throws MethodFailedException {
+        Class<?> targetClass = (target == null) ? null : target.getClass();
+        List<Method> methods = OgnlRuntime.getMethods(targetClass, methodName, false);
+
+        if ((methods == null) || (methods.isEmpty())) {
+            methods = OgnlRuntime.getMethods(targetClass, methodName, true);
+        }
+        if ((methods == null) || (methods.isEmpty())) {
+            return OgnlRuntime.NotFound;
+        }
+
+        return OgnlRuntime.callPossibleAppropriateMethod(context, target, target, methodName, null, methods, args);
+    }
+
+    /**
+     * Subclasses may read the current object or node, they have to return false to opt out.
+     */
+    @Override
+    public boolean requiresEvaluationState() {
+        return getClass() != ObjectMethodAccessor.class;
+    }
 }
@@ -30,4 +30,12 @@ public class ObjectNullHandler<C extends OgnlContext<C>> implements NullHandler<
     public Object nullPropertyValue(C context, Object target, Object property) {
         return null;
     }
+
+    /**
+     * Subclasses may read the current object or node, they have to return false to opt out.
+     */
+    @Override
+    public boolean requiresEvaluationState() {
+        return getClass() != ObjectNullHandler.class;
+    }
 }
@@ -24,6 +24,7 @@ import ognl.enhance.UnsupportedCompilationException;
 import java.beans.IntrospectionException;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
+import java.util.Set;
 
 /**
  * Implementation of PropertyAccessor that uses reflection on the target object's class to find a
@@ -31,6 +32,10 @@ import java.lang.reflect.Method;
  */
 public class ObjectPropertyAccessor<C extends OgnlContext<C>> implements PropertyAccessor<C> {
 
+    private static final Set<Class<?>> BUILT_IN_ACCESSORS = Set.of(ObjectPropertyAccessor.class,
+            ListPropertyAccessor.class, SetPropertyAccessor.class, ArrayPropertyAccessor.class,
+            IteratorPropertyAccessor.class, EnumerationPropertyAccessor.class);
+
     /**
      * Returns OgnlRuntime.NotFound if the property does not exist.
      *
@@ -76,7 +81,7 @@ public class ObjectPropertyAccessor<C extends OgnlContext<C>> implements Propert
 
             if (result == OgnlRuntime.NotFound) {
                 Method m = OgnlRuntime.getWriteMethod(target.getClass(), name);
-                if (m != null && context.getMemberAccess().isAccessible(context, target, m, name)) {
+                if (m != null && OgnlRuntime.isAccessible(context, target, m, name)) {
                     result = m.invoke(target, value);
                 }
             }
@@ -106,16 +111,24 @@ public class ObjectPropertyAccessor<C extends OgnlContext<C>> implements Propert
     }
 
     public Object getProperty(C context, Object target, Object oname) throws OgnlException {
-        String name = oname.toString();
-        Object result = getPossibleProperty(context, target, name);
+        Object result = findProperty(context, target, oname, false);
 
         if (result == OgnlRuntime.NotFound) {
-            throw new NoSuchPropertyException(target, name);
+            throw new NoSuchPropertyException(target, oname);
         }
 
         return result;
     }
 
+    /**
+     * Gets the property through {@link #getPossibleProperty(OgnlContext, Object, String)}, subclasses handling
+     * further names override this method, {@link #getProperty(OgnlContext, Object, Object)} relies on it.
+     */
+    @Override
+    public Object findProperty(C context, Object target, Object name, boolean indexedAccess) throws OgnlException {
+        return getPossibleProperty(context, target, name.toString());
+    }
+
     public void setProperty(C context, Object target, Object oname, Object value) throws OgnlException {
         String name = oname.toString();
         Object result = setPossibleProperty(context, target, name, value);
@@ -241,4 +254,13 @@ public class ObjectPropertyAccessor<C extends OgnlContext<C>> implements Propert
             throw OgnlOps.castToRuntime(t);
         }
     }
+
+    /**
+     * The current object and types are only read while generating source, compilation always records them.
+     * Subclasses other than the built-in accessors may read them, they have to return false to opt out.
+     */
+    @Override
+    public boolean requiresEvaluationState() {
+        return !BUILT_IN_ACCESSORS.contains(getClass());
+    }
 }
@@ -27,6 +27,7 @@ import java.lang.reflect.Modifier;
 import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * This class provides static methods for parsing and interpreting OGNL expressions.
@@ -66,6 +67,25 @@ public abstract class Ognl {
 
     private static volatile Integer expressionMaxLength = null;
     private static volatile Boolean expressionMaxLengthFrozen = Boolean.FALSE;
+    private static final ReentrantLock expressionMaxLengthLock = new ReentrantLock();
+
+    /**
+     * Member access of the default contexts, granting access to public members only. It is stateless, so the
+     * default contexts share it and {@link #getValueCached(Object, OgnlContext, Object)} can reuse results across them.
+     */
+    @SuppressWarnings("rawtypes")
+    private static final MemberAccess PUBLIC_MEMBER_ACCESS = new AbstractMemberAccess() {
+        @Override
+        public boolean isAccessible(OgnlContext context, Object target, Member member, String propertyName) {
+            int modifiers = member.getModifiers();
+            return Modifier.isPublic(modifiers);
+        }
+    };
+
+    @SuppressWarnings("unchecked")
+    private static <C extends OgnlContext<C>> MemberAccess<C> publicMemberAccess() {
+        return PUBLIC_MEMBER_ACCESS;
+    }
 
     /**
      * Applies a maximum allowed length on OGNL expressions for security reasons.
@@ -76,14 +96,19 @@ public abstract class Ognl {
      * @throws IllegalArgumentException if the provided expressionMaxLength is &lt; 0.
      * @since 3.1.26
      */
-    public static synchronized void applyExpressionMaxLength(Integer expressionMaxLength) {
-        if (expressionMaxLengthFrozen) {
-            throw new IllegalStateException("The OGNL expression maximum allowed length has been frozen and cannot be changed.");
-        }
-        if (expressionMaxLength != null && expressionMaxLength < 0) {
-            throw new IllegalArgumentException("The provided OGNL expression maximum allowed length, " + expressionMaxLength + ", is illegal.");
-        } else {
-            Ognl.expressionMaxLength = expressionMaxLength;
+    public static void applyExpressionMaxLength(Integer expressionMaxLength) {
+        expressionMaxLengthLock.lock();
+        try {
+            if (expressionMaxLengthFrozen) {
+                throw new IllegalStateException("The OGNL expression maximum allowed length has been frozen and cannot be changed.");
+            }
+            if (expressionMaxLength != null && expressionMaxLength < 0) {
+                throw new IllegalArgumentException("The provided OGNL expression maximum allowed length, " + expressionMaxLength + ", is illegal.");
+            } else {
+                Ognl.expressionMaxLength = expressionMaxLength;
+            }
+        } finally {
+            expressionMaxLengthLock.unlock();
         }
     }
 
@@ -94,8 +119,13 @@ public abstract class Ognl {
      * @throws SecurityException if the caller is inside OGNL expression itself.
      * @since 3.1.26
      */
-    public static synchronized void freezeExpressionMaxLength() {
-        Ognl.expressionMaxLengthFrozen = Boolean.TRUE;
+    public static void freezeExpressionMaxLength() {
+        expressionMaxLengthLock.lock();
+        try {
+            Ognl.expressionMaxLengthFrozen = Boolean.TRUE;
+        } finally {
+            expressionMaxLengthLock.unlock();
+        }
     }
 
     /**
@@ -105,13 +135,19 @@ public abstract class Ognl {
      * @throws SecurityException if the caller is inside OGNL expression itself.
      * @since 3.1.26
      */
-    public static synchronized void thawExpressionMaxLength() {
-        Ognl.expressionMaxLengthFrozen = Boolean.FALSE;
+    public static void thawExpressionMaxLength() {
+        expressionMaxLengthLock.lock();
+        try {
+            Ognl.expressionMaxLengthFrozen = Boolean.FALSE;
+        } finally {
+            expressionMaxLengthLock.unlock();
+        }
     }
 
     /**
      * Parses the given OGNL expression and returns a tree representation of the expression that can
-     * be used by <CODE>Ognl</CODE> static methods.
+     * be used by <CODE>Ognl</CODE> static methods. The hand-written {@link FastOgnlParser} is used
+     * instead of the JavaCC generated parser when enabled, see {@link OgnlRuntime#getUseFastParserValue()}.
      *
      * @param expression the OGNL expression to be parsed
      * @return a tree representation of the expression
@@ -120,13 +156,12 @@ public abstract class Ognl {
      * @throws OgnlException             if there is a pathological environmental problem
      */
     public static Object parseExpression(String expression) throws OgnlException {
-        final Integer currentExpressionMaxLength = Ognl.expressionMaxLength;  // Limit access to the volatile variable to a single operation
-        if (currentExpressionMaxLength != null && expression != null && expression.length() > currentExpressionMaxLength) {
-            throw new OgnlException("Parsing blocked due to security reasons!",
-                    new SecurityException("This expression exceeded maximum allowed length: " + expression));
-        }
+        checkExpressionLength(expression);
         try {
             assert expression != null;
+            if (OgnlRuntime.getUseFastParserValue()) {
+                return FastOgnlParser.parse(expression);
+            }
             OgnlParser parser = new OgnlParser(new StringReader(expression));
             return parser.topLevelExpression();
         } catch (ParseException | TokenMgrError e) {
@@ -134,6 +169,112 @@ public abstract class Ognl {
         }
     }
 
+    /**
+     * Parses an expression evaluated at runtime, like the string evaluated by <code>(#expr)(#root)</code>. The
+     * trees are kept in a bounded cache shared by all evaluations, see {@link OgnlCache#getParsedExpression(String)},
+     * the maximum allowed length of expressions being checked on every call.
+     *
+     * @param expression the OGNL expression to be parsed
+     * @return a tree representation of the expression
+     * @throws ExpressionSyntaxException if the expression is malformed
+     * @throws OgnlException             if the expression exceeds the maximum allowed length
+     */
+    static Node<?> parseCachedExpression(String expression) throws OgnlException {
+        checkExpressionLength(expression);
+        return OgnlRuntime.cache.getParsedExpression(expression);
+    }
+
+    private static void checkExpressionLength(String expression) throws OgnlException {
+        final Integer currentExpressionMaxLength = Ognl.expressionMaxLength;  // Limit access to the volatile variable to a single operation
+        if (currentExpressionMaxLength != null && expression != null && expression.length() > currentExpressionMaxLength) {
+            throw new OgnlException("Parsing blocked due to security reasons!",
+                    new SecurityException("This expression exceeded maximum allowed length: " + expression));
+        }
+    }
+
+    /**
+     * Parses the given OGNL expression and interns the resulting tree, so it shares identical subtrees,
+     * constants and names with the other expressions interned by the given interner.
+     *
+     * @param expression the OGNL expression to be parsed
+     * @param interner   the interner holding the nodes to share
+     * @return a tree representation of the expression
+     * @throws ExpressionSyntaxException if the expression is malformed
+     * @throws OgnlException             if there is a pathological environmental problem
+     * @see NodeInterner
+     */
+    public static Object parseExpression(String expression, NodeInterner interner) throws OgnlException {
+        return interner.intern((Node<?>) parseExpression(expression));
+    }
+
+    /**
+     * Returns an optimized copy of the given tree: constant operations are folded, dead branches are pruned,
+     * associative operators are flattened and boolean logic is simplified, evaluations yielding the same results
+     * as the original tree. Static fields are not folded, as their access is checked by the member access of the
+     * context an expression is evaluated with, see {@link #optimize(OgnlContext, Object)}.
+     *
+     * @param tree the tree to be optimized, as returned by {@link #parseExpression(String)}
+     * @return the optimized tree, the given tree is left unchanged
+     */
+    public static Object optimize(Object tree) {
+        return optimize(null, tree);
+    }
+
+    /**
+     * Returns an optimized copy of the given tree, see {@link #optimize(Object)}, additionally folding
+     * <code>static final</code> fields accessible with the given context. The resulting tree should only be
+     * evaluated with contexts granting the same access.
+     * <p>
+     * Operands of <code>&amp;&amp;</code> and <code>||</code> which are never evaluated are pruned, so setting
+     * a value through such an operator whose last operand is never reached fails instead of doing nothing.
+     *
+     * @param context the context whose class resolver and member access are used to read static fields,
+     *                static fields are not folded when null
+     * @param tree    the tree to be optimized, as returned by {@link #parseExpression(String)}
+     * @param <C>     type of the context
+     * @return the optimized tree, the given tree is left unchanged
+     */
+    public static <C extends OgnlContext<C>> Object optimize(C context, Object tree) {
+        Node<C> result = new ExpressionOptimizer<>(context).optimize(((SimpleNode<C>) tree).deepCopy());
+        result.jjtSetParent(null);
+        return result;
+    }
+
+    /**
+     * Parses the given expression and binds it to the class of the roots it will be evaluated against, see
+     * {@link BoundExpression}. Classes referred to by the expression are resolved with the default class resolver.
+     *
+     * @param expression the OGNL expression to be parsed
+     * @param rootType   the class the roots of the expression are instances of
+     * @return the expression, typed for the given root class
+     * @throws ExpressionSyntaxException if the expression is malformed
+     * @throws OgnlException             if the expression refers to a property, method, field or class which
+     *                                   does not exist
+     */
+    public static <C extends OgnlContext<C>> BoundExpression<C> bind(String expression, Class<?> rootType) throws OgnlException {
+        return bind(null, expression, rootType);
+    }
+
+    /**
+     * Parses the given expression and binds it to the class of the roots it will be evaluated against, see
+     * {@link BoundExpression}.
+     *
+     * @param context    the context whose class resolver resolves the classes referred to by the expression,
+     *                   may be null
+     * @param expression the OGNL expression to be parsed
+     * @param rootType   the class the roots of the expression are instances of
+     * @return the expression, typed for the given root class
+     * @throws ExpressionSyntaxException if the expression is malformed
+     * @throws OgnlException             if the expression refers to a property, method, field or class which
+     *                                   does not exist
+     */
+    public static <C extends OgnlContext<C>> BoundExpression<C> bind(C context, String expression, Class<?> rootType) throws OgnlException {
+        Node<C> tree = (Node<C>) parseExpression(expression);
+        TypeInference<C> inference = new TypeInference<>(context, rootType);
+        inference.infer(tree, rootType);
+        return new BoundExpression<>(tree, rootType, inference.getTypes(), inference.getMembers());
+    }
+
     /**
      * Parses and compiles the given expression using the {@link OgnlExpressionCompiler} returned
      * from {@link OgnlRuntime#getCompiler()}.
@@ -163,13 +304,7 @@ public abstract class Ognl {
      * appropriately
      */
     public static <C extends OgnlContext<C>> C createDefaultContext(Object root) {
-        MemberAccess<C> memberAccess = new AbstractMemberAccess<>() {
-            @Override
-            public boolean isAccessible(C context, Object target, Member member, String propertyName) {
-                int modifiers = member.getModifiers();
-                return Modifier.isPublic(modifiers);
-            }
-        };
+        MemberAccess<C> memberAccess = publicMemberAccess();
         return addDefaultContext(root, memberAccess, null, null, null);
     }
 
@@ -195,13 +330,7 @@ public abstract class Ognl {
      * appropriately
      */
     public static <C extends OgnlContext<C>> C createDefaultContext(Object root, ClassResolver<C> classResolver) {
-        MemberAccess<C> memberAccess = new AbstractMemberAccess<>() {
-            @Override
-            public boolean isAccessible(C context, Object target, Member member, String propertyName) {
-                int modifiers = member.getModifiers();
-                return Modifier.isPublic(modifiers);
-            }
-        };
+        MemberAccess<C> memberAccess = publicMemberAccess();
         return addDefaultContext(root, memberAccess, classResolver, null, null);
     }
 
@@ -215,13 +344,7 @@ public abstract class Ognl {
      * appropriately
      */
     public static <C extends OgnlContext<C>> C createDefaultContext(Object root, ClassResolver<C> classResolver, TypeConverter<C> converter) {
-        MemberAccess<C> memberAccess = new AbstractMemberAccess<>() {
-            @Override
-            public boolean isAccessible(C context, Object target, Member member, String propertyName) {
-                int modifiers = member.getModifiers();
-                return Modifier.isPublic(modifiers);
-            }
-        };
+        MemberAccess<C> memberAccess = publicMemberAccess();
         return addDefaultContext(root, memberAccess, classResolver, converter, null);
     }
 
@@ -265,13 +388,7 @@ public abstract class Ognl {
      */
     @Deprecated(forRemoval = true)
     public static <C extends OgnlContext<C>> C addDefaultContext(Object root, C context) {
-        MemberAccess<C> memberAccess = new AbstractMemberAccess<>() {
-            @Override
-            public boolean isAccessible(C context, Object target, Member member, String propertyName) {
-                int modifiers = member.getModifiers();
-                return Modifier.isPublic(modifiers);
-            }
-        };
+        MemberAccess<C> memberAccess = publicMemberAccess();
         return addDefaultContext(root, memberAccess, null, null, context);
     }
 
@@ -288,13 +405,7 @@ public abstract class Ognl {
      */
     @Deprecated(forRemoval = true)
     public static <C extends OgnlContext<C>> C addDefaultContext(Object root, ClassResolver<C> classResolver, C context) {
-        MemberAccess<C> memberAccess = new AbstractMemberAccess<>() {
-            @Override
-            public boolean isAccessible(C context, Object target, Member member, String propertyName) {
-                int modifiers = member.getModifiers();
-                return Modifier.isPublic(modifiers);
-            }
-        };
+        MemberAccess<C> memberAccess = publicMemberAccess();
         return addDefaultContext(root, memberAccess, classResolver, null, context);
     }
 
@@ -312,13 +423,7 @@ public abstract class Ognl {
      */
     @Deprecated(forRemoval = true)
     public static <C extends OgnlContext<C>> C addDefaultContext(Object root, ClassResolver<C> classResolver, TypeConverter<C> converter, C context) {
-        MemberAccess<C> memberAccess = new AbstractMemberAccess<>() {
-            @Override
-            public boolean isAccessible(C context, Object target, Member member, String propertyName) {
-                int modifiers = member.getModifiers();
-                return Modifier.isPublic(modifiers);
-            }
-        };
+        MemberAccess<C> memberAccess = publicMemberAccess();
         return addDefaultContext(root, memberAccess, classResolver, converter, context);
     }
 
@@ -447,6 +552,37 @@ public abstract class Ognl {
         return getValue(tree, context, root, null);
     }
 
+    /**
+     * Evaluates the given OGNL expression tree like {@link #getValue(Object, OgnlContext, Object)}, but reuses the
+     * result of an earlier evaluation of the same tree over the same root object, compared by identity. Only
+     * expressions which read their root without side effects are memoized: property reads, constants, operators,
+     * projections, selections and the usual query methods, like <code>size()</code> or <code>get()</code>. Other
+     * expressions, using assignments or context variables for instance, are evaluated every time.
+     * <p>
+     * A root is assumed immutable, unless a {@link RootVersionProvider} registered for its class through
+     * {@link OgnlRuntime#setRootVersionProvider(Class, RootVersionProvider)} reports a new version. A result is
+     * only reused for contexts sharing the {@link MemberAccess} instance it was computed with, as the contexts
+     * created by {@link #createDefaultContext(Object)} do. Only immutable results, like strings, numbers and enums,
+     * are memoized, collections and other objects are evaluated every time. Results go away with their tree or
+     * root.
+     *
+     * @param tree    the OGNL expression tree to evaluate, as returned by parseExpression()
+     * @param context the naming context for the evaluation
+     * @param root    the root object for the OGNL expression
+     * @return the result of evaluating the expression
+     * @throws MethodFailedException            if the expression called a method which failed
+     * @throws NoSuchPropertyException          if the expression referred to a nonexistent property
+     * @throws InappropriateExpressionException if the expression can't be used in this context
+     * @throws OgnlException                    if there is a pathological environmental problem
+     */
+    @SuppressWarnings("unchecked")
+    public static <C extends OgnlContext<C>> Object getValueCached(Object tree, C context, Object root) throws OgnlException {
+        if (tree instanceof SimpleNode) {
+            return MemoizedResults.getValue((SimpleNode<C>) tree, context, root);
+        }
+        return getValue(tree, context, root);
+    }
+
     /**
      * Evaluates the given OGNL expression tree to extract a value from the given root object. The
      * default context is set for the given context and root via <CODE>addDefaultContext()</CODE>.
@@ -479,8 +615,9 @@ public abstract class Ognl {
 
         Node<C> node = (Node) tree;
 
-        if (node.getAccessor() != null) {
-            result = node.getAccessor().get(evaluationContext, root);
+        ExpressionAccessor<C> accessor = getAccessor(node, root);
+        if (accessor != null) {
+            result = accessor.get(evaluationContext, root);
         } else {
             result = node.getValue(evaluationContext, root);
         }
@@ -646,8 +783,9 @@ public abstract class Ognl {
     public static <C extends OgnlContext<C>> void setValue(Object tree, C context, Object root, Object value) throws OgnlException {
         Node<C> n = (Node<C>) tree;
 
-        if (n.getAccessor() != null) {
-            n.getAccessor().set(context, root, value);
+        ExpressionAccessor<C> accessor = getAccessor(n, root);
+        if (accessor != null) {
+            accessor.set(context, root, value);
             return;
         }
 
@@ -805,6 +943,15 @@ public abstract class Ognl {
         return isSimpleNavigationChain(parseExpression(expression), (C) createDefaultContext(null));
     }
 
+    /**
+     * Returns the accessor compiled for the type of the given root, falling back to the first accessor compiled
+     * for the tree.
+     */
+    private static <C extends OgnlContext<C>> ExpressionAccessor<C> getAccessor(Node<C> node, Object root) {
+        ExpressionAccessor<C> accessor = root != null ? node.getAccessor(root.getClass()) : null;
+        return accessor != null ? accessor : node.getAccessor();
+    }
+
     /**
      * You can't make one of these.
      */
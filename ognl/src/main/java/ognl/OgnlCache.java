@@ -18,41 +18,109 @@
  */
 package ognl;
 
+import ognl.internal.BoundedCache;
 import ognl.internal.Cache;
 import ognl.internal.CacheException;
 import ognl.internal.CacheFactory;
+import ognl.internal.CacheStatistics;
 import ognl.internal.ClassCache;
 import ognl.internal.ClassCacheHandler;
-import ognl.internal.HashMapCacheFactory;
+import ognl.internal.ClassLoaderAwareCacheFactory;
+import ognl.internal.ClassMetadata;
+import ognl.internal.entry.AccessorMethodCacheEntry;
 import ognl.internal.entry.DeclaredMethodCacheEntry;
 import ognl.internal.entry.DeclaredMethodCacheEntryFactory;
-import ognl.internal.entry.FieldCacheEntryFactory;
 import ognl.internal.entry.GenericMethodParameterTypeCacheEntry;
 import ognl.internal.entry.GenericMethodParameterTypeFactory;
 import ognl.internal.entry.MethodAccessCacheEntryFactory;
 import ognl.internal.entry.MethodAccessEntryValue;
-import ognl.internal.entry.PropertyDescriptorCacheEntryFactory;
+import ognl.internal.entry.MethodDispatchCacheEntry;
 
 import java.beans.PropertyDescriptor;
+import java.lang.ref.WeakReference;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
+import java.lang.reflect.Member;
 import java.lang.reflect.Method;
-import java.util.Arrays;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Enumeration;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * This class takes care of all the internal caching for OGNL.
  */
 public class OgnlCache {
 
-    private final CacheFactory cacheFactory = new HashMapCacheFactory();
+    /**
+     * Optional upper bound of the number of classes the reflection caches keep metadata for, set it by using
+     * -Dognl.cache.maxClassEntries=1000
+     * <p>
+     * Note: by default the caches are unbounded, entries of classes coming from other class loaders than
+     * OGNL's own are dropped automatically once their class is unloaded.
+     */
+    static final String MAX_CLASS_ENTRIES = "ognl.cache.maxClassEntries";
+
+    /**
+     * Upper bound of the number of expressions parsed at evaluation time, e.g. by <code>(#expr)(#root)</code>,
+     * kept parsed, set it by using -Dognl.cache.maxParsedExpressions=1000, 0 or less means unbounded
+     * <p>
+     * Note: by default 1024 expressions are kept.
+     */
+    static final String MAX_PARSED_EXPRESSIONS = "ognl.cache.maxParsedExpressions";
+
+    private static final int maxClassEntries;
+    private static final int maxParsedExpressions;
+
+    static {
+        int initialMaxClassEntries = 0;
+        try {
+            final String propertyString = System.getProperty(MAX_CLASS_ENTRIES);
+            if (propertyString != null && !propertyString.isEmpty()) {
+                initialMaxClassEntries = Integer.parseInt(propertyString);
+            }
+        } catch (SecurityException | NumberFormatException ex) {
+            // Unable to read or parse the property, keep the caches unbounded
+        }
+        maxClassEntries = initialMaxClassEntries;
+
+        int initialMaxParsedExpressions = 1024;
+        try {
+            final String propertyString = System.getProperty(MAX_PARSED_EXPRESSIONS);
+            if (propertyString != null && !propertyString.isEmpty()) {
+                initialMaxParsedExpressions = Integer.parseInt(propertyString);
+            }
+        } catch (SecurityException | NumberFormatException ex) {
+            // Unable to read or parse the property, keep the default bound
+        }
+        maxParsedExpressions = initialMaxParsedExpressions;
+    }
+
+    /**
+     * Registered accessors and handlers must never be evicted, so their caches stay unbounded.
+     */
+    private final CacheFactory cacheFactory = new ClassLoaderAwareCacheFactory();
+
+    private final CacheFactory reflectionCacheFactory = new ClassLoaderAwareCacheFactory(maxClassEntries);
+
+    /**
+     * Registrations of accessors and null handlers reading the evaluation state of the context, declared before
+     * the registrations below so they are kept.
+     */
+    private final Set<HandlerRegistration> stateReadingHandlers = new HashSet<>();
+    private final ReentrantLock stateReadingHandlersLock = new ReentrantLock();
+    private volatile boolean evaluationStateRequired;
 
     private final ClassCache<MethodAccessor> methodAccessors = cacheFactory.createClassCache();
+    private final AtomicInteger methodAccessorsVersion = new AtomicInteger();
 
     {
         MethodAccessor methodAccessor = new ObjectMethodAccessor();
@@ -68,18 +136,19 @@ public class OgnlCache {
     }
 
     private final ClassCache<PropertyAccessor> propertyAccessors = cacheFactory.createClassCache();
+    private final AtomicInteger propertyAccessorsVersion = new AtomicInteger();
 
     {
-        PropertyAccessor propertyAccessor = new ArrayPropertyAccessor();
         setPropertyAccessor(Object.class, new ObjectPropertyAccessor());
-        setPropertyAccessor(byte[].class, propertyAccessor);
-        setPropertyAccessor(short[].class, propertyAccessor);
-        setPropertyAccessor(char[].class, propertyAccessor);
-        setPropertyAccessor(int[].class, propertyAccessor);
-        setPropertyAccessor(long[].class, propertyAccessor);
-        setPropertyAccessor(float[].class, propertyAccessor);
-        setPropertyAccessor(double[].class, propertyAccessor);
-        setPropertyAccessor(Object[].class, propertyAccessor);
+        setPropertyAccessor(boolean[].class, new ArrayPropertyAccessor(ArrayAccess.BOOLEAN));
+        setPropertyAccessor(byte[].class, new ArrayPropertyAccessor(ArrayAccess.BYTE));
+        setPropertyAccessor(short[].class, new ArrayPropertyAccessor(ArrayAccess.SHORT));
+        setPropertyAccessor(char[].class, new ArrayPropertyAccessor(ArrayAccess.CHAR));
+        setPropertyAccessor(int[].class, new ArrayPropertyAccessor(ArrayAccess.INT));
+        setPropertyAccessor(long[].class, new ArrayPropertyAccessor(ArrayAccess.LONG));
+        setPropertyAccessor(float[].class, new ArrayPropertyAccessor(ArrayAccess.FLOAT));
+        setPropertyAccessor(double[].class, new ArrayPropertyAccessor(ArrayAccess.DOUBLE));
+        setPropertyAccessor(Object[].class, new ArrayPropertyAccessor(ArrayAccess.OBJECT));
         setPropertyAccessor(List.class, new ListPropertyAccessor());
         setPropertyAccessor(Map.class, new MapPropertyAccessor());
         setPropertyAccessor(Set.class, new SetPropertyAccessor());
@@ -90,16 +159,16 @@ public class OgnlCache {
     private final ClassCache<ElementsAccessor> elementsAccessors = cacheFactory.createClassCache();
 
     {
-        ElementsAccessor elementsAccessor = new ArrayElementsAccessor();
         setElementsAccessor(Object.class, new ObjectElementsAccessor());
-        setElementsAccessor(byte[].class, elementsAccessor);
-        setElementsAccessor(short[].class, elementsAccessor);
-        setElementsAccessor(char[].class, elementsAccessor);
-        setElementsAccessor(int[].class, elementsAccessor);
-        setElementsAccessor(long[].class, elementsAccessor);
-        setElementsAccessor(float[].class, elementsAccessor);
-        setElementsAccessor(double[].class, elementsAccessor);
-        setElementsAccessor(Object[].class, elementsAccessor);
+        setElementsAccessor(boolean[].class, new ArrayElementsAccessor(ArrayAccess.BOOLEAN));
+        setElementsAccessor(byte[].class, new ArrayElementsAccessor(ArrayAccess.BYTE));
+        setElementsAccessor(short[].class, new ArrayElementsAccessor(ArrayAccess.SHORT));
+        setElementsAccessor(char[].class, new ArrayElementsAccessor(ArrayAccess.CHAR));
+        setElementsAccessor(int[].class, new ArrayElementsAccessor(ArrayAccess.INT));
+        setElementsAccessor(long[].class, new ArrayElementsAccessor(ArrayAccess.LONG));
+        setElementsAccessor(float[].class, new ArrayElementsAccessor(ArrayAccess.FLOAT));
+        setElementsAccessor(double[].class, new ArrayElementsAccessor(ArrayAccess.DOUBLE));
+        setElementsAccessor(Object[].class, new ArrayElementsAccessor(ArrayAccess.OBJECT));
         setElementsAccessor(Collection.class, new CollectionElementsAccessor());
         setElementsAccessor(Map.class, new MapElementsAccessor());
         setElementsAccessor(Iterator.class, new IteratorElementsAccessor());
@@ -122,52 +191,106 @@ public class OgnlCache {
         setNullHandler(Object[].class, nullHandler);
     }
 
-    final ClassCache<Map<String, PropertyDescriptor>> propertyDescriptorCache =
-            cacheFactory.createClassCache(new PropertyDescriptorCacheEntryFactory());
+    private final ClassCache<RootVersionProvider> rootVersionProviders = cacheFactory.createClassCache();
+
+    {
+        setRootVersionProvider(Object.class, RootVersionProvider.IMMUTABLE);
+        setRootVersionProvider(Object[].class, RootVersionProvider.IMMUTABLE);
+    }
+
+    /**
+     * Single immutable metadata record per class, backing the field, constructor, method and property
+     * descriptor lookups below.
+     */
+    final ClassCache<ClassMetadata> classMetadataCache = reflectionCacheFactory.createClassCache(ClassMetadata::new);
 
-    private final ClassCache<List<Constructor<?>>> constructorCache =
-            cacheFactory.createClassCache(key -> Arrays.asList(key.getConstructors()));
+    /**
+     * Methods and parameter types of the classes rejected by the {@link ClassCacheInspector}, which only gates the
+     * class level metadata and keeps caching them per member, without building the metadata of their classes.
+     */
+    private final Cache<DeclaredMethodCacheEntry, Map<String, List<Method>>> uninspectedMethodCache =
+            reflectionCacheFactory.createCache(key -> key.targetClass, new DeclaredMethodCacheEntryFactory());
 
-    private final Cache<DeclaredMethodCacheEntry, Map<String, List<Method>>> methodCache =
-            cacheFactory.createCache(new DeclaredMethodCacheEntryFactory());
+    private final Cache<Method, Class<?>[]> uninspectedMethodParameterTypesCache =
+            reflectionCacheFactory.createCache(Method::getDeclaringClass, Method::getParameterTypes);
 
-    private final ClassCache<Map<String, Field>> fieldCache =
-            cacheFactory.createClassCache(new FieldCacheEntryFactory());
+    private final Cache<Constructor<?>, Class<?>[]> uninspectedCtorParameterTypesCache =
+            reflectionCacheFactory.createCache(Constructor::getDeclaringClass, Constructor::getParameterTypes);
 
-    private final Cache<Method, Class<?>[]> methodParameterTypesCache =
-            cacheFactory.createCache(Method::getParameterTypes);
+    private volatile ClassCacheInspector classCacheInspector;
 
     final Cache<GenericMethodParameterTypeCacheEntry, Class<?>[]> genericMethodParameterTypesCache =
-            cacheFactory.createCache(new GenericMethodParameterTypeFactory());
-
-    private final Cache<Constructor<?>, Class<?>[]> ctorParameterTypesCache =
-            cacheFactory.createCache(Constructor::getParameterTypes);
+            reflectionCacheFactory.createCache(GenericMethodParameterTypeCacheEntry::getType, new GenericMethodParameterTypeFactory());
 
     private final Cache<Method, MethodAccessEntryValue> methodAccessCache =
-            cacheFactory.createCache(new MethodAccessCacheEntryFactory());
+            reflectionCacheFactory.createCache(Method::getDeclaringClass, new MethodAccessCacheEntryFactory());
+
+    /**
+     * Read and write methods resolved by {@link OgnlRuntime#getReadMethod(Class, String, Class[])} and
+     * {@link OgnlRuntime#getWriteMethod(Class, String, Class[])}, an empty value records that none exists.
+     */
+    private final Cache<AccessorMethodCacheEntry, Optional<Method>> accessorMethodsCache =
+            reflectionCacheFactory.createCache(AccessorMethodCacheEntry::getTargetClass, key -> Optional.ofNullable(key.isWrite()
+                    ? OgnlRuntime.findWriteMethod(key.getTargetClass(), key.getName(), key.getArgClasses())
+                    : OgnlRuntime.findReadMethod(key.getTargetClass(), key.getName(), key.getArgClasses())));
+
+    /**
+     * Overloads chosen among candidate methods for argument classes, filled by {@link #getMethodDispatch} with
+     * copies of the lookup keys as callers may change their candidate lists.
+     */
+    private final Cache<MethodDispatchCacheEntry, MethodDispatch> methodDispatchCache =
+            reflectionCacheFactory.createCache(MethodDispatchCacheEntry::getOwner, null);
+
+    private final Cache<String, Node<?>> parsedExpressions = new BoundedCache<>(expression -> {
+        try {
+            return (Node<?>) Ognl.parseExpression(expression);
+        } catch (OgnlException e) {
+            throw new CacheException(e);
+        }
+    }, maxParsedExpressions);
+
+    /**
+     * Returns the immutable reflection metadata of the given class.
+     *
+     * @param clazz the class to describe
+     * @return metadata of the class, built on first access
+     * @throws CacheException if the metadata cannot be created
+     */
+    public ClassMetadata getClassMetadata(Class<?> clazz) throws CacheException {
+        return classMetadataCache.get(clazz);
+    }
 
     public Class<?>[] getMethodParameterTypes(Method method) throws CacheException {
-        return methodParameterTypesCache.get(method);
+        if (isRejected(method.getDeclaringClass())) {
+            return uninspectedMethodParameterTypesCache.get(method);
+        }
+        return getClassMetadata(method.getDeclaringClass()).getParameterTypes(method);
     }
 
     public Class<?>[] getParameterTypes(Constructor<?> constructor) throws CacheException {
-        return ctorParameterTypesCache.get(constructor);
+        if (isRejected(constructor.getDeclaringClass())) {
+            return uninspectedCtorParameterTypesCache.get(constructor);
+        }
+        return getClassMetadata(constructor.getDeclaringClass()).getParameterTypes(constructor);
     }
 
     public List<Constructor<?>> getConstructor(Class<?> clazz) throws CacheException {
-        return constructorCache.get(clazz);
+        return getClassMetadata(clazz).getConstructors();
     }
 
     public Map<String, Field> getField(Class<?> clazz) throws CacheException {
-        return fieldCache.get(clazz);
+        return getClassMetadata(clazz).getFields();
     }
 
     public Map<String, List<Method>> getMethod(DeclaredMethodCacheEntry declaredMethodCacheEntry) throws CacheException {
-        return methodCache.get(declaredMethodCacheEntry);
+        if (isRejected(declaredMethodCacheEntry.targetClass)) {
+            return uninspectedMethodCache.get(declaredMethodCacheEntry);
+        }
+        return getClassMetadata(declaredMethodCacheEntry.targetClass).getMethods(declaredMethodCacheEntry.getType());
     }
 
     public Map<String, PropertyDescriptor> getPropertyDescriptor(Class<?> clazz) throws CacheException {
-        return propertyDescriptorCache.get(clazz);
+        return getClassMetadata(clazz).getPropertyDescriptors();
     }
 
     public <C extends OgnlContext<C>> MethodAccessor<C> getMethodAccessor(Class<?> clazz) throws OgnlException {
@@ -180,10 +303,34 @@ public class OgnlCache {
 
     public void setMethodAccessor(Class<?> clazz, MethodAccessor accessor) {
         methodAccessors.put(clazz, accessor);
+        methodAccessorsVersion.incrementAndGet();
+        registerHandler(MethodAccessor.class, clazz, accessor != null && accessor.requiresEvaluationState());
+    }
+
+    /**
+     * Returns a number changing whenever a method accessor is registered, so lookups made before can be
+     * detected as outdated.
+     *
+     * @return the current version of the method accessors
+     */
+    public int getMethodAccessorsVersion() {
+        return methodAccessorsVersion.get();
     }
 
     public void setPropertyAccessor(Class<?> clazz, PropertyAccessor accessor) {
         propertyAccessors.put(clazz, accessor);
+        propertyAccessorsVersion.incrementAndGet();
+        registerHandler(PropertyAccessor.class, clazz, accessor != null && accessor.requiresEvaluationState());
+    }
+
+    /**
+     * Returns a number changing whenever a property accessor is registered, so lookups made before can be
+     * detected as outdated.
+     *
+     * @return the current version of the property accessors
+     */
+    public int getPropertyAccessorsVersion() {
+        return propertyAccessorsVersion.get();
     }
 
     public <C extends OgnlContext<C>> PropertyAccessor<C> getPropertyAccessor(Class<?> clazz) throws OgnlException {
@@ -201,9 +348,13 @@ public class OgnlCache {
      * @param inspector The inspector instance that will be registered with all internal cache instances.
      */
     public void setClassCacheInspector(ClassCacheInspector inspector) {
-        propertyDescriptorCache.setClassInspector(inspector);
-        constructorCache.setClassInspector(inspector);
-        fieldCache.setClassInspector(inspector);
+        classCacheInspector = inspector;
+        classMetadataCache.setClassInspector(inspector);
+    }
+
+    private boolean isRejected(Class<?> clazz) {
+        ClassCacheInspector inspector = classCacheInspector;
+        return inspector != null && !inspector.shouldCache(clazz);
     }
 
     public Class<?>[] getGenericMethodParameterTypes(GenericMethodParameterTypeCacheEntry key) throws CacheException {
@@ -219,15 +370,114 @@ public class OgnlCache {
         return methodAccessCache.get(method);
     }
 
+    /**
+     * Returns the overload to call for the given candidates and argument classes, choosing it on first use only.
+     *
+     * @param key the class, method name, candidate methods and argument classes of the call
+     * @return the chosen method, or {@link MethodDispatch#NONE} if no candidate accepts the arguments without the
+     * type converter
+     */
+    MethodDispatch getMethodDispatch(MethodDispatchCacheEntry key) {
+        MethodDispatch dispatch = methodDispatchCache.get(key);
+        if (dispatch == null) {
+            dispatch = OgnlRuntime.createMethodDispatch(key.getTypeClass(), key.getMethodName(), key.getMethods(),
+                    key.getArgClasses());
+            methodDispatchCache.put(key.copy(), dispatch);
+        }
+        return dispatch;
+    }
+
+    /**
+     * Returns the read or write method matching the given lookup, resolving it on first use only.
+     *
+     * @param key the class, normalized property name and argument classes of the lookup
+     * @return the matching method, or null if there is none
+     * @throws CacheException if the class cannot be introspected
+     */
+    public Method getAccessorMethod(AccessorMethodCacheEntry key) throws CacheException {
+        return accessorMethodsCache.get(key).orElse(null);
+    }
+
+    /**
+     * Returns the tree of an expression parsed at evaluation time, parsing it on first use only. Trees are
+     * shared by all the evaluations of the same expression string.
+     *
+     * @param expression the expression to be parsed
+     * @return the tree of the expression
+     * @throws OgnlException if the expression cannot be parsed
+     */
+    Node<?> getParsedExpression(String expression) throws OgnlException {
+        try {
+            return parsedExpressions.get(expression);
+        } catch (CacheException e) {
+            if (e.getCause() instanceof OgnlException) {
+                throw (OgnlException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Decisions of the cacheable member access policies, see {@link MemberAccess#isCacheable()}. They are grouped by
+     * the class of the target, whose class loader sees the member too, so they go away with the classes.
+     */
+    private final Cache<AccessVerdictKey, AccessVerdicts> accessVerdicts =
+            reflectionCacheFactory.createCache(AccessVerdictKey::getOwner, key -> new AccessVerdicts());
+
+    /**
+     * Tells whether the given member is accessible according to the member access of the given context. The
+     * decisions of cacheable policies are remembered per policy instance, member and target class.
+     *
+     * @param context      the current execution context
+     * @param target       the object to test accessibility for
+     * @param member       the member to test accessibility for
+     * @param propertyName the property to test accessibility for
+     * @return true if the member is accessible
+     */
+    public <C extends OgnlContext<C>> boolean isAccessible(C context, Object target, Member member, String propertyName) {
+        MemberAccess<C> memberAccess = context.getMemberAccess();
+        if (!memberAccess.isCacheable()) {
+            return memberAccess.isAccessible(context, target, member, propertyName);
+        }
+        Class<?> targetClass = target == null ? null : (target instanceof Class ? (Class<?>) target : target.getClass());
+        AccessVerdicts verdicts = accessVerdicts.get(new AccessVerdictKey(member, targetClass));
+        Boolean verdict = verdicts.get(memberAccess);
+        if (verdict == null) {
+            verdict = memberAccess.isAccessible(context, target, member, propertyName);
+            verdicts.add(memberAccess, verdict);
+        }
+        return verdict;
+    }
+
+    /**
+     * Returns the combined statistics of the reflection caches.
+     *
+     * @return number of cached entries, size bound evictions and entries dropped because their class was unloaded
+     */
+    public CacheStatistics getStatistics() {
+        return classMetadataCache.getStatistics()
+                .plus(uninspectedMethodCache.getStatistics())
+                .plus(uninspectedMethodParameterTypesCache.getStatistics())
+                .plus(uninspectedCtorParameterTypesCache.getStatistics())
+                .plus(genericMethodParameterTypesCache.getStatistics())
+                .plus(methodAccessCache.getStatistics())
+                .plus(accessorMethodsCache.getStatistics())
+                .plus(methodDispatchCache.getStatistics())
+                .plus(accessVerdicts.getStatistics())
+                .plus(parsedExpressions.getStatistics());
+    }
+
     public void clear() {
-        methodParameterTypesCache.clear();
-        ctorParameterTypesCache.clear();
-        propertyDescriptorCache.clear();
+        classMetadataCache.clear();
+        uninspectedMethodCache.clear();
+        uninspectedMethodParameterTypesCache.clear();
+        uninspectedCtorParameterTypesCache.clear();
         genericMethodParameterTypesCache.clear();
-        constructorCache.clear();
-        methodCache.clear();
-        fieldCache.clear();
         methodAccessCache.clear();
+        accessorMethodsCache.clear();
+        methodDispatchCache.clear();
+        parsedExpressions.clear();
+        accessVerdicts.clear();
     }
 
     public ElementsAccessor getElementsAccessor(Class<?> clazz) throws OgnlException {
@@ -252,6 +502,129 @@ public class OgnlCache {
 
     public void setNullHandler(Class<?> clazz, NullHandler handler) {
         nullHandlers.put(clazz, handler);
+        registerHandler(NullHandler.class, clazz, handler != null && handler.requiresEvaluationState());
+    }
+
+    public RootVersionProvider getRootVersionProvider(Class<?> clazz) throws OgnlException {
+        RootVersionProvider answer = ClassCacheHandler.getHandler(clazz, rootVersionProviders);
+        if (answer != null) {
+            return answer;
+        }
+        throw new OgnlException("No root version provider for class " + clazz);
+    }
+
+    public void setRootVersionProvider(Class<?> clazz, RootVersionProvider provider) {
+        rootVersionProviders.put(clazz, provider);
+    }
+
+    private void registerHandler(Class<?> kind, Class<?> clazz, boolean readsEvaluationState) {
+        HandlerRegistration registration = new HandlerRegistration(kind, clazz);
+        stateReadingHandlersLock.lock();
+        try {
+            if (readsEvaluationState) {
+                stateReadingHandlers.add(registration);
+            } else {
+                stateReadingHandlers.remove(registration);
+            }
+            evaluationStateRequired = !stateReadingHandlers.isEmpty();
+        } finally {
+            stateReadingHandlersLock.unlock();
+        }
+    }
+
+    /**
+     * Tells whether some registered accessor or null handler reads the current object, node or types of the
+     * context, replacing it by a handler that does not read them clears its registration.
+     *
+     * @return true if the evaluation state is read by a registered handler
+     */
+    public boolean isEvaluationStateRequired() {
+        return evaluationStateRequired;
+    }
+
+    /**
+     * Forgets the registrations of the handlers reading the evaluation state, as if they did not read it, until
+     * the returned action restores them. Meant for tests of evaluations not recording their state.
+     *
+     * @return the action restoring the registrations
+     */
+    Runnable suspendStateReadingHandlers() {
+        stateReadingHandlersLock.lock();
+        try {
+            Set<HandlerRegistration> suspended = new HashSet<>(stateReadingHandlers);
+            stateReadingHandlers.clear();
+            evaluationStateRequired = false;
+            return () -> {
+                stateReadingHandlersLock.lock();
+                try {
+                    stateReadingHandlers.addAll(suspended);
+                    evaluationStateRequired = !stateReadingHandlers.isEmpty();
+                } finally {
+                    stateReadingHandlersLock.unlock();
+                }
+            };
+        } finally {
+            stateReadingHandlersLock.unlock();
+        }
+    }
+
+    private record HandlerRegistration(Class<?> kind, Class<?> clazz) {
+    }
+
+    /**
+     * Member and class of the target of an access decision, the target class is null for a null target.
+     */
+    private record AccessVerdictKey(Member member, Class<?> targetClass) {
+
+        Class<?> getOwner() {
+            return targetClass != null ? targetClass : member.getDeclaringClass();
+        }
+    }
+
+    /**
+     * Decisions of the policies for a member and target class. Policies are few, so they are kept in an array
+     * replaced on each addition, and held weakly as they may come from other class loaders than the member. Lookups
+     * do not lock, a decision computed concurrently by two threads is the same by contract.
+     */
+    private static final class AccessVerdicts {
+
+        private final AtomicReference<AccessVerdict[]> verdicts = new AtomicReference<>(new AccessVerdict[0]);
+
+        Boolean get(MemberAccess<?> memberAccess) {
+            for (AccessVerdict verdict : verdicts.get()) {
+                if (verdict.get() == memberAccess) {
+                    return verdict.accessible;
+                }
+            }
+            return null;
+        }
+
+        void add(MemberAccess<?> memberAccess, boolean accessible) {
+            AccessVerdict added = new AccessVerdict(memberAccess, accessible);
+            AccessVerdict[] current;
+            AccessVerdict[] updated;
+            do {
+                current = verdicts.get();
+                List<AccessVerdict> kept = new ArrayList<>(current.length + 1);
+                for (AccessVerdict verdict : current) {
+                    if (verdict.get() != null && verdict.get() != memberAccess) {
+                        kept.add(verdict);
+                    }
+                }
+                kept.add(added);
+                updated = kept.toArray(new AccessVerdict[0]);
+            } while (!verdicts.compareAndSet(current, updated));
+        }
+    }
+
+    private static final class AccessVerdict extends WeakReference<MemberAccess<?>> {
+
+        private final boolean accessible;
+
+        AccessVerdict(MemberAccess<?> memberAccess, boolean accessible) {
+            super(memberAccess);
+            this.accessible = accessible;
+        }
     }
 
 }
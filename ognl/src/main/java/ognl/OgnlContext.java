@@ -48,9 +48,27 @@ public class OgnlContext<C extends OgnlContext<C>> implements Map<String, Object
     public static final String LAST_CHILD = "_lastChild";
     private static boolean DEFAULT_TRACE_EVALUATIONS = false;
     private static boolean DEFAULT_KEEP_LAST_EVALUATION = false;
+    private static boolean DEFAULT_SPECIALIZE_NODES = false;
+    private static boolean DEFAULT_LEAN_EVALUATIONS = false;
 
     private static final Map<String, Object> RESERVED_KEYS = new HashMap<>(6);
 
+    /**
+     * Tells whether a context class reads and writes its values with the methods of this class, so variables can
+     * be accessed through their slots.
+     */
+    private static final ClassValue<Boolean> PLAIN_VARIABLES = new ClassValue<>() {
+        @Override
+        protected Boolean computeValue(Class<?> type) {
+            try {
+                return type.getMethod("get", Object.class).getDeclaringClass() == OgnlContext.class
+                        && type.getMethod("put", String.class, Object.class).getDeclaringClass() == OgnlContext.class;
+            } catch (NoSuchMethodException e) {
+                return Boolean.FALSE;
+            }
+        }
+    };
+
     private Object root;
     private Object currentObject;
     private Node<C> currentNode;
@@ -60,8 +78,15 @@ public class OgnlContext<C extends OgnlContext<C>> implements Map<String, Object
     private Evaluation<C> lastEvaluation;
     private boolean keepLastEvaluation = DEFAULT_KEEP_LAST_EVALUATION;
     private boolean ignoreReadMethods = DEFAULT_IGNORE_READ_METHODS;
+    private boolean specializeNodes = DEFAULT_SPECIALIZE_NODES;
+    private boolean leanEvaluations = DEFAULT_LEAN_EVALUATIONS;
+    private boolean compiling;
+    private boolean memoizing;
+    private boolean memoizable;
 
     protected final Map<String, Object> internalContext;
+    private final ContextVariables variables;
+    private final boolean plainVariables;
 
     private final MemberAccess<C> memberAccess;
     private final ClassResolver<C> classResolver;
@@ -84,6 +109,12 @@ public class OgnlContext<C extends OgnlContext<C>> implements Map<String, Object
             if ((property = System.getProperty(PROPERTY_KEY_PREFIX + ".keepLastEvaluation")) != null) {
                 DEFAULT_KEEP_LAST_EVALUATION = Boolean.parseBoolean(property.trim());
             }
+            if ((property = System.getProperty(PROPERTY_KEY_PREFIX + ".specializeNodes")) != null) {
+                DEFAULT_SPECIALIZE_NODES = Boolean.parseBoolean(property.trim());
+            }
+            if ((property = System.getProperty(PROPERTY_KEY_PREFIX + ".leanEvaluations")) != null) {
+                DEFAULT_LEAN_EVALUATIONS = Boolean.parseBoolean(property.trim());
+            }
         } catch (SecurityException ex) {
             // restricted access environment, just keep defaults
         }
@@ -140,11 +171,9 @@ public class OgnlContext<C extends OgnlContext<C>> implements Map<String, Object
         this.classResolver = Objects.requireNonNullElseGet(classResolver, DefaultClassResolver::new);
         this.typeConverter = Objects.requireNonNullElseGet(typeConverter, DefaultTypeConverter::new);
 
-        if (initialContext == null) {
-            this.internalContext = new HashMap<>(23);
-        } else {
-            this.internalContext = new HashMap<>(initialContext);
-        }
+        this.variables = new ContextVariables(initialContext);
+        this.internalContext = variables;
+        this.plainVariables = PLAIN_VARIABLES.get(getClass());
     }
 
     /**
@@ -218,6 +247,89 @@ public class OgnlContext<C extends OgnlContext<C>> implements Map<String, Object
         traceEvaluations = value;
     }
 
+    /**
+     * Returns true while an expression is compiled with this context, generating its source reads the current
+     * object and node recorded by the nodes evaluated along the way.
+     *
+     * @return true if an expression is being compiled
+     */
+    public boolean isCompiling() {
+        return compiling;
+    }
+
+    public void setCompiling(boolean value) {
+        compiling = value;
+    }
+
+    /**
+     * Returns true while {@link Ognl#getValueCached(Object, OgnlContext, Object)} evaluates an expression with this
+     * context.
+     */
+    boolean isMemoizing() {
+        return memoizing;
+    }
+
+    void setMemoizing(boolean value) {
+        memoizing = value;
+    }
+
+    /**
+     * Returns false once a memoized evaluation called a method which may change its target, so its result is not
+     * reused.
+     */
+    boolean isMemoizable() {
+        return memoizable;
+    }
+
+    void setMemoizable(boolean value) {
+        memoizable = value;
+    }
+
+    /**
+     * Tells whether evaluated nodes record themselves and their source as current node and current object. They
+     * are always recorded unless evaluations are lean, see {@link #isLeanEvaluations()}.
+     *
+     * @return true if the current node and object are recorded
+     */
+    boolean isEvaluationStateTracked() {
+        return !leanEvaluations || traceEvaluations || compiling || OgnlRuntime.isEvaluationStateRequired();
+    }
+
+    /**
+     * Returns true if evaluations with this context skip recording the current node and object when nothing reads
+     * them. Lean evaluations still record them when evaluations are traced, an expression is compiled or some
+     * registered property accessor, method accessor or null handler reads them, see
+     * {@link PropertyAccessor#requiresEvaluationState()}. Otherwise {@link #getCurrentNode()} and
+     * {@link #getCurrentObject()} are not updated by the evaluation, so the {@link TypeConverter},
+     * {@link MemberAccess} and {@link ClassResolver} of a context with lean evaluations must not read them.
+     * The default is false, unless the <code>ognl.leanEvaluations</code> system property is set to true.
+     *
+     * @return true if the current node and object are only recorded when read
+     */
+    public boolean isLeanEvaluations() {
+        return leanEvaluations;
+    }
+
+    public void setLeanEvaluations(boolean value) {
+        leanEvaluations = value;
+    }
+
+    /**
+     * Returns true if nodes evaluated with this context specialize themselves on the types they observe: after
+     * a first generic evaluation, property nodes read map keys, list elements and bean getters directly and
+     * comparisons compare integers and strings directly, as long as the operands keep the observed types.
+     * The default is false, unless the <code>ognl.specializeNodes</code> system property is set to true.
+     *
+     * @return true if nodes specialize themselves on observed types
+     */
+    public boolean isSpecializeNodes() {
+        return specializeNodes;
+    }
+
+    public void setSpecializeNodes(boolean value) {
+        specializeNodes = value;
+    }
+
     public Evaluation<C> getLastEvaluation() {
         return lastEvaluation;
     }
@@ -356,6 +468,26 @@ public class OgnlContext<C extends OgnlContext<C>> implements Map<String, Object
         return typeStack.get(0);
     }
 
+    /**
+     * Takes aside the root, current object and type stacks while a nested expression is compiled against another
+     * root, see {@link #restoreCompilationState(CompilationState)}.
+     */
+    CompilationState saveCompilationState() {
+        return new CompilationState(root, currentObject, new ArrayList<>(typeStack), new ArrayList<>(accessorStack));
+    }
+
+    void restoreCompilationState(CompilationState state) {
+        root = state.root();
+        currentObject = state.currentObject();
+        typeStack.clear();
+        typeStack.addAll(state.types());
+        accessorStack.clear();
+        accessorStack.addAll(state.accessors());
+    }
+
+    record CompilationState(Object root, Object currentObject, List<Class<?>> types, List<Class<?>> accessors) {
+    }
+
     public void setCurrentNode(Node<C> value) {
         currentNode = value;
     }
@@ -462,6 +594,42 @@ public class OgnlContext<C extends OgnlContext<C>> implements Map<String, Object
         return localReferenceMap;
     }
 
+    /**
+     * Tells whether the name is reserved for a setting of the context rather than a variable.
+     */
+    static boolean isReservedKey(String name) {
+        return RESERVED_KEYS.containsKey(name);
+    }
+
+    /**
+     * Reads a variable through the slot bound to its name, see {@link ContextVariables}.
+     *
+     * @param slot the slot of the variable, or {@link ContextVariables#NO_SLOT} to look it up by name.
+     * @param name the name of the variable.
+     * @return the value of the variable.
+     */
+    Object getVariable(ContextVariables.Slot slot, String name) {
+        if (slot == ContextVariables.NO_SLOT || !plainVariables) {
+            return get(name);
+        }
+        return variables.get(slot);
+    }
+
+    /**
+     * Writes a variable through the slot bound to its name, see {@link ContextVariables}.
+     *
+     * @param slot  the slot of the variable, or {@link ContextVariables#NO_SLOT} to look it up by name.
+     * @param name  the name of the variable.
+     * @param value the new value of the variable.
+     */
+    void putVariable(ContextVariables.Slot slot, String name, Object value) {
+        if (slot == ContextVariables.NO_SLOT || !plainVariables) {
+            put(name, value);
+        } else {
+            variables.put(slot, value);
+        }
+    }
+
     /* ================= Map interface ================= */
     @Override
     public int size() {
@@ -717,6 +717,9 @@ public abstract class OgnlOps implements NumericTypes {
 
         ElementsAccessor elementsAccessor = OgnlRuntime.getElementsAccessor(OgnlRuntime.getTargetClass(v2));
 
+        if (elementsAccessor.getClass() == ArrayElementsAccessor.class) {
+            return ((ArrayElementsAccessor) elementsAccessor).contains(v2, v1);
+        }
         for (Enumeration<?> e = elementsAccessor.getElements(v2); e.hasMoreElements(); ) {
             Object o = e.nextElement();
 
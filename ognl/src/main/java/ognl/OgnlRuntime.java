@@ -20,15 +20,22 @@ package ognl;
 
 import ognl.enhance.ExpressionCompiler;
 import ognl.enhance.OgnlExpressionCompiler;
+import ognl.internal.Cache;
 import ognl.internal.CacheException;
+import ognl.internal.CacheStatistics;
+import ognl.internal.ClassLoaderAwareCache;
+import ognl.internal.ClassLoaderAwareClassCache;
+import ognl.internal.ClassMetadata;
+import ognl.internal.TypeVariableTable;
+import ognl.internal.entry.AccessorMethodCacheEntry;
 import ognl.internal.entry.DeclaredMethodCacheEntry;
 import ognl.internal.entry.GenericMethodParameterTypeCacheEntry;
+import ognl.internal.entry.MethodDispatchCacheEntry;
 
 import java.beans.BeanInfo;
 import java.beans.IndexedPropertyDescriptor;
 import java.beans.IntrospectionException;
 import java.beans.Introspector;
-import java.beans.MethodDescriptor;
 import java.beans.PropertyDescriptor;
 import java.lang.reflect.AccessibleObject;
 import java.lang.reflect.Array;
@@ -38,7 +45,6 @@ import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Member;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
-import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Proxy;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -51,6 +57,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Utility class used by internal OGNL API to do various things like:
@@ -265,6 +273,36 @@ public class OgnlRuntime {
         _useFirstMatchGetSetLookup = initialFlagState;
     }
 
+    /**
+     * Allow users to parse expressions with the hand-written {@link FastOgnlParser} using the JVM options:
+     * -Dognl.UseFastParser=true
+     * -Dognl.UseFastParser=false
+     * <p>
+     * Note: Using the "false" value has the same effect as omitting the option completely.
+     * The default behaviour is to use the JavaCC generated {@link OgnlParser}, which remains the
+     * reference implementation of the grammar.
+     */
+    static final String USE_FAST_PARSER = "ognl.UseFastParser";
+
+    /**
+     * Hold environment flag state associated with USE_FAST_PARSER.
+     * Default: false (if not set)
+     */
+    private static final boolean _useFastParser;
+
+    static {
+        boolean initialFlagState = false;
+        try {
+            final String propertyString = System.getProperty(USE_FAST_PARSER);
+            if (propertyString != null && !propertyString.isEmpty()) {
+                initialFlagState = Boolean.parseBoolean(propertyString);
+            }
+        } catch (Exception ex) {
+            // Unavailable (SecurityException, etc.)
+        }
+        _useFastParser = initialFlagState;
+    }
+
     static final OgnlCache cache = new OgnlCache();
 
     private static final PrimitiveTypes primitiveTypes = new PrimitiveTypes();
@@ -272,8 +310,49 @@ public class OgnlRuntime {
 
     static final EvaluationPool _evaluationPool = new EvaluationPool();
 
-    static final Map<Method, Boolean> _methodAccessCache = new ConcurrentHashMap<>();
-    static final Map<Method, Boolean> _methodPermCache = new ConcurrentHashMap<>();
+    /**
+     * How {@link #invokeMethod(Object, Method, Object[])} invokes a method, decided once per method.
+     */
+    enum MethodInvocation {
+        /**
+         * Blocked by the stricter invocation mode.
+         */
+        DENIED,
+        /**
+         * Invoked as is.
+         */
+        DIRECT,
+        /**
+         * Not public nor accessible, invoked through an accessible copy, see {@link #_accessibleMethodCache}.
+         */
+        MADE_ACCESSIBLE
+    }
+
+    /**
+     * A {@link MethodInvocation} decided while the denied invocations had the given version, only valid for that
+     * version.
+     */
+    record MethodInvocationVerdict(MethodInvocation invocation, int deniedInvocationsVersion) {
+    }
+
+    static final Cache<Method, MethodInvocationVerdict> _methodAccessCache = new ClassLoaderAwareCache<>(Method::getDeclaringClass, null);
+
+    /**
+     * Accessible copies of the methods invoked as {@link MethodInvocation#MADE_ACCESSIBLE}. The copies are private to
+     * this cache, so the shared {@link Method} instances are never made accessible and concurrent invocations do not
+     * need to lock them.
+     */
+    static final Cache<Method, Method> _accessibleMethodCache = new ClassLoaderAwareCache<>(Method::getDeclaringClass,
+            OgnlRuntime::createAccessibleCopy);
+
+    static final Cache<Field, FieldAccessor> _fieldAccessorCache = new ClassLoaderAwareCache<>(Field::getDeclaringClass, FieldAccessor::new);
+
+    /**
+     * Classes and methods denied by the users in addition to the built-in ones under stricter invocation mode.
+     */
+    private static final Set<Class<?>> _deniedInvocationClasses = new CopyOnWriteArraySet<>();
+    private static final Set<Method> _deniedInvocationMethods = new CopyOnWriteArraySet<>();
+    private static final AtomicInteger _deniedInvocationsVersion = new AtomicInteger();
 
     static final ClassPropertyMethodCache cacheSetMethod = new ClassPropertyMethodCache();
     static final ClassPropertyMethodCache cacheGetMethod = new ClassPropertyMethodCache();
@@ -323,34 +402,32 @@ public class OgnlRuntime {
     private static final Class<?>[] EMPTY_CLASS_ARRAY = new Class[0];
 
     static {
-        PropertyAccessor p = new ArrayPropertyAccessor();
-
         setPropertyAccessor(Object.class, new ObjectPropertyAccessor());
-        setPropertyAccessor(byte[].class, p);
-        setPropertyAccessor(short[].class, p);
-        setPropertyAccessor(char[].class, p);
-        setPropertyAccessor(int[].class, p);
-        setPropertyAccessor(long[].class, p);
-        setPropertyAccessor(float[].class, p);
-        setPropertyAccessor(double[].class, p);
-        setPropertyAccessor(Object[].class, p);
+        setPropertyAccessor(boolean[].class, new ArrayPropertyAccessor(ArrayAccess.BOOLEAN));
+        setPropertyAccessor(byte[].class, new ArrayPropertyAccessor(ArrayAccess.BYTE));
+        setPropertyAccessor(short[].class, new ArrayPropertyAccessor(ArrayAccess.SHORT));
+        setPropertyAccessor(char[].class, new ArrayPropertyAccessor(ArrayAccess.CHAR));
+        setPropertyAccessor(int[].class, new ArrayPropertyAccessor(ArrayAccess.INT));
+        setPropertyAccessor(long[].class, new ArrayPropertyAccessor(ArrayAccess.LONG));
+        setPropertyAccessor(float[].class, new ArrayPropertyAccessor(ArrayAccess.FLOAT));
+        setPropertyAccessor(double[].class, new ArrayPropertyAccessor(ArrayAccess.DOUBLE));
+        setPropertyAccessor(Object[].class, new ArrayPropertyAccessor(ArrayAccess.OBJECT));
         setPropertyAccessor(List.class, new ListPropertyAccessor());
         setPropertyAccessor(Map.class, new MapPropertyAccessor());
         setPropertyAccessor(Set.class, new SetPropertyAccessor());
         setPropertyAccessor(Iterator.class, new IteratorPropertyAccessor());
         setPropertyAccessor(Enumeration.class, new EnumerationPropertyAccessor());
 
-        ElementsAccessor e = new ArrayElementsAccessor();
-
         setElementsAccessor(Object.class, new ObjectElementsAccessor());
-        setElementsAccessor(byte[].class, e);
-        setElementsAccessor(short[].class, e);
-        setElementsAccessor(char[].class, e);
-        setElementsAccessor(int[].class, e);
-        setElementsAccessor(long[].class, e);
-        setElementsAccessor(float[].class, e);
-        setElementsAccessor(double[].class, e);
-        setElementsAccessor(Object[].class, e);
+        setElementsAccessor(boolean[].class, new ArrayElementsAccessor(ArrayAccess.BOOLEAN));
+        setElementsAccessor(byte[].class, new ArrayElementsAccessor(ArrayAccess.BYTE));
+        setElementsAccessor(short[].class, new ArrayElementsAccessor(ArrayAccess.SHORT));
+        setElementsAccessor(char[].class, new ArrayElementsAccessor(ArrayAccess.CHAR));
+        setElementsAccessor(int[].class, new ArrayElementsAccessor(ArrayAccess.INT));
+        setElementsAccessor(long[].class, new ArrayElementsAccessor(ArrayAccess.LONG));
+        setElementsAccessor(float[].class, new ArrayElementsAccessor(ArrayAccess.FLOAT));
+        setElementsAccessor(double[].class, new ArrayElementsAccessor(ArrayAccess.DOUBLE));
+        setElementsAccessor(Object[].class, new ArrayElementsAccessor(ArrayAccess.OBJECT));
         setElementsAccessor(Collection.class, new CollectionElementsAccessor());
         setElementsAccessor(Map.class, new MapElementsAccessor());
         setElementsAccessor(Iterator.class, new IteratorElementsAccessor());
@@ -414,9 +491,27 @@ public class OgnlRuntime {
     public static void clearAdditionalCache() {
         cacheSetMethod.clear();
         cacheGetMethod.clear();
+        _methodAccessCache.clear();
+        _accessibleMethodCache.clear();
+        _fieldAccessorCache.clear();
         cache.clear();
     }
 
+    /**
+     * Returns the combined statistics of the reflection caches used by OgnlRuntime, including the additional
+     * caches cleared by {@link OgnlRuntime#clearAdditionalCache()}.
+     *
+     * @return number of cached entries, size bound evictions and entries dropped because their class was unloaded
+     */
+    public static CacheStatistics getCacheStatistics() {
+        return cache.getStatistics()
+                .plus(cacheGetMethod.getStatistics())
+                .plus(cacheSetMethod.getStatistics())
+                .plus(_methodAccessCache.getStatistics())
+                .plus(_accessibleMethodCache.getStatistics())
+                .plus(_fieldAccessorCache.getStatistics());
+    }
+
     /**
      * Get the Major Java Version detected by OGNL.
      *
@@ -620,7 +715,7 @@ public class OgnlRuntime {
      * @return Array of parameter types for the given method.
      */
     public static Class<?>[] findParameterTypes(Class<?> type, Method method) {
-        if (type == null || type.getGenericSuperclass() == null || !(type.getGenericSuperclass() instanceof ParameterizedType)) {
+        if (type == null || !TypeVariableTable.of(type).hasBindings()) {
             return getParameterTypes(method);
         }
 
@@ -638,73 +733,58 @@ public class OgnlRuntime {
         return cache.getParameterTypes(constructor);
     }
 
-    public static Object invokeMethod(Object target, Method method, Object[] argsArray)
-            throws InvocationTargetException, IllegalAccessException {
-        boolean syncInvoke;
-        Boolean methodAccessCacheValue;
-
-        if (_useStricterInvocation) {
-            final Class<?> methodDeclaringClass = method.getDeclaringClass();  // Note: synchronized(method) call below will already NPE, so no null check.
-            if ((AO_SETACCESSIBLE_REF != null && AO_SETACCESSIBLE_REF.equals(method)) ||
-                    (AO_SETACCESSIBLE_ARR_REF != null && AO_SETACCESSIBLE_ARR_REF.equals(method)) ||
-                    (SYS_EXIT_REF != null && SYS_EXIT_REF.equals(method)) ||
-                    (SYS_CONSOLE_REF != null && SYS_CONSOLE_REF.equals(method)) ||
-                    AccessibleObjectHandler.class.isAssignableFrom(methodDeclaringClass) ||
-                    ClassResolver.class.isAssignableFrom(methodDeclaringClass) ||
-                    MethodAccessor.class.isAssignableFrom(methodDeclaringClass) ||
-                    MemberAccess.class.isAssignableFrom(methodDeclaringClass) ||
-                    OgnlContext.class.isAssignableFrom(methodDeclaringClass) ||
-                    Runtime.class.isAssignableFrom(methodDeclaringClass) ||
-                    ClassLoader.class.isAssignableFrom(methodDeclaringClass) ||
-                    ProcessBuilder.class.isAssignableFrom(methodDeclaringClass) ||
-                    isUnsafeClass(methodDeclaringClass)) {
-                // Prevent calls to some specific methods, as well as all methods of certain classes/interfaces
-                //   for which no (apparent) legitimate use cases exist for their usage within OGNL invokeMethod().
-                throw new IllegalAccessException("Method [" + method + "] cannot be called from within OGNL invokeMethod() " +
-                        "under stricter invocation mode.");
-            }
+    /**
+     * Denies the invocation of all the methods declared by the given class, its subclasses or implementations
+     * under stricter invocation mode, in addition to the built-in denied classes.
+     *
+     * @param clazz the class or interface whose methods cannot be called from within OGNL expressions.
+     * @see #getUseStricterInvocationValue()
+     */
+    public static void addStricterInvocationDeniedClass(Class<?> clazz) {
+        if (_deniedInvocationClasses.add(clazz)) {
+            deniedInvocationsChanged();
         }
+    }
 
-        // only synchronize method invocation if it actually requires it
-        methodAccessCacheValue = _methodAccessCache.get(method);
-        // double null check to avoid synchronizing on the method
-        if (methodAccessCacheValue == null) {
-            synchronized (method) {
-                methodAccessCacheValue = _methodAccessCache.get(method);
-                if (methodAccessCacheValue == null) {
-                    if (!Modifier.isPublic(method.getModifiers()) || !Modifier.isPublic(method.getDeclaringClass().getModifiers())) {
-                        var obj = Modifier.isStatic(method.getModifiers()) ? null : target;
-                        if (method.canAccess(obj)) {
-                            methodAccessCacheValue = Boolean.FALSE;
-                            _methodAccessCache.put(method, methodAccessCacheValue);
-                        } else {
-                            methodAccessCacheValue = Boolean.TRUE;
-                            _methodAccessCache.put(method, methodAccessCacheValue);
-                        }
-                    } else {
-                        methodAccessCacheValue = Boolean.FALSE;
-                        _methodAccessCache.put(method, methodAccessCacheValue);
-                    }
-                }
+    /**
+     * Denies the invocation of the given method under stricter invocation mode, in addition to the built-in
+     * denied methods.
+     *
+     * @param method the method which cannot be called from within OGNL expressions.
+     * @see #getUseStricterInvocationValue()
+     */
+    public static void addStricterInvocationDeniedMethod(Method method) {
+        if (_deniedInvocationMethods.add(method)) {
+            deniedInvocationsChanged();
+        }
+    }
 
-                _methodPermCache.putIfAbsent(method, Boolean.TRUE);
-            }
+    private static void deniedInvocationsChanged() {
+        _deniedInvocationsVersion.incrementAndGet();
+        _methodAccessCache.clear();
+    }
+
+    public static Object invokeMethod(Object target, Method method, Object[] argsArray)
+            throws InvocationTargetException, IllegalAccessException {
+        // a verdict decided before denied methods were added is ignored, even before the cache is cleared
+        int version = _deniedInvocationsVersion.get();
+        MethodInvocationVerdict verdict = _methodAccessCache.get(method);
+        if (verdict == null || verdict.deniedInvocationsVersion() != version) {
+            verdict = new MethodInvocationVerdict(getMethodInvocation(target, method), version);
+            _methodAccessCache.put(method, verdict);
         }
+        MethodInvocation invocation = verdict.invocation();
 
-        syncInvoke = Boolean.TRUE.equals(methodAccessCacheValue);
+        if (invocation == MethodInvocation.DENIED) {
+            throw new IllegalAccessException("Method [" + method + "] cannot be called from within OGNL invokeMethod() " +
+                    "under stricter invocation mode.");
+        }
 
         Object result;
 
-        if (syncInvoke) //if is not public and is not accessible
+        if (invocation == MethodInvocation.MADE_ACCESSIBLE) //if is not public and is not accessible
         {
-            synchronized (method) {
-                _accessibleObjectHandler.setAccessible(method, true);
-                try {
-                    result = method.invoke(target, argsArray);
-                } finally {
-                    _accessibleObjectHandler.setAccessible(method, false);
-                }
-            }
+            result = _accessibleMethodCache.get(method).invoke(target, argsArray);
         } else {
             result = method.invoke(target, argsArray);
         }
@@ -712,6 +792,59 @@ public class OgnlRuntime {
         return result;
     }
 
+    private static Method createAccessibleCopy(Method method) {
+        for (Method copy : method.getDeclaringClass().getDeclaredMethods()) {
+            if (copy.equals(method)) {
+                _accessibleObjectHandler.setAccessible(copy, true);
+                return copy;
+            }
+        }
+        return method;
+    }
+
+    private static MethodInvocation getMethodInvocation(Object target, Method method) {
+        if (_useStricterInvocation && isInvocationDenied(method)) {
+            return MethodInvocation.DENIED;
+        }
+        if (!Modifier.isPublic(method.getModifiers()) || !Modifier.isPublic(method.getDeclaringClass().getModifiers())) {
+            var obj = Modifier.isStatic(method.getModifiers()) ? null : target;
+            return method.canAccess(obj) ? MethodInvocation.DIRECT : MethodInvocation.MADE_ACCESSIBLE;
+        }
+        return MethodInvocation.DIRECT;
+    }
+
+    /**
+     * Prevents calls to some specific methods, as well as all methods of certain classes/interfaces for which no
+     * (apparent) legitimate use cases exist for their usage within OGNL invokeMethod().
+     */
+    private static boolean isInvocationDenied(Method method) {
+        final Class<?> methodDeclaringClass = method.getDeclaringClass();
+        if ((AO_SETACCESSIBLE_REF != null && AO_SETACCESSIBLE_REF.equals(method)) ||
+                (AO_SETACCESSIBLE_ARR_REF != null && AO_SETACCESSIBLE_ARR_REF.equals(method)) ||
+                (SYS_EXIT_REF != null && SYS_EXIT_REF.equals(method)) ||
+                (SYS_CONSOLE_REF != null && SYS_CONSOLE_REF.equals(method)) ||
+                AccessibleObjectHandler.class.isAssignableFrom(methodDeclaringClass) ||
+                ClassResolver.class.isAssignableFrom(methodDeclaringClass) ||
+                MethodAccessor.class.isAssignableFrom(methodDeclaringClass) ||
+                MemberAccess.class.isAssignableFrom(methodDeclaringClass) ||
+                OgnlContext.class.isAssignableFrom(methodDeclaringClass) ||
+                Runtime.class.isAssignableFrom(methodDeclaringClass) ||
+                ClassLoader.class.isAssignableFrom(methodDeclaringClass) ||
+                ProcessBuilder.class.isAssignableFrom(methodDeclaringClass) ||
+                isUnsafeClass(methodDeclaringClass)) {
+            return true;
+        }
+        if (_deniedInvocationMethods.contains(method)) {
+            return true;
+        }
+        for (Class<?> deniedClass : _deniedInvocationClasses) {
+            if (deniedClass.isAssignableFrom(methodDeclaringClass)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     /**
      * Gets the class for a method argument that is appropriate for looking up methods by
      * reflection, by looking for the standard primitive wrapper classes and exchanging for them
@@ -1099,23 +1232,10 @@ public class OgnlRuntime {
             if (typeClass == null && source instanceof Class) {
                 typeClass = (Class<?>) source;
             }
-            Class<?>[] argClasses = getArgClasses(args);
-
-            MatchingMethod mm = findBestMethod(methods, typeClass, methodName, argClasses);
-            if (mm != null) {
-                result = mm.mMethod;
-                Class<?>[] mParameterTypes = mm.mParameterTypes;
-                System.arraycopy(args, 0, actualArgs, 0, args.length);
-
-                if (actualArgs.length > 0) {
-                    for (int j = 0; j < mParameterTypes.length; j++) {
-                        Class<?> type = mParameterTypes[j];
-
-                        if (mm.report.conversionNeeded[j] || (type.isPrimitive() && (actualArgs[j] == null))) {
-                            actualArgs[j] = getConvertedType(context, source, result, propertyName, args[j], type);
-                        }
-                    }
-                }
+            MethodDispatch dispatch = getMethodDispatch(typeClass, methodName, methods, args);
+            if (dispatch != MethodDispatch.NONE) {
+                result = dispatch.getMethod();
+                dispatch.convertArgs(context, source, propertyName, args, actualArgs);
             }
         }
 
@@ -1208,6 +1328,44 @@ public class OgnlRuntime {
         return true;
     }
 
+    /**
+     * Returns the method {@link #callAppropriateMethod} would choose for arguments of the same classes when it
+     * accepts them without conversion, or null.
+     */
+    static Method getUnconvertedMethod(List<Method> methods, Class<?> typeClass, String methodName, Object[] args) {
+        if (methods == null) {
+            return null;
+        }
+        MethodDispatch dispatch = getMethodDispatch(typeClass, methodName, methods, args);
+        if (dispatch == MethodDispatch.NONE || !dispatch.acceptsUnconverted(args)) {
+            return null;
+        }
+        return dispatch.getMethod();
+    }
+
+    /**
+     * Returns the overload of the methods to call with the arguments, chosen once per class of the arguments.
+     */
+    private static MethodDispatch getMethodDispatch(Class<?> typeClass, String methodName, List<Method> methods,
+                                                    Object[] args) {
+        if (methods.isEmpty()) {
+            return MethodDispatch.NONE;
+        }
+        return cache.getMethodDispatch(new MethodDispatchCacheEntry(typeClass, methodName, methods, getArgClasses(args)));
+    }
+
+    /**
+     * Scores the methods against the argument classes, see {@link #getMethodDispatch}.
+     */
+    static MethodDispatch createMethodDispatch(Class<?> typeClass, String methodName, List<Method> methods,
+                                               Class<?>[] argClasses) {
+        MatchingMethod mm = findBestMethod(methods, typeClass, methodName, argClasses);
+        if (mm == null) {
+            return MethodDispatch.NONE;
+        }
+        return new MethodDispatch(mm.mMethod, mm.mParameterTypes, mm.report.conversionNeeded);
+    }
+
     private static MatchingMethod findBestMethod(List<Method> methods, Class<?> typeClass, String name, Class<?>[] argClasses) {
         MatchingMethod mm = null;
         IllegalArgumentException failure = null;
@@ -1340,89 +1498,125 @@ public class OgnlRuntime {
     public static <C extends OgnlContext<C>> Object callAppropriateMethod(C context, Object source, Object target, String methodName,
                                                String propertyName, List<Method> methods, Object[] args)
             throws MethodFailedException {
-        Throwable reason;
         Object[] actualArgs = new Object[args.length];
+        Method method = getAppropriateMethod(context, source, target, propertyName, methodName, methods, args, actualArgs);
 
-        try {
-            Method method = getAppropriateMethod(context, source, target, propertyName, methodName, methods, args, actualArgs);
-
-            if (!isMethodAccessible(context, source, method, propertyName)) {
-                StringBuilder buffer = new StringBuilder();
-                String className = "";
+        return invokeAppropriateMethod(context, source, target, methodName, propertyName, method, args, actualArgs);
+    }
 
-                if (target != null) {
-                    className = target.getClass().getName() + ".";
-                }
+    /**
+     * Calls the method like {@link #callAppropriateMethod}, but returns {@link #NotFound} when none of the methods
+     * accepts the arguments or the chosen one is not accessible, instead of failing.
+     *
+     * @param context      the current execution context
+     * @param source       the object the method is called for, checked for access
+     * @param target       the object to invoke the method on, null for static methods
+     * @param methodName   the name of the method
+     * @param propertyName the name of the property the method is called for, may be null
+     * @param methods      the candidate methods
+     * @param args         the arguments
+     * @return the result of the method, or {@link #NotFound}
+     * @throws MethodFailedException if the method was found but failed
+     */
+    public static <C extends OgnlContext<C>> Object callPossibleAppropriateMethod(C context, Object source, Object target, String methodName,
+                                                                                  String propertyName, List<Method> methods, Object[] args)
+            throws MethodFailedException {
+        Object[] actualArgs = new Object[args.length];
+        Method method = getAppropriateMethod(context, source, target, propertyName, methodName, methods, args, actualArgs);
 
-                for (int i = 0, ilast = args.length - 1; i <= ilast; i++) {
-                    Object arg = args[i];
+        if (!isMethodAccessible(context, source, method, propertyName)) {
+            return NotFound;
+        }
+        try {
+            return invokeAccessibleMethod(target, method, args, actualArgs);
+        } catch (IllegalAccessException e) {
+            throw new MethodFailedException(source, methodName, e);
+        } catch (InvocationTargetException e) {
+            throw new MethodFailedException(source, methodName, e.getTargetException());
+        }
+    }
 
-                    buffer.append((arg == null) ? NULL_STRING : arg.getClass().getName());
-                    if (i < ilast) {
-                        buffer.append(", ");
-                    }
-                }
+    /**
+     * Invokes the method chosen by {@link #callAppropriateMethod} with the arguments converted for it, after checking
+     * that it is accessible.
+     */
+    static <C extends OgnlContext<C>> Object invokeAppropriateMethod(C context, Object source, Object target, String methodName,
+                                                                     String propertyName, Method method, Object[] args,
+                                                                     Object[] actualArgs)
+            throws MethodFailedException {
+        Throwable reason;
 
-                throw new NoSuchMethodException(className + methodName + "(" + buffer + ")");
+        try {
+            if (!isMethodAccessible(context, source, method, propertyName)) {
+                throw new UnresolvedMethodException(target, methodName, args);
             }
+            return invokeAccessibleMethod(target, method, args, actualArgs);
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            reason = e;
+        } catch (InvocationTargetException e) {
+            reason = e.getTargetException();
+        }
+
+        throw new MethodFailedException(source, methodName, reason);
+    }
 
-            Object[] convertedArgs = actualArgs;
+    private static Object invokeAccessibleMethod(Object target, Method method, Object[] args, Object[] actualArgs)
+            throws InvocationTargetException, IllegalAccessException {
+        Object[] convertedArgs = actualArgs;
 
-            if (method.isVarArgs()) {
-                Class<?>[] parmTypes = method.getParameterTypes();
+        if (method.isVarArgs()) {
+            Class<?>[] parmTypes = getParameterTypes(method);
 
-                // split arguments in to two dimensional array for varargs reflection invocation
-                // where it is expected that the parameter passed in to invoke the method
-                // will look like "new Object[] { arrayOfNonVarArgsArguments, arrayOfVarArgsArguments }"
+            // split arguments in to two dimensional array for varargs reflection invocation
+            // where it is expected that the parameter passed in to invoke the method
+            // will look like "new Object[] { arrayOfNonVarArgsArguments, arrayOfVarArgsArguments }"
 
-                for (int i = 0; i < parmTypes.length; i++) {
-                    if (parmTypes[i].isArray()) {
-                        convertedArgs = new Object[i + 1];
-                        if (actualArgs.length > 0) {
-                            System.arraycopy(actualArgs, 0, convertedArgs, 0, convertedArgs.length);
-                        }
+            for (int i = 0; i < parmTypes.length; i++) {
+                if (parmTypes[i].isArray()) {
+                    convertedArgs = new Object[i + 1];
+                    if (actualArgs.length > 0) {
+                        System.arraycopy(actualArgs, 0, convertedArgs, 0, convertedArgs.length);
+                    }
 
-                        Object[] varArgs;
+                    Object[] varArgs;
 
-                        // if they passed in varargs arguments grab them and dump in to new varargs array
+                    // if they passed in varargs arguments grab them and dump in to new varargs array
 
-                        if (actualArgs.length > i) {
-                            List<Object> varArgsList = new ArrayList<>();
-                            for (int j = i; j < actualArgs.length; j++) {
-                                if (actualArgs[j] != null) {
-                                    varArgsList.add(actualArgs[j]);
-                                }
+                    if (actualArgs.length > i) {
+                        int count = 0;
+                        for (int j = i; j < actualArgs.length; j++) {
+                            if (actualArgs[j] != null) {
+                                count++;
                             }
+                        }
 
-                            if (actualArgs.length == 1) {
-                                varArgs = (Object[]) Array.newInstance(args[0].getClass(), 1);
-                            } else {
-                                varArgs = (Object[]) Array.newInstance(parmTypes[i].getComponentType(), varArgsList.size());
-                            }
-                            System.arraycopy(varArgsList.toArray(), 0, varArgs, 0, varArgs.length);
+                        if (actualArgs.length == 1) {
+                            varArgs = (Object[]) Array.newInstance(args[0].getClass(), 1);
+                        } else if (parmTypes[i].getComponentType() == Object.class) {
+                            varArgs = new Object[count];
                         } else {
-                            varArgs = new Object[0];
+                            varArgs = (Object[]) Array.newInstance(parmTypes[i].getComponentType(), count);
                         }
-                        // If this is the only parameter, explode the array
-                        if (actualArgs.length == 1 && args[0].getClass().isArray()) {
-                            convertedArgs = varArgs;
-                        } else { // there are more parameters, varargs is the last one
-                            convertedArgs[i] = varArgs;
+                        for (int j = i, k = 0; k < varArgs.length; j++) {
+                            if (actualArgs[j] != null) {
+                                varArgs[k++] = actualArgs[j];
+                            }
                         }
-                        break;
+                    } else {
+                        varArgs = new Object[0];
+                    }
+                    // If this is the only parameter, explode the array
+                    if (actualArgs.length == 1 && args[0].getClass().isArray()) {
+                        convertedArgs = varArgs;
+                    } else { // there are more parameters, varargs is the last one
+                        convertedArgs[i] = varArgs;
                     }
+                    break;
                 }
             }
-
-            return invokeMethod(target, method, convertedArgs);
-
-        } catch (NoSuchMethodException | IllegalAccessException e) {
-            reason = e;
-        } catch (InvocationTargetException e) {
-            reason = e.getTargetException();
         }
 
-        throw new MethodFailedException(source, methodName, reason);
+        return invokeMethod(target, method, convertedArgs);
     }
 
     public static <C extends OgnlContext<C>> Object callStaticMethod(C context, String className, String methodName, Object[] args)
@@ -1457,26 +1651,36 @@ public class OgnlRuntime {
         return methodAccessor.callMethod(context, target, methodName, args);
     }
 
+    /**
+     * Invokes the method, or returns {@link #NotFound} if the target has no accessible method of that name
+     * accepting the arguments, see {@link MethodAccessor#callPossibleMethod(OgnlContext, Object, String, Object[])}.
+     *
+     * @param context    The current execution context.
+     * @param target     The object to invoke the method on.
+     * @param methodName Name of the method - as in "getValue" or "add", etc..
+     * @param args       Optional arguments needed for method.
+     * @return Result of invoking method, or {@link #NotFound}.
+     * @throws OgnlException if an existing method fails.
+     */
+    public static <C extends OgnlContext<C>> Object callPossibleMethod(C context, Object target, String methodName, Object[] args)
+            throws OgnlException {
+        if (target == null)
+            throw new NullPointerException("target is null for method " + methodName);
+
+        MethodAccessor<C> methodAccessor = getMethodAccessor(target.getClass());
+        return methodAccessor.callPossibleMethod(context, target, methodName, args);
+    }
+
     public static <C extends OgnlContext<C>> Object callConstructor(C context, String className, Object[] args)
             throws OgnlException {
         Throwable reason;
         Object[] actualArgs = args;
 
         try {
-            Constructor<?> ctor = null;
-            Class<?>[] ctorParameterTypes = null;
             Class<?> target = classForName(context, className);
             List<Constructor<?>> constructors = getConstructors(target);
+            Constructor<?> ctor = getCompatibleConstructor(constructors, args);
 
-            for (Constructor<?> constructor : constructors) {
-                Class<?>[] cParameterTypes = getParameterTypes(constructor);
-
-                if (areArgsCompatible(args, cParameterTypes)
-                        && (ctor == null || isMoreSpecific(cParameterTypes, ctorParameterTypes))) {
-                    ctor = constructor;
-                    ctorParameterTypes = cParameterTypes;
-                }
-            }
             if (ctor == null) {
                 actualArgs = new Object[args.length];
                 if ((ctor = getConvertedConstructorAndArgs(context, target, constructors, args, actualArgs)) == null) {
@@ -1497,6 +1701,25 @@ public class OgnlRuntime {
         throw new MethodFailedException(className, "new", reason);
     }
 
+    /**
+     * Returns the most specific of the constructors accepting the arguments without conversion, or null.
+     */
+    static Constructor<?> getCompatibleConstructor(List<Constructor<?>> constructors, Object[] args) {
+        Constructor<?> ctor = null;
+        Class<?>[] ctorParameterTypes = null;
+
+        for (Constructor<?> constructor : constructors) {
+            Class<?>[] cParameterTypes = getParameterTypes(constructor);
+
+            if (areArgsCompatible(args, cParameterTypes)
+                    && (ctor == null || isMoreSpecific(cParameterTypes, ctorParameterTypes))) {
+                ctor = constructor;
+                ctorParameterTypes = cParameterTypes;
+            }
+        }
+        return ctor;
+    }
+
     /**
      * If the checkAccessAndExistence flag is true this method will check to see if the method
      * exists and if it is accessible according to the context's MemberAccess. If neither test
@@ -1664,11 +1887,16 @@ public class OgnlRuntime {
                 try {
 
                     if (!Modifier.isStatic(f.getModifiers())) {
-                        final Object state = context.getMemberAccess().setup(context, target, f, propertyName);
-                        try {
-                            result = f.get(target);
-                        } finally {
-                            context.getMemberAccess().restore(context, target, f, propertyName, state);
+                        final FieldAccessor accessor = getFieldAccessor(f);
+                        if (accessor.isDirect()) {
+                            result = accessor.get(target);
+                        } else {
+                            final Object state = context.getMemberAccess().setup(context, target, f, propertyName);
+                            try {
+                                result = accessor.get(target);
+                            } finally {
+                                context.getMemberAccess().restore(context, target, f, propertyName, state);
+                            }
                         }
                     } else {
                         throw new NoSuchFieldException(propertyName);
@@ -1697,15 +1925,18 @@ public class OgnlRuntime {
             if (f != null) {
                 final int fModifiers = f.getModifiers();
                 if (!Modifier.isStatic(fModifiers) && !Modifier.isFinal(fModifiers) && (!checkAccessAndExistence || isAccessible(context, target, f, propertyName))) {
-                    final Object state = context.getMemberAccess().setup(context, target, f, propertyName);
+                    final FieldAccessor accessor = getFieldAccessor(f);
+                    final Object state = accessor.isDirect() ? null : context.getMemberAccess().setup(context, target, f, propertyName);
                     try {
                         if (isTypeCompatible(value, f.getType())
                                 || ((value = getConvertedType(context, target, f, propertyName, value, f.getType())) != null)) {
-                            f.set(target, value);
+                            accessor.set(target, value);
                             result = true;
                         }
                     } finally {
-                        context.getMemberAccess().restore(context, target, f, propertyName, state);
+                        if (!accessor.isDirect()) {
+                            context.getMemberAccess().restore(context, target, f, propertyName, state);
+                        }
                     }
                 }
             }
@@ -1715,6 +1946,23 @@ public class OgnlRuntime {
         return result;
     }
 
+    /**
+     * Returns the accessor reading and writing the given field, resolved once per field. Public fields of public
+     * classes are accessed through method handles, without {@link MemberAccess#setup}, see {@link FieldAccessor}.
+     * Like the field itself, the accessor does not check access rights.
+     *
+     * @param field the field to be accessed.
+     * @return the accessor of the field.
+     */
+    public static FieldAccessor getFieldAccessor(Field field) {
+        FieldAccessor accessor = _fieldAccessorCache.get(field);
+        if (!accessor.isDirect() && accessor.getField() != field) {
+            // reflects on the given instance, the one made accessible by MemberAccess.setup()
+            return new FieldAccessor(field);
+        }
+        return accessor;
+    }
+
     public static <C extends OgnlContext<C>> boolean isFieldAccessible(C context, Object target, Class<?> inClass, String propertyName) {
         return isFieldAccessible(context, target, getField(inClass, propertyName), propertyName);
     }
@@ -1771,20 +2019,41 @@ public class OgnlRuntime {
                 throw new OgnlException("Field " + fieldName + " of class " + className + " is not static");
             }
 
+            return getStaticFieldValue(context, className, f);
+        } catch (ClassNotFoundException | NoSuchFieldException | SecurityException e) {
+            reason = e;
+        }
+
+        throw new OgnlException("Could not get static field " + fieldName + " from class " + className, reason);
+    }
+
+    /**
+     * Reads a static field found by {@link #getStaticField}, after checking that it is accessible.
+     */
+    static <C extends OgnlContext<C>> Object getStaticFieldValue(C context, String className, Field f)
+            throws OgnlException {
+        Exception reason;
+        String fieldName = f.getName();
+        try {
             Object result;
             if (isAccessible(context, null, f, null)) {
-                final Object state = context.getMemberAccess().setup(context, null, f, null);
-                try {
-                    result = f.get(null);
-                } finally {
-                    context.getMemberAccess().restore(context, null, f, null, state);
+                final FieldAccessor accessor = getFieldAccessor(f);
+                if (accessor.isDirect()) {
+                    result = accessor.get(null);
+                } else {
+                    final Object state = context.getMemberAccess().setup(context, null, f, null);
+                    try {
+                        result = accessor.get(null);
+                    } finally {
+                        context.getMemberAccess().restore(context, null, f, null, state);
+                    }
                 }
             } else {
                 throw new IllegalAccessException("Access to " + fieldName + " of class " + className + " is forbidden");
             }
 
             return result;
-        } catch (ClassNotFoundException | NoSuchFieldException | SecurityException | IllegalAccessException e) {
+        } catch (SecurityException | IllegalAccessException e) {
             reason = e;
         }
 
@@ -2104,6 +2373,32 @@ public class OgnlRuntime {
         return cache.getPropertyAccessor(clazz);
     }
 
+    /**
+     * Tells whether a registered property accessor, method accessor or null handler reads the evaluation state of
+     * the context, so expressions have to record their current object and node while they are evaluated, even by
+     * contexts with lean evaluations, see {@link OgnlContext#isLeanEvaluations()}.
+     *
+     * @return true if the evaluation state is read by some registered handler
+     */
+    public static boolean isEvaluationStateRequired() {
+        return cache.isEvaluationStateRequired();
+    }
+
+    /**
+     * Registers the provider of the versions of roots of the given class and its subclasses, see
+     * {@link Ognl#getValueCached(Object, OgnlContext, Object)}.
+     *
+     * @param clazz    the class of the roots
+     * @param provider the provider of their versions
+     */
+    public static void setRootVersionProvider(Class<?> clazz, RootVersionProvider provider) {
+        cache.setRootVersionProvider(clazz, provider);
+    }
+
+    public static RootVersionProvider getRootVersionProvider(Class<?> clazz) throws OgnlException {
+        return cache.getRootVersionProvider(clazz);
+    }
+
     public static ElementsAccessor getElementsAccessor(Class<?> clazz)
             throws OgnlException {
         return cache.getElementsAccessor(clazz);
@@ -2113,6 +2408,28 @@ public class OgnlRuntime {
         cache.setElementsAccessor(clazz, accessor);
     }
 
+    /**
+     * Gets the elements of the source as a collection, for projections and selections compiled into loops, when
+     * iterating over that collection gives the same elements as the {@link ElementsAccessor} of the source.
+     *
+     * @param source the source of the projection or selection
+     * @return the elements, or null if they have to be enumerated by the elements accessor
+     * @throws OgnlException if the elements accessor cannot be found
+     */
+    public static Collection<?> getCompilableElements(Object source) throws OgnlException {
+        if (source == null) {
+            return null;
+        }
+        Class<?> accessorClass = getElementsAccessor(source.getClass()).getClass();
+        if (accessorClass == CollectionElementsAccessor.class) {
+            return (Collection<?>) source;
+        }
+        if (accessorClass == ArrayElementsAccessor.class && source instanceof Object[]) {
+            return Arrays.asList((Object[]) source);
+        }
+        return null;
+    }
+
     public static <C extends OgnlContext<C>> NullHandler<C> getNullHandler(Class<?> clazz)
             throws OgnlException {
         return cache.getNullHandler(clazz);
@@ -2136,6 +2453,57 @@ public class OgnlRuntime {
         return accessor.getProperty(context, source, name);
     }
 
+    /**
+     * Gets the property as written in an expression, see
+     * {@link PropertyAccessor#getProperty(OgnlContext, Object, Object, boolean)}. Accessors which
+     * {@link PropertyAccessor#requiresEvaluationState() read the evaluation state} are called through
+     * {@link PropertyAccessor#getProperty(OgnlContext, Object, Object)} instead, as before.
+     *
+     * @param context       the current execution context
+     * @param source        the object to get the property from
+     * @param name          the name of the property
+     * @param indexedAccess true if the property was written as an index
+     * @return the value of the property
+     * @throws OgnlException if the property cannot be got
+     */
+    public static <C extends OgnlContext<C>> Object getProperty(C context, Object source, Object name, boolean indexedAccess)
+            throws OgnlException {
+        PropertyAccessor<C> accessor;
+
+        if (source == null) {
+            throw new OgnlException("source is null for getProperty(null, \"" + name + "\")");
+        }
+        if ((accessor = getPropertyAccessor(getTargetClass(source))) == null) {
+            throw new OgnlException("No property accessor for " + getTargetClass(source).getName());
+        }
+
+        // accessors reading the evaluation state may be subclasses only overriding the three argument method
+        if (accessor.requiresEvaluationState()) {
+            return accessor.getProperty(context, source, name);
+        }
+        return accessor.getProperty(context, source, name, indexedAccess);
+    }
+
+    /**
+     * Gets the property, or {@link #NotFound} if the source has no such property, see
+     * {@link PropertyAccessor#findProperty(OgnlContext, Object, Object, boolean)}.
+     *
+     * @param context the current execution context
+     * @param source  the object to get the property from
+     * @param name    the name of the property
+     * @return the value of the property, or {@link #NotFound}
+     * @throws OgnlException if an existing property cannot be got
+     */
+    public static <C extends OgnlContext<C>> Object findProperty(C context, Object source, Object name)
+            throws OgnlException {
+        if (source == null) {
+            throw new OgnlException("source is null for findProperty(null, \"" + name + "\")");
+        }
+
+        PropertyAccessor<C> accessor = getPropertyAccessor(getTargetClass(source));
+        return accessor.findProperty(context, source, name, false);
+    }
+
     public static <C extends OgnlContext<C>> void setProperty(C context, Object target, Object name, Object value)
             throws OgnlException {
         PropertyAccessor<C> accessor;
@@ -2340,82 +2708,52 @@ public class OgnlRuntime {
     }
 
     public static Method getReadMethod(Class<?> target, String name, Class<?>[] argClasses) {
-        try {
-            if (name.indexOf('"') >= 0)
-                name = name.replaceAll("\"", "");
-
-            name = name.toLowerCase();
-
-            Method[] methods = target.getMethods();
-
-            // exact matches first
-            ArrayList<Method> candidates = new ArrayList<>();
-
-            for (Method method : methods) {
-                // Consider bridge methods as callable (also) for Read methods.
-                if (!isMethodCallable_BridgeOrNonSynthetic(method)) {
-                    continue;
-                }
-
-                if ((method.getName().equalsIgnoreCase(name)
-                        || method.getName().toLowerCase().equals("get" + name)
-                        || method.getName().toLowerCase().equals("has" + name)
-                        || method.getName().toLowerCase().equals("is" + name))
-                        && !method.getName().startsWith("set")) {
-                    candidates.add(method);
-                }
-            }
-            if (!candidates.isEmpty()) {
-                MatchingMethod mm = findBestMethod(candidates, target, name, argClasses);
-                if (mm != null)
-                    return mm.mMethod;
-            }
-
-            for (Method method : methods) {
-                // Consider bridge methods as callable (also) for Read methods.
-                if (!isMethodCallable_BridgeOrNonSynthetic(method)) {
-                    continue;
-                }
+        if (name.indexOf('"') >= 0)
+            name = name.replaceAll("\"", "");
 
-                if (method.getName().equalsIgnoreCase(name)
-                        && !method.getName().startsWith("set")
-                        && !method.getName().startsWith("get")
-                        && !method.getName().startsWith("is")
-                        && !method.getName().startsWith("has")
-                        && method.getReturnType() != Void.TYPE) {
+        return cache.getAccessorMethod(new AccessorMethodCacheEntry(target, name.toLowerCase(), argClasses, false));
+    }
 
-                    if (!candidates.contains(method)) {
-                        candidates.add(method);
-                    }
-                }
-            }
+    /**
+     * Resolves a read method without caching, see {@link #getReadMethod(Class, String, Class[])}.
+     *
+     * @param target     the class to find a matching method against
+     * @param name       the lower case name of the method, without quotes
+     * @param argClasses the argument classes, may be null
+     * @return the most likely matching method, or null if none could be found
+     */
+    static Method findReadMethod(Class<?> target, String name, Class<?>[] argClasses) {
+        // exact matches first
+        ArrayList<Method> candidates = new ArrayList<>();
 
-            if (!candidates.isEmpty()) {
-                MatchingMethod mm = findBestMethod(candidates, target, name, argClasses);
-                if (mm != null)
-                    return mm.mMethod;
+        for (Method method : cache.getClassMetadata(target).getPublicMethods(name, "get" + name, "has" + name, "is" + name)) {
+            // Consider bridge methods as callable (also) for Read methods.
+            if (isMethodCallable_BridgeOrNonSynthetic(method) && !method.getName().startsWith("set")) {
+                candidates.add(method);
             }
+        }
+        if (!candidates.isEmpty()) {
+            MatchingMethod mm = findBestMethod(candidates, target, name, argClasses);
+            if (mm != null)
+                return mm.mMethod;
+        }
 
-            // try one last time adding a get to beginning
+        // try one last time adding a get to beginning
 
-            if (!name.startsWith("get")) {
-                Method ret = OgnlRuntime.getReadMethod(target, "get" + name, argClasses);
-                if (ret != null)
-                    return ret;
-            }
+        if (!name.startsWith("get")) {
+            Method ret = OgnlRuntime.getReadMethod(target, "get" + name, argClasses);
+            if (ret != null)
+                return ret;
+        }
 
-            if (!candidates.isEmpty()) {
-                // we need to do conversions.
-                // TODO we have to find out which conversions are possible!
-                int reqArgCount = argClasses == null ? 0 : argClasses.length;
-                for (Method m : candidates) {
-                    if (m.getParameterTypes().length == reqArgCount)
-                        return m;
-                }
+        if (!candidates.isEmpty()) {
+            // we need to do conversions.
+            // TODO we have to find out which conversions are possible!
+            int reqArgCount = argClasses == null ? 0 : argClasses.length;
+            for (Method m : candidates) {
+                if (m.getParameterTypes().length == reqArgCount)
+                    return m;
             }
-
-        } catch (Throwable t) {
-            throw OgnlOps.castToRuntime(t);
         }
 
         return null;
@@ -2426,82 +2764,74 @@ public class OgnlRuntime {
     }
 
     public static Method getWriteMethod(Class<?> target, String name, Class<?>[] argClasses) {
-        try {
-            if (name.indexOf('"') >= 0) {
-                name = name.replaceAll("\"", "");
-            }
-
-            BeanInfo info = Introspector.getBeanInfo(target);
-            MethodDescriptor[] methods = info.getMethodDescriptors();
-
-            ArrayList<Method> candidates = new ArrayList<>();
-
-            for (MethodDescriptor method : methods) {
-                // Consider bridge methods as callable (also) for Write methods.
-                if (!isMethodCallable_BridgeOrNonSynthetic(method.getMethod())) {
-                    continue;
-                }
+        if (name.indexOf('"') >= 0) {
+            name = name.replaceAll("\"", "");
+        }
 
-                if ((method.getName().equalsIgnoreCase(name)
-                        || method.getName().toLowerCase().equals("set" + name.toLowerCase()))
-                        && !method.getName().startsWith("get")) {
+        return cache.getAccessorMethod(new AccessorMethodCacheEntry(target, name, argClasses, true));
+    }
 
-                    candidates.add(method.getMethod());
-                }
-            }
+    /**
+     * Resolves a write method without caching, see {@link #getWriteMethod(Class, String, Class[])}.
+     *
+     * @param target     the class to find a matching method against
+     * @param name       the name of the method, without quotes
+     * @param argClasses the argument classes, may be null
+     * @return the most likely matching method, or null if none could be found
+     */
+    static Method findWriteMethod(Class<?> target, String name, Class<?>[] argClasses) {
+        ClassMetadata metadata = cache.getClassMetadata(target);
+        String lowerCaseName = name.toLowerCase();
+        ArrayList<Method> candidates = new ArrayList<>();
 
-            if (!candidates.isEmpty()) {
-                MatchingMethod mm = findBestMethod(candidates, target, name, argClasses);
-                if (mm != null)
-                    return mm.mMethod;
+        for (Method method : metadata.getBeanMethods(lowerCaseName, "set" + lowerCaseName)) {
+            // Consider bridge methods as callable (also) for Write methods.
+            if (isMethodCallable_BridgeOrNonSynthetic(method) && !method.getName().startsWith("get")) {
+                candidates.add(method);
             }
+        }
 
-            // try again on pure class
-            Method[] cmethods = target.getMethods();
-            for (Method cmethod : cmethods) {
-                // Consider bridge methods as callable (also) for Write methods.
-                if (!isMethodCallable_BridgeOrNonSynthetic(cmethod)) {
-                    continue;
-                }
-
-                if ((cmethod.getName().equalsIgnoreCase(name)
-                        || cmethod.getName().toLowerCase().equals("set" + name.toLowerCase()))
-                        && !cmethod.getName().startsWith("get")) {
+        if (!candidates.isEmpty()) {
+            MatchingMethod mm = findBestMethod(candidates, target, name, argClasses);
+            if (mm != null)
+                return mm.mMethod;
+        }
 
-                    if (!candidates.contains(cmethod))
-                        candidates.add(cmethod);
-                }
+        // try again on pure class
+        for (Method method : metadata.getPublicMethods(lowerCaseName, "set" + lowerCaseName)) {
+            // Consider bridge methods as callable (also) for Write methods.
+            if (isMethodCallable_BridgeOrNonSynthetic(method) && !method.getName().startsWith("get")
+                    && !candidates.contains(method)) {
+                candidates.add(method);
             }
+        }
 
-            if (!candidates.isEmpty()) {
-                MatchingMethod mm = findBestMethod(candidates, target, name, argClasses);
-                if (mm != null)
-                    return mm.mMethod;
-            }
+        if (!candidates.isEmpty()) {
+            MatchingMethod mm = findBestMethod(candidates, target, name, argClasses);
+            if (mm != null)
+                return mm.mMethod;
+        }
 
-            // try one last time adding a set to beginning
-            if (!name.startsWith("set")) {
-                Method ret = OgnlRuntime.getReadMethod(target, "set" + name, argClasses);
-                if (ret != null)
-                    return ret;
-            }
+        // try one last time adding a set to beginning
+        if (!name.startsWith("set")) {
+            Method ret = OgnlRuntime.getReadMethod(target, "set" + name, argClasses);
+            if (ret != null)
+                return ret;
+        }
 
-            if (!candidates.isEmpty()) {
-                // we need to do conversions.
-                // TODO we have to find out which conversions are possible!
-                int reqArgCount = argClasses == null ? 0 : argClasses.length;
-                for (Method m : candidates) {
-                    if (m.getParameterTypes().length == reqArgCount)
-                        return m;
-                }
+        if (!candidates.isEmpty()) {
+            // we need to do conversions.
+            // TODO we have to find out which conversions are possible!
+            int reqArgCount = argClasses == null ? 0 : argClasses.length;
+            for (Method m : candidates) {
+                if (m.getParameterTypes().length == reqArgCount)
+                    return m;
+            }
 
-                if (argClasses == null && candidates.size() == 1) {
-                    // this seems to be the TestCase TestOgnlRuntime.test_Complicated_Inheritance() - is this a real world use case?
-                    return candidates.get(0);
-                }
+            if (argClasses == null && candidates.size() == 1) {
+                // this seems to be the TestCase TestOgnlRuntime.test_Complicated_Inheritance() - is this a real world use case?
+                return candidates.get(0);
             }
-        } catch (Throwable t) {
-            throw OgnlOps.castToRuntime(t);
         }
 
         return null;
@@ -2643,8 +2973,9 @@ public class OgnlRuntime {
         // a replacement for signaling when the true cached value is 'null'
         private static final Method NULL_REPLACEMENT;
 
-        private final ConcurrentHashMap<Class<?>, ConcurrentHashMap<String, Method>> cache =
-                new ConcurrentHashMap<>();
+        // The first level is attached to the class itself, so the methods are dropped once the class is unloaded
+        private final ClassLoaderAwareClassCache<ConcurrentHashMap<String, Method>> cache =
+                new ClassLoaderAwareClassCache<>(clazz -> new ConcurrentHashMap<>());
 
         static {
             try {
@@ -2668,15 +2999,11 @@ public class OgnlRuntime {
         }
 
         void put(Class<?> clazz, String propertyName, Method method) {
-            ConcurrentHashMap<String, Method> methodsByPropertyName = this.cache.get(clazz);
-            if (methodsByPropertyName == null) {
-                methodsByPropertyName = new ConcurrentHashMap<>();
-                ConcurrentHashMap<String, Method> old = this.cache.putIfAbsent(clazz, methodsByPropertyName);
-                if (null != old) {
-                    methodsByPropertyName = old;
-                }
-            }
-            methodsByPropertyName.putIfAbsent(propertyName, (method == null ? NULL_REPLACEMENT : method));
+            this.cache.get(clazz).putIfAbsent(propertyName, (method == null ? NULL_REPLACEMENT : method));
+        }
+
+        CacheStatistics getStatistics() {
+            return this.cache.getStatistics();
         }
 
 
@@ -2787,6 +3114,18 @@ public class OgnlRuntime {
         return _useFirstMatchGetSetLookup;
     }
 
+    /**
+     * Returns the value of the flag indicating whether expressions are parsed with the hand-written
+     * {@link FastOgnlParser} instead of the JavaCC generated {@link OgnlParser}.
+     * <p>
+     * Note: Value is controlled by a Java option flag {@link OgnlRuntime#USE_FAST_PARSER}.
+     *
+     * @return true if the hand-written parser is in effect, false otherwise.
+     */
+    public static boolean getUseFastParserValue() {
+        return _useFastParser;
+    }
+
     /**
      * Returns true if the given member is accessible or can be made accessible
      * by this object.
@@ -2797,7 +3136,7 @@ public class OgnlRuntime {
      * @param propertyName the property to test accessibility for.
      * @return true if the target/member/propertyName is accessible in the context, false otherwise.
      */
-    private static <C extends OgnlContext<C>> boolean isAccessible(C context, Object target, Member member, String propertyName) {
-        return context.getMemberAccess().isAccessible(context, target, member, propertyName);
+    static <C extends OgnlContext<C>> boolean isAccessible(C context, Object target, Member member, String propertyName) {
+        return cache.isAccessible(context, target, member, propertyName);
     }
 }
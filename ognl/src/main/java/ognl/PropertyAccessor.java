@@ -48,6 +48,44 @@ public interface PropertyAccessor<C extends OgnlContext<C>> {
      */
     Object getProperty(C context, Object target, Object name) throws OgnlException;
 
+    /**
+     * Extracts and returns the property of the given name from the given target object, knowing whether the
+     * property was written as an index, as in {@code target["name"]}, or as a name, as in {@code target.name}.
+     * Expressions read their properties through this method, the default ignores the flag.
+     *
+     * @param context       The current execution context.
+     * @param target        the object to get the property from
+     * @param name          the name of the property to get.
+     * @param indexedAccess true if the property was written as an index
+     * @return the current value of the given property in the given object
+     * @throws OgnlException if there is an error locating the property in the given object
+     */
+    default Object getProperty(C context, Object target, Object name, boolean indexedAccess) throws OgnlException {
+        return getProperty(context, target, name);
+    }
+
+    /**
+     * Gets the property like {@link #getProperty(OgnlContext, Object, Object, boolean)}, but returns
+     * {@link OgnlRuntime#NotFound} instead of throwing a {@link NoSuchPropertyException} when the target has no
+     * such property, so callers probing for properties need not create exceptions. The default catches the
+     * exception, implementations overriding {@link #getProperty(OgnlContext, Object, Object)} have to keep both
+     * methods consistent.
+     *
+     * @param context       The current execution context.
+     * @param target        the object to get the property from
+     * @param name          the name of the property to get.
+     * @param indexedAccess true if the property was written as an index
+     * @return the current value of the given property in the given object, or {@link OgnlRuntime#NotFound}
+     * @throws OgnlException if there is an error getting an existing property
+     */
+    default Object findProperty(C context, Object target, Object name, boolean indexedAccess) throws OgnlException {
+        try {
+            return getProperty(context, target, name, indexedAccess);
+        } catch (NoSuchPropertyException e) {
+            return OgnlRuntime.NotFound;
+        }
+    }
+
     /**
      * Sets the value of the property of the given name in the given target object.
      *
@@ -80,4 +118,15 @@ public interface PropertyAccessor<C extends OgnlContext<C>> {
      * @return The source setter method to call.
      */
     String getSourceSetter(C context, Object target, Object index);
+
+    /**
+     * Tells whether this accessor reads the current object, node or types of the context while properties are
+     * got or set. Contexts with lean evaluations only record them when some registered accessor, method accessor
+     * or null handler does, or when evaluations are traced, see {@link OgnlContext#isLeanEvaluations()}.
+     *
+     * @return true if the evaluation state of the context is read, the default
+     */
+    default boolean requiresEvaluationState() {
+        return true;
+    }
 }
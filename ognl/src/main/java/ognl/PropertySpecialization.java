@@ -0,0 +1,277 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ognl;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The way an {@link ASTProperty} reads its property once specialized on the class of a source it observed,
+ * see {@link OgnlContext#isSpecializeNodes()}.
+ * <p>
+ * A specialization reads a map key, a list element or a bean getter directly, skipping the lookup of the
+ * property accessor and its dispatch on the property name. It is guarded by the class of the source and the
+ * version of the registered property accessors: when a guard fails, {@link #getValue} returns {@link #MISS} and
+ * the node specializes on the new class, up to {@link ASTProperty#MAX_SPECIALIZATIONS} classes, or falls back to
+ * the generic evaluation. The getters resolved by {@link Ognl#bind} are bound to their nodes the same way, except
+ * that they are kept when the guards fail, see {@link #bind(String, Method)}.
+ * <p>
+ * Instances can be shared by threads.
+ */
+abstract class PropertySpecialization {
+
+    /**
+     * The property is read through its property accessor.
+     */
+    static final PropertySpecialization GENERIC = new PropertySpecialization(null, 0) {
+        @Override
+        <C extends OgnlContext<C>> Object read(C context, Object source) {
+            return MISS;
+        }
+    };
+
+    /**
+     * Returned by {@link #getValue} when the guard of a specialization does not hold.
+     */
+    static final Object MISS = new Object();
+
+    /**
+     * Returned by {@link #getValue} when the guard holds but the property must be read by the generic evaluation.
+     */
+    static final Object DECLINED = new Object();
+
+    private final Class<?> type;
+    private final int accessorsVersion;
+
+    private PropertySpecialization(Class<?> type, int accessorsVersion) {
+        this.type = type;
+        this.accessorsVersion = accessorsVersion;
+    }
+
+    /**
+     * Creates the specialization of a property for the source it was just read from.
+     *
+     * @param node   the property node.
+     * @param source the object the property was read from.
+     * @return the specialization, declining the sources of that class when their property is read through its
+     * accessor only, or {@link #GENERIC} if the property of the node is not constant.
+     * @throws OgnlException if the property accessor of the source cannot be looked up.
+     */
+    static <C extends OgnlContext<C>> PropertySpecialization create(ASTProperty<C> node, Object source)
+            throws OgnlException {
+        if (node.jjtGetNumChildren() != 1 || !(node.jjtGetChild(0) instanceof ASTConst)) {
+            return GENERIC;
+        }
+        Object name = ((ASTConst<C>) node.jjtGetChild(0)).getValue();
+        if (name == null || name instanceof Node) {
+            return GENERIC;
+        }
+        Class<?> type = source.getClass();
+        int version = OgnlRuntime.cache.getPropertyAccessorsVersion();
+        if (source instanceof Class) {
+            return new Declined(type, version);
+        }
+        PropertyAccessor<C> propertyAccessor = OgnlRuntime.getPropertyAccessor(type);
+        Class<?> accessor = propertyAccessor != null ? propertyAccessor.getClass() : null;
+
+        if (accessor == MapPropertyAccessor.class && !isMapPseudoProperty(name)) {
+            return new MapKey(type, version, name);
+        }
+        if (accessor == ListPropertyAccessor.class && name instanceof Number) {
+            return new ListIndex(type, version, ((Number) name).intValue());
+        }
+        if (accessor == ObjectPropertyAccessor.class && name instanceof String) {
+            Method getter = OgnlRuntime.getGetMethod(type, (String) name);
+            if (getter != null) {
+                return new BeanGetter(type, version, (String) name, getter);
+            }
+        }
+        return new Declined(type, version);
+    }
+
+    /**
+     * Creates the specialization of a property resolved to a getter when binding an expression. It reads the
+     * property of any instance of the class declaring the getter handled by {@link ObjectPropertyAccessor}, so
+     * the subclasses of the bound type are read through the same getter, and other sources fall back to the
+     * generic evaluation without dropping it.
+     *
+     * @param name   the name of the property.
+     * @param getter the getter the property was resolved to.
+     * @return the specialization.
+     */
+    static PropertySpecialization bind(String name, Method getter) {
+        return new BoundGetter(OgnlRuntime.cache.getPropertyAccessorsVersion(), name, getter);
+    }
+
+    /**
+     * Names {@link MapPropertyAccessor} resolves to the map itself rather than to one of its keys.
+     */
+    private static boolean isMapPseudoProperty(Object name) {
+        return "size".equals(name) || "keys".equals(name) || "keySet".equals(name) || "values".equals(name)
+                || "isEmpty".equals(name);
+    }
+
+    /**
+     * Reads the property if the source is of the class this specialization was created for.
+     *
+     * @param context the context of the evaluation.
+     * @param source  the object to read the property from.
+     * @return the value of the property, {@link #MISS} if the source is not of that class, or {@link #DECLINED}
+     * if the generic evaluation must be used.
+     * @throws OgnlException if reading the property fails.
+     */
+    final <C extends OgnlContext<C>> Object getValue(C context, Object source) throws OgnlException {
+        if (source == null || !isCurrent() || !accepts(source.getClass())) {
+            return MISS;
+        }
+        return read(context, source);
+    }
+
+    /**
+     * Tells whether no property accessor was registered since this specialization was created.
+     *
+     * @return false once this specialization is outdated.
+     */
+    final boolean isCurrent() {
+        return OgnlRuntime.cache.getPropertyAccessorsVersion() == accessorsVersion;
+    }
+
+    boolean accepts(Class<?> sourceClass) throws OgnlException {
+        return sourceClass == type;
+    }
+
+    /**
+     * Tells whether this specialization is kept when its guard fails.
+     *
+     * @return true for the getters bound by {@link #bind(String, Method)}.
+     */
+    boolean isBound() {
+        return false;
+    }
+
+    Class<?> getType() {
+        return type;
+    }
+
+    abstract <C extends OgnlContext<C>> Object read(C context, Object source) throws OgnlException;
+
+    /**
+     * Sources of a class whose property is read through its accessor only, kept so they do not specialize again.
+     */
+    private static final class Declined extends PropertySpecialization {
+
+        Declined(Class<?> type, int accessorsVersion) {
+            super(type, accessorsVersion);
+        }
+
+        @Override
+        <C extends OgnlContext<C>> Object read(C context, Object source) {
+            return DECLINED;
+        }
+    }
+
+    private static final class MapKey extends PropertySpecialization {
+
+        private final Object key;
+
+        MapKey(Class<?> type, int accessorsVersion, Object key) {
+            super(type, accessorsVersion);
+            this.key = key;
+        }
+
+        @Override
+        <C extends OgnlContext<C>> Object read(C context, Object source) {
+            return ((Map<?, ?>) source).get(key);
+        }
+    }
+
+    private static final class ListIndex extends PropertySpecialization {
+
+        private final int index;
+
+        ListIndex(Class<?> type, int accessorsVersion, int index) {
+            super(type, accessorsVersion);
+            this.index = index;
+        }
+
+        @Override
+        <C extends OgnlContext<C>> Object read(C context, Object source) {
+            return ((List<?>) source).get(index);
+        }
+    }
+
+    private static class BeanGetter extends PropertySpecialization {
+
+        private final String name;
+        private final Method getter;
+
+        BeanGetter(Class<?> type, int accessorsVersion, String name, Method getter) {
+            super(type, accessorsVersion);
+            this.name = name;
+            this.getter = getter;
+        }
+
+        @Override
+        <C extends OgnlContext<C>> Object read(C context, Object source) throws OgnlException {
+            if (!OgnlRuntime.isAccessible(context, source, getter, name)) {
+                return DECLINED;
+            }
+            try {
+                return OgnlRuntime.invokeMethod(source, getter, OgnlRuntime.NoArguments);
+            } catch (InvocationTargetException ex) {
+                throw new OgnlException(name, ex.getTargetException());
+            } catch (IllegalAccessException ex) {
+                throw new OgnlException(name, ex);
+            }
+        }
+    }
+
+    private static final class BoundGetter extends BeanGetter {
+
+        // the class of the last source read, checked before looking up the property accessor of another one
+        private volatile Class<?> lastSourceClass;
+
+        BoundGetter(int accessorsVersion, String name, Method getter) {
+            super(getter.getDeclaringClass(), accessorsVersion, name, getter);
+        }
+
+        @Override
+        boolean accepts(Class<?> sourceClass) throws OgnlException {
+            if (sourceClass == lastSourceClass) {
+                return true;
+            }
+            if (!getType().isAssignableFrom(sourceClass)) {
+                return false;
+            }
+            PropertyAccessor<?> accessor = OgnlRuntime.getPropertyAccessor(sourceClass);
+            if (accessor == null || accessor.getClass() != ObjectPropertyAccessor.class) {
+                return false;
+            }
+            lastSourceClass = sourceClass;
+            return true;
+        }
+
+        @Override
+        boolean isBound() {
+            return true;
+        }
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ognl;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Modifier;
+
+/**
+ * Constructor chosen by {@link OgnlRuntime#callConstructor} for a class name and the classes of the arguments,
+ * kept by {@link ASTCtor} to create the following objects without resolving the class and the constructor again.
+ * <p>
+ * Only constructors accepting the arguments without conversion are kept, as the conversions depend on the argument
+ * values. Constructors of public classes are invoked through a method handle, others through reflection. Access
+ * rights are checked on each invocation, like {@link OgnlRuntime#callConstructor} does.
+ * <p>
+ * Instances are immutable and can be shared by threads.
+ */
+final class ResolvedConstructor {
+
+    private final ClassResolver<?> classResolver;
+    private final Class<?>[] argClasses;
+    private final Class<?> target;
+    private final Constructor<?> constructor;
+    private final MethodHandle factory;
+
+    private ResolvedConstructor(ClassResolver<?> classResolver, Class<?>[] argClasses, Class<?> target,
+                                Constructor<?> constructor) {
+        this.classResolver = classResolver;
+        this.argClasses = argClasses;
+        this.target = target;
+        this.constructor = constructor;
+        this.factory = createFactory(target, constructor, argClasses);
+    }
+
+    /**
+     * Resolves the constructor of the class to be called with the arguments.
+     *
+     * @return the constructor, or null if the class is not found or has no constructor accepting the arguments
+     * without conversion.
+     */
+    static <C extends OgnlContext<C>> ResolvedConstructor resolve(C context, String className, Object[] args) {
+        Class<?> target;
+        try {
+            target = OgnlRuntime.classForName(context, className);
+        } catch (ClassNotFoundException e) {
+            return null;
+        }
+        Constructor<?> constructor = OgnlRuntime.getCompatibleConstructor(OgnlRuntime.getConstructors(target), args);
+        if (constructor == null) {
+            return null;
+        }
+        Class<?>[] argClasses = new Class[args.length];
+        for (int i = 0; i < args.length; i++) {
+            argClasses[i] = args[i] == null ? null : args[i].getClass();
+        }
+        return new ResolvedConstructor(context.getClassResolver(), argClasses, target, constructor);
+    }
+
+    private static MethodHandle createFactory(Class<?> target, Constructor<?> constructor, Class<?>[] argClasses) {
+        if (!Modifier.isPublic(target.getModifiers()) || Modifier.isAbstract(target.getModifiers())) {
+            return null;
+        }
+        Class<?>[] parameterTypes = constructor.getParameterTypes();
+        for (int i = 0; i < parameterTypes.length; i++) {
+            if (argClasses[i] == null && parameterTypes[i].isPrimitive()) {
+                return null; // rejected by reflection with its own exception
+            }
+        }
+        try {
+            return MethodHandles.publicLookup().unreflectConstructor(constructor)
+                    .asFixedArity()
+                    .asType(MethodType.genericMethodType(parameterTypes.length))
+                    .asSpreader(Object[].class, parameterTypes.length);
+        } catch (IllegalAccessException e) {
+            return null; // not exported to all modules, keep using reflection
+        }
+    }
+
+    /**
+     * Tells whether this constructor was resolved with the class resolver of the context and for arguments of the
+     * same classes.
+     */
+    <C extends OgnlContext<C>> boolean matches(C context, Object[] args) {
+        if (classResolver != context.getClassResolver() || argClasses.length != args.length) {
+            return false;
+        }
+        for (int i = 0; i < args.length; i++) {
+            if ((args[i] == null ? null : args[i].getClass()) != argClasses[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    boolean isDirect() {
+        return factory != null;
+    }
+
+    <C extends OgnlContext<C>> Object newInstance(C context, String className, Object[] args) throws OgnlException {
+        Throwable reason;
+        if (!OgnlRuntime.isAccessible(context, target, constructor, null)) {
+            throw new MethodFailedException(className, "new",
+                    new IllegalAccessException("access denied to " + target.getName() + "()"));
+        }
+        try {
+            if (factory == null) {
+                return constructor.newInstance(args);
+            }
+            return (Object) factory.invokeExact(args);
+        } catch (IllegalAccessException | InstantiationException e) {
+            reason = e;
+        } catch (InvocationTargetException e) {
+            reason = e.getTargetException();
+        } catch (RuntimeException | Error e) {
+            if (factory == null) {
+                throw e;
+            }
+            reason = e; // thrown by the constructor itself
+        } catch (Throwable t) {
+            reason = t;
+        }
+        throw new MethodFailedException(className, "new", reason);
+    }
+}
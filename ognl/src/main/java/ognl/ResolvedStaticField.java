@@ -0,0 +1,99 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ognl;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+
+/**
+ * Class, enum constant or static field named by a static field reference, found by
+ * {@link OgnlRuntime#getStaticField} and kept by {@link ASTStaticField} to read it again without resolving the
+ * class and the field.
+ * <p>
+ * Fields are read on each access, after checking the access rights with the member access of the context. Values of
+ * classes, enum constants and <code>static final</code> fields are already kept by the node once evaluated, see
+ * {@link ASTStaticField#isNodeConstant}.
+ * <p>
+ * Instances are immutable and can be shared by threads.
+ */
+final class ResolvedStaticField {
+
+    private final ClassResolver<?> classResolver;
+    private final String className;
+    private final Field field;
+    private final Object value;
+
+    private ResolvedStaticField(ClassResolver<?> classResolver, String className, Field field, Object value) {
+        this.classResolver = classResolver;
+        this.className = className;
+        this.field = field;
+        this.value = value;
+    }
+
+    /**
+     * Resolves the static field of the class.
+     *
+     * @return the field, or null if the class or the static field is not found.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    static <C extends OgnlContext<C>> ResolvedStaticField resolve(C context, String className, String fieldName) {
+        Class<?> c;
+        try {
+            c = OgnlRuntime.classForName(context, className);
+        } catch (ClassNotFoundException e) {
+            return null;
+        }
+        ClassResolver<?> classResolver = context.getClassResolver();
+
+        if (fieldName.equals("class")) {
+            return new ResolvedStaticField(classResolver, className, null, c);
+        } else if (c.isEnum()) {
+            try {
+                return new ResolvedStaticField(classResolver, className, null,
+                        Enum.valueOf((Class<? extends Enum>) c, fieldName));
+            } catch (IllegalArgumentException e) {
+                // not a constant, try static field
+            }
+        }
+
+        Field f = OgnlRuntime.getField(c, fieldName);
+        if (f == null || !Modifier.isStatic(f.getModifiers())) {
+            return null;
+        }
+        return new ResolvedStaticField(classResolver, className, f, null);
+    }
+
+    /**
+     * Tells whether this field was resolved with the class resolver of the context.
+     */
+    <C extends OgnlContext<C>> boolean matches(C context) {
+        return classResolver == context.getClassResolver();
+    }
+
+    Field getField() {
+        return field;
+    }
+
+    <C extends OgnlContext<C>> Object getValue(C context) throws OgnlException {
+        if (field == null) {
+            return value;
+        }
+        return OgnlRuntime.getStaticFieldValue(context, className, field);
+    }
+}
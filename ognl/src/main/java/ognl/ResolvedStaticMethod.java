@@ -0,0 +1,105 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ognl;
+
+import java.lang.reflect.Method;
+
+/**
+ * Static method chosen by {@link OgnlRuntime#callStaticMethod} for a class name, a method name and the classes of
+ * the arguments, kept by {@link ASTStaticMethod} to call it again without resolving the class and choosing among the
+ * overloads.
+ * <p>
+ * Only methods accepting the arguments without conversion are kept, and only while the class is handled by the
+ * default {@link ObjectMethodAccessor}. Access rights and the stricter invocation mode are checked on each call, like
+ * {@link OgnlRuntime#callStaticMethod} does.
+ * <p>
+ * Instances are immutable and can be shared by threads.
+ */
+final class ResolvedStaticMethod {
+
+    private final ClassResolver<?> classResolver;
+    private final int accessorsVersion;
+    private final Class<?>[] argClasses;
+    private final Class<?> targetClass;
+    private final Method method;
+
+    private ResolvedStaticMethod(ClassResolver<?> classResolver, int accessorsVersion, Class<?>[] argClasses,
+                                 Class<?> targetClass, Method method) {
+        this.classResolver = classResolver;
+        this.accessorsVersion = accessorsVersion;
+        this.argClasses = argClasses;
+        this.targetClass = targetClass;
+        this.method = method;
+    }
+
+    /**
+     * Resolves the static method of the class to be called with the arguments.
+     *
+     * @return the method, or null if the class is not found, has a custom method accessor or has no method accepting
+     * the arguments without conversion.
+     */
+    static <C extends OgnlContext<C>> ResolvedStaticMethod resolve(C context, String className, String methodName,
+                                                                   Object[] args) throws OgnlException {
+        int accessorsVersion = OgnlRuntime.cache.getMethodAccessorsVersion();
+        Class<?> targetClass;
+        try {
+            targetClass = OgnlRuntime.classForName(context, className);
+        } catch (ClassNotFoundException e) {
+            return null;
+        }
+        if (OgnlRuntime.getMethodAccessor(targetClass).getClass() != ObjectMethodAccessor.class) {
+            return null;
+        }
+        Method method = OgnlRuntime.getUnconvertedMethod(OgnlRuntime.getMethods(targetClass, methodName, true),
+                targetClass, methodName, args);
+        if (method == null) {
+            return null;
+        }
+        Class<?>[] argClasses = new Class[args.length];
+        for (int i = 0; i < args.length; i++) {
+            argClasses[i] = args[i] == null ? null : args[i].getClass();
+        }
+        return new ResolvedStaticMethod(context.getClassResolver(), accessorsVersion, argClasses, targetClass, method);
+    }
+
+    /**
+     * Tells whether this method was resolved with the class resolver of the context and the current method
+     * accessors, for arguments of the same classes.
+     */
+    <C extends OgnlContext<C>> boolean matches(C context, Object[] args) {
+        if (classResolver != context.getClassResolver() || argClasses.length != args.length
+                || OgnlRuntime.cache.getMethodAccessorsVersion() != accessorsVersion) {
+            return false;
+        }
+        for (int i = 0; i < args.length; i++) {
+            if ((args[i] == null ? null : args[i].getClass()) != argClasses[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    Method getMethod() {
+        return method;
+    }
+
+    <C extends OgnlContext<C>> Object invoke(C context, String methodName, Object[] args) throws OgnlException {
+        return OgnlRuntime.invokeAppropriateMethod(context, targetClass, null, methodName, null, method, args, args);
+    }
+}
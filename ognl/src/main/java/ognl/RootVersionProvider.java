@@ -0,0 +1,43 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ognl;
+
+/**
+ * This interface defines a method for getting the version of a root, so results memoized by
+ * {@link Ognl#getValueCached(Object, OgnlContext, Object)} for a root are evaluated again once it changed.
+ * A provider is registered for a class with {@link OgnlRuntime#setRootVersionProvider(Class, RootVersionProvider)}
+ * and applies to its subclasses, roots of classes without one are considered immutable.
+ */
+@FunctionalInterface
+public interface RootVersionProvider {
+
+    /**
+     * Provider of roots which never change, registered for <code>Object</code>.
+     */
+    RootVersionProvider IMMUTABLE = root -> 0L;
+
+    /**
+     * Returns the version of the given root, which has to change whenever a value an expression could read
+     * from the root changes.
+     *
+     * @param root the root expressions are evaluated against
+     * @return the current version of the root
+     */
+    long getVersion(Object root);
+}
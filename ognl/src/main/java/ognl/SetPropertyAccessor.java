@@ -26,7 +26,8 @@ import java.util.Set;
  */
 public class SetPropertyAccessor<C extends OgnlContext<C>> extends ObjectPropertyAccessor<C> implements PropertyAccessor<C> {
 
-    public Object getProperty(C context, Object target, Object name) throws OgnlException {
+    @Override
+    public Object findProperty(C context, Object target, Object name, boolean indexedAccess) throws OgnlException {
         Set<?> set = (Set<?>) target;
 
         if (name instanceof String) {
@@ -41,14 +42,14 @@ public class SetPropertyAccessor<C extends OgnlContext<C>> extends ObjectPropert
                     if (name.equals("isEmpty")) {
                         result = set.isEmpty() ? Boolean.TRUE : Boolean.FALSE;
                     } else {
-                        result = super.getProperty(context, target, name);
+                        result = super.findProperty(context, target, name, indexedAccess);
                     }
                 }
             }
             return result;
         }
 
-        throw new NoSuchPropertyException(target, name);
+        return OgnlRuntime.NotFound;
     }
 
 }
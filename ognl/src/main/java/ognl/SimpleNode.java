@@ -23,22 +23,44 @@ import ognl.enhance.ExpressionAccessor;
 import java.io.PrintWriter;
 import java.io.Serial;
 import java.io.Serializable;
-
-public abstract class SimpleNode<C extends OgnlContext<C>> implements Node<C>, Serializable {
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Base class of all parsed expression nodes.
+ * <p>
+ * Once parsed, a tree can be shared by any number of threads: the only state written during evaluation is
+ * the lazily calculated constant value, which is published as a single immutable record. Compilation never
+ * touches the shared tree, see {@link #deepCopy()}, and the resulting accessors are kept per root type.
+ */
+public abstract class SimpleNode<C extends OgnlContext<C>> implements Node<C>, Serializable, Cloneable {
 
     @Serial
     private static final long serialVersionUID = 369358170335048384L;
 
+    private static final VarHandle ACCESSORS_BY_ROOT_TYPE;
+
+    static {
+        try {
+            ACCESSORS_BY_ROOT_TYPE = MethodHandles.lookup()
+                    .findVarHandle(SimpleNode.class, "accessorsByRootType", Map.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
     protected Node<C> parent;
     protected Node<C>[] children;
     protected int id;
     protected OgnlParser parser;
 
-    private boolean constantValueCalculated;
-    private volatile boolean hasConstantValue;
-    private Object constantValue;
+    private volatile transient ConstantValue constantValue;
 
-    private ExpressionAccessor expressionAccessor;
+    private volatile transient ExpressionAccessor<C> expressionAccessor;
+    private volatile transient Map<Class<?>, ExpressionAccessor<C>> accessorsByRootType;
+    private volatile transient MemoizedResults memoizedResults;
 
     public SimpleNode(int i) {
         id = i;
@@ -156,27 +178,26 @@ public abstract class SimpleNode<C extends OgnlContext<C>> implements Node<C>, S
 
     protected Object evaluateGetValueBody(C context, Object source)
             throws OgnlException {
-        context.setCurrentObject(source);
-        context.setCurrentNode(this);
-
-        if (!constantValueCalculated) {
-            constantValueCalculated = true;
-            boolean constant = isConstant(context);
-
-            if (constant) {
-                constantValue = getValueBody(context, source);
-            }
+        if (context.isEvaluationStateTracked()) {
+            context.setCurrentObject(source);
+            context.setCurrentNode(this);
+        }
 
-            hasConstantValue = constant;
+        ConstantValue constant = constantValue;
+        if (constant == null) {
+            constant = isConstant(context) ? new ConstantValue(getValueBody(context, source)) : ConstantValue.NONE;
+            constantValue = constant;
         }
 
-        return hasConstantValue ? constantValue : getValueBody(context, source);
+        return constant != ConstantValue.NONE ? constant.value : getValueBody(context, source);
     }
 
     protected void evaluateSetValueBody(C context, Object target, Object value)
             throws OgnlException {
-        context.setCurrentObject(target);
-        context.setCurrentNode(this);
+        if (context.isEvaluationStateTracked()) {
+            context.setCurrentObject(target);
+            context.setCurrentNode(this);
+        }
         setValueBody(context, target, value);
     }
 
@@ -397,11 +418,101 @@ public abstract class SimpleNode<C extends OgnlContext<C>> implements Node<C>, S
         }
     }
 
-    public ExpressionAccessor getAccessor() {
+    public ExpressionAccessor<C> getAccessor() {
         return expressionAccessor;
     }
 
-    public void setAccessor(ExpressionAccessor accessor) {
+    public void setAccessor(ExpressionAccessor<C> accessor) {
         expressionAccessor = accessor;
     }
+
+    @Override
+    public ExpressionAccessor<C> getAccessor(Class<?> rootType) {
+        Map<Class<?>, ExpressionAccessor<C>> accessors = accessorsByRootType;
+        return accessors != null && rootType != null ? accessors.get(rootType) : null;
+    }
+
+    @Override
+    public void setAccessor(Class<?> rootType, ExpressionAccessor<C> accessor) {
+        if (rootType != null) {
+            Map<Class<?>, ExpressionAccessor<C>> accessors = accessorsByRootType;
+            if (accessors == null) {
+                Map<Class<?>, ExpressionAccessor<C>> created = new ConcurrentHashMap<>();
+                accessors = (Map<Class<?>, ExpressionAccessor<C>>) ACCESSORS_BY_ROOT_TYPE.compareAndExchange(this, null, created);
+                if (accessors == null) {
+                    accessors = created;
+                }
+            }
+            accessors.put(rootType, accessor);
+        }
+        if (expressionAccessor == null) {
+            expressionAccessor = accessor;
+        }
+    }
+
+    MemoizedResults getMemoizedResults() {
+        return memoizedResults;
+    }
+
+    void setMemoizedResults(MemoizedResults memoizedResults) {
+        this.memoizedResults = memoizedResults;
+    }
+
+    /**
+     * Creates a private copy of this subtree, sharing nothing mutable with it. The compiler works on such a copy
+     * as generating the java source records types and expressions on the nodes, which must not race with
+     * other threads evaluating or compiling the shared tree. The copy keeps the parent of this node, but has
+     * no compiled accessors.
+     *
+     * @return a deep copy of this node and its children.
+     */
+    public SimpleNode<C> deepCopy() {
+        SimpleNode<C> copy;
+        try {
+            copy = (SimpleNode<C>) clone();
+        } catch (CloneNotSupportedException e) {
+            throw new IllegalStateException(e); // Will never happen, SimpleNode is Cloneable
+        }
+        copy.expressionAccessor = null;
+        copy.accessorsByRootType = null;
+        copy.memoizedResults = null;
+        if (children != null) {
+            copy.children = new Node[children.length];
+            for (int i = 0; i < children.length; i++) {
+                Node<C> child = children[i];
+                if (child instanceof SimpleNode) {
+                    child = ((SimpleNode<C>) child).deepCopy();
+                    child.jjtSetParent(copy);
+                }
+                copy.children[i] = child;
+            }
+        }
+        return copy;
+    }
+
+    /**
+     * Returns the state of this node, other than its class and children, which tells it apart from structurally
+     * similar nodes, used by {@link NodeInterner} to share identical subtrees. Nodes holding names replace them
+     * with the instances interned by the given interner. Called once the children have been interned.
+     *
+     * @param interner the interner sharing the nodes.
+     * @return the state of this node, compared with equals(), or null if the node has none.
+     */
+    Object internState(NodeInterner interner) {
+        return null;
+    }
+
+    /**
+     * Outcome of the constant check of a node, immutable so it can be published to other threads at once.
+     */
+    private static final class ConstantValue {
+
+        static final ConstantValue NONE = new ConstantValue(null);
+
+        final Object value;
+
+        ConstantValue(Object value) {
+            this.value = value;
+        }
+    }
 }
@@ -0,0 +1,390 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ognl;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Member;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Infers the static type of every node of a tree evaluated against a root of a declared class, resolving the
+ * properties, methods, fields and classes it refers to. Members missing from a final declared type are reported
+ * at once, as the interpreter would at evaluation time, while those missing from other types are left to the
+ * subclasses evaluated against. Wherever the type cannot be known statically (context
+ * variables, maps, custom accessors, overloaded methods...) the node is typed <code>Object</code> and is left
+ * to the dynamic checks of the interpreter, these nodes are the guard points of the expression.
+ */
+final class TypeInference<C extends OgnlContext<C>> {
+
+    private final C context;
+    private final Class<?> rootType;
+    private final Map<Node<C>, Class<?>> types = new IdentityHashMap<>();
+    private final Map<Node<C>, Member> members = new IdentityHashMap<>();
+
+    TypeInference(C context, Class<?> rootType) {
+        this.context = context;
+        this.rootType = rootType;
+    }
+
+    Map<Node<C>, Class<?>> getTypes() {
+        return types;
+    }
+
+    Map<Node<C>, Member> getMembers() {
+        return members;
+    }
+
+    /**
+     * Infers the type of the given node, evaluated against a source of the given type.
+     *
+     * @param node   the node to be typed.
+     * @param source the static type of the object the node is evaluated against.
+     * @return the static type of the value of the node, <code>Object</code> if unknown.
+     * @throws OgnlException if the node refers to a member or class which does not exist.
+     */
+    Class<?> infer(Node<C> node, Class<?> source) throws OgnlException {
+        Class<?> result;
+        Member member = null;
+
+        if (node instanceof ASTChain) {
+            result = source;
+            for (int i = 0; i < node.jjtGetNumChildren(); i++) {
+                result = infer(node.jjtGetChild(i), result);
+            }
+        } else if (node instanceof ASTProperty) {
+            ASTProperty<C> property = (ASTProperty<C>) node;
+            Node<C> name = node.jjtGetChild(0);
+            Class<?> nameType = infer(name, rootType);
+            if (property.isIndexedAccess()) {
+                result = source.isArray() && isNumeric(nameType) ? source.getComponentType() : Object.class;
+            } else if (name instanceof ASTConst && ((ASTConst<C>) name).getValue() instanceof String) {
+                member = propertyMember(source, (String) ((ASTConst<C>) name).getValue());
+                result = memberType(source, (String) ((ASTConst<C>) name).getValue(), member);
+            } else {
+                result = Object.class;
+            }
+        } else if (node instanceof ASTMethod) {
+            inferChildren(node, rootType);
+            ASTMethod<C> method = (ASTMethod<C>) node;
+            member = method(source, method.getMethodName(), node.jjtGetNumChildren(), false);
+            result = member != null ? ((Method) member).getReturnType() : Object.class;
+        } else if (node instanceof ASTStaticMethod) {
+            inferChildren(node, rootType);
+            ASTStaticMethod<C> method = (ASTStaticMethod<C>) node;
+            member = method(classForName(method.getClassName()), method.getMethodName(), node.jjtGetNumChildren(), true);
+            result = member != null ? ((Method) member).getReturnType() : Object.class;
+        } else if (node instanceof ASTStaticField) {
+            ASTStaticField<C> field = (ASTStaticField<C>) node;
+            Class<?> type = classForName(field.getClassName());
+            if ("class".equals(field.getFieldName())) {
+                result = Class.class;
+            } else {
+                Field f = OgnlRuntime.getField(type, field.getFieldName());
+                if (f == null || !Modifier.isStatic(f.getModifiers())) {
+                    throw new NoSuchPropertyException(type, field.getFieldName());
+                }
+                member = f;
+                result = f.getType();
+            }
+        } else if (node instanceof ASTCtor) {
+            inferChildren(node, rootType);
+            ASTCtor<C> ctor = (ASTCtor<C>) node;
+            Class<?> type = classForName(ctor.getClassName());
+            result = ctor.isArray() ? Array.newInstance(type, 0).getClass() : type;
+        } else if (node instanceof ASTInstanceof) {
+            inferChildren(node, source);
+            classForName(((ASTInstanceof<C>) node).getTargetType());
+            result = Boolean.class;
+        } else if (node instanceof ASTConst) {
+            Object value = ((ASTConst<C>) node).getValue();
+            if (value instanceof Node) {
+                // lambda expressions are evaluated later against any object
+                inferChildren(node, Object.class);
+                result = Node.class;
+            } else {
+                result = value != null ? value.getClass() : Object.class;
+            }
+        } else if (node instanceof ASTThisVarRef) {
+            result = source;
+        } else if (node instanceof ASTRootVarRef) {
+            result = rootType;
+        } else if (node instanceof ASTVarRef) {
+            result = Object.class;
+        } else if (node instanceof ASTProject || node instanceof ASTSelect
+                || node instanceof ASTSelectFirst || node instanceof ASTSelectLast) {
+            inferChildren(node, source.isArray() ? source.getComponentType() : Object.class);
+            result = List.class;
+        } else if (node instanceof ASTList) {
+            inferChildren(node, source);
+            result = List.class;
+        } else if (node instanceof ASTMap) {
+            inferChildren(node, source);
+            String className = ((ASTMap<C>) node).getClassName();
+            result = className != null ? classForName(className) : Map.class;
+        } else if (node instanceof ASTSequence) {
+            result = inferChildren(node, source);
+        } else if (node instanceof ASTAssign) {
+            result = inferChildren(node, source);
+        } else if (node instanceof ASTTest) {
+            infer(node.jjtGetChild(0), source);
+            Class<?> whenTrue = infer(node.jjtGetChild(1), source);
+            Class<?> whenFalse = infer(node.jjtGetChild(2), source);
+            result = whenTrue == whenFalse ? whenTrue : Object.class;
+        } else if (node instanceof ASTAnd || node instanceof ASTOr) {
+            result = commonType(node, source);
+        } else if (node instanceof ComparisonExpression || node instanceof ASTNot
+                || node instanceof ASTIn || node instanceof ASTNotIn) {
+            inferChildren(node, source);
+            result = Boolean.class;
+        } else if (node instanceof ASTAdd) {
+            result = arithmeticType(node, source, true);
+        } else if (node instanceof ASTSubtract || node instanceof ASTMultiply || node instanceof ASTDivide
+                || node instanceof ASTRemainder || node instanceof ASTNegate) {
+            result = arithmeticType(node, source, false);
+        } else {
+            // bitwise operators, evaluations and anything else only known at evaluation time
+            inferChildren(node, source);
+            result = Object.class;
+        }
+
+        record(node, result, member);
+        return result;
+    }
+
+    private Class<?> inferChildren(Node<C> node, Class<?> source) throws OgnlException {
+        Class<?> result = Object.class;
+        for (int i = 0; i < node.jjtGetNumChildren(); i++) {
+            result = infer(node.jjtGetChild(i), source);
+        }
+        return result;
+    }
+
+    private Class<?> commonType(Node<C> node, Class<?> source) throws OgnlException {
+        Class<?> result = null;
+        for (int i = 0; i < node.jjtGetNumChildren(); i++) {
+            Class<?> type = infer(node.jjtGetChild(i), source);
+            result = (result == null || result == type) ? type : Object.class;
+        }
+        return result != null ? result : Object.class;
+    }
+
+    private Class<?> arithmeticType(Node<C> node, Class<?> source, boolean concatenates) throws OgnlException {
+        int numericType = -1;
+        boolean known = true;
+        boolean string = false;
+        for (int i = 0; i < node.jjtGetNumChildren(); i++) {
+            Class<?> type = infer(node.jjtGetChild(i), source);
+            int operandType = numericType(type);
+            if (operandType == NumericTypes.NONNUMERIC) {
+                string |= type == String.class;
+                known &= type == String.class;
+            }
+            numericType = numericType < 0 ? operandType : OgnlOps.getNumericType(numericType, operandType, concatenates);
+        }
+        if (concatenates && string) {
+            return String.class;
+        }
+        if (!known || string || numericType < 0) {
+            return Object.class;
+        }
+        return numericType == NumericTypes.NONNUMERIC ? String.class : numericClass(numericType);
+    }
+
+    /**
+     * Resolves a property the way {@link ObjectPropertyAccessor} does, only when the type is handled by it.
+     */
+    private Member propertyMember(Class<?> type, String name) throws OgnlException {
+        if (type == Object.class || type.isPrimitive() || !isDefaultAccessor(OgnlRuntime.getPropertyAccessor(type), ObjectPropertyAccessor.class)) {
+            return null;
+        }
+        Method method = OgnlRuntime.getGetMethod(type, name);
+        if (method == null && (context == null || !context.isIgnoreReadMethods())) {
+            method = OgnlRuntime.getReadMethod(type, name, null);
+        }
+        if (method != null) {
+            return method;
+        }
+        Field field = OgnlRuntime.getField(type, name);
+        if (field == null && isFinal(type)) {
+            throw new NoSuchPropertyException(type, name);
+        }
+        return field;
+    }
+
+    private static Class<?> memberType(Class<?> type, String name, Member member) {
+        if (member instanceof Method) {
+            return ((Method) member).getReturnType();
+        }
+        if (member instanceof Field) {
+            return ((Field) member).getType();
+        }
+        if (type.isArray() && "length".equals(name)) {
+            return int.class;
+        }
+        if (Collection.class.isAssignableFrom(type) || Map.class.isAssignableFrom(type)) {
+            switch (name) {
+                case "size":
+                    return int.class;
+                case "isEmpty":
+                    return Boolean.class;
+                case "keys":
+                case "keySet":
+                    return Map.class.isAssignableFrom(type) ? Set.class : Object.class;
+                case "values":
+                    return Map.class.isAssignableFrom(type) ? Collection.class : Object.class;
+            }
+        }
+        return Object.class;
+    }
+
+    /**
+     * Resolves a method the way {@link ObjectMethodAccessor} does, only when the type is handled by it and the
+     * call has a single candidate; overloads are left to the interpreter.
+     */
+    private Method method(Class<?> type, String name, int argumentCount, boolean staticOnly) throws OgnlException {
+        if (type == Object.class || type.isPrimitive()
+                || (!staticOnly && !isDefaultAccessor(OgnlRuntime.getMethodAccessor(type), ObjectMethodAccessor.class))) {
+            return null;
+        }
+        List<Method> candidates = new ArrayList<>();
+        if (!staticOnly) {
+            addCandidates(candidates, OgnlRuntime.getMethods(type, name, false), argumentCount);
+        }
+        if (candidates.isEmpty()) {
+            addCandidates(candidates, OgnlRuntime.getMethods(type, name, true), argumentCount);
+        }
+        if (candidates.isEmpty() && !staticOnly && !isFinal(type)) {
+            return null;
+        }
+        if (candidates.isEmpty()) {
+            throw new MethodFailedException(type, name, new NoSuchMethodException(type.getName() + "." + name + "()"));
+        }
+        return candidates.size() == 1 ? candidates.get(0) : null;
+    }
+
+    private static void addCandidates(List<Method> candidates, List<Method> methods, int argumentCount) {
+        if (methods != null) {
+            for (Method method : methods) {
+                int parameterCount = method.getParameterCount();
+                if ((parameterCount == argumentCount || (method.isVarArgs() && argumentCount >= parameterCount - 1))
+                        && !overridden(candidates, method)) {
+                    candidates.add(method);
+                }
+            }
+        }
+    }
+
+    /**
+     * Methods are listed for the class and for its super types, an overridden method is a single candidate.
+     */
+    private static boolean overridden(List<Method> candidates, Method method) {
+        for (Method candidate : candidates) {
+            if (Arrays.equals(candidate.getParameterTypes(), method.getParameterTypes())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Tells whether no subclass can declare members missing from the given type.
+     */
+    private static boolean isFinal(Class<?> type) {
+        return Modifier.isFinal(type.getModifiers()) || type.isArray();
+    }
+
+    private static boolean isDefaultAccessor(Object accessor, Class<?> defaultAccessorClass) {
+        return accessor != null && accessor.getClass() == defaultAccessorClass;
+    }
+
+    private Class<?> classForName(String className) throws OgnlException {
+        try {
+            return OgnlRuntime.classForName(context, className);
+        } catch (ClassNotFoundException e) {
+            throw new OgnlException("No such class: " + className, e);
+        }
+    }
+
+    /**
+     * Records the type of a node. A node shared by several places of the tree, see {@link NodeInterner}, is
+     * typed <code>Object</code> as soon as two places disagree.
+     */
+    private void record(Node<C> node, Class<?> type, Member member) {
+        Class<?> previous = types.put(node, type);
+        if (previous != null && previous != type) {
+            types.put(node, Object.class);
+            members.remove(node);
+        } else if (member != null && (previous == null || members.get(node) == member)) {
+            members.put(node, member);
+        } else {
+            members.remove(node);
+        }
+    }
+
+    private static boolean isNumeric(Class<?> type) {
+        int numericType = numericType(type);
+        return numericType != NumericTypes.NONNUMERIC && numericType != NumericTypes.BOOL;
+    }
+
+    private static int numericType(Class<?> type) {
+        if (type == Integer.class || type == int.class) return NumericTypes.INT;
+        if (type == Double.class || type == double.class) return NumericTypes.DOUBLE;
+        if (type == Boolean.class || type == boolean.class) return NumericTypes.BOOL;
+        if (type == Byte.class || type == byte.class) return NumericTypes.BYTE;
+        if (type == Character.class || type == char.class) return NumericTypes.CHAR;
+        if (type == Short.class || type == short.class) return NumericTypes.SHORT;
+        if (type == Long.class || type == long.class) return NumericTypes.LONG;
+        if (type == Float.class || type == float.class) return NumericTypes.FLOAT;
+        if (type == BigInteger.class) return NumericTypes.BIGINT;
+        if (type == BigDecimal.class) return NumericTypes.BIGDEC;
+        return NumericTypes.NONNUMERIC;
+    }
+
+    private static Class<?> numericClass(int numericType) {
+        switch (numericType) {
+            case NumericTypes.BYTE:
+                return Byte.class;
+            case NumericTypes.SHORT:
+                return Short.class;
+            case NumericTypes.LONG:
+                return Long.class;
+            case NumericTypes.BIGINT:
+                return BigInteger.class;
+            case NumericTypes.FLOAT:
+                return Float.class;
+            case NumericTypes.DOUBLE:
+                return Double.class;
+            case NumericTypes.BIGDEC:
+                return BigDecimal.class;
+            default:
+                return Integer.class;
+        }
+    }
+}
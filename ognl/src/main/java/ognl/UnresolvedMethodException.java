@@ -0,0 +1,67 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ognl;
+
+import java.io.Serial;
+
+/**
+ * Reason of the {@link MethodFailedException} thrown when no accessible method accepts the arguments of a call.
+ * Its message is only formatted when asked for and it records no stack trace, callers probing for methods
+ * should use {@link MethodAccessor#callPossibleMethod(OgnlContext, Object, String, Object[])} instead.
+ */
+final class UnresolvedMethodException extends NoSuchMethodException {
+
+    @Serial
+    private static final long serialVersionUID = 4960135287632190547L;
+
+    private final Class<?> targetClass;
+    private final String methodName;
+    private final Class<?>[] argClasses;
+
+    UnresolvedMethodException(Object target, String methodName, Object[] args) {
+        this.targetClass = (target == null) ? null : target.getClass();
+        this.methodName = methodName;
+        this.argClasses = new Class<?>[args.length];
+        for (int i = 0; i < args.length; i++) {
+            argClasses[i] = (args[i] == null) ? null : args[i].getClass();
+        }
+    }
+
+    @Override
+    public String getMessage() {
+        StringBuilder buffer = new StringBuilder();
+
+        if (targetClass != null) {
+            buffer.append(targetClass.getName()).append('.');
+        }
+        buffer.append(methodName).append('(');
+        for (int i = 0; i < argClasses.length; i++) {
+            if (i > 0) {
+                buffer.append(", ");
+            }
+            buffer.append((argClasses[i] == null) ? OgnlRuntime.NULL_STRING : argClasses[i].getName());
+        }
+        return buffer.append(')').toString();
+    }
+
+    @Override
+    public Throwable fillInStackTrace() {
+        return this;
+    }
+}
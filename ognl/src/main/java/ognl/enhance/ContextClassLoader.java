@@ -20,16 +20,32 @@ package ognl.enhance;
 
 import ognl.OgnlContext;
 
+import java.lang.ref.WeakReference;
+
 public class ContextClassLoader<C extends OgnlContext<C>> extends ClassLoader {
 
-    private final C context;
+    /**
+     * The loader is cached per {@link ognl.ClassResolver} while the context references that resolver, so the
+     * context is held weakly to let the cache entry go once the resolver is no longer used.
+     */
+    private volatile WeakReference<C> context;
 
     public ContextClassLoader(ClassLoader parentClassLoader, C context) {
         super(parentClassLoader);
-        this.context = context;
+        setContext(context);
+    }
+
+    /**
+     * Sets the context used to resolve classes, the most recent context using the same class resolver.
+     *
+     * @param context the current execution context.
+     */
+    void setContext(C context) {
+        this.context = new WeakReference<>(context);
     }
 
     protected Class<?> findClass(String name) throws ClassNotFoundException {
+        C context = this.context.get();
         if ((context != null) && (context.getClassResolver() != null)) {
             return context.getClassResolver().classForName(name, context);
         }
@@ -34,8 +34,12 @@ import ognl.ASTCtor;
 import ognl.ASTList;
 import ognl.ASTMethod;
 import ognl.ASTOr;
+import ognl.ASTProject;
 import ognl.ASTProperty;
 import ognl.ASTRootVarRef;
+import ognl.ASTSelect;
+import ognl.ASTSelectFirst;
+import ognl.ASTSelectLast;
 import ognl.ASTStaticField;
 import ognl.ASTStaticMethod;
 import ognl.ASTVarRef;
@@ -44,15 +48,18 @@ import ognl.ExpressionNode;
 import ognl.Node;
 import ognl.OgnlContext;
 import ognl.OgnlRuntime;
+import ognl.SimpleNode;
+import ognl.internal.TypeVariableTable;
 
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.util.Collection;
-import java.util.HashMap;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.WeakHashMap;
 
 /**
  * Responsible for managing/providing functionality related to compiling generated java source
@@ -67,9 +74,16 @@ public class ExpressionCompiler<C extends OgnlContext<C>> implements OgnlExpress
     public static final String PRE_CAST = "_preCast";
 
     /**
-     * {@link ClassLoader} instances.
+     * Key marking in the {@link OgnlContext} that the generated code references nodes of the expression, see
+     * {@link #getNodeReference(OgnlContext, Node)}.
      */
-    protected Map<ClassResolver<C>, EnhancedClassLoader> loaders = new HashMap<>();
+    private static final String NODE_REFERENCE = "_nodeReference";
+
+    /**
+     * {@link ClassLoader} instances, weakly keyed so that a discarded {@link ClassResolver} releases its loader
+     * together with all classes compiled through it.
+     */
+    protected Map<ClassResolver<C>, EnhancedClassLoader> loaders = Collections.synchronizedMap(new WeakHashMap<>());
 
     /**
      * Javassist class definition pool.
@@ -135,6 +149,31 @@ public class ExpressionCompiler<C extends OgnlContext<C>> implements OgnlExpress
      * from the root object up to the specified {@link Node}.
      */
     public static <C extends OgnlContext<C>> String getRootExpression(Node<C> expression, Object root, C context) {
+        // projections and selections already include the root path in the source of the collection they loop over
+        if (isElementLoop(expression)) {
+            return "";
+        }
+        if (expression instanceof ASTChain) {
+            for (int i = 0; i < expression.jjtGetNumChildren(); i++) {
+                if (isElementLoop(expression.jjtGetChild(i))) {
+                    return "";
+                }
+            }
+        }
+
+        return getChainRootExpression(expression, root, context);
+    }
+
+    /**
+     * Same as {@link #getRootExpression(Node, Object, OgnlContext)}, but also for chains containing projections
+     * or selections, which use it to build the source of the collection they loop over.
+     *
+     * @param expression The node to check and generate a root expression to if necessary.
+     * @param root       The root object for this execution.
+     * @param context    The current execution context.
+     * @return Either an empty string or a root path java source string.
+     */
+    public static <C extends OgnlContext<C>> String getChainRootExpression(Node<C> expression, Object root, C context) {
         String rootExpr = "";
 
         if (!shouldCast(expression))
@@ -169,6 +208,20 @@ public class ExpressionCompiler<C extends OgnlContext<C>> implements OgnlExpress
         return rootExpr;
     }
 
+    /**
+     * Tells whether the node is a projection or a selection, which are compiled as loops over the elements of
+     * their source.
+     *
+     * @param expression The node to check.
+     * @return True if the node loops over elements.
+     */
+    public static boolean isElementLoop(Node<?> expression) {
+        return expression instanceof ASTProject
+                || expression instanceof ASTSelect
+                || expression instanceof ASTSelectFirst
+                || expression instanceof ASTSelectLast;
+    }
+
     /**
      * Used by {@link #getRootExpression(Node, Object, OgnlContext)} to determine if the expression
      * needs to be cast at all.
@@ -247,33 +300,12 @@ public class ExpressionCompiler<C extends OgnlContext<C>> implements OgnlExpress
     }
 
     public Class<?> getSuperOrInterfaceClass(Method method, Class<?> clazz) {
-        Class<?>[] interfaces = clazz.getInterfaces();
-        if (interfaces.length > 0) {
-            Class<?> intClass;
-
-            for (Class<?> anInterface : interfaces) {
-                intClass = getSuperOrInterfaceClass(method, anInterface);
-
-                if (intClass != null) {
-                    return intClass;
-                }
-
-                if (Modifier.isPublic(anInterface.getModifiers()) && containsMethod(method, anInterface)) {
-                    return anInterface;
-                }
+        for (Class<?> type : TypeVariableTable.of(clazz).getSupertypes()) {
+            if (Modifier.isPublic(type.getModifiers()) && containsMethod(method, type)) {
+                return type;
             }
         }
 
-        if (clazz.getSuperclass() != null) {
-            Class<?> superClass = getSuperOrInterfaceClass(method, clazz.getSuperclass());
-
-            if (superClass != null)
-                return superClass;
-        }
-
-        if (Modifier.isPublic(clazz.getModifiers()) && containsMethod(method, clazz))
-            return clazz;
-
         return null;
     }
 
@@ -381,13 +413,19 @@ public class ExpressionCompiler<C extends OgnlContext<C>> implements OgnlExpress
         return ret;
     }
 
-    public void compileExpression(C context, Node<C> expression, Object root) throws Exception {
-        if (expression.getAccessor() != null) {
+    public void compileExpression(C context, Node<C> tree, Object root) throws Exception {
+        Class<?> rootType = root != null ? root.getClass() : null;
+        if (rootType == null ? tree.getAccessor() != null : tree.getAccessor(rootType) != null) {
             return;
         }
 
+        // generating the source records types on the nodes, so it runs on a private copy of the shared tree
+        Node<C> expression = tree instanceof SimpleNode ? ((SimpleNode<C>) tree).deepCopy() : tree;
+
         String getBody, setBody;
 
+        context.remove(NODE_REFERENCE);
+
         EnhancedClassLoader loader = getClassLoader(context);
         ClassPool pool = getClassPool(context, loader);
 
@@ -400,37 +438,31 @@ public class ExpressionCompiler<C extends OgnlContext<C>> implements OgnlExpress
         CtMethod valueGetter = new CtMethod(objClass, "get", new CtClass[]{ognlClass, objClass}, newClass);
         CtMethod valueSetter = new CtMethod(CtClass.voidType, "set", new CtClass[]{ognlClass, objClass, objClass}, newClass);
 
-        CtField nodeMember = null; // will only be set if uncompilable exception is thrown
-
-        CtClass nodeClass = getCtClass(Node.class);
-        CtMethod setExpression = null;
-
-        try {
-            getBody = generateGetter(context, newClass, pool, valueGetter, expression, root);
-        } catch (UnsupportedCompilationException uc) {
-            nodeMember = new CtField(nodeClass, "_node", newClass);
-            newClass.addField(nodeMember);
-
-            getBody = generateOgnlGetter(newClass, valueGetter, nodeMember);
-
-            setExpression = CtNewMethod.setter("setExpression", nodeMember);
-            newClass.addMethod(setExpression);
-        }
-
+        // generating the source reads the current object and node recorded by the evaluated nodes
+        boolean compiling = context.isCompiling();
+        context.setCompiling(true);
         try {
-            setBody = generateSetter(context, newClass, pool, valueSetter, expression, root);
-        } catch (UnsupportedCompilationException uc) {
-            if (nodeMember == null) {
-                nodeMember = new CtField(nodeClass, "_node", newClass);
-                newClass.addField(nodeMember);
+            try {
+                getBody = generateGetter(context, newClass, pool, valueGetter, expression, root);
+            } catch (UnsupportedCompilationException uc) {
+                getBody = generateOgnlGetter(newClass, valueGetter, getNodeMember(newClass));
             }
 
-            setBody = generateOgnlSetter(newClass, valueSetter, nodeMember);
-
-            if (setExpression == null) {
-                setExpression = CtNewMethod.setter("setExpression", nodeMember);
-                newClass.addMethod(setExpression);
+            try {
+                setBody = generateSetter(context, newClass, pool, valueSetter, expression, root);
+            } catch (UnsupportedCompilationException uc) {
+                setBody = generateOgnlSetter(newClass, valueSetter, getNodeMember(newClass));
+            } finally {
+                context.remove(NODE_REFERENCE);
             }
+        } finally {
+            context.setCompiling(compiling);
+        }
+
+        // only defined if uncompilable exception is thrown or nodes are referenced by the generated code
+        CtField nodeMember = findNodeMember(newClass);
+        if (nodeMember != null) {
+            newClass.addMethod(CtNewMethod.setter("setExpression", nodeMember));
         }
 
         try {
@@ -439,13 +471,15 @@ public class ExpressionCompiler<C extends OgnlContext<C>> implements OgnlExpress
             Class<?> clazz = instantiateClass(pool, newClass);
             newClass.detach();
 
-            expression.setAccessor((ExpressionAccessor<C>) clazz.getDeclaredConstructor().newInstance());
+            ExpressionAccessor<C> accessor = (ExpressionAccessor<C>) clazz.getDeclaredConstructor().newInstance();
 
             // need to set expression on node if the field was just defined.
             if (nodeMember != null) {
-                expression.getAccessor().setExpression(expression);
+                accessor.setExpression(tree);
             }
 
+            tree.setAccessor(rootType, accessor);
+
         } catch (Throwable t) {
             throw new RuntimeException("Error compiling expression on object " + root
                     + " with expression node " + expression + " getter body: " + getBody
@@ -506,6 +540,9 @@ public class ExpressionCompiler<C extends OgnlContext<C>> implements OgnlExpress
             rootExpr = "";
         }
 
+        if (context.get(NODE_REFERENCE) != null) {
+            getNodeMember(newClass);
+        }
         createLocalReferences(context, pool, newClass, valueGetter.getParameterTypes());
 
         if (expression instanceof OrderedReturn && ((OrderedReturn) expression).getLastExpression() != null) {
@@ -549,6 +586,59 @@ public class ExpressionCompiler<C extends OgnlContext<C>> implements OgnlExpress
         return castString + referenceName + "($$)";
     }
 
+    public String createLocalMethod(C context, String body, Class<?> type) {
+        String methodName = "ref" + context.incrementLocalReferenceCounter();
+        context.addLocalReference(methodName, new LocalMethod(methodName, body, type));
+
+        return methodName;
+    }
+
+    /**
+     * Gets the java source walking from the <code>_node</code> field of the compiled class down to the given node.
+     * The compiled expression is a copy of the tree set through {@link ExpressionAccessor#setExpression(Node)}, so
+     * the path of child indexes leads to the matching node of the tree.
+     */
+    public String getNodeReference(C context, Node<C> node) {
+        StringBuilder path = new StringBuilder();
+        for (Node<C> current = node, parent = node.jjtGetParent(); parent != null; current = parent, parent = parent.jjtGetParent()) {
+            int index = indexOfChild(parent, current);
+            if (index < 0) {
+                // the parent of the compiled copy is still the one of the shared tree
+                break;
+            }
+            path.insert(0, ".jjtGetChild(" + index + ")");
+        }
+        context.put(NODE_REFERENCE, Boolean.TRUE);
+
+        return "_node" + path;
+    }
+
+    private static <C extends OgnlContext<C>> int indexOfChild(Node<C> parent, Node<C> child) {
+        for (int i = 0; i < parent.jjtGetNumChildren(); i++) {
+            if (parent.jjtGetChild(i) == child) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private CtField findNodeMember(CtClass clazz) {
+        try {
+            return clazz.getDeclaredField("_node");
+        } catch (NotFoundException e) {
+            return null;
+        }
+    }
+
+    private CtField getNodeMember(CtClass clazz) throws CannotCompileException, NotFoundException {
+        CtField nodeMember = findNodeMember(clazz);
+        if (nodeMember == null) {
+            nodeMember = new CtField(getCtClass(Node.class), "_node", clazz);
+            clazz.addField(nodeMember);
+        }
+        return nodeMember;
+    }
+
     private void createLocalReferences(C context, ClassPool pool, CtClass clazz, CtClass[] params) throws CannotCompileException, NotFoundException {
         Map<String, LocalReference> referenceMap = context.getLocalReferences();
         if (referenceMap == null || referenceMap.isEmpty()) {
@@ -560,11 +650,16 @@ public class ExpressionCompiler<C extends OgnlContext<C>> implements OgnlExpress
         while (it.hasNext()) {
             LocalReference ref = it.next();
 
-            String widener = ref.getType().isPrimitive() ? " " : " ($w) ";
+            String body;
+            if (ref instanceof LocalMethod) {
+                body = ref.getExpression();
+            } else {
+                String widener = ref.getType().isPrimitive() ? " " : " ($w) ";
 
-            String body = "{";
-            body += " return  " + widener + ref.getExpression() + ";";
-            body += "}";
+                body = "{";
+                body += " return  " + widener + ref.getExpression() + ";";
+                body += "}";
+            }
 
             if (body.contains("..")) {
                 body = body.replaceAll("\\.\\.", ".");
@@ -604,6 +699,9 @@ public class ExpressionCompiler<C extends OgnlContext<C>> implements OgnlExpress
         if (noRoot != null)
             pre = "";
 
+        if (context.get(NODE_REFERENCE) != null) {
+            getNodeMember(newClass);
+        }
         createLocalReferences(context, pool, newClass, valueSetter.getParameterTypes());
 
         body = "{"
@@ -673,6 +771,9 @@ public class ExpressionCompiler<C extends OgnlContext<C>> implements OgnlExpress
         EnhancedClassLoader ret = loaders.get(context.getClassResolver());
 
         if (ret != null) {
+            if (ret.getParent() instanceof ContextClassLoader) {
+                ((ContextClassLoader<C>) ret.getParent()).setContext(context);
+            }
             return ret;
         }
 
@@ -709,9 +810,21 @@ public class ExpressionCompiler<C extends OgnlContext<C>> implements OgnlExpress
             return classPool;
         }
 
-        classPool = ClassPool.getDefault();
+        // a private pool instead of the JVM wide default one, so the inserted class path and all the cached
+        // class definitions can be collected together with this compiler
+        classPool = new ClassPool(true);
         classPool.insertClassPath(new LoaderClassPath(loader.getParent()));
 
         return classPool;
     }
+
+    /**
+     * Local reference holding a complete method body, see {@link #createLocalMethod(OgnlContext, String, Class)}.
+     */
+    private static class LocalMethod extends OgnlLocalReference {
+
+        LocalMethod(String name, String body, Class<?> type) {
+            super(name, body, type);
+        }
+    }
 }
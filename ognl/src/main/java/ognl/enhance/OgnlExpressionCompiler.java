@@ -126,4 +126,30 @@ public interface OgnlExpressionCompiler<C extends OgnlContext<C>> {
      * itself.
      */
     String createLocalReference(C context, String expression, Class<?> type);
+
+    /**
+     * Like {@link #createLocalReference(OgnlContext, String, Class)}, but for a complete method body made of
+     * statements, such as the loops generated for projections and selections. The new method takes the same
+     * parameters as the accessor method being compiled.
+     *
+     * @param context The current execution context.
+     * @param body    The java source block, including its enclosing braces, to use as the method body.
+     * @param type    The return type that should be specified for the new method.
+     * @return The name of the new method.
+     */
+    default String createLocalMethod(C context, String body, Class<?> type) {
+        throw new UnsupportedCompilationException("Local methods are not supported by " + getClass().getName());
+    }
+
+    /**
+     * Gets a java source reference to the given node of the expression being compiled, so that the generated
+     * code can fall back to interpreting that node.
+     *
+     * @param context The current execution context.
+     * @param node    The node to reference, part of the expression being compiled.
+     * @return The java source string evaluating to the node.
+     */
+    default String getNodeReference(C context, Node<C> node) {
+        throw new UnsupportedCompilationException("Node references are not supported by " + getClass().getName());
+    }
 }
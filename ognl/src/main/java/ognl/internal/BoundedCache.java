@@ -0,0 +1,139 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ognl.internal;
+
+import ognl.internal.entry.CacheEntryFactory;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Concurrent {@link Cache} keeping at most a given number of entries, for keys which are not classes, e.g.
+ * expression strings. Once the bound is exceeded entries are evicted in the order they were added, except that an
+ * entry read since it was last passed over gets a second chance and is moved to the back of the line. Reads only
+ * mark their entry, so the eviction order approximates the least recently used one without any shared write on
+ * hits nor any scan of the entries. Evictions are reported through {@link #getStatistics()}.
+ * <p>
+ * Missing entries are created without holding any lock, like {@link HashMapCache} does, so a slow entry factory
+ * never blocks other threads; two threads creating the same entry at once may both run the factory, the first
+ * entry published is returned to both.
+ *
+ * @param <K> type of the keys
+ * @param <V> type of the cached values
+ */
+public class BoundedCache<K, V> implements Cache<K, V> {
+
+    private final Map<K, Entry<V>> cache = new ConcurrentHashMap<>();
+    // keys in eviction order, the head is evicted first unless its entry was read
+    private final Queue<K> evictionOrder = new ConcurrentLinkedQueue<>();
+    private final CacheEntryFactory<K, V> entryFactory;
+    private final int maxSize;
+    private final LongAdder evictionCount = new LongAdder();
+
+    /**
+     * @param entryFactory factory used to create missing entries, may be null
+     * @param maxSize      maximum number of entries to keep, 0 or less means unbounded
+     */
+    public BoundedCache(CacheEntryFactory<K, V> entryFactory, int maxSize) {
+        this.entryFactory = entryFactory;
+        this.maxSize = maxSize;
+    }
+
+    public void clear() {
+        cache.clear();
+        evictionOrder.clear();
+    }
+
+    public int getSize() {
+        return cache.size();
+    }
+
+    public V get(K key) throws CacheException {
+        Entry<V> entry = cache.get(key);
+        if (entry != null) {
+            if (!entry.referenced) {
+                entry.referenced = true;
+            }
+            return entry.value;
+        }
+        if (entryFactory == null) {
+            return null;
+        }
+        V value = entryFactory.create(key);
+        if (value == null) {
+            return null;
+        }
+        Entry<V> existing = cache.putIfAbsent(key, new Entry<>(value));
+        if (existing != null) {
+            return existing.value;
+        }
+        added(key);
+        return value;
+    }
+
+    public V put(K key, V value) {
+        if (cache.put(key, new Entry<>(value)) == null) {
+            added(key);
+        }
+        return value;
+    }
+
+    @Override
+    public CacheStatistics getStatistics() {
+        return new CacheStatistics(getSize(), evictionCount.sum(), 0);
+    }
+
+    private void added(K key) {
+        if (maxSize <= 0) {
+            return;
+        }
+        evictionOrder.offer(key);
+        // every entry gets at most one second chance per pass, which bounds the work of a single insert
+        int attempts = 2 * cache.size();
+        while (cache.size() > maxSize && attempts-- > 0) {
+            K candidate = evictionOrder.poll();
+            if (candidate == null) {
+                return;
+            }
+            Entry<V> entry = cache.get(candidate);
+            if (entry == null) {
+                continue;
+            }
+            if (entry.referenced) {
+                entry.referenced = false;
+                evictionOrder.offer(candidate);
+            } else if (cache.remove(candidate, entry)) {
+                evictionCount.increment();
+            }
+        }
+    }
+
+    private static final class Entry<V> {
+        final V value;
+        volatile boolean referenced;
+
+        Entry(V value) {
+            this.value = value;
+        }
+    }
+
+}
@@ -28,4 +28,11 @@ public interface Cache<K, V> {
 
     V put(K key, V value);
 
+    /**
+     * @return size and eviction statistics of this cache
+     */
+    default CacheStatistics getStatistics() {
+        return new CacheStatistics(getSize(), 0, 0);
+    }
+
 }
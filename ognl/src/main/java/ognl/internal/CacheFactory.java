@@ -21,10 +21,24 @@ package ognl.internal;
 import ognl.internal.entry.CacheEntryFactory;
 import ognl.internal.entry.ClassCacheEntryFactory;
 
+import java.util.function.Function;
+
 public interface CacheFactory {
 
     <K, V> Cache<K, V> createCache(CacheEntryFactory<K, V> entryFactory);
 
+    /**
+     * Creates a cache whose entries are tied to the life cycle of a class derived from each key, implementations
+     * may use it to drop entries automatically once that class is unloaded.
+     *
+     * @param ownerResolver returns the class owning the given key, e.g. the declaring class of a method
+     * @param entryFactory  factory used to create missing entries
+     * @return a new cache
+     */
+    default <K, V> Cache<K, V> createCache(Function<? super K, Class<?>> ownerResolver, CacheEntryFactory<K, V> entryFactory) {
+        return createCache(entryFactory);
+    }
+
     <V> ClassCache<V> createClassCache();
 
     <V> ClassCache<V> createClassCache(ClassCacheEntryFactory<V> entryFactory);
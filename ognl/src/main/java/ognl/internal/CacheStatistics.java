@@ -0,0 +1,74 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ognl.internal;
+
+/**
+ * Point-in-time statistics of an internal cache.
+ */
+public final class CacheStatistics {
+
+    public static final CacheStatistics EMPTY = new CacheStatistics(0, 0, 0);
+
+    private final long size;
+    private final long evictionCount;
+    private final long unloadCount;
+
+    public CacheStatistics(long size, long evictionCount, long unloadCount) {
+        this.size = size;
+        this.evictionCount = evictionCount;
+        this.unloadCount = unloadCount;
+    }
+
+    /**
+     * @return number of entries currently held by the cache
+     */
+    public long getSize() {
+        return size;
+    }
+
+    /**
+     * @return number of entries removed because the cache reached its size bound
+     */
+    public long getEvictionCount() {
+        return evictionCount;
+    }
+
+    /**
+     * @return number of entries dropped automatically because their class (or its class loader) was unloaded
+     */
+    public long getUnloadCount() {
+        return unloadCount;
+    }
+
+    /**
+     * Combines these statistics with the given ones, used to report on a group of caches.
+     *
+     * @param other statistics to add
+     * @return the sum of both statistics
+     */
+    public CacheStatistics plus(CacheStatistics other) {
+        return new CacheStatistics(size + other.size, evictionCount + other.evictionCount, unloadCount + other.unloadCount);
+    }
+
+    @Override
+    public String toString() {
+        return "CacheStatistics{size=" + size + ", evictionCount=" + evictionCount + ", unloadCount=" + unloadCount + "}";
+    }
+
+}
@@ -29,42 +29,38 @@ public class ClassCacheHandler {
             return answer;
         }
 
-        synchronized (handlers) {
-            answer = handlers.get(forClass);
-            if (answer == null) {
-                Class<?> keyFound;
+        // no lock: the search only reads the handlers and threads racing on the same class store the same answer
+        Class<?> keyFound;
 
-                if (forClass.isArray()) {
-                    answer = handlers.get(Object[].class);
-                    keyFound = null;
-                } else {
-                    keyFound = forClass;
-                    outer:
-                    for (Class<?> clazz = forClass; clazz != null; clazz = clazz.getSuperclass()) {
-                        answer = handlers.get(clazz);
-                        if (answer != null) {
-                            keyFound = clazz;
-                            break;
-                        }
-                        Class<?>[] interfaces = clazz.getInterfaces();
-                        for (Class<?> iface : interfaces) {
-                            answer = handlers.get(iface);
-                            if (answer == null) {
-                                /* Try super-interfaces */
-                                answer = getHandler(iface, handlers);
-                            }
-                            if (answer != null) {
-                                keyFound = iface;
-                                break outer;
-                            }
-                        }
-                    }
+        if (forClass.isArray()) {
+            answer = handlers.get(Object[].class);
+            keyFound = null;
+        } else {
+            keyFound = forClass;
+            outer:
+            for (Class<?> clazz = forClass; clazz != null; clazz = clazz.getSuperclass()) {
+                answer = handlers.get(clazz);
+                if (answer != null) {
+                    keyFound = clazz;
+                    break;
                 }
-                if (answer != null && keyFound != forClass) {
-                    handlers.put(forClass, answer);
+                Class<?>[] interfaces = clazz.getInterfaces();
+                for (Class<?> iface : interfaces) {
+                    answer = handlers.get(iface);
+                    if (answer == null) {
+                        /* Try super-interfaces */
+                        answer = getHandler(iface, handlers);
+                    }
+                    if (answer != null) {
+                        keyFound = iface;
+                        break outer;
+                    }
                 }
             }
         }
+        if (answer != null && keyFound != forClass) {
+            handlers.put(forClass, answer);
+        }
         return answer;
     }
 
@@ -0,0 +1,96 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ognl.internal;
+
+import ognl.internal.entry.CacheEntryFactory;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * {@link Cache} whose entries are grouped by an owning class derived from each key (e.g. the declaring class of a
+ * {@link java.lang.reflect.Method}). The groups live in a {@link ClassLoaderAwareClassCache}, so entries are
+ * evicted automatically once the owning class is unloaded. Keys without an owning class are not cached.
+ *
+ * @param <K> type of the keys
+ * @param <V> type of the cached values
+ */
+public class ClassLoaderAwareCache<K, V> implements Cache<K, V> {
+
+    private final Function<? super K, Class<?>> ownerResolver;
+    private final CacheEntryFactory<K, V> entryFactory;
+    private final ClassLoaderAwareClassCache<Map<K, V>> groups;
+    private final LongAdder size = new LongAdder();
+
+    public ClassLoaderAwareCache(Function<? super K, Class<?>> ownerResolver, CacheEntryFactory<K, V> entryFactory) {
+        this(ownerResolver, entryFactory, 0);
+    }
+
+    /**
+     * @param ownerResolver returns the class owning the given key
+     * @param entryFactory  factory used to create missing entries, may be null
+     * @param maxClasses    maximum number of owning classes to keep entries for, 0 or less means unbounded
+     */
+    public ClassLoaderAwareCache(Function<? super K, Class<?>> ownerResolver, CacheEntryFactory<K, V> entryFactory, int maxClasses) {
+        this.ownerResolver = ownerResolver;
+        this.entryFactory = entryFactory;
+        this.groups = new ClassLoaderAwareClassCache<>(owner -> new ConcurrentHashMap<>(), maxClasses);
+    }
+
+    public void clear() {
+        groups.clear();
+    }
+
+    public int getSize() {
+        size.reset();
+        groups.forEachValue(group -> size.add(group.size()));
+        return size.intValue();
+    }
+
+    public V get(K key) throws CacheException {
+        Map<K, V> group = groups.get(ownerResolver.apply(key));
+        V value = group != null ? group.get(key) : null;
+        if (value != null || entryFactory == null) {
+            return value;
+        }
+        value = entryFactory.create(key);
+        if (value == null || group == null) {
+            return value;
+        }
+        V previous = group.putIfAbsent(key, value);
+        return previous != null ? previous : value;
+    }
+
+    public V put(K key, V value) {
+        Map<K, V> group = groups.get(ownerResolver.apply(key));
+        if (group != null) {
+            group.put(key, value);
+        }
+        return value;
+    }
+
+    @Override
+    public CacheStatistics getStatistics() {
+        CacheStatistics classes = groups.getStatistics();
+        return new CacheStatistics(getSize(), classes.getEvictionCount(), classes.getUnloadCount());
+    }
+
+}
@@ -0,0 +1,61 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ognl.internal;
+
+import ognl.internal.entry.CacheEntryFactory;
+import ognl.internal.entry.ClassCacheEntryFactory;
+
+import java.util.function.Function;
+
+/**
+ * Creates caches which do not keep class loaders of the cached classes alive, see {@link ClassLoaderAwareClassCache}.
+ */
+public class ClassLoaderAwareCacheFactory implements CacheFactory {
+
+    private final int maxClasses;
+
+    public ClassLoaderAwareCacheFactory() {
+        this(0);
+    }
+
+    /**
+     * @param maxClasses maximum number of classes each created cache keeps entries for, 0 or less means unbounded
+     */
+    public ClassLoaderAwareCacheFactory(int maxClasses) {
+        this.maxClasses = maxClasses;
+    }
+
+    public <K, V> Cache<K, V> createCache(CacheEntryFactory<K, V> entryFactory) {
+        return new HashMapCache<>(entryFactory);
+    }
+
+    @Override
+    public <K, V> Cache<K, V> createCache(Function<? super K, Class<?>> ownerResolver, CacheEntryFactory<K, V> entryFactory) {
+        return new ClassLoaderAwareCache<>(ownerResolver, entryFactory, maxClasses);
+    }
+
+    public <V> ClassCache<V> createClassCache() {
+        return createClassCache(null);
+    }
+
+    public <V> ClassCache<V> createClassCache(ClassCacheEntryFactory<V> entryFactory) {
+        return new ClassLoaderAwareClassCache<>(entryFactory, maxClasses);
+    }
+
+}
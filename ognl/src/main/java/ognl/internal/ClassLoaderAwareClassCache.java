@@ -0,0 +1,280 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ognl.internal;
+
+import ognl.ClassCacheInspector;
+import ognl.internal.entry.CacheEntryFactory;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * {@link ClassCache} which never keeps a class loader alive.
+ * <p>
+ * Entries of classes whose class loader is OGNL's own loader (or one of its parents) share OGNL's life cycle
+ * and are kept in a regular concurrent map. Entries of any other class, e.g. classes of a web application
+ * deployed on top of a shared OGNL library, are attached to the class itself through a {@link ClassValue},
+ * so they become unreachable together with their class loader and are evicted without calling
+ * {@link #clear()}. Which of the two a class belongs to is decided once per class. The null key is never cached.
+ * <p>
+ * An optional size bound evicts arbitrary entries once exceeded; evictions and automatic unloads are
+ * reported through {@link #getStatistics()}.
+ *
+ * @param <T> type of the cached values
+ */
+public class ClassLoaderAwareClassCache<T> implements ClassCache<T> {
+
+    private static final ClassLoader OGNL_CLASS_LOADER = ClassLoaderAwareClassCache.class.getClassLoader();
+
+    /**
+     * Whether each class is pinned, decided on first lookup rather than walking the class loaders each time.
+     */
+    private static final ClassValue<Boolean> PINNED = new ClassValue<>() {
+        @Override
+        protected Boolean computeValue(Class<?> type) {
+            return isPinned(type);
+        }
+    };
+
+    private final CacheEntryFactory<Class<?>, T> entryFactory;
+    private final int maxSize;
+
+    private final Map<Class<?>, T> pinned = new ConcurrentHashMap<>();
+    private final ReferenceQueue<Slot<T>> unloaded = new ReferenceQueue<>();
+    private final Set<SlotReference<T>> transientReferences = ConcurrentHashMap.newKeySet();
+    private volatile ClassValue<Slot<T>> transientSlots = newSlots();
+
+    private final LongAdder evictionCount = new LongAdder();
+    private final LongAdder unloadCount = new LongAdder();
+
+    private volatile ClassCacheInspector inspector;
+
+    public ClassLoaderAwareClassCache(CacheEntryFactory<Class<?>, T> entryFactory) {
+        this(entryFactory, 0);
+    }
+
+    /**
+     * @param entryFactory factory used to create missing entries, may be null
+     * @param maxSize      maximum number of entries to keep, 0 or less means unbounded
+     */
+    public ClassLoaderAwareClassCache(CacheEntryFactory<Class<?>, T> entryFactory, int maxSize) {
+        this.entryFactory = entryFactory;
+        this.maxSize = maxSize;
+    }
+
+    public void setClassInspector(ClassCacheInspector inspector) {
+        this.inspector = inspector;
+    }
+
+    public void clear() {
+        pinned.clear();
+        transientSlots = newSlots();
+        transientReferences.clear();
+    }
+
+    public int getSize() {
+        expungeUnloaded();
+        return pinned.size() + transientReferences.size();
+    }
+
+    public T get(Class<?> key) throws CacheException {
+        if (key == null) {
+            return null;
+        }
+        T value;
+        Slot<T> slot = null;
+        if (PINNED.get(key)) {
+            value = pinned.get(key);
+        } else {
+            slot = transientSlots.get(key);
+            value = slot.get();
+        }
+        if (value != null || entryFactory == null) {
+            return value;
+        }
+
+        value = entryFactory.create(key);
+        if (!shouldCache(key)) {
+            return value;
+        }
+        return slot == null ? putPinned(key, value, true) : putTransient(slot, value, true);
+    }
+
+    public T put(Class<?> key, T value) {
+        if (key == null || !shouldCache(key)) {
+            return value;
+        }
+        return PINNED.get(key) ? putPinned(key, value, false) : putTransient(transientSlots.get(key), value, false);
+    }
+
+    @Override
+    public CacheStatistics getStatistics() {
+        return new CacheStatistics(getSize(), evictionCount.sum(), unloadCount.sum());
+    }
+
+    /**
+     * Visits all values currently held by this cache.
+     *
+     * @param action the action to apply to each value
+     */
+    void forEachValue(Consumer<? super T> action) {
+        pinned.values().forEach(action);
+        for (SlotReference<T> reference : transientReferences) {
+            Slot<T> slot = reference.get();
+            T value = slot != null ? slot.get() : null;
+            if (value != null) {
+                action.accept(value);
+            }
+        }
+    }
+
+    private T putPinned(Class<?> key, T value, boolean keepExisting) {
+        T previous = keepExisting ? pinned.putIfAbsent(key, value) : pinned.put(key, value);
+        if (keepExisting && previous != null) {
+            return previous;
+        }
+        if (previous == null) {
+            enforceMaxSize(key);
+        }
+        return value;
+    }
+
+    private T putTransient(Slot<T> slot, T value, boolean keepExisting) {
+        if (keepExisting) {
+            if (!slot.compareAndSet(null, value)) {
+                return slot.get();
+            }
+        } else {
+            slot.set(value);
+        }
+        if (transientReferences.add(slot.reference)) {
+            expungeUnloaded();
+            enforceMaxSize(null);
+        }
+        return value;
+    }
+
+    private void enforceMaxSize(Class<?> justAdded) {
+        if (maxSize <= 0) {
+            return;
+        }
+        while (pinned.size() + transientReferences.size() > maxSize) {
+            if (!evictPinned(justAdded) && !evictTransient()) {
+                return;
+            }
+            evictionCount.increment();
+        }
+    }
+
+    private boolean evictPinned(Class<?> justAdded) {
+        for (Iterator<Class<?>> it = pinned.keySet().iterator(); it.hasNext(); ) {
+            if (it.next() != justAdded) {
+                it.remove();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean evictTransient() {
+        Iterator<SlotReference<T>> it = transientReferences.iterator();
+        if (!it.hasNext()) {
+            return false;
+        }
+        SlotReference<T> reference = it.next();
+        it.remove();
+        Slot<T> slot = reference.get();
+        if (slot != null) {
+            slot.set(null);
+        }
+        return true;
+    }
+
+    private void expungeUnloaded() {
+        Reference<? extends Slot<T>> reference;
+        while ((reference = unloaded.poll()) != null) {
+            if (transientReferences.remove(reference)) {
+                unloadCount.increment();
+            }
+        }
+    }
+
+    private boolean shouldCache(Class<?> key) {
+        ClassCacheInspector current = inspector;
+        return current == null || current.shouldCache(key);
+    }
+
+    /**
+     * Tells whether the class is loaded by OGNL's class loader or one of its parents, so caching it strongly
+     * cannot keep any other class loader alive.
+     */
+    static boolean isPinned(Class<?> type) {
+        if (type == null) {
+            return true;
+        }
+        ClassLoader loader = type.getClassLoader();
+        if (loader == null) {
+            return true;
+        }
+        for (ClassLoader candidate = OGNL_CLASS_LOADER; candidate != null; candidate = candidate.getParent()) {
+            if (candidate == loader) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private ClassValue<Slot<T>> newSlots() {
+        ReferenceQueue<Slot<T>> queue = unloaded;
+        return new ClassValue<>() {
+            @Override
+            protected Slot<T> computeValue(Class<?> type) {
+                return new Slot<>(queue);
+            }
+        };
+    }
+
+    /**
+     * Holder attached to a class through the {@link ClassValue}; its weak reference is registered in
+     * {@link #transientReferences} once a value is stored, and enqueued when the class is unloaded.
+     */
+    private static final class Slot<T> extends AtomicReference<T> {
+
+        final SlotReference<T> reference;
+
+        Slot(ReferenceQueue<Slot<T>> queue) {
+            this.reference = new SlotReference<>(this, queue);
+        }
+    }
+
+    private static final class SlotReference<T> extends WeakReference<Slot<T>> {
+        SlotReference(Slot<T> slot, ReferenceQueue<? super Slot<T>> queue) {
+            super(slot, queue);
+        }
+    }
+
+}
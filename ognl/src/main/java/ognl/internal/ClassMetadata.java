@@ -0,0 +1,342 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ognl.internal;
+
+import ognl.internal.entry.DeclaredMethodCacheEntry;
+import ognl.internal.entry.DeclaredMethodCacheEntryFactory;
+import ognl.internal.entry.FieldCacheEntryFactory;
+import ognl.internal.entry.PropertyDescriptorCacheEntryFactory;
+
+import java.beans.IntrospectionException;
+import java.beans.Introspector;
+import java.beans.MethodDescriptor;
+import java.beans.PropertyDescriptor;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable reflection metadata of a single class: fields, constructors, methods, property descriptors
+ * and parameter types, all kept in {@link CompactMap} tables keyed by interned names.
+ * <p>
+ * Every section is computed lazily on first use and published with a compare-and-set, so concurrent
+ * readers always observe the same fully built, immutable section without taking any lock.
+ */
+public final class ClassMetadata {
+
+    private static final DeclaredMethodCacheEntryFactory METHOD_FACTORY = new DeclaredMethodCacheEntryFactory();
+    private static final FieldCacheEntryFactory FIELD_FACTORY = new FieldCacheEntryFactory();
+    private static final PropertyDescriptorCacheEntryFactory PROPERTY_DESCRIPTOR_FACTORY = new PropertyDescriptorCacheEntryFactory();
+
+    private static final VarHandle FIELDS;
+    private static final VarHandle CONSTRUCTORS;
+    private static final VarHandle METHODS;
+    private static final VarHandle STATIC_METHODS;
+    private static final VarHandle INSTANCE_METHODS;
+    private static final VarHandle METHOD_PARAMETER_TYPES;
+    private static final VarHandle PROPERTY_DESCRIPTORS;
+    private static final VarHandle PUBLIC_METHODS;
+    private static final VarHandle BEAN_METHODS;
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            FIELDS = lookup.findVarHandle(ClassMetadata.class, "fields", CompactMap.class);
+            CONSTRUCTORS = lookup.findVarHandle(ClassMetadata.class, "constructors", Constructors.class);
+            METHODS = lookup.findVarHandle(ClassMetadata.class, "methods", CompactMap.class);
+            STATIC_METHODS = lookup.findVarHandle(ClassMetadata.class, "staticMethods", CompactMap.class);
+            INSTANCE_METHODS = lookup.findVarHandle(ClassMetadata.class, "instanceMethods", CompactMap.class);
+            METHOD_PARAMETER_TYPES = lookup.findVarHandle(ClassMetadata.class, "methodParameterTypes", CompactMap.class);
+            PROPERTY_DESCRIPTORS = lookup.findVarHandle(ClassMetadata.class, "propertyDescriptors", CompactMap.class);
+            PUBLIC_METHODS = lookup.findVarHandle(ClassMetadata.class, "publicMethods", MethodIndex.class);
+            BEAN_METHODS = lookup.findVarHandle(ClassMetadata.class, "beanMethods", MethodIndex.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final Class<?> type;
+
+    private volatile CompactMap<String, Field> fields;
+    private volatile Constructors constructors;
+    private volatile CompactMap<String, List<Method>> methods;
+    private volatile CompactMap<String, List<Method>> staticMethods;
+    private volatile CompactMap<String, List<Method>> instanceMethods;
+    private volatile CompactMap<Method, Class<?>[]> methodParameterTypes;
+    private volatile CompactMap<String, PropertyDescriptor> propertyDescriptors;
+    private volatile MethodIndex publicMethods;
+    private volatile MethodIndex beanMethods;
+
+    public ClassMetadata(Class<?> type) {
+        this.type = type;
+    }
+
+    public Class<?> getType() {
+        return type;
+    }
+
+    /**
+     * @return fields declared directly by this class, keyed by name
+     */
+    public Map<String, Field> getFields() {
+        CompactMap<String, Field> result = fields;
+        if (result == null) {
+            result = publish(FIELDS, CompactMap.copyOfInterned(FIELD_FACTORY.create(type)));
+        }
+        return result;
+    }
+
+    /**
+     * @return public constructors of this class
+     */
+    public List<Constructor<?>> getConstructors() {
+        return constructors().list;
+    }
+
+    /**
+     * @param constructor one of the constructors of this class
+     * @return the parameter types of the given constructor
+     */
+    public Class<?>[] getParameterTypes(Constructor<?> constructor) {
+        Constructors section = constructors();
+        for (int i = 0; i < section.parameterTypes.length; i++) {
+            if (section.list.get(i).equals(constructor)) {
+                return section.parameterTypes[i];
+            }
+        }
+        return constructor.getParameterTypes();
+    }
+
+    /**
+     * @param method a method declared by this class
+     * @return the parameter types of the given method
+     */
+    public Class<?>[] getParameterTypes(Method method) {
+        CompactMap<Method, Class<?>[]> result = methodParameterTypes;
+        if (result == null) {
+            Method[] declared;
+            try {
+                declared = type.getDeclaredMethods();
+            } catch (SecurityException ignored) {
+                declared = type.getMethods();
+            }
+            Map<Method, Class<?>[]> parameterTypes = new HashMap<>(declared.length);
+            for (Method each : declared) {
+                parameterTypes.put(each, each.getParameterTypes());
+            }
+            result = publish(METHOD_PARAMETER_TYPES, CompactMap.copyOf(parameterTypes));
+        }
+        Class<?>[] types = result.get(method);
+        return types != null ? types : method.getParameterTypes();
+    }
+
+    /**
+     * Returns the callable methods of this class and all its superclasses and interfaces, grouped by name.
+     *
+     * @param methodType restricts the result to static or instance methods, null returns all of them
+     * @return immutable map of method name to methods
+     */
+    public Map<String, List<Method>> getMethods(DeclaredMethodCacheEntry.MethodType methodType) {
+        if (methodType == null) {
+            return allMethods();
+        }
+        boolean wantStatic = methodType == DeclaredMethodCacheEntry.MethodType.STATIC;
+        CompactMap<String, List<Method>> result = wantStatic ? staticMethods : instanceMethods;
+        if (result == null) {
+            result = publish(wantStatic ? STATIC_METHODS : INSTANCE_METHODS, filterMethods(allMethods(), wantStatic));
+        }
+        return result;
+    }
+
+    /**
+     * @return JavaBeans and OGNL indexed property descriptors of this class, keyed by property name
+     */
+    public Map<String, PropertyDescriptor> getPropertyDescriptors() {
+        CompactMap<String, PropertyDescriptor> result = propertyDescriptors;
+        if (result == null) {
+            result = publish(PROPERTY_DESCRIPTORS, CompactMap.copyOfInterned(PROPERTY_DESCRIPTOR_FACTORY.create(type)));
+        }
+        return result;
+    }
+
+    /**
+     * Returns the public methods of this class, as listed by {@link Class#getMethods()}, whose lower case name
+     * is one of the given names.
+     *
+     * @param lowerCaseNames method names, already lower case
+     * @return immutable list of the matching methods, in the order of {@link Class#getMethods()}
+     */
+    public List<Method> getPublicMethods(String... lowerCaseNames) {
+        MethodIndex result = publicMethods;
+        if (result == null) {
+            result = publish(PUBLIC_METHODS, new MethodIndex(type.getMethods()));
+        }
+        return result.find(lowerCaseNames);
+    }
+
+    /**
+     * Returns the methods of the JavaBeans method descriptors of this class whose lower case name is one of
+     * the given names.
+     *
+     * @param lowerCaseNames method names, already lower case
+     * @return immutable list of the matching methods, in the order of {@link java.beans.BeanInfo#getMethodDescriptors()}
+     * @throws CacheException if the class cannot be introspected
+     */
+    public List<Method> getBeanMethods(String... lowerCaseNames) throws CacheException {
+        MethodIndex result = beanMethods;
+        if (result == null) {
+            MethodDescriptor[] descriptors;
+            try {
+                descriptors = Introspector.getBeanInfo(type).getMethodDescriptors();
+            } catch (IntrospectionException e) {
+                throw new CacheException(e);
+            }
+            Method[] methods = new Method[descriptors.length];
+            for (int i = 0; i < descriptors.length; i++) {
+                methods[i] = descriptors[i].getMethod();
+            }
+            result = publish(BEAN_METHODS, new MethodIndex(methods));
+        }
+        return result.find(lowerCaseNames);
+    }
+
+    private Constructors constructors() {
+        Constructors result = constructors;
+        if (result == null) {
+            result = publish(CONSTRUCTORS, new Constructors(type.getConstructors()));
+        }
+        return result;
+    }
+
+    private CompactMap<String, List<Method>> allMethods() {
+        CompactMap<String, List<Method>> result = methods;
+        if (result == null) {
+            Map<String, List<Method>> collected = METHOD_FACTORY.create(new DeclaredMethodCacheEntry(type));
+            Map<String, List<Method>> immutable = new HashMap<>(collected.size());
+            for (Map.Entry<String, List<Method>> entry : collected.entrySet()) {
+                immutable.put(entry.getKey(), List.copyOf(entry.getValue()));
+            }
+            result = publish(METHODS, CompactMap.copyOfInterned(immutable));
+        }
+        return result;
+    }
+
+    private static CompactMap<String, List<Method>> filterMethods(Map<String, List<Method>> all, boolean wantStatic) {
+        Map<String, List<Method>> filtered = new HashMap<>(all.size());
+        for (Map.Entry<String, List<Method>> entry : all.entrySet()) {
+            List<Method> candidates = entry.getValue();
+            List<Method> matching = new ArrayList<>(candidates.size());
+            for (Method method : candidates) {
+                if (Modifier.isStatic(method.getModifiers()) == wantStatic) {
+                    matching.add(method);
+                }
+            }
+            if (matching.size() == candidates.size()) {
+                // share the list with the unfiltered section
+                filtered.put(entry.getKey(), candidates);
+            } else if (!matching.isEmpty()) {
+                filtered.put(entry.getKey(), List.copyOf(matching));
+            }
+        }
+        return CompactMap.copyOf(filtered);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T publish(VarHandle section, T computed) {
+        Object witness = section.compareAndExchange(this, null, computed);
+        return witness == null ? computed : (T) witness;
+    }
+
+    /**
+     * Methods in their original order, with the positions of each lower case name, so lookups by several
+     * names keep that order without scanning all the methods.
+     */
+    private static final class MethodIndex {
+
+        final Method[] methods;
+        final CompactMap<String, int[]> positions;
+
+        MethodIndex(Method[] methods) {
+            this.methods = methods;
+            Map<String, int[]> collected = new HashMap<>(methods.length);
+            for (int i = 0; i < methods.length; i++) {
+                String name = methods[i].getName().toLowerCase();
+                int[] previous = collected.get(name);
+                int[] current;
+                if (previous == null) {
+                    current = new int[]{i};
+                } else {
+                    current = Arrays.copyOf(previous, previous.length + 1);
+                    current[previous.length] = i;
+                }
+                collected.put(name, current);
+            }
+            this.positions = CompactMap.copyOf(collected);
+        }
+
+        List<Method> find(String... lowerCaseNames) {
+            int[] found = null;
+            for (String name : lowerCaseNames) {
+                int[] matching = positions.get(name);
+                if (matching == null) {
+                    continue;
+                }
+                if (found == null) {
+                    found = matching;
+                } else if (found != matching) {
+                    int[] merged = Arrays.copyOf(found, found.length + matching.length);
+                    System.arraycopy(matching, 0, merged, found.length, matching.length);
+                    Arrays.sort(merged);
+                    found = merged;
+                }
+            }
+            if (found == null) {
+                return List.of();
+            }
+            Method[] result = new Method[found.length];
+            for (int i = 0; i < found.length; i++) {
+                result[i] = methods[found[i]];
+            }
+            return List.of(result);
+        }
+    }
+
+    private static final class Constructors {
+
+        final List<Constructor<?>> list;
+        final Class<?>[][] parameterTypes;
+
+        Constructors(Constructor<?>[] constructors) {
+            this.list = List.of(constructors);
+            this.parameterTypes = new Class<?>[constructors.length][];
+            for (int i = 0; i < constructors.length; i++) {
+                parameterTypes[i] = constructors[i].getParameterTypes();
+            }
+        }
+    }
+
+}
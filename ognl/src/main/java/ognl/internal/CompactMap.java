@@ -0,0 +1,197 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ognl.internal;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Immutable, open-addressed map used to keep per-class reflection metadata compact.
+ * <p>
+ * Keys and values are stored interleaved in a single array and probed linearly, so there is no
+ * per-entry object overhead compared to {@link java.util.HashMap}. Null keys are not supported and
+ * all mutating operations throw {@link UnsupportedOperationException}.
+ *
+ * @param <K> the type of keys
+ * @param <V> the type of values
+ */
+public final class CompactMap<K, V> extends AbstractMap<K, V> {
+
+    private static final CompactMap<?, ?> EMPTY = new CompactMap<>(new Object[2], 0);
+
+    private final Object[] table;
+    private final int size;
+
+    private CompactMap(Object[] table, int size) {
+        this.table = table;
+        this.size = size;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <K, V> CompactMap<K, V> empty() {
+        return (CompactMap<K, V>) EMPTY;
+    }
+
+    /**
+     * Creates an immutable copy of the given map.
+     *
+     * @param source map to copy, must not contain null keys
+     * @return compact copy of the source map
+     */
+    public static <K, V> CompactMap<K, V> copyOf(Map<? extends K, ? extends V> source) {
+        return copyOf(source, false);
+    }
+
+    /**
+     * Creates an immutable copy of the given map, interning all the {@link String} keys so lookups
+     * with names coming from reflection (which are interned by the JVM) succeed on identity.
+     *
+     * @param source map to copy, must not contain null keys
+     * @return compact copy of the source map
+     */
+    public static <V> CompactMap<String, V> copyOfInterned(Map<String, ? extends V> source) {
+        return copyOf(source, true);
+    }
+
+    private static <K, V> CompactMap<K, V> copyOf(Map<? extends K, ? extends V> source, boolean intern) {
+        if (source instanceof CompactMap && !intern) {
+            @SuppressWarnings("unchecked")
+            CompactMap<K, V> compact = (CompactMap<K, V>) source;
+            return compact;
+        }
+        int size = source.size();
+        if (size == 0) {
+            return empty();
+        }
+        int capacity = 2;
+        while (capacity * 2 < size * 3) {
+            capacity <<= 1;
+        }
+        Object[] table = new Object[capacity * 2];
+        int mask = capacity - 1;
+        for (Map.Entry<? extends K, ? extends V> entry : source.entrySet()) {
+            Object key = entry.getKey();
+            if (key == null) {
+                throw new IllegalArgumentException("Null keys are not supported");
+            }
+            if (intern) {
+                key = ((String) key).intern();
+            }
+            int index = spread(key.hashCode()) & mask;
+            while (table[index * 2] != null) {
+                index = (index + 1) & mask;
+            }
+            table[index * 2] = key;
+            table[index * 2 + 1] = entry.getValue();
+        }
+        return new CompactMap<>(table, size);
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    private int indexOf(Object key) {
+        if (key == null || size == 0) {
+            return -1;
+        }
+        int mask = (table.length >> 1) - 1;
+        int index = spread(key.hashCode()) & mask;
+        Object candidate;
+        while ((candidate = table[index * 2]) != null) {
+            if (candidate == key || candidate.equals(key)) {
+                return index;
+            }
+            index = (index + 1) & mask;
+        }
+        return -1;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V get(Object key) {
+        int index = indexOf(key);
+        return index < 0 ? null : (V) table[index * 2 + 1];
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return indexOf(key) >= 0;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Entry<K, V>> iterator() {
+                return new EntryIterator();
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    private final class EntryIterator implements Iterator<Entry<K, V>> {
+
+        private int next = advance(0);
+
+        private int advance(int from) {
+            for (int i = from; i < table.length; i += 2) {
+                if (table[i] != null) {
+                    return i;
+                }
+            }
+            return table.length;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next < table.length;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Entry<K, V> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Entry<K, V> entry = new SimpleImmutableEntry<>((K) table[next], (V) table[next + 1]);
+            next = advance(next + 2);
+            return entry;
+        }
+    }
+
+}
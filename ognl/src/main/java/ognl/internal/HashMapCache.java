@@ -20,12 +20,17 @@ package ognl.internal;
 
 import ognl.internal.entry.CacheEntryFactory;
 
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Unbounded {@link Cache} backed by a {@link ConcurrentHashMap}. Missing entries are created without holding any
+ * lock, so a slow entry factory never blocks other threads; two threads creating the same entry at once may both
+ * run the factory.
+ */
 public class HashMapCache<K, V> implements Cache<K, V> {
 
-    private final Map<K, V> cache = new HashMap<>(512);
+    private final Map<K, V> cache = new ConcurrentHashMap<>(512);
 
     private final CacheEntryFactory<K, V> cacheEntryFactory;
 
@@ -34,27 +39,19 @@ public class HashMapCache<K, V> implements Cache<K, V> {
     }
 
     public void clear() {
-        synchronized (cache) {
-            cache.clear();
-        }
+        cache.clear();
     }
 
     public int getSize() {
-        synchronized (cache) {
-            return cache.size();
-        }
+        return cache.size();
     }
 
     public V get(K key) throws CacheException {
         V v = cache.get(key);
         if (shouldCreate(cacheEntryFactory, v)) {
-            synchronized (cache) {
-                v = cache.get(key);
-                if (v != null) {
-                    return v;
-                }
-                return put(key, cacheEntryFactory.create(key));
-            }
+            v = cacheEntryFactory.create(key);
+            V previous = cache.get(key);
+            return previous != null ? previous : put(key, v);
         }
         return v;
     }
@@ -64,10 +61,12 @@ public class HashMapCache<K, V> implements Cache<K, V> {
     }
 
     public V put(K key, V value) {
-        synchronized (cache) {
+        if (value == null) {
+            cache.remove(key);
+        } else {
             cache.put(key, value);
-            return value;
         }
+        return value;
     }
 
 
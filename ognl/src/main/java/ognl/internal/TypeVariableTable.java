@@ -0,0 +1,206 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ognl.internal;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.GenericArrayType;
+import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.TypeVariable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Immutable table of the type variables bound by a class, e.g. {@code T} bound to {@code String} for a class
+ * extending {@code Base<String>}, covering all its superclasses and interfaces.
+ * <p>
+ * Tables are computed once per class and attached to it through a {@link ClassValue}, so they are shared by all
+ * threads and never keep a class loader alive.
+ */
+public final class TypeVariableTable {
+
+    private static final ClassValue<TypeVariableTable> TABLES = new ClassValue<>() {
+        @Override
+        protected TypeVariableTable computeValue(Class<?> type) {
+            return new TypeVariableTable(type);
+        }
+    };
+
+    private final Map<TypeVariable<?>, Class<?>> bindings;
+    private final List<Class<?>> supertypes;
+
+    private TypeVariableTable(Class<?> type) {
+        Map<TypeVariable<?>, Class<?>> collected = new HashMap<>();
+        bind(type, collected);
+        this.bindings = CompactMap.copyOf(collected);
+
+        Set<Class<?>> ordered = new LinkedHashSet<>();
+        collectSupertypes(type, ordered);
+        this.supertypes = List.copyOf(ordered);
+    }
+
+    /**
+     * @param type the class to describe
+     * @return the table of the class, computed on first use
+     */
+    public static TypeVariableTable of(Class<?> type) {
+        return TABLES.get(type);
+    }
+
+    /**
+     * @return true if the class binds at least one type variable of its superclasses or interfaces
+     */
+    public boolean hasBindings() {
+        return !bindings.isEmpty();
+    }
+
+    /**
+     * @param variable a type variable of one of the superclasses or interfaces
+     * @return the class bound to the variable, or null if the class does not bind it
+     */
+    public Class<?> resolve(TypeVariable<?> variable) {
+        return bindings.get(variable);
+    }
+
+    /**
+     * Resolves a generic type against the bindings of the class.
+     *
+     * @param type a type used by one of the superclasses or interfaces
+     * @return the resolved class, or null if the type depends on a variable the class does not bind
+     */
+    public Class<?> resolve(Type type) {
+        if (type instanceof Class) {
+            return (Class<?>) type;
+        }
+        if (type instanceof ParameterizedType) {
+            return (Class<?>) ((ParameterizedType) type).getRawType();
+        }
+        if (type instanceof TypeVariable) {
+            return bindings.get(type);
+        }
+        if (type instanceof GenericArrayType) {
+            Class<?> component = resolve(((GenericArrayType) type).getGenericComponentType());
+            return component == null ? null : Array.newInstance(component, 0).getClass();
+        }
+        return null;
+    }
+
+    /**
+     * Resolves the parameter types of a method inherited by the class, keeping the erased type of the parameters
+     * which cannot be resolved.
+     *
+     * @param method a method of the class, its superclasses or interfaces
+     * @return new array of the resolved parameter types
+     */
+    public Class<?>[] resolveParameterTypes(Method method) {
+        Class<?>[] types = method.getParameterTypes();
+        if (bindings.isEmpty()) {
+            return types;
+        }
+        Type[] genericTypes = method.getGenericParameterTypes();
+        if (genericTypes.length != types.length) {
+            return types; // inner class constructors and synthetic parameters, see Method#getGenericParameterTypes
+        }
+        for (int i = 0; i < genericTypes.length; i++) {
+            Class<?> resolved = resolve(genericTypes[i]);
+            if (resolved != null) {
+                types[i] = resolved;
+            }
+        }
+        return types;
+    }
+
+    /**
+     * Returns the class, its superclasses and interfaces in the order used to find the public type declaring a
+     * method: the interfaces first, each after its own super interfaces, then the superclass the same way and the
+     * class itself last.
+     *
+     * @return immutable list of the class and all its supertypes
+     */
+    public List<Class<?>> getSupertypes() {
+        return supertypes;
+    }
+
+    private static void bind(Class<?> type, Map<TypeVariable<?>, Class<?>> bindings) {
+        List<Type> parents = new ArrayList<>();
+        Type superclass = type.getGenericSuperclass();
+        if (superclass != null) {
+            parents.add(superclass);
+        }
+        Collections.addAll(parents, type.getGenericInterfaces());
+
+        for (Type parent : parents) {
+            Class<?> raw;
+            if (parent instanceof ParameterizedType) {
+                ParameterizedType parameterized = (ParameterizedType) parent;
+                raw = (Class<?>) parameterized.getRawType();
+                TypeVariable<?>[] variables = raw.getTypeParameters();
+                Type[] arguments = parameterized.getActualTypeArguments();
+                for (int i = 0; i < variables.length && i < arguments.length; i++) {
+                    Class<?> bound = resolveArgument(arguments[i], bindings);
+                    if (bound != null) {
+                        bindings.putIfAbsent(variables[i], bound);
+                    }
+                }
+            } else if (parent instanceof Class) {
+                raw = (Class<?>) parent;
+            } else {
+                continue;
+            }
+            bind(raw, bindings);
+        }
+    }
+
+    private static Class<?> resolveArgument(Type argument, Map<TypeVariable<?>, Class<?>> bindings) {
+        if (argument instanceof Class) {
+            return (Class<?>) argument;
+        }
+        if (argument instanceof ParameterizedType) {
+            return (Class<?>) ((ParameterizedType) argument).getRawType();
+        }
+        if (argument instanceof TypeVariable) {
+            // a variable of the subclass, bound before its superclasses are visited
+            return bindings.get(argument);
+        }
+        if (argument instanceof GenericArrayType) {
+            Class<?> component = resolveArgument(((GenericArrayType) argument).getGenericComponentType(), bindings);
+            return component == null ? null : Array.newInstance(component, 0).getClass();
+        }
+        return null;
+    }
+
+    private static void collectSupertypes(Class<?> type, Set<Class<?>> ordered) {
+        if (ordered.contains(type)) {
+            return; // reached through another interface, listed with all its supertypes already
+        }
+        for (Class<?> anInterface : type.getInterfaces()) {
+            collectSupertypes(anInterface, ordered);
+        }
+        if (type.getSuperclass() != null) {
+            collectSupertypes(type.getSuperclass(), ordered);
+        }
+        ordered.add(type);
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ognl.internal.entry;
+
+import java.util.Arrays;
+
+/**
+ * Key of a read or write method lookup: the target class, the property name as normalized by the lookup and
+ * the argument classes the method must accept.
+ */
+public class AccessorMethodCacheEntry implements CacheEntry {
+
+    final Class<?> targetClass;
+    final String name;
+    final Class<?>[] argClasses;
+    final boolean write;
+    private final int hashCode;
+
+    /**
+     * @param targetClass class declaring the method
+     * @param name        normalized property name
+     * @param argClasses  argument classes, may be null, the array is copied
+     * @param write       true for a write method, false for a read method
+     */
+    public AccessorMethodCacheEntry(Class<?> targetClass, String name, Class<?>[] argClasses, boolean write) {
+        this.targetClass = targetClass;
+        this.name = name;
+        this.argClasses = argClasses == null ? null : argClasses.clone();
+        this.write = write;
+        int result = targetClass.hashCode();
+        result = 31 * result + name.hashCode();
+        result = 31 * result + Arrays.hashCode(this.argClasses);
+        this.hashCode = 31 * result + (write ? 1 : 0);
+    }
+
+    public Class<?> getTargetClass() {
+        return targetClass;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Class<?>[] getArgClasses() {
+        return argClasses == null ? null : argClasses.clone();
+    }
+
+    public boolean isWrite() {
+        return write;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof AccessorMethodCacheEntry)) {
+            return false;
+        }
+
+        AccessorMethodCacheEntry that = (AccessorMethodCacheEntry) o;
+
+        return write == that.write
+                && targetClass.equals(that.targetClass)
+                && name.equals(that.name)
+                && Arrays.equals(argClasses, that.argClasses);
+    }
+
+    @Override
+    public int hashCode() {
+        return hashCode;
+    }
+
+}
@@ -35,6 +35,10 @@ public class DeclaredMethodCacheEntry extends MethodCacheEntry {
         this.type = type;
     }
 
+    public MethodType getType() {
+        return type;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {
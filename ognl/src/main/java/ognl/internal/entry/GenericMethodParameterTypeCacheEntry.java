@@ -30,6 +30,14 @@ public class GenericMethodParameterTypeCacheEntry implements CacheEntry {
         this.type = type;
     }
 
+    public Method getMethod() {
+        return method;
+    }
+
+    public Class<?> getType() {
+        return type;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {
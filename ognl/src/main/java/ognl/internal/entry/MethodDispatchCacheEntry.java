@@ -0,0 +1,109 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ognl.internal.entry;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Key of an overloaded method dispatch: the class the methods are called on, the method name, the candidate
+ * methods and the classes of the arguments.
+ */
+public class MethodDispatchCacheEntry implements CacheEntry {
+
+    final Class<?> typeClass;
+    final String methodName;
+    final List<Method> methods;
+    final Class<?>[] argClasses;
+    private final int hashCode;
+
+    /**
+     * @param typeClass  class the methods are called on, may be null
+     * @param methodName name of the called method
+     * @param methods    candidate methods, not empty, not copied, see {@link #copy()}
+     * @param argClasses classes of the arguments, not copied so it must not be modified afterwards
+     */
+    public MethodDispatchCacheEntry(Class<?> typeClass, String methodName, List<Method> methods, Class<?>[] argClasses) {
+        this.typeClass = typeClass;
+        this.methodName = methodName;
+        this.methods = methods;
+        this.argClasses = argClasses;
+        int result = typeClass == null ? 0 : typeClass.hashCode();
+        result = 31 * result + (methodName == null ? 0 : methodName.hashCode());
+        result = 31 * result + methods.hashCode();
+        this.hashCode = 31 * result + Arrays.hashCode(argClasses);
+    }
+
+    /**
+     * @return the class whose loader owns this entry: the class the methods are called on, or the class declaring
+     * the first candidate
+     */
+    public Class<?> getOwner() {
+        return typeClass != null ? typeClass : methods.get(0).getDeclaringClass();
+    }
+
+    /**
+     * @return an entry equal to this one, holding an immutable copy of the candidate methods so it can be kept
+     * after the caller changes its list
+     */
+    public MethodDispatchCacheEntry copy() {
+        return new MethodDispatchCacheEntry(typeClass, methodName, List.copyOf(methods), argClasses);
+    }
+
+    public Class<?> getTypeClass() {
+        return typeClass;
+    }
+
+    public String getMethodName() {
+        return methodName;
+    }
+
+    public List<Method> getMethods() {
+        return methods;
+    }
+
+    public Class<?>[] getArgClasses() {
+        return argClasses;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof MethodDispatchCacheEntry)) {
+            return false;
+        }
+
+        MethodDispatchCacheEntry that = (MethodDispatchCacheEntry) o;
+
+        return typeClass == that.typeClass
+                && hashCode == that.hashCode
+                && (methodName == null ? that.methodName == null : methodName.equals(that.methodName))
+                && methods.equals(that.methods)
+                && Arrays.equals(argClasses, that.argClasses);
+    }
+
+    @Override
+    public int hashCode() {
+        return hashCode;
+    }
+
+}
@@ -0,0 +1,139 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ognl;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Array;
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ArrayAccessTest {
+
+    private static final Object[] ARRAYS = {
+            new boolean[]{true, false},
+            new byte[]{1, 2, 3},
+            new short[]{1, 2, 3},
+            new char[]{'a', 'b', 'c'},
+            new int[]{1, 2, 3},
+            new long[]{1L, 2L, Long.MAX_VALUE},
+            new float[]{1.5f, 2f, 3f},
+            new double[]{1.5, 2, Double.NaN},
+            new String[]{"a", "b", "c"},
+            new Object[]{1, "b", null}
+    };
+
+    private Map<String, Object> root;
+    private OgnlContext context;
+
+    @BeforeEach
+    void setUp() {
+        root = new HashMap<>();
+        context = Ognl.createDefaultContext(root, new DefaultMemberAccess(false));
+    }
+
+    @Test
+    void shouldReadElementsOfAllArrayTypes() throws OgnlException {
+        for (Object array : ARRAYS) {
+            root.put("array", array);
+            int length = Array.getLength(array);
+
+            assertEquals(length, Ognl.getValue("array.length", context, root));
+            for (int i = 0; i < length; i++) {
+                assertEquals(Array.get(array, i), Ognl.getValue("array[" + i + "]", context, root));
+            }
+            assertEquals(Array.get(array, 0), Ognl.getValue("array[^]", context, root));
+            assertEquals(Array.get(array, length - 1), Ognl.getValue("array[$]", context, root));
+            assertEquals(length, Ognl.getValue("array.{ #this }.size()", context, root));
+        }
+    }
+
+    @Test
+    void shouldWriteConvertedElements() throws OgnlException {
+        root.put("ints", new int[3]);
+        root.put("doubles", new double[3]);
+        root.put("flags", new boolean[2]);
+        root.put("names", new String[2]);
+
+        Ognl.setValue("ints[0]", context, root, "42");
+        Ognl.setValue("ints[1]", context, root, 7L);
+        Ognl.setValue("doubles[2]", context, root, 2);
+        Ognl.setValue("flags[1]", context, root, "true");
+        Ognl.setValue("names[0]", context, root, 5);
+
+        assertEquals("[42, 7, 0]", Arrays.toString((int[]) root.get("ints")));
+        assertEquals("[0.0, 0.0, 2.0]", Arrays.toString((double[]) root.get("doubles")));
+        assertEquals("[false, true]", Arrays.toString((boolean[]) root.get("flags")));
+        assertEquals("[5, null]", Arrays.toString((String[]) root.get("names")));
+    }
+
+    @Test
+    void shouldRejectElementsOfAnotherType() {
+        assertThrows(IllegalArgumentException.class, () -> ArrayAccess.OBJECT.set(new String[1], 0, 1));
+        assertThrows(IllegalArgumentException.class, () -> ArrayAccess.INT.set(new int[1], 0, "1"));
+        ArrayAccess.LONG.set(new long[1], 0, 1);
+    }
+
+    @Test
+    void shouldProjectAndSelectPrimitiveArrays() throws OgnlException {
+        root.put("column", new double[]{1.5, 4, 2.5, 8});
+
+        assertEquals(Arrays.asList(3.0, 8.0, 5.0, 16.0), Ognl.getValue("column.{ #this * 2 }", context, root));
+        assertEquals(Arrays.asList(4.0, 8.0), Ognl.getValue("column.{? #this > 3 }", context, root));
+        assertEquals(Arrays.asList(4.0), Ognl.getValue("column.{^ #this > 3 }", context, root));
+        assertEquals(Arrays.asList(8.0), Ognl.getValue("column.{$ #this > 3 }", context, root));
+    }
+
+    @Test
+    void shouldTestMembershipLikeGenericEquality() throws OgnlException {
+        Object[] values = {1, 2L, 3.0, 1.5f, 'a', (short) 2, (byte) 3, true, "2", "b", null, Double.NaN,
+                Long.MAX_VALUE, new BigDecimal("1.5"), 98};
+
+        for (Object array : ARRAYS) {
+            for (Object value : values) {
+                Object expected = Boolean.FALSE;
+                try {
+                    for (int i = 0; i < Array.getLength(array); i++) {
+                        if (OgnlOps.equal(value, Array.get(array, i))) {
+                            expected = Boolean.TRUE;
+                            break;
+                        }
+                    }
+                } catch (RuntimeException e) {
+                    expected = e.getClass();
+                }
+                root.put("array", array);
+                root.put("value", value);
+                Object actual;
+                try {
+                    actual = Ognl.getValue("value in array", context, root);
+                } catch (RuntimeException e) {
+                    actual = e.getClass();
+                }
+                assertEquals(expected, actual, value + " in " + array.getClass().getSimpleName());
+            }
+        }
+    }
+}
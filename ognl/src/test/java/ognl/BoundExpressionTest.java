@@ -0,0 +1,262 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ognl;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BoundExpressionTest {
+
+    private OgnlContext context;
+    private Order order;
+
+    @BeforeEach
+    void setUp() {
+        order = new Order();
+        context = Ognl.createDefaultContext(order, new DefaultMemberAccess(false));
+    }
+
+    @Test
+    void shouldInferTypesOfBeanChain() throws Exception {
+        BoundExpression bound = Ognl.bind(context, "customer.name.length()", Order.class);
+
+        Node tree = bound.getTree();
+        assertEquals(int.class, bound.getType());
+        assertEquals(Customer.class, bound.getType(tree.jjtGetChild(0)));
+        assertEquals(String.class, bound.getType(tree.jjtGetChild(1)));
+        assertEquals(Customer.class.getMethod("getName"), bound.getMember(tree.jjtGetChild(1)));
+        assertEquals(String.class.getMethod("length"), bound.getMember(tree.jjtGetChild(2)));
+        assertTrue(bound.isFullyTyped());
+        assertEquals(4, bound.getValue(context, order));
+    }
+
+    @Test
+    void shouldInferArithmeticTypes() throws Exception {
+        assertEquals(Long.class, Ognl.bind(context, "quantity * total", Order.class).getType());
+        assertEquals(String.class, Ognl.bind(context, "customer.name + quantity", Order.class).getType());
+        assertEquals(Boolean.class, Ognl.bind(context, "quantity > 2", Order.class).getType());
+        assertEquals(Class.class, Ognl.bind(context, "@java.lang.String@class", Order.class).getType());
+    }
+
+    @Test
+    void shouldFailToBindMissingMembers() {
+        assertThrows(NoSuchPropertyException.class, () -> Ognl.bind(context, "customer.name.lenght", Order.class));
+        assertThrows(MethodFailedException.class, () -> Ognl.bind(context, "customer.name.lenght()", Order.class));
+        assertThrows(NoSuchPropertyException.class, () -> Ognl.bind(context, "@java.lang.Integer@MAX", Order.class));
+        assertThrows(OgnlException.class, () -> Ognl.bind(context, "new com.example.Missing()", Order.class));
+    }
+
+    @Test
+    void shouldLeaveMembersOfSubclassesToEvaluation() throws Exception {
+        BoundExpression bound = Ognl.bind(context, "customer.level + customer.rank()", Order.class);
+
+        assertEquals(Object.class, bound.getType());
+        assertFalse(bound.isFullyTyped());
+        Order vipOrder = new Order(new VipCustomer());
+        assertEquals("gold1", bound.getValue(context, vipOrder));
+        assertThrows(NoSuchPropertyException.class, () -> bound.getValue(context, order));
+    }
+
+    @Test
+    void shouldReadPropertiesThroughBoundGetters() throws Exception {
+        BoundExpression bound = Ognl.bind(context, "customer.name", Order.class);
+
+        Node tree = bound.getTree();
+        ASTProperty name = (ASTProperty) tree.jjtGetChild(1);
+        assertFalse(context.isSpecializeNodes());
+        assertTrue(name.getSpecialization().isBound());
+        assertEquals("John", bound.getValue(context, order));
+        assertEquals("Mary", bound.getValue(context, new Order(new VipCustomer())));
+
+        Order mapOrder = new Order(new MapCustomer());
+        assertEquals("from map", bound.getValue(context, mapOrder));
+        assertTrue(name.getSpecialization().isBound());
+        assertEquals("John", bound.getValue(context, order));
+    }
+
+    @Test
+    void shouldLeaveDynamicNodesUntyped() throws Exception {
+        BoundExpression bound = Ognl.bind(context, "attributes.priority.length()", Order.class);
+
+        Node tree = bound.getTree();
+        assertEquals(Map.class, bound.getType(tree.jjtGetChild(0)));
+        assertEquals(Object.class, bound.getType(tree.jjtGetChild(1)));
+        assertNull(bound.getMember(tree.jjtGetChild(2)));
+        assertFalse(bound.isFullyTyped());
+        assertEquals(4, bound.getValue(context, order));
+        assertThrows(OgnlException.class, () -> bound.compile(context, order));
+    }
+
+    @Test
+    void shouldCheckRootType() throws Exception {
+        BoundExpression bound = Ognl.bind(context, "customer.name", Order.class);
+
+        assertThrows(OgnlException.class, () -> bound.getValue(context, new Customer()));
+        assertThrows(OgnlException.class, () -> bound.setValue(context, "order", "Jane"));
+        bound.setValue(context, order, "Jane");
+        assertEquals("Jane", bound.getValue(context, order));
+    }
+
+    @Test
+    void shouldCompileFullyTypedExpression() throws Exception {
+        BoundExpression bound = Ognl.bind(context, "customer.name + \":\" + quantity", Order.class);
+
+        assertTrue(bound.isFullyTyped());
+        bound.compile(context, order);
+        assertNotNull(((Node) bound.getTree()).getAccessor());
+        assertEquals("John:3", bound.getValue(context, order));
+    }
+
+    public static class Order {
+
+        private final Customer customer;
+        private final Map<String, Object> attributes = new HashMap<>();
+
+        public Order() {
+            this(new Customer());
+        }
+
+        public Order(Customer customer) {
+            this.customer = customer;
+            attributes.put("priority", "high");
+        }
+
+        public Customer getCustomer() {
+            return customer;
+        }
+
+        public int getQuantity() {
+            return 3;
+        }
+
+        public long getTotal() {
+            return 42L;
+        }
+
+        public Map<String, Object> getAttributes() {
+            return attributes;
+        }
+    }
+
+    public static class Customer {
+
+        private String name = "John";
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+    }
+
+    public static class VipCustomer extends Customer {
+
+        @Override
+        public String getName() {
+            return "Mary";
+        }
+
+        public String getLevel() {
+            return "gold";
+        }
+
+        public int rank() {
+            return 1;
+        }
+    }
+
+    public static class MapCustomer extends Customer implements Map<String, Object> {
+
+        private final Map<String, Object> values = new HashMap<>(Map.of("name", "from map"));
+
+        @Override
+        public int size() {
+            return values.size();
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return values.isEmpty();
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return values.containsKey(key);
+        }
+
+        @Override
+        public boolean containsValue(Object value) {
+            return values.containsValue(value);
+        }
+
+        @Override
+        public Object get(Object key) {
+            return values.get(key);
+        }
+
+        @Override
+        public Object put(String key, Object value) {
+            return values.put(key, value);
+        }
+
+        @Override
+        public Object remove(Object key) {
+            return values.remove(key);
+        }
+
+        @Override
+        public void putAll(Map<? extends String, ?> map) {
+            values.putAll(map);
+        }
+
+        @Override
+        public void clear() {
+            values.clear();
+        }
+
+        @Override
+        public Set<String> keySet() {
+            return values.keySet();
+        }
+
+        @Override
+        public Collection<Object> values() {
+            return values.values();
+        }
+
+        @Override
+        public Set<Entry<String, Object>> entrySet() {
+            return values.entrySet();
+        }
+    }
+}
@@ -0,0 +1,186 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ognl;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class ContextVariablesTest {
+
+    private OgnlContext context;
+
+    @BeforeEach
+    void setUp() {
+        context = Ognl.createDefaultContext(null, new DefaultMemberAccess(false));
+    }
+
+    @Test
+    void shouldReadValuesSetBeforeBinding() throws OgnlException {
+        context.put("ctxVarBefore", "value");
+        ASTVarRef node = (ASTVarRef) Ognl.parseExpression("#ctxVarBefore");
+
+        assertEquals("value", Ognl.getValue(node, context, (Object) null));
+        assertTrue(node.getSlot().getIndex() >= 0);
+        assertEquals("value", context.get("ctxVarBefore"));
+        assertEquals(1, context.size());
+
+        context.put("ctxVarBefore", "changed");
+        assertEquals("changed", Ognl.getValue(node, context, (Object) null));
+        assertEquals(1, context.size());
+    }
+
+    @Test
+    void shouldAssignThroughSlots() throws OgnlException {
+        Object increment = Ognl.parseExpression("#ctxVarCounter = #ctxVarCounter + 1");
+        context.put("ctxVarCounter", 0);
+
+        for (int i = 0; i < 5; i++) {
+            Ognl.getValue(increment, context, (Object) null);
+        }
+        assertEquals(5, context.get("ctxVarCounter"));
+        assertEquals(5, context.getValues().get("ctxVarCounter"));
+        assertEquals(1, context.size());
+
+        assertEquals(5, context.remove("ctxVarCounter"));
+        assertFalse(context.containsKey("ctxVarCounter"));
+        assertNull(Ognl.getValue("#ctxVarCounter", context, (Object) null));
+    }
+
+    @Test
+    void shouldKeepNullVariables() throws OgnlException {
+        Ognl.getValue("#ctxVarNull = null", context, (Object) null);
+
+        assertTrue(context.containsKey("ctxVarNull"));
+        assertNull(context.get("ctxVarNull"));
+        assertEquals(1, context.size());
+        assertEquals("absent", Ognl.getValue("#ctxVarNull == null ? 'absent' : 'present'", context, (Object) null));
+    }
+
+    @Test
+    void shouldExposeAllValuesAsMap() throws OgnlException {
+        Ognl.getValue("#ctxVarA = 1, #ctxVarB = 2", context, (Object) null);
+        context.put("ctxVarUnbound", 3);
+
+        Map<String, Object> expected = new HashMap<>();
+        expected.put("ctxVarA", 1);
+        expected.put("ctxVarB", 2);
+        expected.put("ctxVarUnbound", 3);
+        assertEquals(expected, context.getValues());
+        assertEquals(expected, new HashMap<>(context));
+        assertEquals(expected.hashCode(), context.hashCode());
+
+        for (Iterator<Map.Entry<String, Object>> it = context.getValues().entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<String, Object> entry = it.next();
+            if (entry.getKey().equals("ctxVarA")) {
+                it.remove();
+            } else if (entry.getKey().equals("ctxVarB")) {
+                entry.setValue(20);
+            }
+        }
+        assertFalse(context.containsKey("ctxVarA"));
+        assertEquals(20, Ognl.getValue("#ctxVarB", context, (Object) null));
+        assertEquals(2, context.size());
+
+        context.clear();
+        assertTrue(context.isEmpty());
+        assertNull(Ognl.getValue("#ctxVarB", context, (Object) null));
+    }
+
+    @Test
+    void shouldKeepManyVariables() throws OgnlException {
+        int count = 64;
+        for (int i = 0; i < count; i++) {
+            Ognl.getValue("#ctxVarMany" + i + " = " + i, context, (Object) null);
+        }
+        assertEquals(count, context.size());
+        for (int i = 0; i < count; i++) {
+            assertEquals(i, Ognl.getValue("#ctxVarMany" + i, context, (Object) null));
+            assertEquals(i, context.get("ctxVarMany" + i));
+        }
+
+        for (Iterator<Map.Entry<String, Object>> it = context.getValues().entrySet().iterator(); it.hasNext(); ) {
+            if ((Integer) it.next().getValue() % 2 == 0) {
+                it.remove();
+            }
+        }
+        assertEquals(count / 2, context.size());
+        for (int i = 0; i < count; i++) {
+            assertEquals(i % 2 == 0 ? null : i, Ognl.getValue("#ctxVarMany" + i, context, (Object) null));
+        }
+    }
+
+    @Test
+    void shouldReclaimSlotsNoLongerReferenced() throws Exception {
+        List<WeakReference<ContextVariables.Slot>> references = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            references.add(new WeakReference<>(ContextVariables.slotOf("ctxVarReclaimed" + i)));
+        }
+        int inUse = ContextVariables.getSlotsInUse();
+        for (int i = 0; i < 10 && references.stream().anyMatch(reference -> reference.get() != null); i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assumeTrue(references.stream().allMatch(reference -> reference.get() == null), "slots not collected");
+
+        assertTrue(ContextVariables.getSlotsInUse() <= inUse - 100);
+        ASTVarRef node = (ASTVarRef) Ognl.parseExpression("#ctxVarReclaimed0");
+        context.put("ctxVarReclaimed0", "kept");
+        assertEquals("kept", Ognl.getValue(node, context, (Object) null));
+        assertEquals("kept", context.get("ctxVarReclaimed0"));
+    }
+
+    @Test
+    void shouldCopyInitialValues() throws OgnlException {
+        Ognl.parseExpression("#ctxVarInitial").toString();
+        Map<String, Object> initial = new HashMap<>();
+        initial.put("ctxVarInitial", "initial");
+        initial.put(null, "null key");
+
+        OgnlContext copy = new OgnlContext(new DefaultMemberAccess(false), null, null, initial);
+
+        assertEquals("initial", Ognl.getValue("#ctxVarInitial", copy, (Object) null));
+        assertEquals(initial, copy.getValues());
+    }
+
+    @Test
+    void shouldUseOverriddenContextMethods() throws OgnlException {
+        OgnlContext custom = new OgnlContext(new DefaultMemberAccess(false)) {
+            @Override
+            public Object get(Object key) {
+                return "custom " + key;
+            }
+        };
+
+        assertEquals("custom ctxVarCustom", Ognl.getValue("#ctxVarCustom", custom, (Object) null));
+        assertEquals(Boolean.FALSE, Ognl.getValue("#_traceEvaluations", context, (Object) null));
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ognl;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CtorCacheTest {
+
+    private OgnlContext context;
+
+    @BeforeEach
+    void setUp() {
+        context = Ognl.createDefaultContext(null, new DefaultMemberAccess(false));
+    }
+
+    @Test
+    void shouldReuseResolvedConstructor() throws OgnlException {
+        ASTCtor node = (ASTCtor) Ognl.parseExpression("new ognl.CtorCacheTest$Point(#x, 2)");
+
+        context.put("x", 1);
+        Point first = (Point) Ognl.getValue(node, context, (Object) null);
+        ResolvedConstructor resolved = node.getResolvedConstructor();
+        context.put("x", 3);
+        Point second = (Point) Ognl.getValue(node, context, (Object) null);
+
+        assertNotSame(first, second);
+        assertEquals("int,int 1,2", first.toString());
+        assertEquals("int,int 3,2", second.toString());
+        assertTrue(resolved.isDirect());
+        assertSame(resolved, node.getResolvedConstructor());
+    }
+
+    @Test
+    void shouldResolveAgainForOtherArgumentClasses() throws OgnlException {
+        ASTCtor node = (ASTCtor) Ognl.parseExpression("new ognl.CtorCacheTest$Point(#x, 2)");
+
+        context.put("x", 1);
+        assertEquals("int,int 1,2", Ognl.getValue(node, context, (Object) null).toString());
+        context.put("x", 1.5);
+        assertEquals("double,int 1.5,2", Ognl.getValue(node, context, (Object) null).toString());
+        context.put("x", "s");
+        assertEquals("String,int s,2", Ognl.getValue(node, context, (Object) null).toString());
+        context.put("x", 4);
+        assertEquals("int,int 4,2", Ognl.getValue(node, context, (Object) null).toString());
+    }
+
+    @Test
+    void shouldNotKeepConstructorsNeedingConversion() throws OgnlException {
+        ASTCtor node = (ASTCtor) Ognl.parseExpression("new ognl.CtorCacheTest$Point(#x, 2)");
+
+        context.put("x", new StringBuilder("7"));
+        assertEquals("String,int 7,2", Ognl.getValue(node, context, (Object) null).toString());
+        assertNull(node.getResolvedConstructor());
+    }
+
+    @Test
+    void shouldReportFailuresLikeReflection() throws OgnlException {
+        Object node = Ognl.parseExpression("new ognl.CtorCacheTest$Point(#x, -1)");
+
+        for (int i = 0; i < 2; i++) {
+            context.put("x", 1);
+            MethodFailedException e = assertThrows(MethodFailedException.class,
+                    () -> Ognl.getValue(node, context, (Object) null));
+            assertInstanceOf(IllegalArgumentException.class, e.getCause());
+        }
+        assertThrows(MethodFailedException.class,
+                () -> Ognl.getValue("new ognl.CtorCacheTest$Point(new Object())", context, (Object) null));
+        assertThrows(MethodFailedException.class,
+                () -> Ognl.getValue("new ognl.CtorCacheTest$Missing()", context, (Object) null));
+    }
+
+    @Test
+    void shouldUseReflectionForNonPublicClasses() throws OgnlException {
+        ASTCtor node = (ASTCtor) Ognl.parseExpression("new ognl.CtorCacheTest$Hidden()");
+
+        assertInstanceOf(Hidden.class, Ognl.getValue(node, context, (Object) null));
+        assertFalse(node.getResolvedConstructor().isDirect());
+    }
+
+    @Test
+    void shouldPopulateArraysByComponentType() throws OgnlException {
+        assertArrayEquals(new int[]{1, 2, 3}, (int[]) Ognl.getValue("new int[] {1, 2L, \"3\"}", context, (Object) null));
+        assertArrayEquals(new double[]{1.5, 2, 3}, (double[]) Ognl.getValue("new double[] {1.5, 2, 3.0}", context, (Object) null));
+        assertArrayEquals(new char[]{'a', 'b'}, (char[]) Ognl.getValue("new char[] {'a', 'b'}", context, (Object) null));
+        assertArrayEquals(new String[]{"a", null, "3"}, (String[]) Ognl.getValue("new String[] {\"a\", null, 3}", context, (Object) null));
+        assertEquals("[0, 0]", Arrays.toString((long[]) Ognl.getValue("new long[2]", context, (Object) null)));
+        assertThrows(IllegalArgumentException.class, () -> Ognl.getValue("new int[] {1, null}", context, (Object) null));
+    }
+
+    public static class Point {
+
+        private final String description;
+
+        public Point(int x, int y) {
+            if (y < 0) {
+                throw new IllegalArgumentException("negative");
+            }
+            description = "int,int " + x + "," + y;
+        }
+
+        public Point(double x, int y) {
+            description = "double,int " + x + "," + y;
+        }
+
+        public Point(String x, int y) {
+            description = "String,int " + x + "," + y;
+        }
+
+        @Override
+        public String toString() {
+            return description;
+        }
+    }
+
+    static class Hidden {
+
+        public Hidden() {
+        }
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ognl;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class EvalParseCacheTest {
+
+    private Map<String, Object> root;
+    private OgnlContext context;
+
+    @BeforeEach
+    void setUp() {
+        root = new HashMap<>();
+        root.put("a", 2);
+        root.put("expr", "a * 3");
+        context = Ognl.createDefaultContext(root, new DefaultMemberAccess(false));
+    }
+
+    @AfterEach
+    void tearDown() {
+        Ognl.applyExpressionMaxLength(null);
+    }
+
+    @Test
+    void shouldParseEvaluatedStringsOnce() throws OgnlException {
+        assertEquals(6, Ognl.getValue("(expr)(#root)", context, root));
+        Node<?> tree = Ognl.parseCachedExpression("a * 3");
+
+        root.put("a", 5);
+        assertEquals(15, Ognl.getValue("(expr)(#root)", context, root));
+        assertSame(tree, Ognl.parseCachedExpression("a * 3"));
+    }
+
+    @Test
+    void shouldSetValuesThroughEvaluatedStrings() throws OgnlException {
+        root.put("expr", "a");
+
+        Ognl.setValue("(expr)(#root)", context, root, 7);
+        Ognl.setValue("(expr)(#root)", context, root, 8);
+        assertEquals(8, root.get("a"));
+    }
+
+    @Test
+    void shouldHonorMaximumLengthOfCachedExpressions() throws OgnlException {
+        Object tree = Ognl.parseExpression("(expr)(#root)");
+        assertEquals(6, Ognl.getValue(tree, context, root));
+
+        Ognl.applyExpressionMaxLength(3);
+        OgnlException e = assertThrows(OgnlException.class, () -> Ognl.getValue(tree, context, root));
+        assertInstanceOf(SecurityException.class, e.getReason());
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ognl;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class ExpressionOptimizerTest {
+
+    private Map<String, Object> root;
+    private OgnlContext context;
+
+    @BeforeEach
+    void setUp() {
+        root = new HashMap<>();
+        root.put("a", 1);
+        root.put("b", 2);
+        root.put("name", "ognl");
+        root.put("flag", Boolean.TRUE);
+        root.put("items", Arrays.asList(1, 2, 3));
+        context = Ognl.createDefaultContext(root, new DefaultMemberAccess(false));
+    }
+
+    @Test
+    void shouldFoldConstants() throws OgnlException {
+        assertOptimized("7", "1 + 2 * 3");
+        assertOptimized("\"x12\"", "\"x\" + 1 + 2");
+        assertOptimized("5L", "2L + 3");
+        assertOptimized("true", "1 < 2 && 3 >= 3");
+        assertOptimized("3 + a", "1 + 2 + a");
+        assertOptimized("\"x3\" + (a * 2)", "\"x\" + 3 + a * 2");
+        assertOptimized("a + 1 + 2", "a + 1 + 2");
+        assertOptimized("items[1]", "items[3 - 2]");
+    }
+
+    @Test
+    void shouldNotFoldFailingOrNonLiteralOperations() throws OgnlException {
+        assertOptimized("1 / 0", "1 / 0");
+        assertOptimized("1.0 / 0", "1.0 / 0");
+    }
+
+    @Test
+    void shouldFoldStaticFinalFieldsOnlyWithContext() throws OgnlException {
+        assertEquals("@Integer@MAX_VALUE - 1", Ognl.optimize(Ognl.parseExpression("@Integer@MAX_VALUE - 1")).toString());
+        assertEquals("2147483646", Ognl.optimize(context, Ognl.parseExpression("@Integer@MAX_VALUE - 1")).toString());
+    }
+
+    @Test
+    void shouldPruneDeadBranches() throws OgnlException {
+        assertOptimized("name", "true ? name : b");
+        assertOptimized("b", "(1 > 2) ? name : b");
+        assertOptimized("a && b", "a && true && b");
+        assertOptimized("a && false", "a && false && b");
+        assertOptimized("a || true", "a || false || true || b");
+        assertOptimized("a && true", "a && true");
+        assertOptimized("b", "1, \"x\", b");
+    }
+
+    @Test
+    void shouldFlattenAssociativeOperators() throws OgnlException {
+        Node tree = (Node) Ognl.optimize(Ognl.parseExpression("a && (b && (flag && name))"));
+        assertInstanceOf(ASTAnd.class, tree);
+        assertEquals(4, tree.jjtGetNumChildren());
+        assertEquals("a && b && flag && name", tree.toString());
+
+        Node bits = (Node) Ognl.optimize(Ognl.parseExpression("a | (b | 4)"));
+        assertEquals(3, bits.jjtGetNumChildren());
+    }
+
+    @Test
+    void shouldSimplifyBooleanLogic() throws OgnlException {
+        assertOptimized("a == b", "!!(a == b)");
+        assertOptimized("a != b", "!(a == b)");
+        assertOptimized("a not in items", "!(a in items)");
+        assertOptimized("!!a", "!!a");
+        assertOptimized("!a", "!!!a");
+    }
+
+    @Test
+    void shouldLeaveOriginalTreeUnchanged() throws OgnlException {
+        Node tree = (Node) Ognl.parseExpression("true ? 1 + 2 : a");
+        String expression = tree.toString();
+
+        assertEquals("3", Ognl.optimize(tree).toString());
+        assertEquals(expression, tree.toString());
+    }
+
+    @Test
+    void shouldEvaluateAsOriginalTree() throws Exception {
+        List<String> expressions = Arrays.asList("1 + 2 * 3", "\"x\" + 1 + name", "a && true && b", "a && false && b",
+                "a || 0 || b", "!!(a == b)", "!(a in items)", "!!a", "!!!a", "1 + 2 + name", "true ? name : b", "items[3 - 2] * 2",
+                "(1, 2, name.length())", "a | (b | 4)", "a && (b && (flag && name))", "null == null ? a : b",
+                "#x = 2 + 3, #x * a", "items.{? #this > 1 + 0}", "items.{#this * (2 - 1)}");
+
+        for (String expression : expressions) {
+            Object tree = Ognl.parseExpression(expression);
+            Object optimized = Ognl.optimize(context, tree);
+            Object expected = Ognl.getValue(tree, context, root);
+
+            assertEquals(expected, Ognl.getValue(optimized, context, root), expression);
+            assertEquals(expected, Ognl.getValue(Ognl.parseExpression(optimized.toString()), context, root), expression);
+        }
+    }
+
+    @Test
+    void shouldCompileOptimizedTree() throws Exception {
+        List<String> expressions = Arrays.asList("1 + 2 * 3", "(1 > 2) ? name : b", "items[3 - 2] * 2", "a | (b | 4)",
+                "!!(a == b)", "!(a == b)", "2 + 3 + items.size()");
+
+        for (String expression : expressions) {
+            Object expected = Ognl.getValue(Ognl.parseExpression(expression), context, root);
+            Node optimized = (Node) Ognl.optimize(context, Ognl.parseExpression(expression));
+            OgnlRuntime.compileExpression(context, optimized, root);
+
+            assertEquals(expected, Ognl.getValue(optimized, context, root), expression);
+        }
+    }
+
+    @Test
+    void shouldSetThroughTakenBranch() throws OgnlException {
+        Object optimized = Ognl.optimize(Ognl.parseExpression("true ? name : b"));
+        Ognl.setValue(optimized, context, root, "changed");
+
+        assertEquals("changed", root.get("name"));
+        assertNull(((Node) optimized).jjtGetParent());
+    }
+
+    private void assertOptimized(String expected, String expression) throws OgnlException {
+        assertEquals(expected, Ognl.optimize(Ognl.parseExpression(expression)).toString(), expression);
+    }
+}
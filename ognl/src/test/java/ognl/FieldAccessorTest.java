@@ -0,0 +1,100 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ognl;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Field;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FieldAccessorTest {
+
+    @Test
+    void shouldAccessPublicFieldsDirectly() throws Exception {
+        Dto dto = new Dto();
+        FieldAccessor count = OgnlRuntime.getFieldAccessor(Dto.class.getField("count"));
+        FieldAccessor name = OgnlRuntime.getFieldAccessor(Dto.class.getField("name"));
+
+        assertTrue(count.isDirect());
+        assertSame(count, OgnlRuntime.getFieldAccessor(Dto.class.getField("count")));
+
+        count.set(dto, 3);
+        name.set(dto, "ognl");
+        assertEquals(3, count.get(dto));
+        assertEquals("ognl", name.get(dto));
+        assertEquals(3, dto.count);
+    }
+
+    @Test
+    void shouldLeaveConversionsToReflection() throws Exception {
+        Dto dto = new Dto();
+        FieldAccessor total = OgnlRuntime.getFieldAccessor(Dto.class.getField("total"));
+
+        total.set(dto, 5);
+        assertEquals(5L, total.get(dto));
+        assertThrows(IllegalArgumentException.class, () -> total.set(dto, null));
+        assertThrows(IllegalArgumentException.class, () -> total.set(dto, "5"));
+    }
+
+    @Test
+    void shouldAccessStaticFields() throws Exception {
+        FieldAccessor constant = OgnlRuntime.getFieldAccessor(Dto.class.getField("CONSTANT"));
+
+        assertTrue(constant.isDirect());
+        assertEquals("constant", constant.get(null));
+        assertThrows(IllegalAccessException.class, () -> constant.set(null, "changed"));
+    }
+
+    @Test
+    void shouldUseReflectionForNonPublicFields() throws Exception {
+        Field field = Dto.class.getDeclaredField("hidden");
+        FieldAccessor hidden = OgnlRuntime.getFieldAccessor(field);
+
+        assertFalse(hidden.isDirect());
+        assertSame(field, hidden.getField());
+        assertThrows(IllegalAccessException.class, () -> hidden.get(new Dto()));
+    }
+
+    @Test
+    void shouldBeUsedByEvaluations() throws Exception {
+        Dto dto = new Dto();
+        OgnlContext context = Ognl.createDefaultContext(dto, new DefaultMemberAccess(true));
+
+        Ognl.setValue("count", context, dto, 7);
+        Ognl.setValue("hidden", context, dto, "secret");
+        assertEquals(7, Ognl.getValue("count", context, dto));
+        assertEquals("secret", Ognl.getValue("hidden", context, dto));
+        assertEquals("constant", Ognl.getValue("@ognl.FieldAccessorTest$Dto@CONSTANT", context, dto));
+    }
+
+    public static class Dto {
+
+        public static final String CONSTANT = "constant";
+
+        public int count;
+        public long total;
+        public String name;
+        private String hidden;
+    }
+}
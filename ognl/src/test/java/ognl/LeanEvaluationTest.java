@@ -0,0 +1,180 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ognl;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests lean evaluations, not recording the current object and node when no registered handler reads them.
+ */
+class LeanEvaluationTest {
+
+    private OgnlContext context;
+    private Map<String, Object> map;
+
+    @BeforeEach
+    void setUp() {
+        map = new HashMap<>();
+        map.put("size", "small");
+        map.put("values", "many");
+        context = Ognl.createDefaultContext(map, new DefaultMemberAccess(false));
+        context.setLeanEvaluations(true);
+    }
+
+    @Test
+    void testIndexedAccessPassedToMapAccessor() throws Exception {
+        assertEquals(2, Ognl.getValue("size", context, map));
+        assertEquals("small", Ognl.getValue("[\"size\"]", context, map));
+        assertEquals("many", Ognl.getValue("#root[\"values\"]", context, map));
+        assertEquals(2, Ognl.getValue("values.size", context, map));
+    }
+
+    @Test
+    void testEvaluationStateRecordedByDefault() throws Exception {
+        OgnlContext defaultContext = Ognl.createDefaultContext(map, new DefaultMemberAccess(false));
+        Map<String, Object> inner = Map.of("size", "large");
+        Map<String, Object> root = Map.of("inner", inner);
+        Runnable restore = OgnlRuntime.cache.suspendStateReadingHandlers();
+        try {
+            assertFalse(defaultContext.isLeanEvaluations());
+            assertEquals(1, Ognl.getValue("inner.size()", defaultContext, root));
+            assertSame(inner, defaultContext.getCurrentObject());
+            assertInstanceOf(ASTMethod.class, defaultContext.getCurrentNode());
+        } finally {
+            restore.run();
+        }
+    }
+
+    @Test
+    void testEvaluationStateNotRecorded() throws Exception {
+        Map<String, Object> inner = Map.of("size", "large");
+        Map<String, Object> root = Map.of("inner", inner);
+        Runnable restore = OgnlRuntime.cache.suspendStateReadingHandlers();
+        try {
+            assertFalse(OgnlRuntime.isEvaluationStateRequired());
+
+            assertEquals(1, Ognl.getValue("inner.size()", context, root));
+            assertNull(context.getCurrentNode());
+            assertSame(root, context.getCurrentObject());
+            assertSame(inner, Ognl.getValue("inner.(#this)", context, root));
+
+            context.setTraceEvaluations(true);
+            Ognl.getValue("inner.size()", context, root);
+            assertSame(inner, context.getCurrentObject());
+        } finally {
+            restore.run();
+        }
+    }
+
+    @Test
+    void testCompilationRecordsEvaluationState() throws Exception {
+        Runnable restore = OgnlRuntime.cache.suspendStateReadingHandlers();
+        try {
+            assertFalse(OgnlRuntime.isEvaluationStateRequired());
+
+            Node expression = Ognl.compileExpression(context, map, "[\"size\"]");
+
+            assertEquals("small", expression.getAccessor().get(context, map));
+            assertEquals("small", Ognl.getValue(expression, context, map));
+        } finally {
+            restore.run();
+        }
+    }
+
+    @Test
+    void testStateReadingAccessorRecordsEvaluationState() throws Exception {
+        boolean required = OgnlRuntime.isEvaluationStateRequired();
+        NodeProbe probe = new NodeProbe();
+        OgnlRuntime.setPropertyAccessor(NodeProbe.class, new ObjectPropertyAccessor() {
+            @Override
+            public Object getProperty(OgnlContext context, Object target, Object name) {
+                return context.getCurrentNode();
+            }
+        });
+        try {
+            assertTrue(OgnlRuntime.isEvaluationStateRequired());
+
+            Object node = Ognl.getValue("node", context, probe);
+            assertInstanceOf(ASTConst.class, node);
+            assertInstanceOf(ASTProperty.class, ((Node<?>) node).jjtGetParent());
+        } finally {
+            OgnlRuntime.setPropertyAccessor(NodeProbe.class, new ObjectPropertyAccessor());
+        }
+        assertEquals(required, OgnlRuntime.isEvaluationStateRequired());
+    }
+
+    @Test
+    void testBuiltInHandlersDoNotReadEvaluationState() throws Exception {
+        assertSame(false, OgnlRuntime.getPropertyAccessor(Map.class).requiresEvaluationState());
+        assertSame(false, OgnlRuntime.getPropertyAccessor(Object.class).requiresEvaluationState());
+        assertSame(false, OgnlRuntime.getMethodAccessor(Object.class).requiresEvaluationState());
+        assertSame(false, OgnlRuntime.getNullHandler(Object.class).requiresEvaluationState());
+    }
+
+    @Test
+    void testMapAccessorSubclassOverridingGetPropertyIsCalled() throws Exception {
+        OgnlRuntime.setPropertyAccessor(CustomMap.class, new MapPropertyAccessor() {
+            @Override
+            public Object getProperty(OgnlContext context, Object target, Object name) throws OgnlException {
+                assertInstanceOf(ASTConst.class, context.getCurrentNode());
+                return "custom:" + super.getProperty(context, target, name);
+            }
+        });
+        try {
+            CustomMap map = new CustomMap();
+            map.put("foo", "bar");
+
+            assertEquals("custom:bar", Ognl.getValue("foo", context, map));
+            assertEquals("custom:bar", Ognl.getValue("#this['foo']", context, map));
+            assertEquals("custom:1", Ognl.getValue("size", context, map));
+        } finally {
+            OgnlRuntime.setPropertyAccessor(CustomMap.class, new MapPropertyAccessor());
+        }
+    }
+
+    @Test
+    void testHandlerSubclassesReadEvaluationStateByDefault() {
+        assertTrue(new MapPropertyAccessor() {
+        }.requiresEvaluationState());
+        assertTrue(new ObjectPropertyAccessor() {
+        }.requiresEvaluationState());
+        assertTrue(new ObjectMethodAccessor() {
+        }.requiresEvaluationState());
+        assertTrue(new ObjectNullHandler() {
+        }.requiresEvaluationState());
+        assertSame(false, new ListPropertyAccessor().requiresEvaluationState());
+    }
+
+    public static class CustomMap extends HashMap<String, Object> {
+    }
+
+    public static class NodeProbe {
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ognl;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class MethodDispatchTest {
+
+    private OgnlContext context;
+    private Overloads root;
+
+    @BeforeEach
+    void setUp() {
+        root = new Overloads();
+        context = Ognl.createDefaultContext(root, new DefaultMemberAccess(false));
+    }
+
+    @Test
+    void shouldChooseOverloadPerArgumentClasses() throws OgnlException {
+        Object node = Ognl.parseExpression("describe(#x)");
+
+        for (int i = 0; i < 2; i++) {
+            context.put("x", 1);
+            assertEquals("int 1", Ognl.getValue(node, context, root));
+            context.put("x", "s");
+            assertEquals("String s", Ognl.getValue(node, context, root));
+            context.put("x", 2L);
+            assertEquals("long 2", Ognl.getValue(node, context, root));
+        }
+    }
+
+    @Test
+    void shouldConvertArgumentsOnEachCall() throws OgnlException {
+        Object node = Ognl.parseExpression("twice(#x)");
+
+        context.put("x", "3");
+        assertEquals(6, Ognl.getValue(node, context, root));
+        context.put("x", "4");
+        assertEquals(8, Ognl.getValue(node, context, root));
+    }
+
+    @Test
+    void shouldPackVarArgs() throws OgnlException {
+        assertEquals("a,b", Ognl.getValue("join(\"a\", \"b\")", context, root));
+        assertEquals("a,c", Ognl.getValue("join(\"a\", null, \"c\")", context, root));
+        assertEquals("1:x,y", Ognl.getValue("prefixed(1, \"x\", \"y\")", context, root));
+    }
+
+    @Test
+    void shouldNotKeepCallerCandidateLists() throws Exception {
+        Method describeInt = Overloads.class.getMethod("describe", int.class);
+        Method describeString = Overloads.class.getMethod("describe", String.class);
+        List<Method> methods = new ArrayList<>(List.of(describeInt));
+        Object[] args = {1};
+
+        assertSame(describeInt, OgnlRuntime.getUnconvertedMethod(methods, Overloads.class, "describe", args));
+        methods.set(0, describeString);
+        assertNull(OgnlRuntime.getUnconvertedMethod(methods, Overloads.class, "describe", args));
+        assertSame(describeString, OgnlRuntime.getUnconvertedMethod(methods, Overloads.class, "describe", new Object[]{"s"}));
+    }
+
+    public static class Overloads {
+
+        public String describe(int value) {
+            return "int " + value;
+        }
+
+        public String describe(long value) {
+            return "long " + value;
+        }
+
+        public String describe(String value) {
+            return "String " + value;
+        }
+
+        public int twice(int value) {
+            return 2 * value;
+        }
+
+        public String join(String... values) {
+            return String.join(",", values);
+        }
+
+        public String prefixed(int prefix, String... values) {
+            return prefix + ":" + String.join(",", values);
+        }
+    }
+}
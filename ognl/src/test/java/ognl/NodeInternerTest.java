@@ -0,0 +1,116 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ognl;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class NodeInternerTest {
+
+    private final NodeInterner interner = new NodeInterner();
+
+    @Test
+    void shouldShareIdenticalExpressions() throws OgnlException {
+        Node first = (Node) Ognl.parseExpression("a.b + 1", interner);
+        Node second = (Node) Ognl.parseExpression("a.b + 1", interner);
+
+        assertSame(first, second);
+    }
+
+    @Test
+    void shouldShareIdenticalSubtrees() throws OgnlException {
+        Node first = (Node) Ognl.parseExpression("row[0].name", interner);
+        Node second = (Node) Ognl.parseExpression("row[1].name", interner);
+
+        assertNotSame(first, second);
+        assertSame(first.jjtGetChild(0), second.jjtGetChild(0));
+        assertNotSame(first.jjtGetChild(1), second.jjtGetChild(1));
+        assertSame(first.jjtGetChild(2), second.jjtGetChild(2));
+        assertEquals("row[0].name", first.toString());
+        assertEquals("row[1].name", second.toString());
+    }
+
+    @Test
+    void shouldInternNames() throws OgnlException {
+        ASTMethod first = (ASTMethod) Ognl.parseExpression(new String("toString()"), interner);
+        ASTMethod second = (ASTMethod) Ognl.parseExpression(new String("toString(1)"), interner);
+        ASTConst third = (ASTConst) ((Node) Ognl.parseExpression("x.toString", interner)).jjtGetChild(1).jjtGetChild(0);
+
+        assertSame(first.getMethodName(), second.getMethodName());
+        assertSame(first.getMethodName(), third.getValue());
+    }
+
+    @Test
+    void shouldNotShareNodesUsedInDifferentPositions() throws Exception {
+        Node plain = (Node) Ognl.parseExpression("map.size", interner);
+        Node indexed = (Node) Ognl.parseExpression("map[\"size\"]", interner);
+        Node sum = (Node) Ognl.parseExpression("1 + 2", interner);
+        Node nested = (Node) Ognl.parseExpression("(1 + 2) * 3", interner);
+
+        assertNotSame(plain.jjtGetChild(1).jjtGetChild(0), indexed.jjtGetChild(1).jjtGetChild(0));
+        assertNotSame(sum, nested.jjtGetChild(0));
+        assertEquals("(1 + 2) * 3", nested.toString());
+
+        Map<String, Object> map = new HashMap<>();
+        map.put("size", "value");
+        Map<String, Object> root = new HashMap<>();
+        root.put("map", map);
+        OgnlContext context = Ognl.createDefaultContext(root, new DefaultMemberAccess(false));
+        assertEquals(1, Ognl.getValue(plain, context, root));
+        assertEquals("value", Ognl.getValue(indexed, context, root));
+    }
+
+    @Test
+    void shouldEvaluateInternedTrees() throws Exception {
+        List<String> expressions = Arrays.asList("rows[0].name", "rows[1].name", "rows.{name}", "rows.{? #this.name == \"b\"}[0].name",
+                "rows.{#this.name.length()}", "rows[0].name + rows[1].name", "rows.size() > 1 ? \"many\" : \"few\"");
+        List<Object> expected = Arrays.asList("a", "b", Arrays.asList("a", "b"), "b", Arrays.asList(1, 1), "ab", "many");
+
+        Map<String, Object> root = new HashMap<>();
+        root.put("rows", Arrays.asList(new Row("a"), new Row("b")));
+        OgnlContext context = Ognl.createDefaultContext(root, new DefaultMemberAccess(false));
+        for (int i = 0; i < expressions.size(); i++) {
+            Node tree = (Node) Ognl.parseExpression(expressions.get(i), interner);
+            assertEquals(expected.get(i), Ognl.getValue(tree, context, root), expressions.get(i));
+            OgnlRuntime.compileExpression(context, tree, root);
+            assertEquals(expected.get(i), Ognl.getValue(tree, context, root), expressions.get(i));
+        }
+    }
+
+    public static class Row {
+
+        private final String name;
+
+        public Row(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+    }
+}
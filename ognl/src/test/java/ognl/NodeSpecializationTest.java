@@ -0,0 +1,230 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ognl;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class NodeSpecializationTest {
+
+    private Map<String, Object> root;
+    private OgnlContext context;
+
+    @BeforeEach
+    void setUp() {
+        root = new HashMap<>();
+        root.put("a", 1);
+        root.put("b", 2);
+        root.put("name", "ognl");
+        root.put("items", Arrays.asList("x", "y", "z"));
+        context = Ognl.createDefaultContext(root, new DefaultMemberAccess(false));
+        context.setSpecializeNodes(true);
+    }
+
+    @Test
+    void shouldNotSpecializeByDefault() throws OgnlException {
+        OgnlContext defaultContext = Ognl.createDefaultContext(root, new DefaultMemberAccess(false));
+        ASTProperty property = (ASTProperty) Ognl.parseExpression("a");
+
+        assertFalse(defaultContext.isSpecializeNodes());
+        assertEquals(1, Ognl.getValue(property, defaultContext, root));
+        assertNull(property.getSpecialization());
+    }
+
+    @Test
+    void shouldSpecializeMapKeys() throws OgnlException {
+        ASTProperty property = (ASTProperty) Ognl.parseExpression("name");
+
+        assertEquals("ognl", Ognl.getValue(property, context, root));
+        assertNotSame(PropertySpecialization.GENERIC, property.getSpecialization());
+        root.put("name", "changed");
+        assertEquals("changed", Ognl.getValue(property, context, root));
+        root.remove("name");
+        assertNull(Ognl.getValue(property, context, root));
+        assertNotSame(PropertySpecialization.GENERIC, property.getSpecialization());
+    }
+
+    @Test
+    void shouldKeepMapPseudoPropertiesGeneric() throws OgnlException {
+        ASTProperty property = (ASTProperty) Ognl.parseExpression("size");
+
+        assertEquals(4, Ognl.getValue(property, context, root));
+        assertSame(PropertySpecialization.DECLINED, property.getSpecialization().getValue(context, root));
+        assertEquals(4, Ognl.getValue(property, context, root));
+    }
+
+    @Test
+    void shouldSpecializeListIndexes() throws OgnlException {
+        Node tree = (Node) Ognl.parseExpression("items[1]");
+        ASTProperty index = (ASTProperty) tree.jjtGetChild(1);
+
+        assertEquals("y", Ognl.getValue(tree, context, root));
+        assertNotSame(PropertySpecialization.GENERIC, index.getSpecialization());
+        root.put("items", Arrays.asList("1", "2"));
+        assertEquals("2", Ognl.getValue(tree, context, root));
+    }
+
+    @Test
+    void shouldSpecializeBeanGettersAndDeoptimizeOnOtherTypes() throws OgnlException {
+        ASTProperty property = (ASTProperty) Ognl.parseExpression("name");
+        Person person = new Person("ann");
+
+        assertEquals("ann", Ognl.getValue(property, context, person));
+        assertEquals("ann", Ognl.getValue(property, context, person));
+        assertNotSame(PropertySpecialization.GENERIC, property.getSpecialization());
+
+        assertEquals("ognl", Ognl.getValue(property, context, root));
+        assertEquals(2, property.getSpecializationCount());
+        assertEquals("bob", Ognl.getValue(property, context, new Person("bob")));
+        assertEquals("ognl", Ognl.getValue(property, context, root));
+
+        assertEquals("emp", Ognl.getValue(property, context, new Employee("emp")));
+        assertEquals("tree", Ognl.getValue(property, context, new TreeMap<>(Map.of("name", "tree"))));
+        assertEquals(ASTProperty.MAX_SPECIALIZATIONS, property.getSpecializationCount());
+
+        assertEquals("linked", Ognl.getValue(property, context, new LinkedHashMap<>(Map.of("name", "linked"))));
+        assertSame(PropertySpecialization.GENERIC, property.getSpecialization());
+        assertEquals("bob", Ognl.getValue(property, context, new Person("bob")));
+    }
+
+    @Test
+    void shouldKeepSpecializationsOfInternedNodesSeeingSeveralTypes() throws OgnlException {
+        NodeInterner interner = new NodeInterner();
+        Node byPerson = (Node) Ognl.parseExpression("name == 'ann' ? 'yes' : 'no'", interner);
+        Node byMap = (Node) Ognl.parseExpression("name == 'ann' ? a : b", interner);
+        ComparisonExpression equal = (ComparisonExpression) byPerson.jjtGetChild(0);
+        ASTProperty name = (ASTProperty) equal.jjtGetChild(0);
+        assertSame(equal, byMap.jjtGetChild(0));
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals("yes", Ognl.getValue(byPerson, context, new Person("ann")));
+            assertEquals(2, Ognl.getValue(byMap, context, root));
+        }
+        assertEquals(2, name.getSpecializationCount());
+        assertTrue(equal.isSpecialized());
+
+        Node byIntegers = (Node) Ognl.parseExpression("a < b ? 1 : 0", interner);
+        Node byStrings = (Node) Ognl.parseExpression("a < b ? 'lt' : 'ge'", interner);
+        ComparisonExpression less = (ComparisonExpression) byIntegers.jjtGetChild(0);
+        assertSame(less, byStrings.jjtGetChild(0));
+        Map<String, Object> strings = new HashMap<>(Map.of("a", "x", "b", "y"));
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(1, Ognl.getValue(byIntegers, context, root));
+            assertEquals("lt", Ognl.getValue(byStrings, context, strings));
+        }
+        assertTrue(less.isSpecialized());
+    }
+
+    @Test
+    void shouldDeoptimizeWhenPropertyAccessorIsRegistered() throws OgnlException {
+        ASTProperty property = (ASTProperty) Ognl.parseExpression("name");
+        Person person = new Person("ann");
+
+        assertEquals("ann", Ognl.getValue(property, context, person));
+        OgnlRuntime.setPropertyAccessor(Person.class, new ObjectPropertyAccessor());
+        assertEquals("ann", Ognl.getValue(property, context, person));
+        assertSame(PropertySpecialization.GENERIC, property.getSpecialization());
+    }
+
+    @Test
+    void shouldSpecializeIntegerAndStringComparisons() throws OgnlException {
+        ComparisonExpression less = (ComparisonExpression) Ognl.parseExpression("a < b");
+        ComparisonExpression equal = (ComparisonExpression) Ognl.parseExpression("name == 'ognl'");
+
+        assertEquals(Boolean.TRUE, Ognl.getValue(less, context, root));
+        assertEquals(Boolean.TRUE, Ognl.getValue(equal, context, root));
+        assertTrue(less.isSpecialized());
+        assertTrue(equal.isSpecialized());
+
+        root.put("a", 3);
+        root.put("name", "other");
+        assertEquals(Boolean.FALSE, Ognl.getValue(less, context, root));
+        assertEquals(Boolean.FALSE, Ognl.getValue(equal, context, root));
+        assertTrue(less.isSpecialized());
+    }
+
+    @Test
+    void shouldDeoptimizeComparisonsOnOtherTypes() throws OgnlException {
+        Object[][] operands = {{1, 2}, {3L, 2}, {"1", 2}, {1.5, 2}, {2, 2}};
+        String[] expressions = {"a == b", "a != b", "a < b", "a <= b", "a > b", "a >= b"};
+
+        for (String expression : expressions) {
+            Node tree = (Node) Ognl.parseExpression(expression);
+            OgnlContext genericContext = Ognl.createDefaultContext(root, new DefaultMemberAccess(false));
+            for (Object[] values : operands) {
+                root.put("a", values[0]);
+                root.put("b", values[1]);
+                assertEquals(Ognl.getValue(tree, genericContext, root), Ognl.getValue(tree, context, root),
+                        expression + " with " + Arrays.toString(values));
+            }
+            assertFalse(((ComparisonExpression) tree).isSpecialized());
+        }
+    }
+
+    @Test
+    void shouldGiveSameResultsAsGenericEvaluation() throws OgnlException {
+        String[] expressions = {"name", "items[0]", "items.size", "a + b < 4", "name + items[2]", "#this.a == 1",
+                "items[1] == \"y\" ? a : b", "name.length() > 3"};
+        OgnlContext genericContext = Ognl.createDefaultContext(root, new DefaultMemberAccess(false));
+
+        for (String expression : expressions) {
+            Object tree = Ognl.parseExpression(expression);
+            Object expected = Ognl.getValue(tree, genericContext, root);
+            for (int i = 0; i < 3; i++) {
+                assertEquals(expected, Ognl.getValue(tree, context, root), expression);
+            }
+            assertNotNull(expected, expression);
+        }
+    }
+
+    public static class Employee extends Person {
+
+        public Employee(String name) {
+            super(name);
+        }
+    }
+
+    public static class Person {
+
+        private final String name;
+
+        public Person(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+    }
+}
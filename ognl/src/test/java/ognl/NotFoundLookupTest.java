@@ -0,0 +1,105 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ognl;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Tests looking properties and methods up without exceptions for missing ones.
+ */
+class NotFoundLookupTest {
+
+    private OgnlContext context;
+    private Bean bean;
+
+    @BeforeEach
+    void setUp() {
+        bean = new Bean();
+        context = Ognl.createDefaultContext(bean, new DefaultMemberAccess(false));
+    }
+
+    @Test
+    void testFindProperty() throws Exception {
+        assertEquals("value", OgnlRuntime.findProperty(context, bean, "name"));
+        assertSame(OgnlRuntime.NotFound, OgnlRuntime.findProperty(context, bean, "missing"));
+
+        List<String> list = List.of("a", "b");
+        assertEquals(2, OgnlRuntime.findProperty(context, list, "size"));
+        assertEquals("b", OgnlRuntime.findProperty(context, list, 1));
+        assertSame(OgnlRuntime.NotFound, OgnlRuntime.findProperty(context, list, "missing"));
+
+        String[] array = {"a", "b"};
+        assertEquals(2, OgnlRuntime.findProperty(context, array, "length"));
+        assertSame(OgnlRuntime.NotFound, OgnlRuntime.findProperty(context, array, Boolean.TRUE));
+    }
+
+    @Test
+    void testMissingPropertyStillThrows() {
+        NoSuchPropertyException e = assertThrows(NoSuchPropertyException.class, () -> Ognl.getValue("missing", context, bean));
+
+        assertEquals(Bean.class.getName() + ".missing", e.getMessage());
+        assertSame(bean, e.getTarget());
+        assertEquals("missing", e.getName());
+    }
+
+    @Test
+    void testCallPossibleMethod() throws Exception {
+        assertEquals("value!", OgnlRuntime.callPossibleMethod(context, bean, "shout", new Object[]{"!"}));
+        assertSame(OgnlRuntime.NotFound, OgnlRuntime.callPossibleMethod(context, bean, "missing", new Object[0]));
+        assertSame(OgnlRuntime.NotFound, OgnlRuntime.callPossibleMethod(context, bean, "shout", new Object[]{"!", "?"}));
+
+        MethodFailedException e = assertThrows(MethodFailedException.class,
+                () -> OgnlRuntime.callPossibleMethod(context, bean, "fail", new Object[0]));
+        assertInstanceOf(IllegalStateException.class, e.getReason());
+    }
+
+    @Test
+    void testMissingMethodReasonFormattedLazily() {
+        MethodFailedException e = assertThrows(MethodFailedException.class,
+                () -> OgnlRuntime.callMethod(context, bean, "shout", new Object[]{1, null}));
+
+        assertEquals("Method \"shout\" failed for object " + bean, e.getMessage());
+        assertInstanceOf(NoSuchMethodException.class, e.getReason());
+        assertEquals(Bean.class.getName() + ".shout(java.lang.Integer, null)", e.getReason().getMessage());
+        assertEquals(0, e.getReason().getStackTrace().length);
+    }
+
+    public static class Bean {
+
+        public String getName() {
+            return "value";
+        }
+
+        public String shout(String suffix) {
+            return getName() + suffix;
+        }
+
+        public String fail() {
+            throw new IllegalStateException("failed");
+        }
+    }
+}
@@ -18,6 +18,7 @@
  */
 package ognl;
 
+import ognl.internal.entry.DeclaredMethodCacheEntry;
 import ognl.test.objects.BaseGeneric;
 import ognl.test.objects.Bean2;
 import ognl.test.objects.FormImpl;
@@ -40,6 +41,7 @@ import org.junit.jupiter.api.Test;
 
 import java.beans.PropertyDescriptor;
 import java.io.Serializable;
+import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
 import java.util.Arrays;
@@ -156,6 +158,31 @@ class OgnlRuntimeMethodsTest {
         assertEquals("isNotAvailable", m.getName());
     }
 
+    @Test
+    void test_Read_And_Write_Methods_Are_Cached() {
+        Method read = OgnlRuntime.getReadMethod(TestGetters.class, "disabled");
+        Method write = OgnlRuntime.getWriteMethod(Root.class, "intValue");
+
+        assertSame(read, OgnlRuntime.getReadMethod(TestGetters.class, "DISABLED"));
+        assertSame(read, OgnlRuntime.getReadMethod(TestGetters.class, "\"disabled\""));
+        assertSame(write, OgnlRuntime.getWriteMethod(Root.class, "intValue"));
+        assertEquals("setIntValue", write.getName());
+    }
+
+    @Test
+    void test_Missing_Read_And_Write_Methods_Are_Cached() {
+        long size = OgnlRuntime.getCacheStatistics().getSize();
+
+        assertNull(OgnlRuntime.getReadMethod(TestGetters.class, "missing"));
+        assertNull(OgnlRuntime.getWriteMethod(TestGetters.class, "missing"));
+        long cached = OgnlRuntime.getCacheStatistics().getSize();
+        assertTrue(cached > size);
+
+        assertNull(OgnlRuntime.getReadMethod(TestGetters.class, "missing"));
+        assertNull(OgnlRuntime.getWriteMethod(TestGetters.class, "missing"));
+        assertEquals(cached, OgnlRuntime.getCacheStatistics().getSize());
+    }
+
     @Test
     void test_Find_Method_Mixed_Boolean_Getters() {
         Method m = OgnlRuntime.getReadMethod(GetterMethods.class, "allowDisplay");
@@ -208,7 +235,7 @@ class OgnlRuntimeMethodsTest {
     void test_Class_Cache_Inspector() throws Exception {
         OgnlRuntime.clearCache();
         OgnlRuntime.clearAdditionalCache();  // Testing no exception only.
-        assertEquals(0, OgnlRuntime.cache.propertyDescriptorCache.getSize());
+        assertEquals(0, OgnlRuntime.cache.classMetadataCache.getSize());
         assertEquals(0, OgnlRuntime.cache.genericMethodParameterTypesCache.getSize());
 
         Root root = new Root();
@@ -217,12 +244,12 @@ class OgnlRuntimeMethodsTest {
 
         assertTrue((Boolean) expr.getAccessor().get(context, root));
 
-        int size = OgnlRuntime.cache.propertyDescriptorCache.getSize();
+        int size = OgnlRuntime.cache.classMetadataCache.getSize();
         assertTrue(size > 0);
 
         OgnlRuntime.clearCache();
         OgnlRuntime.clearAdditionalCache();  // Testing no exception only.
-        assertEquals(0, OgnlRuntime.cache.propertyDescriptorCache.getSize());
+        assertEquals(0, OgnlRuntime.cache.classMetadataCache.getSize());
         assertEquals(0, OgnlRuntime.cache.genericMethodParameterTypesCache.getSize());
 
         // now register class cache prevention
@@ -232,7 +259,27 @@ class OgnlRuntimeMethodsTest {
         expr = Ognl.compileExpression(context, root, "property.bean3.value != null");
         assertTrue((Boolean) expr.getAccessor().get(context, root));
 
-        assertEquals((size - 1), OgnlRuntime.cache.propertyDescriptorCache.getSize());
+        assertEquals((size - 1), OgnlRuntime.cache.classMetadataCache.getSize());
+    }
+
+    @Test
+    void test_Class_Cache_Inspector_Keeps_Member_Caches() throws Exception {
+        OgnlRuntime.clearCache();
+        OgnlRuntime.setClassCacheInspector(new TestCacheInspector());
+        try {
+            Method method = Root.class.getMethod("getProperty");
+            Constructor<?> constructor = Root.class.getConstructor();
+
+            Class<?>[] parameterTypes = OgnlRuntime.getParameterTypes(method);
+            assertSame(parameterTypes, OgnlRuntime.getParameterTypes(method));
+            assertSame(OgnlRuntime.getParameterTypes(constructor), OgnlRuntime.getParameterTypes(constructor));
+            DeclaredMethodCacheEntry key = new DeclaredMethodCacheEntry(Root.class, DeclaredMethodCacheEntry.MethodType.NON_STATIC);
+            assertSame(OgnlRuntime.cache.getMethod(key), OgnlRuntime.cache.getMethod(key));
+
+            assertEquals(0, OgnlRuntime.cache.classMetadataCache.getSize());
+        } finally {
+            OgnlRuntime.setClassCacheInspector(null);
+        }
     }
 
     static class TestCacheInspector implements ClassCacheInspector {
@@ -24,9 +24,15 @@ import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
@@ -184,6 +190,76 @@ public class OgnlRuntimeTest {
         }
     }
 
+    /**
+     * Test that classes and methods denied by the user are blocked under stricter invocation mode, including
+     * methods whose invocation has already been allowed before.
+     */
+    @Test
+    void testStricterInvocationBlocksUserDeniedMembers() throws Exception {
+        if (OgnlRuntime.getUseStricterInvocationValue()) {
+            final Method greet = InvocationTarget.class.getMethod("greet");
+            final Method shutdown = InvocationTarget.class.getMethod("shutdown");
+            final Method run = DeniedService.class.getMethod("run");
+            final InvocationTarget target = new InvocationTarget();
+
+            assertEquals("hello", OgnlRuntime.invokeMethod(target, greet, new Object[0]));
+            assertEquals("shutdown", OgnlRuntime.invokeMethod(target, shutdown, new Object[0]));
+
+            OgnlRuntime.addStricterInvocationDeniedMethod(shutdown);
+            OgnlRuntime.addStricterInvocationDeniedClass(DeniedService.class);
+
+            assertEquals("hello", OgnlRuntime.invokeMethod(target, greet, new Object[0]));
+            assertThrows(IllegalAccessException.class, () -> OgnlRuntime.invokeMethod(target, shutdown, new Object[0]));
+            assertThrows(IllegalAccessException.class, () -> OgnlRuntime.invokeMethod(new DeniedServiceImpl(), run, new Object[0]));
+            assertThrows(IllegalAccessException.class, () -> OgnlRuntime.invokeMethod(new DeniedServiceImpl(),
+                    DeniedServiceImpl.class.getMethod("run"), new Object[0]));
+        }
+    }
+
+    /**
+     * Test that a verdict decided before a method was denied is not used, even while it is still cached.
+     */
+    @Test
+    void testStricterInvocationIgnoresVerdictsOfPreviousDenials() throws Exception {
+        if (OgnlRuntime.getUseStricterInvocationValue()) {
+            final Method halt = InvocationTarget.class.getMethod("halt");
+            final InvocationTarget target = new InvocationTarget();
+
+            assertEquals("halt", OgnlRuntime.invokeMethod(target, halt, new Object[0]));
+            OgnlRuntime.MethodInvocationVerdict allowed = OgnlRuntime._methodAccessCache.get(halt);
+            assertEquals(OgnlRuntime.MethodInvocation.DIRECT, allowed.invocation());
+
+            OgnlRuntime.addStricterInvocationDeniedMethod(halt);
+            // as written by a thread which decided before the denial
+            OgnlRuntime._methodAccessCache.put(halt, allowed);
+
+            assertThrows(IllegalAccessException.class, () -> OgnlRuntime.invokeMethod(target, halt, new Object[0]));
+        }
+    }
+
+    public static class InvocationTarget {
+        public String greet() {
+            return "hello";
+        }
+
+        public String shutdown() {
+            return "shutdown";
+        }
+
+        public String halt() {
+            return "halt";
+        }
+    }
+
+    public interface DeniedService {
+        void run();
+    }
+
+    public static class DeniedServiceImpl implements DeniedService {
+        public void run() {
+        }
+    }
+
     /**
      * Test that AccessibleObjectHandler default method works correctly.
      */
@@ -195,6 +271,36 @@ public class OgnlRuntimeTest {
         assertTrue(method.canAccess("test"), "Method should be accessible after setAccessible(true)");
     }
 
+    /**
+     * Test that concurrent invocations of an inaccessible method never make the shared method accessible.
+     */
+    @Test
+    @SuppressWarnings("deprecation")
+    void testInaccessibleMethodInvokedThroughCopy() throws Exception {
+        Method secret = PrivateTarget.class.getDeclaredMethod("secret", int.class);
+        PrivateTarget target = new PrivateTarget();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Object>> results = new ArrayList<>();
+            for (int i = 0; i < 100; i++) {
+                int value = i;
+                results.add(executor.submit(() -> OgnlRuntime.invokeMethod(target, secret, new Object[]{value})));
+            }
+            for (int i = 0; i < results.size(); i++) {
+                assertEquals("secret " + i, results.get(i).get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertFalse(secret.isAccessible());
+    }
+
+    public static class PrivateTarget {
+        private String secret(int value) {
+            return "secret " + value;
+        }
+    }
+
     /**
      * Test OgnlRuntime value for _useFirstMatchGetSetLookup based on the System property
      * represented by {@link OgnlRuntime#USE_FIRSTMATCH_GETSET_LOOKUP}.
@@ -0,0 +1,178 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ognl;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests memoizing the results of read-only expressions per root.
+ */
+class ResultCacheTest {
+
+    private OgnlContext context;
+    private Bean bean;
+
+    @BeforeEach
+    void setUp() {
+        bean = new Bean();
+        context = Ognl.createDefaultContext(bean, new DefaultMemberAccess(false));
+    }
+
+    @Test
+    void testReusesResultForSameRoot() throws Exception {
+        Object tree = Ognl.parseExpression("items.{? #this.length() > 1}.size() + ' of ' + name");
+
+        assertEquals("2 of bean", Ognl.getValueCached(tree, context, bean));
+        assertEquals("2 of bean", Ognl.getValueCached(tree, context, bean));
+        assertEquals(1, bean.reads);
+
+        Bean other = new Bean();
+        assertEquals("2 of bean", Ognl.getValueCached(tree, Ognl.createDefaultContext(other, context.getMemberAccess()), other));
+        assertEquals(1, other.reads);
+    }
+
+    @Test
+    void testReusesResultAcrossDefaultContexts() throws Exception {
+        Object tree = Ognl.parseExpression("items.size()");
+
+        OgnlContext first = Ognl.createDefaultContext(bean);
+        OgnlContext second = Ognl.createDefaultContext(bean);
+
+        assertEquals(3, Ognl.getValueCached(tree, first, bean));
+        assertEquals(3, Ognl.getValueCached(tree, second, bean));
+        assertEquals(1, bean.reads);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testEvaluatesMutableResultsEveryTime() throws Exception {
+        Object tree = Ognl.parseExpression("items.{? #this.length() > 1}");
+
+        List<Object> first = (List<Object>) Ognl.getValueCached(tree, context, bean);
+        first.add("changed");
+        Object second = Ognl.getValueCached(tree, context, bean);
+
+        assertEquals(List.of("bb", "ccc"), second);
+        assertNotSame(first, second);
+        assertEquals(2, bean.reads);
+
+        Object containing = Ognl.parseExpression("{#this}");
+        assertNotSame(Ognl.getValueCached(containing, context, bean), Ognl.getValueCached(containing, context, bean));
+    }
+
+    @Test
+    void testEvaluatesMethodsOfOtherTypesEveryTime() throws Exception {
+        Object tree = Ognl.parseExpression("size()");
+        assertTrue(MemoizedResults.isReadOnly((Node) tree, context));
+
+        assertEquals(1, Ognl.getValueCached(tree, context, bean));
+        assertEquals(2, Ognl.getValueCached(tree, context, bean));
+
+        Object mixed = Ognl.parseExpression("items.size() + size()");
+        assertEquals(6, Ognl.getValueCached(mixed, context, bean));
+        assertEquals(7, Ognl.getValueCached(mixed, context, bean));
+    }
+
+    @Test
+    void testEvaluatesAgainWhenVersionChanges() throws Exception {
+        OgnlRuntime.setRootVersionProvider(VersionedBean.class, root -> ((VersionedBean) root).version);
+        VersionedBean versioned = new VersionedBean();
+        context = Ognl.createDefaultContext(versioned, new DefaultMemberAccess(false));
+        Object tree = Ognl.parseExpression("items.size()");
+
+        assertEquals(3, Ognl.getValueCached(tree, context, versioned));
+        assertEquals(3, Ognl.getValueCached(tree, context, versioned));
+        assertEquals(1, versioned.reads);
+
+        versioned.items.add("dddd");
+        versioned.version++;
+        assertEquals(4, Ognl.getValueCached(tree, context, versioned));
+        assertEquals(2, versioned.reads);
+    }
+
+    @Test
+    void testEvaluatesWritingExpressionsEveryTime() throws Exception {
+        context.put("suffix", "!");
+        for (String expression : new String[]{"items.add('e')", "name = 'other'", "name + #suffix", "new java.util.ArrayList(items)"}) {
+            Node tree = (Node) Ognl.parseExpression(expression);
+            assertFalse(MemoizedResults.isReadOnly(tree, context), expression);
+
+            int reads = bean.reads;
+            Ognl.getValueCached(tree, context, bean);
+            Ognl.getValueCached(tree, context, bean);
+            assertEquals(expression.startsWith("name") ? reads : reads + 2, bean.reads, expression);
+        }
+        assertEquals("other!", Ognl.getValueCached(Ognl.parseExpression("name + #suffix"), context, bean));
+    }
+
+    @Test
+    void testReadOnlyExpressions() throws Exception {
+        for (String expression : new String[]{"items[0].length()", "items.{#this.toUpperCase()}", "#root.name",
+                "name == 'bean' ? items.size() : 0", "#{'a': name}", "@Integer@MAX_VALUE > items.size()"}) {
+            assertTrue(MemoizedResults.isReadOnly((Node) Ognl.parseExpression(expression), context), expression);
+        }
+    }
+
+    @Test
+    void testEvaluatesAgainForOtherMemberAccess() throws Exception {
+        Object tree = Ognl.parseExpression("items.size()");
+
+        assertEquals(3, Ognl.getValueCached(tree, context, bean));
+        assertEquals(3, Ognl.getValueCached(tree, Ognl.createDefaultContext(bean, new DefaultMemberAccess(true)), bean));
+        assertEquals(2, bean.reads);
+    }
+
+    public static class Bean {
+        final List<String> items = new ArrayList<>(List.of("a", "bb", "ccc"));
+        String name = "bean";
+        int reads;
+        int calls;
+
+        public int size() {
+            return ++calls;
+        }
+
+        public List<String> getItems() {
+            reads++;
+            return items;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+    }
+
+    public static class VersionedBean extends Bean {
+        long version;
+    }
+}
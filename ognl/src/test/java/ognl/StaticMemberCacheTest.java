@@ -0,0 +1,158 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ognl;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.annotation.RetentionPolicy;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StaticMemberCacheTest {
+
+    private OgnlContext context;
+
+    @BeforeEach
+    void setUp() {
+        context = Ognl.createDefaultContext(null, new DefaultMemberAccess(false));
+        Util.counter = 0;
+    }
+
+    @Test
+    void shouldReuseResolvedStaticMethod() throws OgnlException {
+        ASTStaticMethod node = (ASTStaticMethod) Ognl.parseExpression("@ognl.StaticMemberCacheTest$Util@twice(#x)");
+
+        context.put("x", 2);
+        assertEquals("int 4", Ognl.getValue(node, context, (Object) null));
+        ResolvedStaticMethod resolved = node.getResolvedMethod();
+        context.put("x", 3);
+        assertEquals("int 6", Ognl.getValue(node, context, (Object) null));
+        assertSame(resolved, node.getResolvedMethod());
+
+        context.put("x", 3L);
+        assertEquals("long 6", Ognl.getValue(node, context, (Object) null));
+        context.put("x", "5");
+        assertEquals("String 55", Ognl.getValue(node, context, (Object) null));
+        context.put("x", 5);
+        assertEquals("int 10", Ognl.getValue(node, context, (Object) null));
+    }
+
+    @Test
+    void shouldNotKeepMethodsNeedingConversion() throws OgnlException {
+        ASTStaticMethod node = (ASTStaticMethod) Ognl.parseExpression("@ognl.StaticMemberCacheTest$Util@half(#x)");
+
+        context.put("x", "8");
+        assertEquals(4, Ognl.getValue(node, context, (Object) null));
+        assertNull(node.getResolvedMethod());
+    }
+
+    @Test
+    void shouldCheckAccessOnEachCall() throws Exception {
+        ExcludedObjectMemberAccess memberAccess = new ExcludedObjectMemberAccess(false);
+        OgnlContext restricted = Ognl.createDefaultContext(null, memberAccess);
+        Node method = (Node) Ognl.parseExpression("@ognl.StaticMemberCacheTest$Util@half(8)");
+        Node field = (Node) Ognl.parseExpression("@ognl.StaticMemberCacheTest$Util@counter");
+
+        assertEquals(4, Ognl.getValue(method, restricted, (Object) null));
+        assertEquals(0, Ognl.getValue(field, restricted, (Object) null));
+
+        memberAccess.exclude(Util.class.getMethod("half", int.class));
+        memberAccess.exclude(Util.class.getField("counter"));
+        assertThrows(MethodFailedException.class, () -> Ognl.getValue(method, restricted, (Object) null));
+        assertThrows(OgnlException.class, () -> Ognl.getValue(field, restricted, (Object) null));
+        assertEquals(4, Ognl.getValue(method, context, (Object) null));
+        assertEquals(0, Ognl.getValue(field, context, (Object) null));
+    }
+
+    @Test
+    void shouldReadResolvedFieldOnEachAccess() throws Exception {
+        ASTStaticField limit = (ASTStaticField) Ognl.parseExpression("@ognl.StaticMemberCacheTest$Util@LIMIT");
+        ASTStaticField counter = (ASTStaticField) Ognl.parseExpression("@ognl.StaticMemberCacheTest$Util@counter");
+
+        assertEquals(10, Ognl.getValue(limit, context, (Object) null));
+        assertTrue(limit.isNodeConstant(context));
+
+        assertEquals(0, Ognl.getValue(counter, context, (Object) null));
+        ResolvedStaticField resolved = counter.getResolvedField();
+        Util.counter = 3;
+        assertEquals(3, Ognl.getValue(counter, context, (Object) null));
+        assertFalse(counter.isNodeConstant(context));
+        assertSame(resolved, counter.getResolvedField());
+        assertEquals(Util.class.getField("counter"), resolved.getField());
+    }
+
+    @Test
+    void shouldResolveClassesAndEnumConstants() throws OgnlException {
+        assertSame(Util.class, Ognl.getValue("@ognl.StaticMemberCacheTest$Util@class", context, (Object) null));
+        assertSame(RetentionPolicy.RUNTIME,
+                Ognl.getValue("@java.lang.annotation.RetentionPolicy@RUNTIME", context, (Object) null));
+        assertThrows(OgnlException.class,
+                () -> Ognl.getValue("@ognl.StaticMemberCacheTest$Util@missing", context, (Object) null));
+        assertThrows(OgnlException.class,
+                () -> Ognl.getValue("@ognl.StaticMemberCacheTest$Util@hidden", context, (Object) null));
+    }
+
+    @Test
+    void shouldFollowMethodAccessorChanges() throws OgnlException {
+        Node node = (Node) Ognl.parseExpression("@ognl.StaticMemberCacheTest$Util@half(8)");
+        assertEquals(4, Ognl.getValue(node, context, (Object) null));
+
+        OgnlRuntime.setMethodAccessor(Util.class, new ObjectMethodAccessor() {
+            @Override
+            public Object callStaticMethod(OgnlContext context, Class targetClass, String methodName, Object[] args) {
+                return "custom";
+            }
+        });
+        try {
+            assertEquals("custom", Ognl.getValue(node, context, (Object) null));
+        } finally {
+            OgnlRuntime.setMethodAccessor(Util.class, new ObjectMethodAccessor());
+        }
+        assertEquals(4, Ognl.getValue(node, context, (Object) null));
+    }
+
+    public static class Util {
+
+        public static final int LIMIT = 10;
+        public static int counter;
+        private static final String hidden = "hidden";
+
+        public static String twice(int x) {
+            return "int " + (x * 2);
+        }
+
+        public static String twice(long x) {
+            return "long " + (x * 2);
+        }
+
+        public static String twice(String x) {
+            return "String " + x + x;
+        }
+
+        public static int half(int x) {
+            return x / 2;
+        }
+    }
+}
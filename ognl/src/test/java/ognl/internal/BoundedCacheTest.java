@@ -0,0 +1,118 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ognl.internal;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class BoundedCacheTest {
+
+    @Test
+    void valuesAreCreatedOnce() {
+        BoundedCache<String, String> cache = new BoundedCache<>(key -> new String(key), 0);
+
+        assertSame(cache.get("a"), cache.get("a"));
+        assertEquals(1, cache.getSize());
+
+        cache.clear();
+        assertEquals(0, cache.getSize());
+    }
+
+    @Test
+    void entriesAreEvictedOnceTheBoundIsExceeded() {
+        BoundedCache<String, String> cache = new BoundedCache<>(null, 2);
+
+        assertNull(cache.get("a"));
+        cache.put("a", "1");
+        cache.put("b", "2");
+        cache.put("a", "3");
+        assertEquals(2, cache.getSize());
+        assertEquals(0, cache.getStatistics().getEvictionCount());
+
+        cache.put("c", "4");
+        assertEquals(2, cache.getSize());
+        assertEquals("4", cache.get("c"));
+        assertEquals(1, cache.getStatistics().getEvictionCount());
+    }
+
+    @Test
+    void leastRecentlyUsedEntriesAreEvicted() {
+        BoundedCache<String, String> cache = new BoundedCache<>(key -> key.toUpperCase(), 2);
+
+        cache.get("a");
+        cache.get("b");
+        cache.get("a");
+        cache.get("c");
+
+        assertEquals(2, cache.getSize());
+        assertEquals(1, cache.getStatistics().getEvictionCount());
+        cache.get("a");
+        assertEquals(1, cache.getStatistics().getEvictionCount());
+        cache.get("b");
+        assertEquals(2, cache.getStatistics().getEvictionCount());
+    }
+
+    @Test
+    void entriesReadBetweenEvictionsAreKept() {
+        BoundedCache<Integer, Integer> cache = new BoundedCache<>(key -> key, 100);
+
+        for (int i = 0; i < 10_000; i++) {
+            cache.get(i);
+            cache.get(0);
+        }
+        assertEquals(100, cache.getSize());
+        assertEquals(9_900, cache.getStatistics().getEvictionCount());
+        cache.get(0);
+        assertEquals(9_900, cache.getStatistics().getEvictionCount());
+    }
+
+    @Test
+    void concurrentReadersShareOneEntry() throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        BoundedCache<String, String> cache = new BoundedCache<>(key -> new String(key.toUpperCase()), 10);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return cache.get("expression");
+                }));
+            }
+            start.countDown();
+            String shared = cache.get("expression");
+            for (Future<String> result : results) {
+                assertSame(shared, result.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(1, cache.getSize());
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ognl.internal;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.ref.WeakReference;
+import java.net.URL;
+import java.net.URLClassLoader;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class ClassLoaderAwareClassCacheTest {
+
+    @Test
+    void classesOfOgnlLoaderArePinned() throws Exception {
+        assertTrue(ClassLoaderAwareClassCache.isPinned(String.class));
+        assertTrue(ClassLoaderAwareClassCache.isPinned(Bean.class));
+
+        try (URLClassLoader loader = newIsolatedLoader()) {
+            Class<?> isolated = loader.loadClass(Bean.class.getName());
+
+            assertNotSame(Bean.class, isolated);
+            assertFalse(ClassLoaderAwareClassCache.isPinned(isolated));
+        }
+    }
+
+    @Test
+    void valuesAreCachedForBothKindsOfClasses() throws Exception {
+        ClassLoaderAwareClassCache<String> cache = new ClassLoaderAwareClassCache<>(type -> new String(type.getName()));
+
+        try (URLClassLoader loader = newIsolatedLoader()) {
+            Class<?> isolated = loader.loadClass(Bean.class.getName());
+
+            assertSame(cache.get(Bean.class), cache.get(Bean.class));
+            assertSame(cache.get(isolated), cache.get(isolated));
+            assertEquals(2, cache.getSize());
+
+            cache.clear();
+
+            assertEquals(0, cache.getSize());
+            assertEquals(Bean.class.getName(), cache.get(isolated));
+        }
+    }
+
+    @Test
+    void nullKeysAreNotCached() {
+        ClassLoaderAwareClassCache<String> classCache = new ClassLoaderAwareClassCache<>(Class::getName);
+        assertNull(classCache.get(null));
+        assertEquals("value", classCache.put(null, "value"));
+        assertEquals(0, classCache.getSize());
+
+        ClassLoaderAwareCache<String, String> cache = new ClassLoaderAwareCache<>(key -> null, String::toUpperCase);
+        assertEquals("KEY", cache.get("key"));
+        assertEquals("value", cache.put("key", "value"));
+        assertEquals(0, cache.getSize());
+    }
+
+    @Test
+    void sizeBoundEvictsEntries() {
+        ClassLoaderAwareClassCache<String> cache = new ClassLoaderAwareClassCache<>(Class::getName, 2);
+
+        cache.get(String.class);
+        cache.get(Integer.class);
+        cache.get(Long.class);
+
+        CacheStatistics statistics = cache.getStatistics();
+        assertEquals(2, statistics.getSize());
+        assertEquals(1, statistics.getEvictionCount());
+        assertEquals("java.lang.Long", cache.get(Long.class));
+    }
+
+    @Test
+    void entriesOfUnloadedClassesAreDropped() throws Exception {
+        ClassLoaderAwareClassCache<String> cache = new ClassLoaderAwareClassCache<>(Class::getName);
+        WeakReference<ClassLoader> loader = cacheIsolatedClass(cache);
+        assertEquals(1, cache.getSize());
+
+        for (int i = 0; i < 50 && loader.get() != null; i++) {
+            System.gc();
+            Thread.sleep(20);
+        }
+        assumeTrue(loader.get() == null, "class loader was not collected");
+
+        for (int i = 0; i < 50 && cache.getSize() > 0; i++) {
+            System.gc();
+            Thread.sleep(20);
+        }
+        assertEquals(0, cache.getSize());
+        assertEquals(1, cache.getStatistics().getUnloadCount());
+    }
+
+    private static WeakReference<ClassLoader> cacheIsolatedClass(ClassCache<String> cache) throws Exception {
+        try (URLClassLoader loader = newIsolatedLoader()) {
+            cache.get(loader.loadClass(Bean.class.getName()));
+            return new WeakReference<>(loader);
+        }
+    }
+
+    private static URLClassLoader newIsolatedLoader() {
+        URL location = Bean.class.getProtectionDomain().getCodeSource().getLocation();
+        return new URLClassLoader(new URL[]{location}, null);
+    }
+
+    public static class Bean {
+    }
+
+}
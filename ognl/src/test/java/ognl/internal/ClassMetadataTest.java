@@ -0,0 +1,107 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ognl.internal;
+
+import ognl.internal.entry.DeclaredMethodCacheEntry;
+import ognl.test.objects.Root;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ClassMetadataTest {
+
+    @Test
+    void compactMapBehavesLikeSourceMap() {
+        Map<String, Integer> source = new HashMap<>();
+        for (int i = 0; i < 100; i++) {
+            source.put("key" + i, i);
+        }
+
+        Map<String, Integer> compact = CompactMap.copyOfInterned(source);
+
+        assertEquals(source, compact);
+        assertEquals(source.hashCode(), compact.hashCode());
+        assertEquals(42, compact.get(new String("key42")));
+        assertNull(compact.get("missing"));
+        assertNull(compact.get(null));
+        assertThrows(UnsupportedOperationException.class, () -> compact.put("other", 1));
+    }
+
+    @Test
+    void sectionsAreBuiltOnceAndShared() {
+        ClassMetadata metadata = new ClassMetadata(Root.class);
+
+        assertSame(metadata.getFields(), metadata.getFields());
+        assertSame(metadata.getPropertyDescriptors(), metadata.getPropertyDescriptors());
+        assertSame(metadata.getConstructors(), metadata.getConstructors());
+        assertSame(metadata.getMethods(null), metadata.getMethods(null));
+        assertNotNull(metadata.getPropertyDescriptors().get("map"));
+    }
+
+    @Test
+    void staticAndInstanceMethodsArePartitioned() throws Exception {
+        ClassMetadata metadata = new ClassMetadata(Integer.class);
+
+        List<Method> statics = metadata.getMethods(DeclaredMethodCacheEntry.MethodType.STATIC).get("valueOf");
+        List<Method> instances = metadata.getMethods(DeclaredMethodCacheEntry.MethodType.NON_STATIC).get("intValue");
+
+        assertNotNull(statics);
+        assertNotNull(instances);
+        assertNull(metadata.getMethods(DeclaredMethodCacheEntry.MethodType.NON_STATIC).get("valueOf"));
+        assertTrue(metadata.getMethods(null).get("valueOf").containsAll(statics));
+    }
+
+    @Test
+    void publicMethodsAreFoundByLowerCaseNames() {
+        ClassMetadata metadata = new ClassMetadata(Root.class);
+        List<Method> all = List.of(Root.class.getMethods());
+
+        List<Method> found = metadata.getPublicMethods("intvalue", "getintvalue", "setintvalue");
+
+        assertEquals(2, found.size());
+        for (int i = 1; i < found.size(); i++) {
+            assertTrue(all.indexOf(found.get(i - 1)) < all.indexOf(found.get(i)));
+        }
+        assertEquals(List.of(), metadata.getPublicMethods("missing"));
+        assertEquals("setIntValue", metadata.getBeanMethods("setintvalue").get(0).getName());
+    }
+
+    @Test
+    void parameterTypesAreCached() throws Exception {
+        ClassMetadata metadata = new ClassMetadata(String.class);
+        Method method = String.class.getMethod("substring", int.class, int.class);
+
+        Class<?>[] parameterTypes = metadata.getParameterTypes(method);
+
+        assertArrayEquals(new Class<?>[]{int.class, int.class}, parameterTypes);
+        assertSame(parameterTypes, metadata.getParameterTypes(String.class.getMethod("substring", int.class, int.class)));
+    }
+
+}
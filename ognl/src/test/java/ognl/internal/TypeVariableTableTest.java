@@ -0,0 +1,87 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ognl.internal;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.Serializable;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TypeVariableTableTest {
+
+    @Test
+    void bindsVariablesThroughSuperclasses() throws Exception {
+        TypeVariableTable table = TypeVariableTable.of(Leaf.class);
+        Method put = Base.class.getMethod("put", Object.class, Object[].class, Object.class);
+
+        assertTrue(table.hasBindings());
+        assertArrayEquals(new Class<?>[]{String.class, Integer[].class, Integer.class}, table.resolveParameterTypes(put));
+        assertSame(table, TypeVariableTable.of(Leaf.class));
+    }
+
+    @Test
+    void bindsVariablesOfInterfaces() throws Exception {
+        TypeVariableTable table = TypeVariableTable.of(Leaf.class);
+        Method accept = Consumer.class.getMethod("accept", Object.class);
+
+        assertArrayEquals(new Class<?>[]{Long.class}, table.resolveParameterTypes(accept));
+    }
+
+    @Test
+    void keepsErasedTypesOfUnboundVariables() throws Exception {
+        TypeVariableTable table = TypeVariableTable.of(ArrayList.class);
+        Method add = ArrayList.class.getMethod("add", Object.class);
+
+        assertArrayEquals(new Class<?>[]{Object.class}, table.resolveParameterTypes(add));
+        assertFalse(TypeVariableTable.of(String.class).getSupertypes().isEmpty());
+        assertFalse(TypeVariableTable.of(Object.class).hasBindings());
+    }
+
+    @Test
+    void listsSupertypesInterfacesFirst() {
+        List<Class<?>> supertypes = TypeVariableTable.of(Leaf.class).getSupertypes();
+
+        assertEquals(List.of(Serializable.class, Consumer.class, Object.class, Base.class, Middle.class, Leaf.class), supertypes);
+    }
+
+    public static class Base<K, V, X> {
+        public void put(K key, V[] values, X extra) {
+        }
+    }
+
+    public static class Middle<T> extends Base<String, T, T> {
+    }
+
+    public interface Consumer<C> {
+        void accept(C value);
+    }
+
+    public static class Leaf<U> extends Middle<Integer> implements Serializable, Consumer<Long> {
+        public void accept(Long value) {
+        }
+    }
+}
@@ -53,9 +53,8 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
  * Addresses <a href="https://github.com/orphan-oss/ognl/issues/18">Issue #18</a>.
  *
  * <p>Tests marked {@code @Disabled} document known divergences between the interpreted and compiled
- * evaluation paths. The compiler generates Java source code (via javassist), which cannot represent
- * BigDecimal/BigInteger arithmetic using operators, and has other limitations around instanceof
- * and method calls on auto-boxed primitives.</p>
+ * evaluation paths. The compiler generates Java source code (via javassist), which has limitations
+ * around mixed bitwise operand types and method calls on auto-boxed primitives.</p>
  */
 class DualModeEvaluationTest {
 
@@ -191,7 +190,6 @@ class DualModeEvaluationTest {
     }
 
     @Nested
-    @Disabled("Compiler does not support BigDecimal: Java operators (+, -, *, /) cannot be applied to BigDecimal objects in generated source")
     class BigDecimalArithmetic {
 
         @Test
@@ -236,7 +234,6 @@ class DualModeEvaluationTest {
     }
 
     @Nested
-    @Disabled("Compiler does not support BigInteger: Java operators cannot be applied to BigInteger objects in generated source")
     class BigIntegerArithmetic {
 
         @Test
@@ -280,6 +277,81 @@ class DualModeEvaluationTest {
         }
     }
 
+    @Nested
+    class BigNumberProperties {
+
+        private Simple simpleRoot;
+        private OgnlContext simpleContext;
+
+        @BeforeEach
+        void setUp() {
+            simpleRoot = new Simple();
+            simpleRoot.setBigDecValue(new BigDecimal("19.99"));
+            simpleRoot.setBigIntValue(BigInteger.valueOf(12));
+            simpleContext = Ognl.createDefaultContext(simpleRoot, new DefaultMemberAccess(false));
+        }
+
+        private void assertSimpleBothModes(String expression, Object expected) throws Exception {
+            Object tree = Ognl.parseExpression(expression);
+            Object interpreted = ((Node) tree).getValue(simpleContext.withRoot(simpleRoot), simpleRoot);
+            assertEquals(expected, interpreted, "Interpreted failed for: " + expression);
+
+            OgnlContext compiledCtx = Ognl.createDefaultContext(simpleRoot, simpleContext.getMemberAccess());
+            Node compiled = Ognl.compileExpression(compiledCtx, simpleRoot, expression);
+            Object compiledResult = compiled.getAccessor().get(compiledCtx, simpleRoot);
+            assertEquals(expected, compiledResult, "Compiled failed for: " + expression);
+        }
+
+        @Test
+        void arithmetic() throws Exception {
+            assertSimpleBothModes("bigDecValue + 0.01", new BigDecimal("20.00"));
+            assertSimpleBothModes("bigDecValue * 3", new BigDecimal("59.97"));
+            assertSimpleBothModes("bigDecValue - bigDecValue * 2", new BigDecimal("-19.99"));
+            assertSimpleBothModes("bigDecValue / 2", new BigDecimal("10.00"));
+            assertSimpleBothModes("-bigDecValue", new BigDecimal("-19.99"));
+        }
+
+        @Test
+        void bigIntegerArithmetic() throws Exception {
+            assertSimpleBothModes("bigIntValue * 2 + 1", BigInteger.valueOf(25));
+            assertSimpleBothModes("bigIntValue % 5", BigInteger.valueOf(2));
+            assertSimpleBothModes("bigIntValue / 5", BigInteger.valueOf(2));
+            assertSimpleBothModes("bigIntValue << 2", BigInteger.valueOf(48));
+        }
+
+        @Test
+        void mixedOperandsAreWidened() throws Exception {
+            assertSimpleBothModes("bigIntValue * 1.5", new BigDecimal("18.0"));
+            assertSimpleBothModes("bigIntValue + bigDecValue", new BigDecimal("31.99"));
+            assertSimpleBothModes("bigDecValue % 7", BigInteger.valueOf(5));
+            assertSimpleBothModes("1 + 2 + bigDecValue", new BigDecimal("22.99"));
+        }
+
+        @Test
+        void comparisons() throws Exception {
+            assertSimpleBothModes("bigDecValue > 10", Boolean.TRUE);
+            assertSimpleBothModes("bigDecValue < bigIntValue", Boolean.FALSE);
+            assertSimpleBothModes("bigIntValue >= 12", Boolean.TRUE);
+            assertSimpleBothModes("bigIntValue <= 11.5", Boolean.FALSE);
+            assertSimpleBothModes("bigDecValue == 19.99", Boolean.TRUE);
+        }
+
+        @Test
+        void comparisonsOfNullBigNumbers() throws Exception {
+            for (String expression : new String[]{"bigDecValue > 1", "bigDecValue < 1", "bigIntValue >= 12",
+                    "bigIntValue < 1", "bigDecValue <= bigIntValue", "bigIntValue > 0.5"}) {
+                setUp();
+                OgnlContext compiledCtx = Ognl.createDefaultContext(simpleRoot, simpleContext.getMemberAccess());
+                Node compiled = Ognl.compileExpression(compiledCtx, simpleRoot, expression);
+
+                simpleRoot.setBigDecValue(null);
+                simpleRoot.setBigIntValue(null);
+                Object interpreted = ((Node) Ognl.parseExpression(expression)).getValue(simpleContext.withRoot(simpleRoot), simpleRoot);
+                assertEquals(interpreted, compiled.getAccessor().get(compiledCtx, simpleRoot), "Modes diverged for: " + expression);
+            }
+        }
+    }
+
     @Nested
     class IntegerArithmetic {
 
@@ -418,19 +490,16 @@ class DualModeEvaluationTest {
             assertBothModes("5&(3|5^3)", 5);
         }
 
-        @Disabled("Compiler does not support BigInteger bitwise operations")
         @Test
         void bigIntegerBitwiseNot() throws Exception {
             assertBothModes("~1h", BigInteger.valueOf(~1));
         }
 
-        @Disabled("Compiler does not support BigInteger bitwise operations")
         @Test
         void bigIntegerLeftShift() throws Exception {
             assertBothModes("5h<<2", BigInteger.valueOf(20));
         }
 
-        @Disabled("Compiler does not support BigInteger bitwise operations")
         @Test
         void bigIntegerRightShift() throws Exception {
             assertBothModes("5h>>2", BigInteger.valueOf(1));
@@ -1835,4 +1904,87 @@ class DualModeEvaluationTest {
             assertSetThenGetBothModes("intValue", "50", 50);
         }
     }
+
+    @Nested
+    class ProjectionAndSelection {
+
+        @Test
+        void projection() throws Exception {
+            assertBothModes("settableList.{ #this.length() }", Arrays.asList(3, 3, 3));
+            assertCompiledAsLoop("settableList.{ #this.length() }");
+        }
+
+        @Test
+        void projectionOfPlainProperty() throws Exception {
+            assertBothModes("settableList.{ length() * 2 }", Arrays.asList(6, 6, 6));
+        }
+
+        @Test
+        void selection() throws Exception {
+            assertBothModes("settableList.{? #this.startsWith('b') }", Arrays.asList("bar", "baz"));
+            assertCompiledAsLoop("settableList.{? #this.startsWith('b') }");
+        }
+
+        @Test
+        void selectFirst() throws Exception {
+            assertBothModes("settableList.{^ #this.startsWith('b') }", List.of("bar"));
+            assertBothModes("settableList.{^ #this.startsWith('x') }", List.of());
+        }
+
+        @Test
+        void selectLast() throws Exception {
+            assertBothModes("settableList.{$ length() == 3 }", List.of("baz"));
+        }
+
+        @Test
+        void chainedAfterProjection() throws Exception {
+            assertBothModes("settableList.{ #this.length() }.size()", 3);
+            assertBothModes("settableList.{? #this.startsWith('b') }.size() > 1", Boolean.TRUE);
+            assertCompiledAsLoop("settableList.{ #this.length() }.size()");
+        }
+
+        @Test
+        void loopOverLoop() throws Exception {
+            assertBothModes("settableList.{ #this }.{ #this + 1 }", Arrays.asList("foo1", "bar1", "baz1"));
+            assertBothModes("settableList.{? #this.startsWith('b') }.{ #this.length() * 2 }", Arrays.asList(6, 6));
+            assertBothModes("settableList.{ #this.length() * 2 }.{? #this > 2 }", Arrays.asList(6, 6, 6));
+            assertBothModes("settableList.{ #this }.{ #this.length() }.size()", 3);
+            assertBothModesMatch("array.{ #this }.{ #this + 1 }");
+            assertBothModesMatch("array.{? #this > 1 }.{ #this * 2 }");
+            assertBothModesMatch("array.{ #this * 2 }.{? #this > 2 }");
+            assertBothModes("settableList.{ #this }.subList(1, 3).{ #this.length() }", Arrays.asList(3, 3));
+            assertCompiledAsLoop("settableList.{ #this }.{ #this + 1 }");
+        }
+
+        @Test
+        void nestedProjection() throws Exception {
+            assertBothModesMatch("settableList.{ #this.toCharArray().{ #this } }");
+        }
+
+        @Test
+        void elementsOfOtherClasses() throws Exception {
+            assertBothModesMatch("list.{ #this }");
+            assertBothModesMatch("list.{? #this != null }");
+            assertCompiledAsLoop("list.{ #this }");
+        }
+
+        @Test
+        void primitiveArraySource() throws Exception {
+            assertBothModesMatch("array.{ #this * 2 }");
+            assertBothModesMatch("array.{? #this > 2 }");
+        }
+
+        @Test
+        void rootReferencesInInnerExpression() throws Exception {
+            assertBothModesMatch("settableList.{ #root.settableList.size() }");
+            assertBothModesMatch("settableList.{? #this.equals(settableList[0]) }");
+        }
+
+        private void assertCompiledAsLoop(String expression) throws Exception {
+            Node node = Ognl.compileExpression(freshCompiledContext(), root, expression);
+            boolean loop = Arrays.stream(node.getAccessor().getClass().getDeclaredMethods())
+                    .anyMatch(method -> method.getName().startsWith("ref"));
+            assertEquals(true, loop, "Not compiled as a loop: " + expression);
+        }
+    }
 }
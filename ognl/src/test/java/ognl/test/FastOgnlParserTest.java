@@ -0,0 +1,154 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ognl.test;
+
+import ognl.ASTChain;
+import ognl.ASTConst;
+import ognl.ASTCtor;
+import ognl.ASTMethod;
+import ognl.ASTProperty;
+import ognl.FastOgnlParser;
+import ognl.Node;
+import ognl.OgnlParser;
+import ognl.ParseException;
+import ognl.TokenMgrError;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.StringReader;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Checks that {@link FastOgnlParser} builds the same trees as the JavaCC generated {@link OgnlParser}.
+ */
+class FastOgnlParserTest {
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            // literals
+            "1", "0", "017", "0x1F", "0XffL", "12L", "123h", "1.5", ".5", "5.", "1e10", "1.5E-3", "2f", "3d", "1.5B",
+            "10b", "0.0", "08.5", "'a'", "'ab'", "''", "'\\n'", "'\\''", "'\\101'", "'\\7'", "`x`", "`\\t`",
+            "\"\"", "\"string\"", "\"tab\\tnew\\nline\"", "\"quote\\\"d\"", "\"octal\\0\\12\\377\"", "\"\\u0041b\"",
+            "true", "false", "null", "#this", "#root", "#var",
+            // operators
+            "1 + 2 * 3", "1 - 2 - 3", "a + b + c - d", "1 * 2 / 3 % 4", "-1", "- -1", "+1", "~5", "!true", "not flag",
+            "a || b || c", "a or b and c", "a && b", "a | b", "a bor b", "a ^ b", "a xor b", "a & b", "a band b",
+            "a == b", "a eq b", "a != b", "a neq b", "a < b", "a lt b", "a > b", "a gt b", "a <= b", "a lte b",
+            "a >= b", "a gte b", "a << 2", "a shl 2", "a >> 2", "a shr 2", "a >>> 2", "a ushr 2",
+            "a in {1, 2}", "a not in {1, 2}", "a ? b : c", "a ? b ? c : d : e", "a = b", "a = b = c",
+            "a, b, c", "(a, b), c", "a = 1, b = 2", "x instanceof String", "x instanceof java.lang.Number",
+            "x instanceof java.or.and.in.Type", "(1 + 2) * 3", "1 + -2", "-a.b", "!a.b",
+            // navigation
+            "name", "a.b.c", "a?.b?.c", "a.b?.c.d", "a[0]", "a[\"key\"]", "a[b[0]].c", "a[^]", "a[|]", "a[$]",
+            "a[*]", "[0]", "a.get(1)", "a.method()", "a.method(1, 2, b)", "method(1).other(#x)", "a.(b + 1)",
+            "a.(#this)", "#this.size()", "#root.name", "#x.y.z", "a(b)", "#fact(5)", "a.{name}", "a.{? #this > 1}",
+            "a.{^ #this > 1}", "a.{$ #this > 1}", "a?.{name}", "a.{name}.{? #this != null}[0]", "a.b(1)[2].c",
+            "map[\"a\"].b", "$name", "a.$b", "array.length",
+            // collections, statics and constructors
+            "{}", "{1}", "{1, 2, 3}", "{a, {b, c}}", "#{}", "#{\"a\" : 1}", "#{\"a\" : 1, \"b\" : 2}", "#{a}",
+            "#@java.util.LinkedHashMap@{\"a\" : 1}", "#@java.util.TreeMap@{}", "@java.lang.Math@PI", "@@PI",
+            "@java.lang.Math@max(1, 2)", "@@max(1, 2)", "@java.lang.System@currentTimeMillis()",
+            "@org.or.and.Type@FIELD", "@java.util.Map$Entry@class", "new java.lang.Object()", "new String(\"a\")",
+            "new java.util.ArrayList(10)", "new int[] {1, 2}", "new int[3]", "new String[] {}",
+            "new org.or.Type()", ":[#this + 1]", "#fact = :[#this <= 1 ? 1 : #this * #fact(#this - 1)], #fact(5)",
+            // whitespace and unicode
+            "  a\t+\r\nb  ", "\u00e4\u00f6\u00fc", "\u4e2d\u6587", "x\u0663"
+    })
+    void shouldBuildTheSameTreeAsJavaCC(String expression) throws ParseException {
+        Node expected = new OgnlParser(new StringReader(expression)).topLevelExpression();
+        Node actual = FastOgnlParser.parse(expression);
+
+        assertSameTree(expected, actual, expression);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "", "a +", "a..b", "(a", "a)", "{1, 2", "a ? b", "a.", "new", "new int", "@@", "#", "#{", "a not b",
+            "a[", "a[1", ":", "a instanceof", "1 2", "a b", "\"unterminated", "'x", "a.{?}", "@java.lang.Math@",
+            "x = ", "\"bad\\q\"", "#thisVar", "#rootVar", "$", "a.$"
+    })
+    void shouldRejectWhatJavaCCRejects(String expression) {
+        Class<? extends Throwable> expected = failure(() -> new OgnlParser(new StringReader(expression)).topLevelExpression());
+        Class<? extends Throwable> actual = failure(() -> FastOgnlParser.parse(expression));
+
+        assertEquals(expected, actual, expression);
+    }
+
+    @Test
+    void shouldReportIntegerLiteralOutOfRangeAsLexicalError() {
+        TokenMgrError error = assertThrows(TokenMgrError.class, () -> FastOgnlParser.parse("2147483648"));
+
+        assertEquals("Integer literal out of range: 2147483648 (For input string: \"2147483648\")", error.getMessage());
+    }
+
+    @Test
+    void shouldParseCharSequences() throws ParseException {
+        Node tree = FastOgnlParser.parse(new StringBuilder("a.b[0]"));
+
+        assertEquals("a.b[0]", tree.toString());
+    }
+
+    private static void assertSameTree(Node expected, Node actual, String expression) {
+        assertSame(expected.getClass(), actual.getClass(), expression);
+        assertEquals(expected.toString(), actual.toString(), expression);
+        assertEquals(expected.jjtGetNumChildren(), actual.jjtGetNumChildren(), expression);
+        if (expected instanceof ASTConst && !(((ASTConst) expected).getValue() instanceof Node)) {
+            Object expectedValue = ((ASTConst) expected).getValue();
+            Object actualValue = ((ASTConst) actual).getValue();
+            assertEquals(expectedValue == null ? null : expectedValue.getClass(),
+                    actualValue == null ? null : actualValue.getClass(), expression);
+            assertEquals(expectedValue, actualValue, expression);
+        }
+        if (expected instanceof ASTChain) {
+            assertEquals(((ASTChain) expected).isNullSafe(), ((ASTChain) actual).isNullSafe(), expression);
+        }
+        if (expected instanceof ASTProperty) {
+            assertEquals(((ASTProperty) expected).isIndexedAccess(), ((ASTProperty) actual).isIndexedAccess(), expression);
+        }
+        if (expected instanceof ASTMethod) {
+            assertEquals(((ASTMethod) expected).getMethodName(), ((ASTMethod) actual).getMethodName(), expression);
+        }
+        if (expected instanceof ASTCtor) {
+            assertEquals(((ASTCtor) expected).isArray(), ((ASTCtor) actual).isArray(), expression);
+        }
+        for (int i = 0; i < expected.jjtGetNumChildren(); i++) {
+            // flattened nodes keep their original parent, in both parsers
+            assertEquals(String.valueOf(expected.jjtGetChild(i).jjtGetParent()),
+                    String.valueOf(actual.jjtGetChild(i).jjtGetParent()), expression);
+            assertSameTree(expected.jjtGetChild(i), actual.jjtGetChild(i), expression);
+        }
+    }
+
+    private static Class<? extends Throwable> failure(ParseAction action) {
+        try {
+            action.parse();
+            return null;
+        } catch (Throwable e) {
+            return e.getClass();
+        }
+    }
+
+    private interface ParseAction {
+        void parse() throws Exception;
+    }
+}
@@ -30,6 +30,7 @@ import org.junit.jupiter.params.provider.ValueSource;
 
 import java.lang.reflect.Member;
 import java.lang.reflect.Method;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
@@ -59,6 +60,55 @@ class MemberAccessTest {
         assertEquals(root.getStringValue(), Ognl.getValue("stringValue", context, root));
     }
 
+    @Test
+    void shouldCacheDecisionsOfCacheablePolicy() throws Exception {
+        CountingMemberAccess memberAccess = new CountingMemberAccess(true);
+        OgnlContext cachingContext = Ognl.createDefaultContext(root, memberAccess);
+
+        assertEquals(root.getStringValue(), Ognl.getValue("stringValue", cachingContext, root));
+        assertThrows(OgnlException.class, () -> Ognl.getValue("bigIntValue", cachingContext, root));
+        int calls = memberAccess.calls.get();
+        for (int i = 0; i < 3; i++) {
+            assertEquals(root.getStringValue(), Ognl.getValue("stringValue", cachingContext, root));
+            assertThrows(OgnlException.class, () -> Ognl.getValue("bigIntValue", cachingContext, root));
+        }
+        assertEquals(calls, memberAccess.calls.get());
+
+        CountingMemberAccess replacement = new CountingMemberAccess(true);
+        Ognl.getValue("stringValue", Ognl.createDefaultContext(root, replacement), root);
+        assertEquals(1, replacement.calls.get());
+    }
+
+    @Test
+    void shouldKeepDecisionsOfPoliciesUsedInTurn() throws Exception {
+        CountingMemberAccess first = new CountingMemberAccess(true);
+        CountingMemberAccess second = new CountingMemberAccess(true);
+        OgnlContext firstContext = Ognl.createDefaultContext(root, first);
+        OgnlContext secondContext = Ognl.createDefaultContext(root, second);
+
+        Ognl.getValue("stringValue", firstContext, root);
+        Ognl.getValue("stringValue", secondContext, root);
+        int firstCalls = first.calls.get();
+        int secondCalls = second.calls.get();
+        for (int i = 0; i < 3; i++) {
+            Ognl.getValue("stringValue", firstContext, root);
+            Ognl.getValue("stringValue", secondContext, root);
+        }
+        assertEquals(firstCalls, first.calls.get());
+        assertEquals(secondCalls, second.calls.get());
+    }
+
+    @Test
+    void shouldAskNonCacheablePolicyOnEveryAccess() throws Exception {
+        CountingMemberAccess memberAccess = new CountingMemberAccess(false);
+        OgnlContext countingContext = Ognl.createDefaultContext(root, memberAccess);
+
+        for (int i = 0; i < 3; i++) {
+            Ognl.getValue("stringValue", countingContext, root);
+        }
+        assertEquals(3, memberAccess.calls.get());
+    }
+
     @BeforeEach
     public void setUp() {
         /* Should allow access at all to the Simple class except for the bigIntValue property */
@@ -87,4 +137,26 @@ class MemberAccessTest {
         root = new Simple();
         context = Ognl.createDefaultContext(root, ma);
     }
+
+    private static class CountingMemberAccess extends DefaultMemberAccess {
+
+        private final boolean cacheable;
+        private final AtomicInteger calls = new AtomicInteger();
+
+        CountingMemberAccess(boolean cacheable) {
+            super(false);
+            this.cacheable = cacheable;
+        }
+
+        @Override
+        public boolean isAccessible(OgnlContext context, Object target, Member member, String propertyName) {
+            calls.incrementAndGet();
+            return !member.getName().equals("getBigIntValue") && super.isAccessible(context, target, member, propertyName);
+        }
+
+        @Override
+        public boolean isCacheable() {
+            return cacheable;
+        }
+    }
 }
@@ -0,0 +1,105 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ognl.test;
+
+import ognl.ASTProperty;
+import ognl.DefaultMemberAccess;
+import ognl.Node;
+import ognl.Ognl;
+import ognl.OgnlContext;
+import ognl.OgnlRuntime;
+import ognl.enhance.ExpressionAccessor;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * Tests that a parsed tree can be shared between threads and compiled for several root types.
+ */
+class SharedTreeTest {
+
+    @Test
+    void compilesSharedTreeForSeveralRootTypes() throws Exception {
+        OgnlContext context = Ognl.createDefaultContext(null, new DefaultMemberAccess(false));
+        Node tree = (Node) Ognl.parseExpression("name");
+        Person person = new Person();
+        Pet pet = new Pet();
+
+        OgnlRuntime.compileExpression(context, tree, person);
+        OgnlRuntime.compileExpression(context, tree, pet);
+
+        ExpressionAccessor personAccessor = tree.getAccessor(Person.class);
+        ExpressionAccessor petAccessor = tree.getAccessor(Pet.class);
+        assertNotNull(personAccessor);
+        assertNotNull(petAccessor);
+        assertNotSame(personAccessor, petAccessor);
+        assertSame(personAccessor, tree.getAccessor());
+
+        assertEquals("person", Ognl.getValue(tree, context, person));
+        assertEquals("pet", Ognl.getValue(tree, context, pet));
+
+        // compilation works on a private copy, the shared tree does not record any type
+        assertNull(((ASTProperty) tree).getGetterClass());
+    }
+
+    @Test
+    void evaluatesSharedTreeConcurrently() throws Exception {
+        Object tree = Ognl.parseExpression("#a + 2 * 3");
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Object>> results = new ArrayList<>();
+            for (int i = 0; i < 64; i++) {
+                int a = i;
+                results.add(executor.submit(() -> {
+                    OgnlContext context = Ognl.createDefaultContext(null, new DefaultMemberAccess(false));
+                    context.put("a", a);
+                    return Ognl.getValue(tree, context, (Object) null);
+                }));
+            }
+            for (int i = 0; i < results.size(); i++) {
+                assertEquals(i + 6, results.get(i).get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    public static class Person {
+        public String getName() {
+            return "person";
+        }
+    }
+
+    public static class Pet {
+        public String getName() {
+            return "pet";
+        }
+    }
+
+}